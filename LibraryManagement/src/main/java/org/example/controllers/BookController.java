@@ -1,8 +1,16 @@
 package org.example.controllers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.example.models.BookEntity;
+import org.example.services.advanced.BookImportService;
+import org.example.services.advanced.BookImportService.ImportProgress;
+import org.example.services.advanced.BookImportService.ProgressListener;
 import org.example.services.basics.BookService;
+import org.example.utils.Page;
 
 /**
  * Lớp điều khiển (Controller) quản lý các chức năng liên quan đến sách. Lớp này giúp xử lý các yêu
@@ -79,6 +87,16 @@ public class BookController {
     return bookService.getBookById(bookId);
   }
 
+  /**
+   * Lấy thông tin sách theo ID sách mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách cần lấy thông tin.
+   * @return Đối tượng BookEntity, hoặc null nếu không có.
+   */
+  public CompletableFuture<BookEntity> getBookByIdAsync(int bookId) {
+    return bookService.getBookByIdAsync(bookId);
+  }
+
   /**
    * Lấy thông tin sách theo mã ISBN.
    *
@@ -89,6 +107,16 @@ public class BookController {
     return bookService.getBookByIsbn(isbn);
   }
 
+  /**
+   * Lấy thông tin sách theo mã ISBN mà không chặn luồng gọi.
+   *
+   * @param isbn Mã ISBN của sách cần lấy thông tin.
+   * @return Đối tượng BookEntity, hoặc null nếu không có.
+   */
+  public CompletableFuture<BookEntity> getBookByIsbnAsync(String isbn) {
+    return bookService.getBookByIsbnAsync(isbn);
+  }
+
   /**
    * Lấy danh sách sách theo tiêu đề.
    *
@@ -99,6 +127,16 @@ public class BookController {
     return bookService.getBooksByTitle(title);
   }
 
+  /**
+   * Lấy danh sách sách theo tiêu đề mà không chặn luồng gọi.
+   *
+   * @param title Tiêu đề của sách cần tìm.
+   * @return Danh sách các cuốn sách tìm được.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByTitleAsync(String title) {
+    return bookService.getBooksByTitleAsync(title);
+  }
+
   /**
    * Lấy danh sách sách theo tên tác giả.
    *
@@ -109,6 +147,16 @@ public class BookController {
     return bookService.getBooksByAuthor(authorName);
   }
 
+  /**
+   * Lấy danh sách sách theo tên tác giả mà không chặn luồng gọi.
+   *
+   * @param authorName Tên tác giả của sách cần tìm.
+   * @return Danh sách các cuốn sách tìm được.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByAuthorAsync(String authorName) {
+    return bookService.getBooksByAuthorAsync(authorName);
+  }
+
   /**
    * Lấy danh sách sách theo thể loại.
    *
@@ -119,6 +167,16 @@ public class BookController {
     return bookService.getBooksByGenre(genre);
   }
 
+  /**
+   * Lấy danh sách sách theo thể loại mà không chặn luồng gọi.
+   *
+   * @param genre Thể loại của sách cần tìm.
+   * @return Danh sách các cuốn sách tìm được.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByGenreAsync(String genre) {
+    return bookService.getBooksByGenreAsync(genre);
+  }
+
   /**
    * Lấy danh sách sách theo tên nhà xuất bản.
    *
@@ -129,6 +187,16 @@ public class BookController {
     return bookService.getBooksByPublisher(publisherName);
   }
 
+  /**
+   * Lấy danh sách sách theo tên nhà xuất bản mà không chặn luồng gọi.
+   *
+   * @param publisherName Tên nhà xuất bản của sách cần tìm.
+   * @return Danh sách các cuốn sách tìm được.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByPublisherAsync(String publisherName) {
+    return bookService.getBooksByPublisherAsync(publisherName);
+  }
+
   /**
    * Lấy tất cả sách trong hệ thống.
    *
@@ -137,4 +205,50 @@ public class BookController {
   public List<BookEntity> getAllBooks() {
     return bookService.getAllBooks();
   }
+
+  /**
+   * Lấy tất cả sách trong hệ thống mà không chặn luồng gọi.
+   *
+   * @return Danh sách tất cả các cuốn sách.
+   */
+  public CompletableFuture<List<BookEntity>> getAllBooksAsync() {
+    return bookService.getAllBooksAsync();
+  }
+
+  /**
+   * Xuất toàn bộ danh mục sách ra file CSV.
+   *
+   * @param file Đường dẫn file CSV cần ghi.
+   * @return Số sách đã xuất, hoặc -1 nếu có lỗi.
+   */
+  public long exportBooksToCsv(Path file) {
+    return bookService.exportBooksToCsv(file);
+  }
+
+  /**
+   * Lấy một trang sách trong hệ thống.
+   *
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số sách tối đa mỗi trang.
+   * @return Trang sách kèm token của trang tiếp theo.
+   */
+  public Page<BookEntity> getBooksPage(String pageToken, int pageSize) {
+    return bookService.getBooksPage(pageToken, pageSize);
+  }
+
+  /**
+   * Nhập sách hàng loạt từ file CSV hoặc JSON-lines.
+   *
+   * @param file File cần nhập.
+   * @param listener Nhận tiến độ sau mỗi lô, có thể null.
+   * @return Kết quả nhập, hoặc null nếu có lỗi.
+   */
+  public ImportProgress importBooks(Path file, ProgressListener listener) {
+    try {
+      return new BookImportService().importFile(file, listener);
+    } catch (IOException | SQLException | SecurityException e) {
+      System.out.println("Lỗi khi nhập sách: " + e.getMessage());
+      return null;
+    }
+  }
 }
@@ -2,7 +2,9 @@ package org.example.controllers;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.example.models.BorrowedBookEntity;
+import org.example.models.BorrowedBookRow;
 import org.example.services.basics.BorrowedBookService;
 
 /**
@@ -35,6 +37,19 @@ public class BorrowedBookController {
     return borrowedBookService.borrowBook(borrowedBookId, borrowDate, returnDate);
   }
 
+  /**
+   * Ghi nhận việc mượn sách mà không chặn luồng gọi.
+   *
+   * @param borrowedBookId ID của sách mượn.
+   * @param borrowDate Thời gian mượn sách.
+   * @param returnDate Hạn trả sách.
+   * @return Trả về true nếu mượn sách thành công, false nếu thất bại.
+   */
+  public CompletableFuture<Boolean> borrowBookAsync(
+      int borrowedBookId, LocalDate borrowDate, LocalDate returnDate) {
+    return borrowedBookService.borrowBookAsync(borrowedBookId, borrowDate, returnDate);
+  }
+
   /**
    * Ghi nhận việc trả sách.
    *
@@ -45,6 +60,16 @@ public class BorrowedBookController {
     return borrowedBookService.returnBook(borrowedBookId);
   }
 
+  /**
+   * Ghi nhận việc trả sách mà không chặn luồng gọi.
+   *
+   * @param borrowedBookId ID của sách đã mượn.
+   * @return Trả về true nếu trả sách thành công, false nếu thất bại.
+   */
+  public CompletableFuture<Boolean> returnBookAsync(int borrowedBookId) {
+    return borrowedBookService.returnBookAsync(borrowedBookId);
+  }
+
   /**
    * Lấy danh sách các sách chưa trả của người dùng.
    *
@@ -54,6 +79,15 @@ public class BorrowedBookController {
     return borrowedBookService.getNotReturnedBooksByUser();
   }
 
+  /**
+   * Lấy danh sách các sách chưa trả của người dùng mà không chặn luồng gọi.
+   *
+   * @return Danh sách các sách chưa trả của người dùng.
+   */
+  public CompletableFuture<List<BorrowedBookEntity>> getNotReturnedBooksByUserAsync() {
+    return borrowedBookService.getNotReturnedBooksByUserAsync();
+  }
+
   /**
    * Lấy danh sách các sách mượn của người dùng trong khoảng thời gian nhất định.
    *
@@ -75,4 +109,23 @@ public class BorrowedBookController {
   public int getBorrowedBooksCountByUser() {
     return borrowedBookService.getBorrowedBooksCountByUser();
   }
+
+  /**
+   * Lấy số lượng sách đã mượn của người dùng mà không chặn luồng gọi.
+   *
+   * @return Số lượng sách đã mượn của người dùng.
+   */
+  public CompletableFuture<Integer> getBorrowedBooksCountByUserAsync() {
+    return borrowedBookService.getBorrowedBooksCountByUserAsync();
+  }
+
+  /**
+   * Lấy các dòng hiển thị sách đã mượn của người dùng (kèm tiêu đề, tác giả) mà không chặn luồng
+   * gọi.
+   *
+   * @return Các dòng hiển thị sách đã mượn.
+   */
+  public CompletableFuture<List<BorrowedBookRow>> getBorrowedBookRowsAsync() {
+    return borrowedBookService.getBorrowedBookRowsByUserAsync();
+  }
 }
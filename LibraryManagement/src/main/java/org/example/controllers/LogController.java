@@ -1,9 +1,12 @@
 package org.example.controllers;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.example.models.LogEntity;
 import org.example.services.basics.LogService;
+import org.example.utils.Page;
 
 /**
  * Lớp điều khiển (Controller) quản lý các chức năng liên quan đến việc lấy thông tin các log. Các
@@ -32,6 +35,15 @@ public class LogController {
     return logService.getAllLogs();
   }
 
+  /**
+   * Lấy tất cả các log mà không chặn luồng gọi.
+   *
+   * @return Danh sách tất cả các log.
+   */
+  public CompletableFuture<List<LogEntity>> getAllLogsAsync() {
+    return logService.getAllLogsAsync();
+  }
+
   /**
    * Lấy log theo ID.
    *
@@ -52,6 +64,16 @@ public class LogController {
     return logService.getLogsByUserName(userName);
   }
 
+  /**
+   * Lấy log theo tên người dùng mà không chặn luồng gọi.
+   *
+   * @param userName Tên người dùng mà bạn muốn tìm log.
+   * @return Danh sách log của người dùng với tên userName.
+   */
+  public CompletableFuture<List<LogEntity>> getLogsByUserNameAsync(String userName) {
+    return logService.getLogsByUserNameAsync(userName);
+  }
+
   /**
    * Lấy log trong một khoảng thời gian nhất định.
    *
@@ -62,4 +84,25 @@ public class LogController {
   public List<LogEntity> getLogsByTimeRange(LocalDateTime startDate, LocalDateTime endDate) {
     return logService.getLogsByTimeRange(startDate, endDate);
   }
+
+  /**
+   * Xuất toàn bộ log ra file CSV.
+   *
+   * @param file Đường dẫn file CSV cần ghi.
+   * @return Số log đã xuất, hoặc -1 nếu có lỗi.
+   */
+  public long exportLogsToCsv(Path file) {
+    return logService.exportLogsToCsv(file);
+  }
+
+  /**
+   * Lấy một trang log, log mới nhất trước.
+   *
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số log tối đa mỗi trang.
+   * @return Trang log kèm token của trang tiếp theo.
+   */
+  public Page<LogEntity> getLogsPage(String pageToken, int pageSize) {
+    return logService.getLogsPage(pageToken, pageSize);
+  }
 }
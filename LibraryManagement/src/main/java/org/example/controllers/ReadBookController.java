@@ -1,7 +1,9 @@
 package org.example.controllers;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.example.models.ReadBookEntity;
+import org.example.models.ReadBookRow;
 import org.example.services.basics.ReadBookService;
 
 /**
@@ -42,6 +44,25 @@ public class ReadBookController {
     return readBookService.getReadBooksByUser();
   }
 
+  /**
+   * Lấy danh sách tất cả các cuốn sách mà người dùng đã đọc mà không chặn luồng gọi.
+   *
+   * @return Danh sách các sách đã đọc của người dùng.
+   */
+  public CompletableFuture<List<ReadBookEntity>> getAllReadBooksAsync() {
+    return readBookService.getReadBooksByUserAsync();
+  }
+
+  /**
+   * Lấy các dòng hiển thị sách đã đọc của người dùng (kèm tiêu đề, tác giả) mà không chặn luồng
+   * gọi.
+   *
+   * @return Các dòng hiển thị sách đã đọc.
+   */
+  public CompletableFuture<List<ReadBookRow>> getReadBookRowsAsync() {
+    return readBookService.getReadBookRowsByUserAsync();
+  }
+
   /**
    * Kiểm tra xem một cuốn sách có được đánh dấu là đã đọc hay không.
    *
@@ -52,6 +73,16 @@ public class ReadBookController {
     return readBookService.isBookRead(readBookId);
   }
 
+  /**
+   * Kiểm tra xem một cuốn sách có được đánh dấu là đã đọc hay không mà không chặn luồng gọi.
+   *
+   * @param readBookId ID của cuốn sách cần kiểm tra.
+   * @return Trả về true nếu sách đã được đánh dấu là đã đọc, false nếu chưa.
+   */
+  public CompletableFuture<Boolean> checkIfBookIsReadAsync(int readBookId) {
+    return readBookService.isBookReadAsync(readBookId);
+  }
+
   /**
    * Xóa đánh dấu "đã đọc" của một cuốn sách.
    *
@@ -1,8 +1,10 @@
 package org.example.controllers;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.example.models.ReviewEntity;
 import org.example.services.basics.ReviewService;
+import org.example.utils.Page;
 
 /**
  * Lớp điều khiển (Controller) quản lý các chức năng liên quan đến việc đánh giá sách, bao gồm thêm
@@ -45,6 +47,28 @@ public class ReviewController {
     return reviewService.getReviewsByBookId(bookId);
   }
 
+  /**
+   * Lấy danh sách các đánh giá của một cuốn sách cụ thể mà không chặn luồng gọi.
+   *
+   * @param bookId ID của cuốn sách mà người dùng muốn xem các đánh giá.
+   * @return Danh sách các đánh giá của cuốn sách.
+   */
+  public CompletableFuture<List<ReviewEntity>> getReviewsByBookIdAsync(int bookId) {
+    return reviewService.getReviewsByBookIdAsync(bookId);
+  }
+
+  /**
+   * Lấy một trang đánh giá của một cuốn sách cụ thể.
+   *
+   * @param bookId ID của cuốn sách.
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số đánh giá tối đa mỗi trang.
+   * @return Trang đánh giá kèm token của trang tiếp theo.
+   */
+  public Page<ReviewEntity> getReviewsPageByBookId(int bookId, String pageToken, int pageSize) {
+    return reviewService.getReviewsPageByBookId(bookId, pageToken, pageSize);
+  }
+
   /**
    * Lấy danh sách các đánh giá của người dùng.
    *
@@ -87,6 +111,16 @@ public class ReviewController {
     return reviewService.getAverageRatingByIsbn(isbn);
   }
 
+  /**
+   * Lấy điểm đánh giá trung bình theo ISBN mà không chặn luồng gọi.
+   *
+   * @param isbn ISBN của sách muốn lấy điểm đánh giá.
+   * @return điểm trung bình.
+   */
+  public CompletableFuture<Double> getAverageRatingByIsbnAsync(String isbn) {
+    return reviewService.getAverageRatingByIsbnAsync(isbn);
+  }
+
   /**
    * Lấy điểm đánh giá trung bình theo ID.
    *
@@ -96,4 +130,14 @@ public class ReviewController {
   public Double getAverageRatingById(int bookId) {
     return reviewService.getAverageRatingById(bookId);
   }
+
+  /**
+   * Lấy điểm đánh giá trung bình theo ID mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách muốn lấy điểm đánh giá.
+   * @return điểm trung bình.
+   */
+  public CompletableFuture<Double> getAverageRatingByIdAsync(int bookId) {
+    return reviewService.getAverageRatingByIdAsync(bookId);
+  }
 }
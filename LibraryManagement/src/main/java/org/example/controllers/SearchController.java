@@ -1,6 +1,9 @@
 package org.example.controllers;
 
 import java.util.List;
+import java.util.Set;
+import org.example.models.BookField;
+import org.example.services.advanced.FacetedSearchEngine.SearchResult;
 import org.example.services.advanced.SearchService;
 
 /**
@@ -63,4 +66,16 @@ public class SearchController {
   public List<String> searchTitlesByKeyword(String keyword) {
     return searchService.searchTitlesByKeyword(keyword);
   }
+
+  /**
+   * Tìm kiếm đồng thời trên nhiều trường, kèm số sách của mỗi giá trị tìm được.
+   *
+   * @param fields Các trường cần tìm.
+   * @param keyword Từ khóa tìm kiếm mà người dùng nhập vào.
+   * @param limit Số giá trị tối đa mỗi trường.
+   * @return Kết quả theo từng trường, hoặc null nếu có lỗi.
+   */
+  public SearchResult searchFacets(Set<BookField> fields, String keyword, int limit) {
+    return searchService.searchFacets(fields, keyword, limit);
+  }
 }
@@ -1,7 +1,9 @@
 package org.example.controllers;
 
+import java.util.concurrent.CompletableFuture;
 import org.example.models.UserEntity;
 import org.example.services.basics.UserService;
+import org.example.utils.Page;
 
 /**
  * Lớp Controller chịu trách nhiệm xử lý các hành động liên quan đến người dùng như đăng ký, đăng
@@ -103,4 +105,24 @@ public class UserController {
   public UserEntity getUserInfo() {
     return userService.getUserInfo();
   }
+
+  /**
+   * Lấy thông tin người dùng đang đăng nhập mà không chặn luồng gọi.
+   *
+   * @return Thông tin người dùng.
+   */
+  public CompletableFuture<UserEntity> getUserInfoAsync() {
+    return userService.getUserInfoAsync();
+  }
+
+  /**
+   * Lấy một trang danh sách người dùng (chỉ dành cho quản trị viên).
+   *
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số người dùng tối đa mỗi trang.
+   * @return Trang người dùng kèm token của trang tiếp theo.
+   */
+  public Page<UserEntity> getUsersPage(String pageToken, int pageSize) {
+    return userService.getUsersPage(pageToken, pageSize);
+  }
 }
@@ -0,0 +1,503 @@
+package org.example.daos.implementations;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.example.daos.interfaces.LogDao;
+import org.example.models.LogEntity;
+import org.example.utils.CsvUtils;
+import org.example.utils.RingBufferQueue;
+
+/**
+ * LogDao ghi log bất đồng bộ (write-behind): {@link #addLog(LogEntity)} chỉ đưa log vào một hàng
+ * đợi không khóa rồi trả về ngay, một luồng nền gom log thành từng lô và ghi bằng các câu lệnh
+ * INSERT nhiều dòng qua {@link LogDao#addLogs(List)} của DAO bên dưới.
+ *
+ * <p>Khi hàng đợi đầy, log được xử lý theo {@link OverflowPolicy}. Lô ghi thất bại do mất kết nối
+ * hoặc lỗi tạm thời được ghi tạm ra file (spill) và được ghi lại vào cơ sở dữ liệu ở các lần flush
+ * sau. Lô bị từ chối vì dữ liệu (ví dụ log không có người dùng, vi phạm NOT NULL hoặc khóa ngoại)
+ * được ghi lại từng dòng, chỉ các dòng bị từ chối được chuyển sang file log lỗi (dead-letter) và
+ * không bao giờ được thử lại. Các phương thức đọc flush hàng đợi trước khi truy vấn nên luôn thấy
+ * các log đã thêm. Khi ứng dụng dừng, các log còn lại được flush bằng shutdown hook.
+ *
+ * <p>Cấu hình qua system property: {@code library.log.queueCapacity}, {@code
+ * library.log.batchSize}, {@code library.log.flushIntervalMs}, {@code library.log.overflow}
+ * ({@code block}, {@code drop} hoặc {@code spill}), {@code library.log.spillFile} và {@code
+ * library.log.deadLetterFile}.
+ */
+public class AsyncLogDao implements LogDao, AutoCloseable {
+
+  /** Cách xử lý khi hàng đợi đầy. */
+  public enum OverflowPolicy {
+    // Chờ tới khi hàng đợi có chỗ trống
+    BLOCK,
+    // Bỏ log và tăng bộ đếm dropped
+    DROP,
+    // Ghi log ra file tạm, được ghi vào cơ sở dữ liệu sau
+    SPILL
+  }
+
+  /**
+   * Các chỉ số của bộ ghi log.
+   *
+   * @param enqueued Số log đã đưa vào hàng đợi.
+   * @param written Số log đã ghi vào cơ sở dữ liệu.
+   * @param dropped Số log bị bỏ do hàng đợi đầy.
+   * @param spilled Số log đã ghi ra file tạm.
+   * @param rejected Số log bị cơ sở dữ liệu từ chối và đã chuyển sang file log lỗi.
+   * @param batches Số lô đã ghi.
+   * @param failures Số lần ghi lô thất bại.
+   * @param queued Số log đang chờ trong hàng đợi.
+   */
+  public record Stats(long enqueued, long written, long dropped, long spilled, long rejected,
+      long batches, long failures, int queued) {}
+
+  // Thời gian chờ trước khi thử ghi lại file tạm sau một lần ghi thất bại
+  private static final long REPLAY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  // Thời gian chờ tối đa cho luồng nền khi đóng
+  private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+  private static volatile AsyncLogDao instance;
+
+  private final LogDao delegate;
+  private final RingBufferQueue<LogEntity> queue;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final OverflowPolicy overflowPolicy;
+  private final Path spillFile;
+  private final Path deadLetterFile;
+
+  // Được gán bởi start() ngay sau khi tạo, trước khi đối tượng được trả cho bên ngoài
+  private Thread flusher;
+  private volatile boolean running = true;
+
+  // Luồng nền đang chờ, khi đó bên gửi cần đánh thức nó nếu hàng đợi đã đủ một lô
+  private volatile boolean flusherIdle;
+
+  // Chỉ một luồng được lấy log ra khỏi hàng đợi tại một thời điểm
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final Object spillLock = new Object();
+  private volatile boolean spillPending;
+  private long nextReplayNanos;
+
+  private final AtomicLong enqueued = new AtomicLong();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong spilled = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  private AsyncLogDao(LogDao delegate, int queueCapacity, int batchSize, long flushIntervalMillis,
+      OverflowPolicy overflowPolicy, Path spillFile, Path deadLetterFile) {
+    this.delegate = delegate;
+    this.queue = new RingBufferQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.overflowPolicy = overflowPolicy;
+    this.spillFile = spillFile;
+    this.deadLetterFile = deadLetterFile;
+    this.spillPending = Files.exists(spillFile);
+    this.nextReplayNanos = System.nanoTime();
+  }
+
+  /**
+   * Tạo bộ ghi log và khởi động luồng nền. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param delegate DAO ghi log vào cơ sở dữ liệu.
+   * @param queueCapacity Sức chứa của hàng đợi.
+   * @param batchSize Số log tối đa trong một lô.
+   * @param flushIntervalMillis Thời gian tối đa một log nằm trong hàng đợi.
+   * @param overflowPolicy Cách xử lý khi hàng đợi đầy.
+   * @param spillFile File tạm chứa log chưa ghi được, sẽ được ghi lại sau.
+   * @param deadLetterFile File chứa log bị cơ sở dữ liệu từ chối, không được ghi lại.
+   * @return Bộ ghi log đang chạy.
+   */
+  public static AsyncLogDao start(LogDao delegate, int queueCapacity, int batchSize,
+      long flushIntervalMillis, OverflowPolicy overflowPolicy, Path spillFile,
+      Path deadLetterFile) {
+    AsyncLogDao logDao = new AsyncLogDao(delegate, queueCapacity, batchSize, flushIntervalMillis,
+        overflowPolicy, spillFile, deadLetterFile);
+    // Khởi động sau khi hàm khởi tạo kết thúc để luồng nền chỉ thấy đối tượng đã tạo xong
+    logDao.flusher = new Thread(logDao::runFlusher, "log-flusher");
+    logDao.flusher.setDaemon(true);
+    logDao.flusher.start();
+    return logDao;
+  }
+
+  /**
+   * Lấy bộ ghi log dùng chung của ứng dụng, cấu hình theo system property.
+   *
+   * @return Thể hiện duy nhất của AsyncLogDao.
+   */
+  public static AsyncLogDao getInstance() {
+    AsyncLogDao current = instance;
+    if (current == null) {
+      synchronized (AsyncLogDao.class) {
+        current = instance;
+        if (current == null) {
+          current =
+              start(
+                  new LogDaoImpl(),
+                  Integer.getInteger("library.log.queueCapacity", 8192),
+                  Integer.getInteger("library.log.batchSize", 256),
+                  Long.getLong("library.log.flushIntervalMs", 200),
+                  OverflowPolicy.valueOf(
+                      System.getProperty("library.log.overflow", "spill")
+                          .trim()
+                          .toUpperCase(Locale.ROOT)),
+                  Paths.get(System.getProperty("library.log.spillFile", "library-log-spill.csv")),
+                  Paths.get(
+                      System.getProperty(
+                          "library.log.deadLetterFile", "library-log-rejected.csv")));
+          AsyncLogDao created = current;
+          Runtime.getRuntime().addShutdownHook(new Thread(created::close, "log-flush-shutdown"));
+          instance = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Đưa log vào hàng đợi và trả về ngay, không truy cập cơ sở dữ liệu.
+   *
+   * @param log Log cần thêm.
+   */
+  @Override
+  public void addLog(LogEntity log) {
+    if (!queue.offer(log)) {
+      overflow(log);
+    } else if (flusherIdle && queue.size() >= batchSize) {
+      // Đủ một lô, đánh thức luồng nền thay vì chờ hết chu kỳ
+      flusherIdle = false;
+      LockSupport.unpark(flusher);
+    }
+    enqueued.incrementAndGet();
+  }
+
+  /**
+   * Đưa nhiều log vào hàng đợi.
+   *
+   * @param logs Danh sách log cần thêm.
+   */
+  @Override
+  public void addLogs(List<LogEntity> logs) {
+    for (LogEntity log : logs) {
+      addLog(log);
+    }
+  }
+
+  /**
+   * Ghi ngay mọi log đang chờ trong hàng đợi và trong file tạm.
+   */
+  public void flush() {
+    flushLock.lock();
+    try {
+      drainQueue();
+      if (spillPending) {
+        replaySpill();
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Dừng luồng nền và ghi các log còn lại. Log không ghi được vào cơ sở dữ liệu được giữ trong
+   * file tạm cho lần chạy sau.
+   */
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(flusher);
+    try {
+      flusher.join(CLOSE_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flushLock.lock();
+    try {
+      drainQueue();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Lấy các chỉ số hiện tại.
+   *
+   * @return Ảnh chụp các chỉ số.
+   */
+  public Stats getStats() {
+    return new Stats(enqueued.get(), written.get(), dropped.get(), spilled.get(), rejected.get(),
+        batches.get(), failures.get(), queue.size());
+  }
+
+  @Override
+  public List<LogEntity> findAllLogs() throws SQLException {
+    flush();
+    return delegate.findAllLogs();
+  }
+
+  @Override
+  public Stream<LogEntity> streamAllLogs() throws SQLException {
+    flush();
+    return delegate.streamAllLogs();
+  }
+
+  @Override
+  public List<LogEntity> findLogsBeforeId(int beforeLogId, int limit) throws SQLException {
+    flush();
+    return delegate.findLogsBeforeId(beforeLogId, limit);
+  }
+
+  @Override
+  public LogEntity findLogById(int logId) throws SQLException {
+    flush();
+    return delegate.findLogById(logId);
+  }
+
+  @Override
+  public List<LogEntity> findLogsByUserName(String userName) throws SQLException {
+    flush();
+    return delegate.findLogsByUserName(userName);
+  }
+
+  @Override
+  public List<LogEntity> findLogsByTimeRange(LocalDateTime startDate, LocalDateTime endDate)
+      throws SQLException {
+    flush();
+    return delegate.findLogsByTimeRange(startDate, endDate);
+  }
+
+  private void overflow(LogEntity log) {
+    switch (overflowPolicy) {
+      case BLOCK -> {
+        while (!queue.offer(log)) {
+          LockSupport.unpark(flusher);
+          LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+      }
+      case DROP -> dropped.incrementAndGet();
+      case SPILL -> spill(List.of(log));
+      default -> throw new IllegalStateException("Chính sách không hợp lệ: " + overflowPolicy);
+    }
+  }
+
+  private void runFlusher() {
+    while (running) {
+      flusherIdle = true;
+      // Kiểm tra lại sau khi đặt cờ để không bỏ lỡ lần đánh thức xảy ra ngay trước đó
+      if (queue.size() < batchSize) {
+        LockSupport.parkNanos(this, flushIntervalNanos);
+      }
+      flusherIdle = false;
+      try {
+        flush();
+      } catch (RuntimeException e) {
+        // Không để luồng nền dừng vì một lỗi bất ngờ
+        System.out.println("Lỗi khi ghi log: " + e.getMessage());
+      }
+    }
+  }
+
+  // Gọi khi đang giữ flushLock
+  private void drainQueue() {
+    List<LogEntity> batch = new ArrayList<>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      List<LogEntity> pending = write(batch);
+      if (!pending.isEmpty()) {
+        spill(pending);
+        nextReplayNanos = System.nanoTime() + REPLAY_BACKOFF_NANOS;
+      }
+      batch.clear();
+    }
+  }
+
+  // Ghi một lô. Log bị cơ sở dữ liệu từ chối được chuyển sang file log lỗi; trả về phần log chưa
+  // ghi được vì lỗi kết nối hoặc lỗi tạm thời (một view của lô, cần dùng trước khi lô bị sửa)
+  private List<LogEntity> write(List<LogEntity> batch) {
+    try {
+      delegate.addLogs(batch);
+      written.addAndGet(batch.size());
+      batches.incrementAndGet();
+      return List.of();
+    } catch (SQLException e) {
+      failures.incrementAndGet();
+      System.out.println("Lỗi khi ghi log: " + e.getMessage());
+      if (isTransient(e)) {
+        return batch;
+      }
+    }
+    // Một dòng lỗi làm hỏng cả câu INSERT nhiều dòng: ghi lại từng dòng để chỉ loại dòng lỗi
+    for (int i = 0; i < batch.size(); i++) {
+      LogEntity log = batch.get(i);
+      try {
+        delegate.addLogs(List.of(log));
+        written.incrementAndGet();
+      } catch (SQLException e) {
+        if (isTransient(e)) {
+          return batch.subList(i, batch.size());
+        }
+        deadLetter(log, e);
+      }
+    }
+    batches.incrementAndGet();
+    return List.of();
+  }
+
+  // Lỗi kết nối, lỗi tạm thời (deadlock, hết thời gian chờ khóa) hoặc không rõ nguyên nhân: ghi
+  // lại sau có thể thành công. Các lỗi còn lại (ràng buộc, dữ liệu) sẽ lặp lại ở mọi lần thử
+  private static boolean isTransient(SQLException e) {
+    if (e instanceof SQLTransientException
+        || e instanceof SQLRecoverableException
+        || e instanceof SQLNonTransientConnectionException) {
+      return true;
+    }
+    String state = e.getSQLState();
+    return state == null
+        || state.startsWith("08")
+        || state.startsWith("40")
+        || state.startsWith("HYT");
+  }
+
+  private void spill(List<LogEntity> logs) {
+    synchronized (spillLock) {
+      try {
+        writeLogs(spillFile, logs, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        spilled.addAndGet(logs.size());
+        spillPending = true;
+      } catch (IOException e) {
+        dropped.addAndGet(logs.size());
+        System.out.println("Lỗi khi ghi file log tạm: " + e.getMessage());
+      }
+    }
+  }
+
+  private void deadLetter(LogEntity log, SQLException cause) {
+    rejected.incrementAndGet();
+    System.out.println("Log bị từ chối: " + cause.getMessage());
+    synchronized (spillLock) {
+      try (BufferedWriter writer =
+          Files.newBufferedWriter(
+              deadLetterFile,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND)) {
+        List<String> record = new ArrayList<>(toRecord(log));
+        record.add(String.valueOf(cause.getMessage()));
+        writer.write(CsvUtils.toLine(record));
+        writer.newLine();
+      } catch (IOException e) {
+        System.out.println("Lỗi khi ghi file log lỗi: " + e.getMessage());
+      }
+    }
+  }
+
+  // Đọc lại file tạm và ghi vào cơ sở dữ liệu, gọi khi đang giữ flushLock. File chỉ được thay thế
+  // (nguyên tử) sau khi ghi xong, nên nếu ứng dụng dừng giữa chừng thì log không bị mất mà chỉ có
+  // thể bị ghi lặp ở lần chạy sau
+  private void replaySpill() {
+    if (System.nanoTime() - nextReplayNanos < 0) {
+      return;
+    }
+    List<LogEntity> logs;
+    synchronized (spillLock) {
+      try {
+        logs = readLogs(spillFile);
+      } catch (IOException | RuntimeException e) {
+        System.out.println("Lỗi khi đọc file log tạm: " + e.getMessage());
+        nextReplayNanos = System.nanoTime() + REPLAY_BACKOFF_NANOS;
+        return;
+      }
+    }
+    List<LogEntity> retained = new ArrayList<>();
+    for (int from = 0; from < logs.size(); from += batchSize) {
+      int to = Math.min(logs.size(), from + batchSize);
+      List<LogEntity> pending = write(logs.subList(from, to));
+      if (!pending.isEmpty()) {
+        // Cơ sở dữ liệu chưa sẵn sàng: giữ phần còn lại cho lần sau
+        retained.addAll(pending);
+        retained.addAll(logs.subList(to, logs.size()));
+        nextReplayNanos = System.nanoTime() + REPLAY_BACKOFF_NANOS;
+        break;
+      }
+    }
+    synchronized (spillLock) {
+      try {
+        // Giữ cả các log được ghi thêm vào file trong lúc đang ghi lại
+        List<LogEntity> current = readLogs(spillFile);
+        retained.addAll(current.subList(Math.min(logs.size(), current.size()), current.size()));
+        if (retained.isEmpty()) {
+          Files.deleteIfExists(spillFile);
+          spillPending = false;
+        } else {
+          Path temp = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+          writeLogs(temp, retained, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+          Files.move(temp, spillFile, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        }
+      } catch (IOException | RuntimeException e) {
+        System.out.println("Lỗi khi cập nhật file log tạm: " + e.getMessage());
+      }
+    }
+  }
+
+  private static List<String> toRecord(LogEntity log) {
+    return List.of(
+        log.getTimeStamp().toString(),
+        log.getUserName() == null ? "" : log.getUserName(),
+        log.getActionDetails() == null ? "" : log.getActionDetails());
+  }
+
+  private static void writeLogs(Path file, List<LogEntity> logs, OpenOption... options)
+      throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, options)) {
+      for (LogEntity log : logs) {
+        writer.write(CsvUtils.toLine(toRecord(log)));
+        writer.newLine();
+      }
+    }
+  }
+
+  private static List<LogEntity> readLogs(Path file) throws IOException {
+    List<LogEntity> logs = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      List<String> record;
+      while ((record = CsvUtils.readRecord(reader)) != null) {
+        if (record.size() < 3) {
+          continue;
+        }
+        logs.add(
+            new LogEntity(
+                LocalDateTime.parse(record.get(0)),
+                record.get(1).isEmpty() ? null : record.get(1),
+                record.get(2)));
+      }
+    }
+    return logs;
+  }
+}
@@ -4,24 +4,45 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.example.daos.interfaces.BookDao;
 import org.example.models.BookEntity;
+import org.example.models.BookField;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
 import org.example.utils.DatabaseConnection;
+import org.example.utils.InList;
+import org.example.utils.ResultSetStream;
+import org.example.utils.RowMapper;
 
 /**
  * Cài đặt interface BookDAO để thực hiện các thao tác với bảng Books trong cơ sở dữ liệu.
  */
 public class BookDaoImpl implements BookDao {
 
-  private final Connection connection;
-
-  // Constructor để khởi tạo kết nối cơ sở dữ liệu
-  public BookDaoImpl() {
-    this.connection = DatabaseConnection.getConnection();
-  }
+  // Mọi truy vấn sách đọc đủ mười cột của bảng Books, các cột thừa (ví dụ điểm liên quan) bị bỏ qua
+  private static final CompiledRowMapper<BookEntity> BOOK_MAPPER =
+      CompiledRowMapper.of(
+          BookEntity.class,
+          Column.ofInt("BookID"),
+          Column.ofString("ISBN"),
+          Column.ofString("Title"),
+          Column.ofString("AuthorName"),
+          Column.ofString("PublisherName"),
+          Column.ofString("PublishedDate"),
+          Column.ofString("Category"),
+          Column.ofString("BookCoverDirectory"),
+          Column.ofBoolean("Available"),
+          Column.ofInt("Quantity"));
 
   /**
    * Thêm một cuốn sách mới vào cơ sở dữ liệu.
@@ -33,7 +54,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean addBook(BookEntity book) throws SQLException {
     String sql = "INSERT INTO Books (isbn, title, authorName, publisherName, publishedDate, Category, bookCoverDirectory, available, quantity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, book.getIsbn());
       preparedStatement.setString(2, book.getTitle());
       preparedStatement.setString(3, book.getAuthorName());
@@ -58,7 +80,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean deleteBookById(int bookId) throws SQLException {
     String sql = "DELETE FROM Books WHERE bookId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, bookId);
       int result = preparedStatement.executeUpdate();
       return result > 0;
@@ -75,7 +98,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean deleteBookByIsbn(String isbn) throws SQLException {
     String sql = "DELETE FROM Books WHERE isbn = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, isbn);
       int result = preparedStatement.executeUpdate();
       return result > 0;
@@ -92,7 +116,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean updateBook(BookEntity book) throws SQLException {
     String sql = "UPDATE Books SET title = ?, authorName = ?, publisherName = ?, publishedDate = ?, category = ?, bookCoverDirectory = ?, available = ?, quantity = ? WHERE isbn = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(7, book.getIsbn());
       preparedStatement.setString(1, book.getTitle());
       preparedStatement.setString(2, book.getAuthorName());
@@ -118,7 +143,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean updateBookAvailability(int bookId, boolean available) throws SQLException {
     String query = "UPDATE Books SET available = ? WHERE bookId = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setBoolean(1, available);
       statement.setInt(2, bookId);
       int rowsUpdated = statement.executeUpdate();
@@ -138,7 +164,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean updateBookQuantity(String isbn, int quantity) throws SQLException {
     String query = "UPDATE Books SET quantity = quantity + ? WHERE isbn = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setInt(1, quantity);
       statement.setString(2, isbn);
       int result = statement.executeUpdate();
@@ -156,28 +183,53 @@ public class BookDaoImpl implements BookDao {
   @Override
   public BookEntity findBookById(int bookId) throws SQLException {
     String query = "SELECT * FROM Books WHERE BookID = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setInt(1, bookId);
       ResultSet resultSet = statement.executeQuery();
 
       if (resultSet.next()) {
-        return new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        );
+        return BOOK_MAPPER.map(resultSet);
       }
     }
     return null;
   }
 
+  /**
+   * Tìm nhiều sách theo ID, mỗi nhóm tối đa {@link InList#CHUNK_SIZE} ID trong một truy vấn.
+   *
+   * @param bookIds ID của các sách cần tìm.
+   * @return Bảng ánh xạ từ ID tới sách.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL.
+   */
+  @Override
+  public Map<Integer, BookEntity> findBooksByIds(Collection<Integer> bookIds)
+      throws SQLException {
+    Map<Integer, BookEntity> books = new HashMap<>();
+    if (bookIds.isEmpty()) {
+      return books;
+    }
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      for (List<Integer> chunk : InList.chunks(bookIds)) {
+        String query =
+            "SELECT * FROM Books WHERE BookID IN (" + InList.placeholders(chunk.size()) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+          for (int i = 0; i < chunk.size(); i++) {
+            statement.setInt(i + 1, chunk.get(i));
+          }
+          try (ResultSet resultSet = statement.executeQuery()) {
+            RowMapper<BookEntity> row = BOOK_MAPPER.bind(resultSet.getMetaData());
+            while (resultSet.next()) {
+              BookEntity book = row.map(resultSet);
+              books.put(book.getId(), book);
+            }
+          }
+        }
+      }
+    }
+    return books;
+  }
+
   /**
    * Tìm sách theo ISBN.
    *
@@ -188,22 +240,12 @@ public class BookDaoImpl implements BookDao {
   @Override
   public BookEntity findBookByIsbn(String isbn) throws SQLException {
     String query = "SELECT * FROM Books WHERE isbn = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, isbn);
       ResultSet resultSet = preparedStatement.executeQuery();
       if (resultSet.next()) {
-        return new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        );
+        return BOOK_MAPPER.map(resultSet);
       }
       return null;
     }
@@ -220,23 +262,11 @@ public class BookDaoImpl implements BookDao {
   public List<BookEntity> findBooksByTitle(String title) throws SQLException {
     String query = "SELECT * FROM Books WHERE title LIKE ?";
     List<BookEntity> books = new ArrayList<>();
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, "%" + title + "%");
       ResultSet resultSet = preparedStatement.executeQuery();
-      while (resultSet.next()) {
-        books.add(new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        ));
-      }
+      books.addAll(BOOK_MAPPER.mapAll(resultSet));
     }
     return books;
   }
@@ -252,23 +282,11 @@ public class BookDaoImpl implements BookDao {
   public List<BookEntity> findBooksByAuthor(String authorName) throws SQLException {
     String query = "SELECT * FROM Books WHERE authorName LIKE ?";
     List<BookEntity> books = new ArrayList<>();
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, "%" + authorName + "%");
       ResultSet resultSet = preparedStatement.executeQuery();
-      while (resultSet.next()) {
-        books.add(new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        ));
-      }
+      books.addAll(BOOK_MAPPER.mapAll(resultSet));
     }
     return books;
   }
@@ -284,23 +302,11 @@ public class BookDaoImpl implements BookDao {
   public List<BookEntity> findBooksByGenre(String genre) throws SQLException {
     String query = "SELECT * FROM Books WHERE category LIKE ?";
     List<BookEntity> books = new ArrayList<>();
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, "%" + genre + "%");
       ResultSet resultSet = preparedStatement.executeQuery();
-      while (resultSet.next()) {
-        books.add(new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        ));
-      }
+      books.addAll(BOOK_MAPPER.mapAll(resultSet));
     }
     return books;
   }
@@ -316,22 +322,39 @@ public class BookDaoImpl implements BookDao {
   public List<BookEntity> findBooksByPublisher(String publisherName) throws SQLException {
     String query = "SELECT * FROM Books WHERE publisherName LIKE ?";
     List<BookEntity> books = new ArrayList<>();
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, "%" + publisherName + "%");
       ResultSet resultSet = preparedStatement.executeQuery();
-      while (resultSet.next()) {
-        books.add(new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        ));
+      books.addAll(BOOK_MAPPER.mapAll(resultSet));
+    }
+    return books;
+  }
+
+  /**
+   * Tìm sách bằng MATCH ... AGAINST trên chỉ mục FULLTEXT, xếp hạng theo điểm liên quan.
+   *
+   * @param field Trường cần tìm.
+   * @param booleanQuery Truy vấn ở cú pháp BOOLEAN MODE.
+   * @param limit Số kết quả tối đa.
+   * @return Danh sách sách tìm được, liên quan nhất trước.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL.
+   */
+  @Override
+  public List<BookEntity> searchBooksFullText(BookField field, String booleanQuery, int limit)
+      throws SQLException {
+    // Tên cột lấy từ enum nên không có nguy cơ SQL injection
+    String match = "MATCH(" + field.getColumns() + ") AGAINST (? IN BOOLEAN MODE)";
+    String query = "SELECT *, " + match + " AS score FROM Books WHERE " + match
+        + " ORDER BY score DESC, BookID LIMIT ?";
+    List<BookEntity> books = new ArrayList<>();
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+      preparedStatement.setString(1, booleanQuery);
+      preparedStatement.setString(2, booleanQuery);
+      preparedStatement.setInt(3, limit);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        books.addAll(BOOK_MAPPER.mapAll(resultSet));
       }
     }
     return books;
@@ -347,26 +370,157 @@ public class BookDaoImpl implements BookDao {
   public List<BookEntity> findAllBooks() throws SQLException {
     String query = "SELECT * FROM Books";
     List<BookEntity> books = new ArrayList<>();
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query);
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query);
         ResultSet resultSet = preparedStatement.executeQuery()) {
-      while (resultSet.next()) {
-        books.add(new BookEntity(
-            resultSet.getInt("BookID"),
-            resultSet.getString("ISBN"),
-            resultSet.getString("Title"),
-            resultSet.getString("AuthorName"),
-            resultSet.getString("PublisherName"),
-            resultSet.getString("PublishedDate"),
-            resultSet.getString("Category"),
-            resultSet.getString("BookCoverDirectory"),
-            resultSet.getBoolean("Available"),
-            resultSet.getInt("Quantity")
-        ));
+      books.addAll(BOOK_MAPPER.mapAll(resultSet));
+    }
+    return books;
+  }
+
+  /**
+   * Đọc tất cả sách dưới dạng stream qua cursor phía máy chủ, không nạp toàn bộ bảng vào bộ nhớ.
+   *
+   * @return Stream các sách, cần được đóng sau khi dùng.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL.
+   */
+  @Override
+  public Stream<BookEntity> streamAllBooks() throws SQLException {
+    String query = "SELECT * FROM Books ORDER BY BookID";
+    return ResultSetStream.query(query, BOOK_MAPPER);
+  }
+
+  /**
+   * Lấy một trang sách theo khóa BookID, dùng chỉ mục khóa chính thay cho OFFSET.
+   *
+   * @param afterBookId Chỉ lấy các sách có BookID lớn hơn giá trị này.
+   * @param limit Số sách tối đa cần lấy.
+   * @return Danh sách sách sắp xếp tăng dần theo BookID.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL.
+   */
+  @Override
+  public List<BookEntity> findBooksAfterId(int afterBookId, int limit) throws SQLException {
+    String query = "SELECT * FROM Books WHERE BookID > ? ORDER BY BookID LIMIT ?";
+    List<BookEntity> books = new ArrayList<>();
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+      preparedStatement.setInt(1, afterBookId);
+      preparedStatement.setInt(2, limit);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        books.addAll(BOOK_MAPPER.mapAll(resultSet));
       }
     }
     return books;
   }
 
+  /**
+   * Thêm nhiều sách trong một giao dịch bằng JDBC batch.
+   *
+   * @param books Danh sách sách cần thêm.
+   * @return Số sách đã được thêm.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL, khi đó giao dịch bị hoàn tác.
+   */
+  @Override
+  public int addBooks(List<BookEntity> books) throws SQLException {
+    if (books.isEmpty()) {
+      return 0;
+    }
+    String sql = "INSERT INTO Books (isbn, title, authorName, publisherName, publishedDate, Category, bookCoverDirectory, available, quantity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        for (BookEntity book : books) {
+          preparedStatement.setString(1, book.getIsbn());
+          preparedStatement.setString(2, book.getTitle());
+          preparedStatement.setString(3, book.getAuthorName());
+          preparedStatement.setString(4, book.getPublisherName());
+          preparedStatement.setString(5, book.getPublishedDate());
+          preparedStatement.setString(6, book.getCategory());
+          preparedStatement.setString(7, book.getBookCoverDirectory());
+          preparedStatement.setBoolean(8, book.isAvailable());
+          preparedStatement.setInt(9, book.getQuantity());
+          preparedStatement.addBatch();
+        }
+        int inserted = 0;
+        for (int result : preparedStatement.executeBatch()) {
+          // Driver có thể trả SUCCESS_NO_INFO khi gộp batch thành một câu lệnh nhiều dòng
+          if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+            inserted++;
+          }
+        }
+        connection.commit();
+        return inserted;
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  /**
+   * Tìm các ISBN đã tồn tại, chia danh sách thành các truy vấn IN có kích thước giới hạn.
+   *
+   * @param isbns Các ISBN cần kiểm tra.
+   * @return Tập các ISBN đã tồn tại trong cơ sở dữ liệu.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL.
+   */
+  @Override
+  public Set<String> findExistingIsbns(Collection<String> isbns) throws SQLException {
+    Set<String> existing = new HashSet<>();
+    if (isbns.isEmpty()) {
+      return existing;
+    }
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      for (List<String> chunk : InList.chunks(isbns)) {
+        String query = "SELECT ISBN FROM Books WHERE ISBN IN ("
+            + InList.placeholders(chunk.size()) + ")";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+          for (int i = 0; i < chunk.size(); i++) {
+            preparedStatement.setString(i + 1, chunk.get(i));
+          }
+          try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+              existing.add(resultSet.getString(1));
+            }
+          }
+        }
+      }
+    }
+    return existing;
+  }
+
+  /**
+   * Đếm lịch sử đọc và mượn của người dùng theo từng sách, gộp hai bảng trong một truy vấn.
+   *
+   * @param userName Tên người dùng.
+   * @return Bảng ánh xạ từ ID sách tới số lần đọc và mượn.
+   * @throws SQLException Nếu có lỗi khi thực hiện câu lệnh SQL.
+   */
+  @Override
+  public Map<Integer, Integer> countHistoryByUser(String userName) throws SQLException {
+    String query =
+        "SELECT BookID, COUNT(*) AS Hits FROM ("
+            + "SELECT BookID FROM ReadBooks WHERE Username = ? "
+            + "UNION ALL "
+            + "SELECT BookID FROM BorrowedBooks WHERE Username = ?"
+            + ") history GROUP BY BookID";
+    Map<Integer, Integer> counts = new HashMap<>();
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+      preparedStatement.setString(1, userName);
+      preparedStatement.setString(2, userName);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          counts.put(resultSet.getInt("BookID"), resultSet.getInt("Hits"));
+        }
+      }
+    }
+    return counts;
+  }
+
   /**
    * Kiểm tra sách có tồn tại trong cơ sở dữ liệu theo ISBN.
    *
@@ -377,7 +531,8 @@ public class BookDaoImpl implements BookDao {
   @Override
   public boolean isBookInDatabase(String isbn) throws SQLException {
     String query = "SELECT COUNT(*) FROM books WHERE isbn = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, isbn);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
         if (resultSet.next()) {
@@ -9,6 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 import org.example.daos.interfaces.BorrowedBookDao;
 import org.example.models.BorrowedBookEntity;
+import org.example.models.BorrowedBookRow;
+import org.example.models.CirculationStatus;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
 import org.example.utils.DatabaseConnection;
 
 /**
@@ -16,12 +20,26 @@ import org.example.utils.DatabaseConnection;
  * mượn sách trong cơ sở dữ liệu.
  */
 public class BorrowedBookDaoImpl implements BorrowedBookDao {
-  private final Connection connection;
 
-  /** Hàm khởi tạo để thiết lập kết nối cơ sở dữ liệu. */
-  public BorrowedBookDaoImpl() {
-    this.connection = DatabaseConnection.getConnection();
-  }
+  private static final CompiledRowMapper<BorrowedBookEntity> BORROWED_BOOK_MAPPER =
+      CompiledRowMapper.of(
+          BorrowedBookEntity.class,
+          Column.ofInt("BorrowID"),
+          Column.ofInt("BookID"),
+          Column.ofString("Username"),
+          Column.ofLocalDate("BorrowDate"),
+          Column.ofLocalDate("ReturnDate"));
+
+  private static final CompiledRowMapper<BorrowedBookRow> BORROWED_BOOK_ROW_MAPPER =
+      CompiledRowMapper.of(
+          BorrowedBookRow.class,
+          Column.ofInt("BorrowID"),
+          Column.ofInt("BookID"),
+          Column.ofString("Title"),
+          Column.ofString("AuthorName"),
+          Column.ofLocalDate("BorrowDate"),
+          Column.ofLocalDate("ReturnDate"),
+          Column.ofBoolean("Returned"));
 
   /**
    * Ghi nhận thông tin mượn sách vào cơ sở dữ liệu.
@@ -37,7 +55,8 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
       throws SQLException {
     String query =
         "INSERT INTO borrowedBooks (bookId, userName, borrowDate, returnDate) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, bookId);
       preparedStatement.setString(2, userName);
       preparedStatement.setObject(3, borrowDate);
@@ -58,8 +77,11 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
   @Override
   public boolean returnBook(int bookId, String userName) throws SQLException {
     LocalDate returnDate = LocalDate.now();
-    String query = "UPDATE borrowedBooks SET returnDate = ? WHERE bookId = ? AND userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    String query =
+        "UPDATE borrowedBooks SET returnDate = ?, returned = TRUE "
+            + "WHERE bookId = ? AND userName = ? AND returned = FALSE";
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setObject(1, returnDate);
       preparedStatement.setInt(2, bookId);
       preparedStatement.setString(3, userName);
@@ -68,6 +90,130 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
     }
   }
 
+  /**
+   * Mượn sách trong một giao dịch. Số lượng sách được giảm có điều kiện trước khi ghi lượt mượn:
+   * câu UPDATE lấy ngay khóa ghi trên dòng sách nên các lần mượn đồng thời cùng một đầu sách xếp
+   * hàng thay vì deadlock (INSERT vào BorrowedBooks trước sẽ lấy khóa chia sẻ trên dòng sách qua
+   * khóa ngoại, hai giao dịch cùng giữ khóa chia sẻ rồi cùng chờ nâng lên khóa ghi), và sách đã
+   * hết bị từ chối ngay mà không ghi gì.
+   *
+   * @param bookId ID của sách được mượn
+   * @param userName Tên người mượn sách
+   * @param borrowDate Ngày mượn sách
+   * @param returnDate Hạn trả sách
+   * @return kết quả của giao dịch
+   * @throws SQLException Nếu có lỗi trong quá trình truy vấn, khi đó giao dịch bị hoàn tác
+   */
+  @Override
+  public CirculationStatus checkout(
+      int bookId, String userName, LocalDate borrowDate, LocalDate returnDate)
+      throws SQLException {
+    String overdueQuery =
+        "SELECT 1 FROM BorrowedBooks "
+            + "WHERE Username = ? AND Returned = FALSE AND ReturnDate < ? LIMIT 1";
+    String insertQuery =
+        "INSERT INTO BorrowedBooks (BookID, Username, BorrowDate, ReturnDate) VALUES (?, ?, ?, ?)";
+    // Available được gán trước Quantity nên luôn dùng giá trị Quantity cũ, cả với MySQL (gán từ
+    // trái sang phải) lẫn với cơ sở dữ liệu theo chuẩn SQL
+    String decrementQuery =
+        "UPDATE Books SET Available = (Quantity > 1), Quantity = Quantity - 1 "
+            + "WHERE BookID = ? AND Quantity > 0";
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(overdueQuery)) {
+          preparedStatement.setString(1, userName);
+          preparedStatement.setObject(2, LocalDate.now());
+          try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (resultSet.next()) {
+              connection.rollback();
+              return CirculationStatus.OVERDUE;
+            }
+          }
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(decrementQuery)) {
+          preparedStatement.setInt(1, bookId);
+          if (preparedStatement.executeUpdate() == 0) {
+            connection.rollback();
+            return CirculationStatus.NOT_AVAILABLE;
+          }
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery)) {
+          preparedStatement.setInt(1, bookId);
+          preparedStatement.setString(2, userName);
+          preparedStatement.setObject(3, borrowDate);
+          preparedStatement.setObject(4, returnDate);
+          preparedStatement.executeUpdate();
+        }
+        connection.commit();
+        return CirculationStatus.SUCCESS;
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  /**
+   * Trả sách trong một giao dịch. Lượt mượn được khóa bằng SELECT ... FOR UPDATE nên hai lần trả
+   * đồng thời không thể cùng tăng số lượng sách.
+   *
+   * @param bookId ID của sách được trả
+   * @param userName Tên người trả sách
+   * @param returnDate Ngày trả sách
+   * @return kết quả của giao dịch
+   * @throws SQLException Nếu có lỗi trong quá trình truy vấn, khi đó giao dịch bị hoàn tác
+   */
+  @Override
+  public CirculationStatus checkin(int bookId, String userName, LocalDate returnDate)
+      throws SQLException {
+    String loanQuery =
+        "SELECT BorrowID FROM BorrowedBooks "
+            + "WHERE BookID = ? AND Username = ? AND Returned = FALSE "
+            + "ORDER BY BorrowDate, BorrowID LIMIT 1 FOR UPDATE";
+    String returnQuery =
+        "UPDATE BorrowedBooks SET Returned = TRUE, ReturnDate = ? WHERE BorrowID = ?";
+    String incrementQuery =
+        "UPDATE Books SET Quantity = Quantity + 1, Available = TRUE WHERE BookID = ?";
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        int borrowId;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(loanQuery)) {
+          preparedStatement.setInt(1, bookId);
+          preparedStatement.setString(2, userName);
+          try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (!resultSet.next()) {
+              connection.rollback();
+              return CirculationStatus.NOT_BORROWED;
+            }
+            borrowId = resultSet.getInt(1);
+          }
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(returnQuery)) {
+          preparedStatement.setObject(1, returnDate);
+          preparedStatement.setInt(2, borrowId);
+          preparedStatement.executeUpdate();
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(incrementQuery)) {
+          preparedStatement.setInt(1, bookId);
+          preparedStatement.executeUpdate();
+        }
+        connection.commit();
+        return CirculationStatus.SUCCESS;
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
   /**
    * Lấy tất cả sách đã mượn của người dùng trong khoảng thời gian cho trước.
    *
@@ -82,21 +228,13 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
       String userName, LocalDate startDate, LocalDate endDate) throws SQLException {
     List<BorrowedBookEntity> borrowedBooks = new ArrayList<>();
     String query = "SELECT * FROM borrowedBooks WHERE userName = ? AND borrowDate BETWEEN ? AND ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       preparedStatement.setObject(2, startDate);
       preparedStatement.setObject(3, endDate);
       ResultSet resultSet = preparedStatement.executeQuery();
-      while (resultSet.next()) {
-        BorrowedBookEntity borrowedBook =
-            new BorrowedBookEntity(
-                resultSet.getInt("borrowedBookId"),
-                resultSet.getInt("bookId"),
-                resultSet.getString("userName"),
-                resultSet.getObject("borrowDate", LocalDate.class),
-                resultSet.getObject("returnDate", LocalDate.class));
-        borrowedBooks.add(borrowedBook);
-      }
+      borrowedBooks.addAll(BORROWED_BOOK_MAPPER.mapAll(resultSet));
     }
     return borrowedBooks;
   }
@@ -117,19 +255,11 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
             + "INNER JOIN books USING(bookId) "
             + "WHERE borrowedBooks.bookId = ? AND borrowedBooks.userName = ? "
             + "AND books.available = false";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       ResultSet resultSet = preparedStatement.executeQuery();
-      while (resultSet.next()) {
-        BorrowedBookEntity borrowedBook =
-            new BorrowedBookEntity(
-                resultSet.getInt("borrowedBookId"),
-                resultSet.getInt("bookId"),
-                resultSet.getString("userName"),
-                resultSet.getObject("borrowDate", LocalDate.class),
-                resultSet.getObject("returnDate", LocalDate.class));
-        borrowedBooks.add(borrowedBook);
-      }
+      borrowedBooks.addAll(BORROWED_BOOK_MAPPER.mapAll(resultSet));
     }
     return borrowedBooks;
   }
@@ -147,21 +277,13 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
       throws SQLException {
     List<BorrowedBookEntity> overdueBooks = new ArrayList<>();
     String query = "SELECT * FROM borrowedBooks WHERE userName = ? AND now()>?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       preparedStatement.setObject(2, returnDate);
 
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        while (resultSet.next()) {
-          BorrowedBookEntity overdueBook =
-              new BorrowedBookEntity(
-                  resultSet.getInt("borrowedBookId"),
-                  resultSet.getInt("bookId"),
-                  resultSet.getString("userName"),
-                  resultSet.getObject("borrowDate", LocalDate.class),
-                  resultSet.getObject("returnDate", LocalDate.class));
-          overdueBooks.add(overdueBook);
-        }
+        overdueBooks.addAll(BORROWED_BOOK_MAPPER.mapAll(resultSet));
       }
     }
     return overdueBooks;
@@ -177,7 +299,8 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
   @Override
   public int findBorrowedBooksCountByUser(String userName) throws SQLException {
     String query = "SELECT COUNT(DISTINCT bookId) FROM borrowedBooks WHERE userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       ResultSet resultSet = preparedStatement.executeQuery();
       if (resultSet.next()) {
@@ -203,7 +326,8 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
             + "INNER JOIN books b USING(bookId) "
             + "WHERE borrowedBooks.bookId = ? AND borrowedBooks.userName = ? "
             + "AND books.available = false";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, bookId);
       preparedStatement.setString(2, userName);
       ResultSet resultSet = preparedStatement.executeQuery();
@@ -225,25 +349,42 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
   public List<BorrowedBookEntity> findAllBorrowedBooksByUser(String userName) throws SQLException {
     List<BorrowedBookEntity> borrowedBooks = new ArrayList<>();
     String query = "SELECT * FROM borrowedBooks WHERE userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        while (resultSet.next()) {
-          BorrowedBookEntity book = new BorrowedBookEntity();
-          book.setBookId(resultSet.getInt("bookId"));
-          book.setUserName(resultSet.getString("userName"));
-          book.setBorrowDate(resultSet.getDate("borrowDate").toLocalDate());
-          book.setReturnDate(
-              resultSet.getDate("returnDate") != null
-                  ? resultSet.getDate("returnDate").toLocalDate()
-                  : null);
-          borrowedBooks.add(book);
-        }
+        borrowedBooks.addAll(BORROWED_BOOK_MAPPER.mapAll(resultSet));
       }
     }
     return borrowedBooks;
   }
 
+  /**
+   * Tìm tất cả sách đã mượn của người dùng kèm tiêu đề và tác giả. Chỉ đọc đúng các cột cần hiển
+   * thị, không tạo đối tượng sách.
+   *
+   * @param userName Tên người mượn sách
+   * @return Các dòng hiển thị, lượt mượn mới nhất trước
+   * @throws SQLException Nếu có lỗi trong quá trình truy vấn cơ sở dữ liệu
+   */
+  @Override
+  public List<BorrowedBookRow> findBorrowedBookRowsByUser(String userName) throws SQLException {
+    String query =
+        "SELECT bb.BorrowID, bb.BookID, b.Title, b.AuthorName, bb.BorrowDate, bb.ReturnDate, "
+            + "bb.Returned "
+            + "FROM BorrowedBooks bb JOIN Books b ON b.BookID = bb.BookID "
+            + "WHERE bb.Username = ? ORDER BY bb.BorrowID DESC";
+    List<BorrowedBookRow> rows = new ArrayList<>();
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+      preparedStatement.setString(1, userName);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        rows.addAll(BORROWED_BOOK_ROW_MAPPER.mapAll(resultSet));
+      }
+    }
+    return rows;
+  }
+
   /**
    * Tìm số lượng sách mượn theo ISBN.
    *
@@ -259,7 +400,8 @@ public class BorrowedBookDaoImpl implements BorrowedBookDao {
             + "INNER JOIN books USING(bookId) "
             + "WHERE isbn = ? "
             + "AND returnDate > now()";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setString(1, isbn);
       ResultSet resultSet = statement.executeQuery();
       if (resultSet.next()) {
@@ -9,18 +9,25 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 import org.example.daos.interfaces.LogDao;
 import org.example.models.LogEntity;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
 import org.example.utils.DatabaseConnection;
+import org.example.utils.ResultSetStream;
 
 /** Lớp triển khai LogDAO để thực hiện các thao tác CRUD đối với nhật ký (logs). */
 public class LogDaoImpl implements LogDao {
-  private final Connection connection;
 
-  /** Hàm khởi tạo để thiết lập kết nối cơ sở dữ liệu. */
-  public LogDaoImpl() {
-    this.connection = DatabaseConnection.getConnection();
-  }
+  // LogID chỉ được gán khi phép chiếu có cột này (luồng xuất log không đọc ID)
+  private static final CompiledRowMapper<LogEntity> LOG_MAPPER =
+      CompiledRowMapper.of(
+              LogEntity.class,
+              Column.ofLocalDateTime("Timestamp"),
+              Column.ofString("Username"),
+              Column.ofString("ActionDetails"))
+          .withSetter("setId", Column.ofInt("LogID").asOptional());
 
   /**
    * Thêm một log mới.
@@ -31,7 +38,8 @@ public class LogDaoImpl implements LogDao {
   @Override
   public void addLog(LogEntity log) throws SQLException {
     String query = "INSERT INTO logs (timeStamp, userName, actionDetails) VALUES (?, ?, ?)";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setTimestamp(1, Timestamp.valueOf(log.getTimeStamp()));
       statement.setString(2, log.getUserName());
       statement.setString(3, log.getActionDetails());
@@ -40,6 +48,42 @@ public class LogDaoImpl implements LogDao {
     }
   }
 
+  /**
+   * Thêm nhiều log trong một giao dịch, bằng JDBC batch trên một câu lệnh INSERT cố định. Với
+   * MySQL, trình điều khiển ({@code rewriteBatchedStatements}) gộp batch thành các câu INSERT nhiều
+   * dòng, còn câu SQL không đổi theo số log nên được dùng lại từ bộ nhớ đệm câu lệnh của pool. Nếu
+   * một dòng bị từ chối, cả lô được hoàn tác.
+   *
+   * @param logs Danh sách log cần thêm.
+   * @throws SQLException Nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  @Override
+  public void addLogs(List<LogEntity> logs) throws SQLException {
+    if (logs.isEmpty()) {
+      return;
+    }
+    String query = "INSERT INTO logs (timeStamp, userName, actionDetails) VALUES (?, ?, ?)";
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(query)) {
+        for (LogEntity log : logs) {
+          statement.setTimestamp(1, Timestamp.valueOf(log.getTimeStamp()));
+          statement.setString(2, log.getUserName());
+          statement.setString(3, log.getActionDetails());
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
   /**
    * Lấy tất cả các log.
    *
@@ -50,15 +94,44 @@ public class LogDaoImpl implements LogDao {
   public List<LogEntity> findAllLogs() throws SQLException {
     List<LogEntity> logs = new ArrayList<>();
     String query = "SELECT * FROM logs";
-    try (Statement statement = connection.createStatement();
+    try (Connection connection = DatabaseConnection.openConnection();
+        Statement statement = connection.createStatement();
         ResultSet rs = statement.executeQuery(query)) {
-      while (rs.next()) {
-        LogEntity logEntity =
-            new LogEntity(
-                rs.getTimestamp("timeStamp").toLocalDateTime(),
-                rs.getString("userName"),
-                rs.getString("actionDetails"));
-        logs.add(logEntity);
+      logs.addAll(LOG_MAPPER.mapAll(rs));
+    }
+    return logs;
+  }
+
+  /**
+   * Đọc tất cả các log dưới dạng stream qua cursor phía máy chủ.
+   *
+   * @return Stream các đối tượng LogEntity, cần được đóng sau khi dùng.
+   * @throws SQLException Nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  @Override
+  public Stream<LogEntity> streamAllLogs() throws SQLException {
+    String query = "SELECT logId, timeStamp, userName, actionDetails FROM logs ORDER BY logId";
+    return ResultSetStream.query(query, LOG_MAPPER);
+  }
+
+  /**
+   * Lấy một trang log theo khóa LogID, log mới nhất trước.
+   *
+   * @param beforeLogId Chỉ lấy các log có LogID nhỏ hơn giá trị này.
+   * @param limit Số log tối đa cần lấy.
+   * @return Danh sách các đối tượng LogEntity kèm ID.
+   * @throws SQLException Nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  @Override
+  public List<LogEntity> findLogsBeforeId(int beforeLogId, int limit) throws SQLException {
+    List<LogEntity> logs = new ArrayList<>();
+    String query = "SELECT * FROM logs WHERE logId < ? ORDER BY logId DESC LIMIT ?";
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
+      statement.setInt(1, beforeLogId);
+      statement.setInt(2, limit);
+      try (ResultSet rs = statement.executeQuery()) {
+        logs.addAll(LOG_MAPPER.mapAll(rs));
       }
     }
     return logs;
@@ -74,14 +147,12 @@ public class LogDaoImpl implements LogDao {
   @Override
   public LogEntity findLogById(int logId) throws SQLException {
     String query = "SELECT * FROM logs WHERE logId = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setInt(1, logId);
       try (ResultSet rs = statement.executeQuery()) {
         if (rs.next()) {
-          return new LogEntity(
-              rs.getTimestamp("timeStamp").toLocalDateTime(),
-              rs.getString("userName"),
-              rs.getString("actionDetails"));
+          return LOG_MAPPER.map(rs);
         }
         return null;
       }
@@ -99,17 +170,11 @@ public class LogDaoImpl implements LogDao {
   public List<LogEntity> findLogsByUserName(String userName) throws SQLException {
     List<LogEntity> logs = new ArrayList<>();
     String query = "SELECT * FROM logs WHERE userName = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setString(1, userName);
       try (ResultSet rs = statement.executeQuery()) {
-        while (rs.next()) {
-          LogEntity logEntity =
-              new LogEntity(
-                  rs.getTimestamp("timeStamp").toLocalDateTime(),
-                  rs.getString("userName"),
-                  rs.getString("actionDetails"));
-          logs.add(logEntity);
-        }
+        logs.addAll(LOG_MAPPER.mapAll(rs));
       }
     }
     return logs;
@@ -128,18 +193,12 @@ public class LogDaoImpl implements LogDao {
       throws SQLException {
     List<LogEntity> logs = new ArrayList<>();
     String query = "SELECT * FROM logs WHERE timeStamp BETWEEN ? AND ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setTimestamp(1, Timestamp.valueOf(startDate));
       statement.setTimestamp(2, Timestamp.valueOf(endDate));
       try (ResultSet rs = statement.executeQuery()) {
-        while (rs.next()) {
-          LogEntity logEntity =
-              new LogEntity(
-                  rs.getTimestamp("timeStamp").toLocalDateTime(),
-                  rs.getString("userName"),
-                  rs.getString("actionDetails"));
-          logs.add(logEntity);
-        }
+        logs.addAll(LOG_MAPPER.mapAll(rs));
       }
     }
     return logs;
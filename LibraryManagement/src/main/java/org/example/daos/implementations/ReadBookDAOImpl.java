@@ -8,16 +8,28 @@ import java.util.ArrayList;
 import java.util.List;
 import org.example.daos.interfaces.ReadBookDao;
 import org.example.models.ReadBookEntity;
+import org.example.models.ReadBookRow;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
 import org.example.utils.DatabaseConnection;
 
 /** Lớp triển khai ReadBookDAO để thực hiện các thao tác CRUD đối với sách đã đọc. */
 public class ReadBookDaoImpl implements ReadBookDao {
-  private final Connection connection;
 
-  /** Constructor để khởi tạo kết nối cơ sở dữ liệu. */
-  public ReadBookDaoImpl() {
-    this.connection = DatabaseConnection.getConnection();
-  }
+  private static final CompiledRowMapper<ReadBookEntity> READ_BOOK_MAPPER =
+      CompiledRowMapper.of(
+          ReadBookEntity.class,
+          Column.ofInt("ReadID"),
+          Column.ofInt("BookID"),
+          Column.ofString("Username"));
+
+  private static final CompiledRowMapper<ReadBookRow> READ_BOOK_ROW_MAPPER =
+      CompiledRowMapper.of(
+          ReadBookRow.class,
+          Column.ofInt("ReadID"),
+          Column.ofInt("BookID"),
+          Column.ofString("Title"),
+          Column.ofString("AuthorName"));
 
   /**
    * Đánh dấu một cuốn sách là đã đọc.
@@ -30,7 +42,8 @@ public class ReadBookDaoImpl implements ReadBookDao {
   @Override
   public boolean markAsRead(int bookId, String userName) throws SQLException {
     String query = "INSERT INTO readBooks (bookId, userName) VALUES (?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, bookId);
       preparedStatement.setString(2, userName);
       int result = preparedStatement.executeUpdate();
@@ -47,30 +60,44 @@ public class ReadBookDaoImpl implements ReadBookDao {
    */
   @Override
   public List<ReadBookEntity> findReadBooks(String userName) throws SQLException {
-    String query =
-        "SELECT readId, userName, bookId, isbn, title, "
-            + "authorId, b.publisherId, b.publicationYear, b.categoryId, b.bookCoverDirectory "
-            + "FROM ReadBooks rb "
-            + "JOIN Books b ON rb.bookId = b.bookId "
-            + "WHERE rb.userName = ?";
+    String query = "SELECT readId, userName, bookId FROM ReadBooks WHERE userName = ?";
 
     List<ReadBookEntity> readBooks = new ArrayList<>();
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        while (resultSet.next()) {
-          ReadBookEntity readBook =
-              new ReadBookEntity(
-                  resultSet.getInt("readId"),
-                  resultSet.getInt("bookId"),
-                  resultSet.getString("userName"));
-          readBooks.add(readBook);
-        }
+        readBooks.addAll(READ_BOOK_MAPPER.mapAll(resultSet));
       }
     }
     return readBooks;
   }
 
+  /**
+   * Lấy danh sách sách đã đọc của người dùng kèm tiêu đề và tác giả. Chỉ đọc đúng các cột cần
+   * hiển thị, không tạo đối tượng sách.
+   *
+   * @param userName Tên người dùng.
+   * @return Các dòng hiển thị, lượt đánh dấu mới nhất trước.
+   * @throws SQLException Nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  @Override
+  public List<ReadBookRow> findReadBookRows(String userName) throws SQLException {
+    String query =
+        "SELECT rb.ReadID, rb.BookID, b.Title, b.AuthorName "
+            + "FROM ReadBooks rb JOIN Books b ON b.BookID = rb.BookID "
+            + "WHERE rb.Username = ? ORDER BY rb.ReadID DESC";
+    List<ReadBookRow> rows = new ArrayList<>();
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+      preparedStatement.setString(1, userName);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        rows.addAll(READ_BOOK_ROW_MAPPER.mapAll(resultSet));
+      }
+    }
+    return rows;
+  }
+
   /**
    * Kiểm tra xem một cuốn sách đã được đọc bởi người dùng chưa.
    *
@@ -82,7 +109,8 @@ public class ReadBookDaoImpl implements ReadBookDao {
   @Override
   public boolean isBookRead(int bookId, String userName) throws SQLException {
     String query = "SELECT COUNT(*) FROM readBooks WHERE bookId = ? AND userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, bookId);
       preparedStatement.setString(2, userName);
       ResultSet resultSet = preparedStatement.executeQuery();
@@ -104,7 +132,8 @@ public class ReadBookDaoImpl implements ReadBookDao {
   @Override
   public boolean unmarkAsRead(int bookId, String userName) throws SQLException {
     String query = "DELETE FROM readBooks WHERE bookId = ? AND userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, bookId);
       preparedStatement.setString(2, userName);
       int result = preparedStatement.executeUpdate();
@@ -122,7 +151,8 @@ public class ReadBookDaoImpl implements ReadBookDao {
   @Override
   public int findReadBooksCountByUser(String userName) throws SQLException {
     String query = "SELECT COUNT(DISTINCT bookId) FROM readBooks WHERE userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       ResultSet resultSet = preparedStatement.executeQuery();
       if (resultSet.next()) {
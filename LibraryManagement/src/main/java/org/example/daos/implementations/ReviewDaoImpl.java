@@ -5,20 +5,28 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.example.daos.interfaces.ReviewDao;
 import org.example.models.ReviewEntity;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
 import org.example.utils.DatabaseConnection;
+import org.example.utils.InList;
 
 /** Triển khai giao diện ReviewDao. */
 public class ReviewDaoImpl implements ReviewDao {
 
-  private final Connection connection;
-
-  /** Hàm khởi tạo để thiết lập kết nối cơ sở dữ liệu. */
-  public ReviewDaoImpl() {
-    this.connection = DatabaseConnection.getConnection();
-  }
+  private static final CompiledRowMapper<ReviewEntity> REVIEW_MAPPER =
+      CompiledRowMapper.of(
+          ReviewEntity.class,
+          Column.ofInt("ReviewID"),
+          Column.ofString("Username"),
+          Column.ofInt("BookID"),
+          Column.ofInt("Rating"),
+          Column.ofString("Comment"));
 
   /**
    * Thêm một đánh giá mới.
@@ -34,7 +42,8 @@ public class ReviewDaoImpl implements ReviewDao {
   public boolean addReview(String userName, int bookId, int rating, String comment)
       throws SQLException {
     String query = "INSERT INTO reviews (userName, bookId, rating, comment) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       preparedStatement.setInt(2, bookId);
       preparedStatement.setInt(3, rating);
@@ -54,20 +63,78 @@ public class ReviewDaoImpl implements ReviewDao {
   public List<ReviewEntity> findReviewsByBookId(int bookId) throws SQLException {
     List<ReviewEntity> reviewEntities = new ArrayList<>();
     String query = "SELECT * FROM reviews WHERE bookId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, bookId);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        while (resultSet.next()) {
-          ReviewEntity reviewEntity = new ReviewEntity();
-          reviewEntity.setId(resultSet.getInt("reviewId"));
-          reviewEntity.setUserName(resultSet.getString("userName"));
-          reviewEntity.setBookId(resultSet.getInt("bookId"));
-          reviewEntity.setRating(resultSet.getInt("rating"));
-          reviewEntity.setComment(resultSet.getString("comment"));
-          reviewEntities.add(reviewEntity);
+        reviewEntities.addAll(REVIEW_MAPPER.mapAll(resultSet));
+      }
+    }
+    return reviewEntities;
+  }
+
+  /**
+   * Tìm đánh giá của nhiều sách, mỗi nhóm tối đa {@link InList#CHUNK_SIZE} sách trong một truy
+   * vấn.
+   *
+   * @param bookIds ID của các sách.
+   * @return Bảng ánh xạ từ ID sách tới các đánh giá của sách đó.
+   * @throws SQLException nếu xảy ra lỗi truy cập cơ sở dữ liệu.
+   */
+  @Override
+  public Map<Integer, List<ReviewEntity>> findReviewsByBookIds(Collection<Integer> bookIds)
+      throws SQLException {
+    Map<Integer, List<ReviewEntity>> reviewsByBook = new HashMap<>();
+    if (bookIds.isEmpty()) {
+      return reviewsByBook;
+    }
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      for (List<Integer> chunk : InList.chunks(bookIds)) {
+        String query =
+            "SELECT * FROM reviews WHERE bookId IN ("
+                + InList.placeholders(chunk.size())
+                + ") ORDER BY reviewId";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+          for (int i = 0; i < chunk.size(); i++) {
+            preparedStatement.setInt(i + 1, chunk.get(i));
+          }
+          try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            for (ReviewEntity reviewEntity : REVIEW_MAPPER.mapAll(resultSet)) {
+              reviewsByBook
+                  .computeIfAbsent(reviewEntity.getBookId(), id -> new ArrayList<>())
+                  .add(reviewEntity);
+            }
+          }
         }
       }
     }
+    return reviewsByBook;
+  }
+
+  /**
+   * Lấy một trang đánh giá của sách theo khóa ReviewID.
+   *
+   * @param bookId ID của sách.
+   * @param afterReviewId Chỉ lấy các đánh giá có ReviewID lớn hơn giá trị này.
+   * @param limit Số đánh giá tối đa cần lấy.
+   * @return Danh sách các đối tượng ReviewEntity sắp xếp tăng dần theo ReviewID.
+   * @throws SQLException nếu xảy ra lỗi truy cập cơ sở dữ liệu.
+   */
+  @Override
+  public List<ReviewEntity> findReviewsByBookIdAfterId(int bookId, int afterReviewId, int limit)
+      throws SQLException {
+    List<ReviewEntity> reviewEntities = new ArrayList<>();
+    String query =
+        "SELECT * FROM reviews WHERE bookId = ? AND reviewId > ? ORDER BY reviewId LIMIT ?";
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+      preparedStatement.setInt(1, bookId);
+      preparedStatement.setInt(2, afterReviewId);
+      preparedStatement.setInt(3, limit);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        reviewEntities.addAll(REVIEW_MAPPER.mapAll(resultSet));
+      }
+    }
     return reviewEntities;
   }
 
@@ -82,18 +149,11 @@ public class ReviewDaoImpl implements ReviewDao {
   public List<ReviewEntity> findReviewsByIsbn(String isbn) throws SQLException {
     List<ReviewEntity> reviewEntities = new ArrayList<>();
     String query = "SELECT * FROM reviews " + "INNER JOIN books USING(bookId) " + "WHERE isbn = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, isbn);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        while (resultSet.next()) {
-          ReviewEntity reviewEntity = new ReviewEntity();
-          reviewEntity.setId(resultSet.getInt("reviewId"));
-          reviewEntity.setUserName(resultSet.getString("userName"));
-          reviewEntity.setBookId(resultSet.getInt("bookId"));
-          reviewEntity.setRating(resultSet.getInt("rating"));
-          reviewEntity.setComment(resultSet.getString("comment"));
-          reviewEntities.add(reviewEntity);
-        }
+        reviewEntities.addAll(REVIEW_MAPPER.mapAll(resultSet));
       }
     }
     return reviewEntities;
@@ -110,18 +170,11 @@ public class ReviewDaoImpl implements ReviewDao {
   public List<ReviewEntity> findReviewsByUserName(String userName) throws SQLException {
     List<ReviewEntity> reviewEntities = new ArrayList<>();
     String query = "SELECT * FROM reviews WHERE userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setString(1, userName);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        while (resultSet.next()) {
-          ReviewEntity reviewEntity = new ReviewEntity();
-          reviewEntity.setId(resultSet.getInt("reviewId"));
-          reviewEntity.setUserName(resultSet.getString("userName"));
-          reviewEntity.setBookId(resultSet.getInt("bookId"));
-          reviewEntity.setRating(resultSet.getInt("rating"));
-          reviewEntity.setComment(resultSet.getString("comment"));
-          reviewEntities.add(reviewEntity);
-        }
+        reviewEntities.addAll(REVIEW_MAPPER.mapAll(resultSet));
       }
     }
     return reviewEntities;
@@ -139,7 +192,8 @@ public class ReviewDaoImpl implements ReviewDao {
   @Override
   public boolean updateReview(int reviewId, int rating, String comment) throws SQLException {
     String query = "UPDATE reviews SET rating = ?, comment = ? WHERE reviewId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, rating);
       preparedStatement.setString(2, comment);
       preparedStatement.setInt(3, reviewId);
@@ -158,7 +212,8 @@ public class ReviewDaoImpl implements ReviewDao {
   @Override
   public boolean deleteReview(int reviewId, String userName) throws SQLException {
     String query = "DELETE FROM reviews WHERE reviewId = ? AND userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(query)) {
       preparedStatement.setInt(1, reviewId);
       preparedStatement.setString(2, userName);
       return preparedStatement.executeUpdate() > 0;
@@ -179,7 +234,8 @@ public class ReviewDaoImpl implements ReviewDao {
             + "FROM reviews "
             + "INNER JOIN books USING(bookId) "
             + "WHERE books.isbn = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setString(1, isbn);
       ResultSet resultSet = statement.executeQuery();
       if (resultSet.next()) {
@@ -203,7 +259,8 @@ public class ReviewDaoImpl implements ReviewDao {
             + "FROM reviews "
             + "INNER JOIN books ON USING(bookId) "
             + "WHERE books.bookId = ?";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
       statement.setInt(1, bookId);
       ResultSet resultSet = statement.executeQuery();
       if (resultSet.next()) {
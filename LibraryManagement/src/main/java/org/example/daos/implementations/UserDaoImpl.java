@@ -6,21 +6,36 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.example.daos.interfaces.UserDao;
 import org.example.models.UserEntity;
 import org.example.models.UserEntity.Roles;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
 import org.example.utils.DatabaseConnection;
+import org.example.utils.InList;
 
 /** Lớp triển khai UserDao để thao tác với cơ sở dữ liệu. */
 public class UserDaoImpl implements UserDao {
 
-  private final Connection connection;
-
-  /** Khởi tạo một đối tượng UserDaoImpl. */
-  public UserDaoImpl() {
-    this.connection = DatabaseConnection.getConnection();
-  }
+  // Mật khẩu băm là cột tùy chọn: các phép chiếu công khai không đọc nó và nhận null
+  private static final CompiledRowMapper<UserEntity> USER_MAPPER =
+      CompiledRowMapper.of(
+          UserEntity.class,
+          Column.ofInt("UserID"),
+          Column.ofString("Username"),
+          Column.ofString("PasswordHash").asOptional(),
+          Column.ofString("Email"),
+          Column.ofString("FirstName"),
+          Column.ofString("LastName"),
+          Column.ofString("PhoneNumber"),
+          Column.ofString("ProfileImageDirectory"),
+          Column.ofEnum("Role", Roles.class));
 
   /**
    * Hàm băm mật khẩu dạng plain text sử dụng thuật toán SHA-256.
@@ -64,7 +79,8 @@ public class UserDaoImpl implements UserDao {
           "INSERT INTO users (userName, passwordHash, email, firstName, "
               + "lastName, phoneNumber, profileImageDirectory, role) "
               + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      try (Connection connection = DatabaseConnection.openConnection();
+          PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
         preparedStatement.setString(1, user.getUserName());
         preparedStatement.setString(2, hashedPassword);
         preparedStatement.setString(3, user.getEmail());
@@ -91,22 +107,14 @@ public class UserDaoImpl implements UserDao {
   @Override
   public UserEntity loginUser(String userName, String password) throws SQLException {
     String sql = "SELECT * FROM users WHERE userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, userName);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
         if (resultSet.next()) {
-          String storedPasswordHash = resultSet.getString("passwordHash");
-          if (verifyPassword(password, storedPasswordHash)) {
-            return new UserEntity(
-                resultSet.getInt("userId"),
-                resultSet.getString("userName"),
-                resultSet.getString("passwordHash"),
-                resultSet.getString("email"),
-                resultSet.getString("firstName"),
-                resultSet.getString("lastName"),
-                resultSet.getString("phoneNumber"),
-                resultSet.getString("profileImageDirectory"),
-                Roles.valueOf(resultSet.getString("role")));
+          UserEntity user = USER_MAPPER.map(resultSet);
+          if (verifyPassword(password, user.getPasswordHash())) {
+            return user;
           }
         }
       }
@@ -129,7 +137,8 @@ public class UserDaoImpl implements UserDao {
     try {
       String newHashedPassword = hashPassword(newPassword);
       String sql = "UPDATE users SET passwordHash = ? WHERE userId = ?";
-      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      try (Connection connection = DatabaseConnection.openConnection();
+          PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
         preparedStatement.setString(1, newHashedPassword);
         preparedStatement.setInt(2, userId);
         return preparedStatement.executeUpdate() > 0;
@@ -150,7 +159,8 @@ public class UserDaoImpl implements UserDao {
   @Override
   public boolean updateEmail(int userId, String newEmail) throws SQLException {
     String sql = "UPDATE users SET email = ? WHERE userId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, newEmail);
       preparedStatement.setInt(2, userId);
       return preparedStatement.executeUpdate() > 0;
@@ -168,7 +178,8 @@ public class UserDaoImpl implements UserDao {
   @Override
   public boolean updatePhoneNumber(int userId, String newPhoneNumber) throws SQLException {
     String sql = "UPDATE users SET phoneNumber = ? WHERE userId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, newPhoneNumber);
       preparedStatement.setInt(2, userId);
       return preparedStatement.executeUpdate() > 0;
@@ -187,7 +198,8 @@ public class UserDaoImpl implements UserDao {
   public boolean updateProfileImage(int userId, String newProfileImageDirectory)
       throws SQLException {
     String sql = "UPDATE users SET profileImageDirectory = ? WHERE userId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, newProfileImageDirectory);
       preparedStatement.setInt(2, userId);
       return preparedStatement.executeUpdate() > 0;
@@ -204,26 +216,55 @@ public class UserDaoImpl implements UserDao {
   @Override
   public UserEntity findUserInfo(int userId) throws SQLException {
     String sql = "SELECT * FROM users WHERE userId = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, userId);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
         if (resultSet.next()) {
-          return new UserEntity(
-              resultSet.getInt("userId"),
-              resultSet.getString("userName"),
-              resultSet.getString("passwordHash"),
-              resultSet.getString("email"),
-              resultSet.getString("firstName"),
-              resultSet.getString("lastName"),
-              resultSet.getString("phoneNumber"),
-              resultSet.getString("profileImageDirectory"),
-              Roles.valueOf(resultSet.getString("role")));
+          return USER_MAPPER.map(resultSet);
         }
       }
     }
     return null;
   }
 
+  /**
+   * Tìm thông tin nhiều người dùng theo ID, mỗi nhóm tối đa {@link InList#CHUNK_SIZE} ID trong một
+   * truy vấn.
+   *
+   * @param userIds ID của các người dùng cần tìm.
+   * @return Bảng ánh xạ từ ID tới người dùng (không có mật khẩu băm).
+   * @throws SQLException nếu có lỗi trong quá trình thao tác với cơ sở dữ liệu.
+   */
+  @Override
+  public Map<Integer, UserEntity> findUsersByIds(Collection<Integer> userIds)
+      throws SQLException {
+    Map<Integer, UserEntity> users = new HashMap<>();
+    if (userIds.isEmpty()) {
+      return users;
+    }
+    try (Connection connection = DatabaseConnection.openConnection()) {
+      for (List<Integer> chunk : InList.chunks(userIds)) {
+        String sql =
+            "SELECT userId, userName, email, firstName, lastName, phoneNumber, "
+                + "profileImageDirectory, role FROM users WHERE userId IN ("
+                + InList.placeholders(chunk.size())
+                + ")";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+          for (int i = 0; i < chunk.size(); i++) {
+            preparedStatement.setInt(i + 1, chunk.get(i));
+          }
+          try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            for (UserEntity user : USER_MAPPER.mapAll(resultSet)) {
+              users.put(user.getId(), user);
+            }
+          }
+        }
+      }
+    }
+    return users;
+  }
+
   /**
    * Kiểm tra xem tên người dùng có tồn tại hay không.
    *
@@ -234,7 +275,8 @@ public class UserDaoImpl implements UserDao {
   @Override
   public boolean isUsernameTaken(String userName) throws SQLException {
     String sql = "SELECT COUNT(*) FROM users WHERE userName = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, userName);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
         if (resultSet.next()) {
@@ -255,7 +297,8 @@ public class UserDaoImpl implements UserDao {
   @Override
   public boolean isEmailTaken(String email) throws SQLException {
     String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, email);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
         if (resultSet.next()) {
@@ -276,7 +319,8 @@ public class UserDaoImpl implements UserDao {
   @Override
   public boolean isPhoneNumberTaken(String phoneNumber) throws SQLException {
     String sql = "SELECT COUNT(*) FROM users WHERE phoneNumber = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, phoneNumber);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
         if (resultSet.next()) {
@@ -286,4 +330,29 @@ public class UserDaoImpl implements UserDao {
     }
     return false;
   }
+
+  /**
+   * Lấy một trang người dùng theo khóa UserID, không kèm mật khẩu băm.
+   *
+   * @param afterUserId Chỉ lấy người dùng có UserID lớn hơn giá trị này.
+   * @param limit Số người dùng tối đa cần lấy.
+   * @return Danh sách người dùng sắp xếp tăng dần theo UserID.
+   * @throws SQLException nếu có lỗi trong quá trình thao tác với cơ sở dữ liệu.
+   */
+  @Override
+  public List<UserEntity> findUsersAfterId(int afterUserId, int limit) throws SQLException {
+    String sql =
+        "SELECT userId, userName, email, firstName, lastName, phoneNumber, "
+            + "profileImageDirectory, role FROM users WHERE userId > ? ORDER BY userId LIMIT ?";
+    List<UserEntity> users = new ArrayList<>();
+    try (Connection connection = DatabaseConnection.openConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, afterUserId);
+      preparedStatement.setInt(2, limit);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        users.addAll(USER_MAPPER.mapAll(resultSet));
+      }
+    }
+    return users;
+  }
 }
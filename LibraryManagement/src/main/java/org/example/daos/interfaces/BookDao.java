@@ -1,8 +1,13 @@
 package org.example.daos.interfaces;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 import org.example.models.BookEntity;
+import org.example.models.BookField;
 
 /** Giao diện cho các phương thức thao tác với dữ liệu sách. */
 public interface BookDao {
@@ -108,6 +113,18 @@ public interface BookDao {
    */
   List<BookEntity> findBooksByPublisher(String publisherName) throws SQLException;
 
+  /**
+   * Tìm sách bằng chỉ mục toàn văn, sắp xếp theo độ liên quan giảm dần.
+   *
+   * @param field Trường cần tìm.
+   * @param booleanQuery Truy vấn ở cú pháp BOOLEAN MODE (xem {@code FullTextQuery}).
+   * @param limit Số kết quả tối đa.
+   * @return Danh sách sách phù hợp nhất.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  List<BookEntity> searchBooksFullText(BookField field, String booleanQuery, int limit)
+      throws SQLException;
+
   /**
    * Tìm tất cả sách.
    *
@@ -116,6 +133,53 @@ public interface BookDao {
    */
   List<BookEntity> findAllBooks() throws SQLException;
 
+  /**
+   * Đọc tất cả sách dưới dạng stream, từng dòng một qua cursor phía máy chủ. Stream giữ kết nối
+   * cơ sở dữ liệu cho tới khi bị đóng nên phải được dùng trong try-with-resources.
+   *
+   * @return Stream các BookEntity theo thứ tự BookID.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  Stream<BookEntity> streamAllBooks() throws SQLException;
+
+  /**
+   * Lấy một trang sách theo khóa BookID (keyset pagination).
+   *
+   * @param afterBookId Chỉ lấy các sách có BookID lớn hơn giá trị này (0 cho trang đầu tiên).
+   * @param limit Số sách tối đa cần lấy.
+   * @return Danh sách sách sắp xếp tăng dần theo BookID.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  List<BookEntity> findBooksAfterId(int afterBookId, int limit) throws SQLException;
+
+  /**
+   * Thêm nhiều sách trong một giao dịch bằng JDBC batch. Nếu có lỗi, toàn bộ danh sách bị hủy.
+   *
+   * @param books Danh sách sách cần thêm.
+   * @return Số sách đã được thêm.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  int addBooks(List<BookEntity> books) throws SQLException;
+
+  /**
+   * Tìm các ISBN đã có trong cơ sở dữ liệu trong số các ISBN cho trước, bằng truy vấn theo tập
+   * hợp thay vì kiểm tra từng ISBN.
+   *
+   * @param isbns Các ISBN cần kiểm tra.
+   * @return Tập các ISBN đã tồn tại.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  Set<String> findExistingIsbns(Collection<String> isbns) throws SQLException;
+
+  /**
+   * Đếm số lần người dùng đã đọc hoặc đã mượn từng cuốn sách, bằng một truy vấn duy nhất.
+   *
+   * @param userName Tên người dùng.
+   * @return Bảng ánh xạ từ ID sách tới số lần đọc và mượn.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  Map<Integer, Integer> countHistoryByUser(String userName) throws SQLException;
+
   /**
    * Tìm sách theo ID.
    *
@@ -125,6 +189,16 @@ public interface BookDao {
    */
   BookEntity findBookById(int bookId) throws SQLException;
 
+  /**
+   * Tìm nhiều sách theo ID bằng các truy vấn IN thay vì đọc từng cuốn. ID trùng chỉ được đọc một
+   * lần.
+   *
+   * @param bookIds ID của các sách cần tìm.
+   * @return Bảng ánh xạ từ ID tới sách; ID không tồn tại không có trong bảng.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  Map<Integer, BookEntity> findBooksByIds(Collection<Integer> bookIds) throws SQLException;
+
   /**
    * Kiểm tra sách có tồn tại trong cơ sở dữ liệu không.
    *
@@ -4,6 +4,8 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
 import org.example.models.BorrowedBookEntity;
+import org.example.models.BorrowedBookRow;
+import org.example.models.CirculationStatus;
 
 /** Giao diện cho các phương thức thao tác với dữ liệu sách mượn. */
 public interface BorrowedBookDao {
@@ -32,6 +34,33 @@ public interface BorrowedBookDao {
    */
   boolean returnBook(int borrowedBookId, String userName) throws SQLException;
 
+  /**
+   * Mượn sách trong một giao dịch: kiểm tra sách quá hạn, ghi nhận lượt mượn và giảm số lượng sách
+   * có sẵn bằng một câu lệnh UPDATE có điều kiện, nên hai người không thể cùng mượn bản sao cuối.
+   *
+   * @param bookId ID của sách.
+   * @param userName Tên người mượn.
+   * @param borrowDate Ngày mượn sách.
+   * @param returnDate Hạn trả sách.
+   * @return Kết quả của giao dịch.
+   * @throws SQLException nếu có lỗi xảy ra, khi đó giao dịch bị hoàn tác.
+   */
+  CirculationStatus checkout(
+      int bookId, String userName, LocalDate borrowDate, LocalDate returnDate)
+      throws SQLException;
+
+  /**
+   * Trả sách trong một giao dịch: đánh dấu lượt mượn cũ nhất chưa trả và tăng số lượng sách có sẵn.
+   *
+   * @param bookId ID của sách.
+   * @param userName Tên người trả.
+   * @param returnDate Ngày trả sách.
+   * @return Kết quả của giao dịch.
+   * @throws SQLException nếu có lỗi xảy ra, khi đó giao dịch bị hoàn tác.
+   */
+  CirculationStatus checkin(int bookId, String userName, LocalDate returnDate)
+      throws SQLException;
+
   /**
    * Tìm danh sách sách mượn theo tên người dùng trong khoảng thời gian.
    *
@@ -92,6 +121,16 @@ public interface BorrowedBookDao {
    */
   List<BorrowedBookEntity> findAllBorrowedBooksByUser(String userName) throws SQLException;
 
+  /**
+   * Tìm tất cả sách mượn của người dùng kèm tiêu đề và tác giả, bằng một truy vấn nối với bảng
+   * sách.
+   *
+   * @param userName Tên người dùng.
+   * @return Các dòng hiển thị, lượt mượn mới nhất trước.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  List<BorrowedBookRow> findBorrowedBookRowsByUser(String userName) throws SQLException;
+
   /**
    * Tìm số lượng sách mượn theo ISBN.
    *
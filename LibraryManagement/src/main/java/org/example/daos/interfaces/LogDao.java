@@ -3,6 +3,7 @@ package org.example.daos.interfaces;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 import org.example.models.LogEntity;
 
 /** Giao diện cho các phương thức thao tác với dữ liệu log. */
@@ -16,6 +17,13 @@ public interface LogDao {
    */
   void addLog(LogEntity log) throws SQLException;
 
+  /**
+   * Thêm nhiều log bằng các câu lệnh INSERT nhiều dòng.
+   *
+   * @param logs Danh sách log cần thêm.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  void addLogs(List<LogEntity> logs) throws SQLException;
 
   /**
    * Tìm tất cả các log.
@@ -25,6 +33,25 @@ public interface LogDao {
    */
   List<LogEntity> findAllLogs() throws SQLException;
 
+  /**
+   * Đọc tất cả các log dưới dạng stream, từng dòng một qua cursor phía máy chủ. Stream giữ kết
+   * nối cơ sở dữ liệu cho tới khi bị đóng nên phải được dùng trong try-with-resources.
+   *
+   * @return Stream các LogEntity theo thứ tự LogID.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  Stream<LogEntity> streamAllLogs() throws SQLException;
+
+  /**
+   * Lấy một trang log theo khóa LogID, log mới nhất trước (keyset pagination).
+   *
+   * @param beforeLogId Chỉ lấy các log có LogID nhỏ hơn giá trị này.
+   * @param limit Số log tối đa cần lấy.
+   * @return Danh sách LogEntity (có ID) sắp xếp giảm dần theo LogID.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  List<LogEntity> findLogsBeforeId(int beforeLogId, int limit) throws SQLException;
+
   /**
    * Tìm log theo ID.
    *
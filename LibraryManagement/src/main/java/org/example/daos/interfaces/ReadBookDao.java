@@ -3,6 +3,7 @@ package org.example.daos.interfaces;
 import java.sql.SQLException;
 import java.util.List;
 import org.example.models.ReadBookEntity;
+import org.example.models.ReadBookRow;
 
 /** Giao diện cho các phương thức thao tác với dữ liệu sách đã đọc. */
 public interface ReadBookDao {
@@ -26,6 +27,16 @@ public interface ReadBookDao {
    */
   List<ReadBookEntity> findReadBooks(String userName) throws SQLException;
 
+  /**
+   * Tìm danh sách sách đã đọc của người dùng kèm tiêu đề và tác giả, bằng một truy vấn nối với
+   * bảng sách.
+   *
+   * @param userName Tên người dùng.
+   * @return Các dòng hiển thị, lượt đánh dấu mới nhất trước.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  List<ReadBookRow> findReadBookRows(String userName) throws SQLException;
+
   /**
    * Kiểm tra sách đã được đánh dấu là đọc chưa.
    *
@@ -1,7 +1,9 @@
 package org.example.daos.interfaces;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.example.models.ReviewEntity;
 
 /** Giao diện cho các phương thức thao tác với dữ liệu đánh giá. */
@@ -28,6 +30,29 @@ public interface ReviewDao {
    */
   List<ReviewEntity> findReviewsByBookId(int bookId) throws SQLException;
 
+  /**
+   * Tìm đánh giá của nhiều cuốn sách bằng các truy vấn IN thay vì truy vấn từng cuốn.
+   *
+   * @param bookIds ID của các sách.
+   * @return Bảng ánh xạ từ ID sách tới các đánh giá (theo thứ tự ReviewID); sách không có đánh giá
+   *     không có trong bảng.
+   * @throws SQLException nếu xảy ra lỗi truy cập cơ sở dữ liệu.
+   */
+  Map<Integer, List<ReviewEntity>> findReviewsByBookIds(Collection<Integer> bookIds)
+      throws SQLException;
+
+  /**
+   * Lấy một trang đánh giá của một cuốn sách theo khóa ReviewID (keyset pagination).
+   *
+   * @param bookId ID của sách.
+   * @param afterReviewId Chỉ lấy các đánh giá có ReviewID lớn hơn giá trị này (0 cho trang đầu).
+   * @param limit Số đánh giá tối đa cần lấy.
+   * @return Danh sách ReviewEntity sắp xếp tăng dần theo ReviewID.
+   * @throws SQLException nếu xảy ra lỗi truy cập cơ sở dữ liệu.
+   */
+  List<ReviewEntity> findReviewsByBookIdAfterId(int bookId, int afterReviewId, int limit)
+      throws SQLException;
+
   /**
    * Tìm danh sách đánh giá theo ISBN của sách.
    *
@@ -1,6 +1,9 @@
 package org.example.daos.interfaces;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import org.example.models.UserEntity;
 
 /** Giao diện cho các phương thức thao tác với dữ liệu người dùng. */
@@ -75,6 +78,15 @@ public interface UserDao {
    */
   UserEntity findUserInfo(int userId) throws SQLException;
 
+  /**
+   * Tìm thông tin nhiều người dùng theo ID bằng các truy vấn IN. Mật khẩu băm không được trả về.
+   *
+   * @param userIds ID của các người dùng cần tìm.
+   * @return Bảng ánh xạ từ ID tới người dùng; ID không tồn tại không có trong bảng.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  Map<Integer, UserEntity> findUsersByIds(Collection<Integer> userIds) throws SQLException;
+
   /**
    * Kiểm tra tên người dùng đã tồn tại chưa.
    *
@@ -101,4 +113,14 @@ public interface UserDao {
    * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
    */
   boolean isPhoneNumberTaken(String phoneNumber) throws SQLException;
+
+  /**
+   * Lấy một trang người dùng theo khóa UserID (keyset pagination). Mật khẩu băm không được trả về.
+   *
+   * @param afterUserId Chỉ lấy người dùng có UserID lớn hơn giá trị này (0 cho trang đầu tiên).
+   * @param limit Số người dùng tối đa cần lấy.
+   * @return Danh sách UserEntity sắp xếp tăng dần theo UserID.
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình truy vấn cơ sở dữ liệu.
+   */
+  List<UserEntity> findUsersAfterId(int afterUserId, int limit) throws SQLException;
 }
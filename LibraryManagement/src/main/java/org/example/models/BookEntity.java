@@ -1,15 +1,11 @@
 package org.example.models;
 
 import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 
 import org.example.services.advanced.APIInterface;
 import org.example.services.advanced.BooksAPIAdapter;
-
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import org.example.services.advanced.QrCodeService;
 
 /**
  * Lớp đại diện cho một cuốn sách trong hệ thống.
@@ -60,6 +56,18 @@ public class BookEntity extends BaseEntity {
         this.quantity = quantity;
     }
 
+    /**
+     * Tạo một bản sao của một cuốn sách, dùng khi cần trả về đối tượng mà người gọi có thể sửa
+     * tùy ý mà không ảnh hưởng tới bản gốc (ví dụ bản được lưu trong bộ nhớ đệm).
+     *
+     * @param other Cuốn sách cần sao chép.
+     */
+    public BookEntity(BookEntity other) {
+        this(other.getId(), other.isbn, other.title, other.authorName, other.publisherName,
+                other.publishedDate, other.category, other.bookCoverDirectory, other.available,
+                other.quantity);
+    }
+
     /**
      * Lấy ISBN của sách.
      * 
@@ -277,25 +285,27 @@ public class BookEntity extends BaseEntity {
      */
     public String getBookLink() {
         // Implement logic to generate a link to the book's Google Books page
-        APIInterface api = new BooksAPIAdapter();
+        APIInterface api = BooksAPIAdapter.getInstance();
         String bookLink = api.getLink(isbn);
         return bookLink;
     }
 
     /**
-     * Tạo mã QR code cho đường dẫn đến trang Google Books của sách.
+     * Lấy mã QR code cho đường dẫn đến trang Google Books của sách.
+     * Mã được tạo một lần cho mỗi ISBN và được lưu lại.
      * 
      * @return QR code.
      */
     public BufferedImage getQRCode() {
-        String bookLink = getBookLink(); 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        try {
-            BitMatrix bitMatrix = qrCodeWriter.encode(bookLink, BarcodeFormat.QR_CODE, 200, 200);
-            return MatrixToImageWriter.toBufferedImage(bitMatrix); 
-        } catch (WriterException e) {
-            System.out.println("Error generating QR code: " + e.getMessage());
-            return null; 
-        }
+        return QrCodeService.getInstance().getImage(isbn);
+    }
+
+    /**
+     * Lấy mã QR code mà không chặn luồng gọi (ví dụ luồng giao diện).
+     *
+     * @return QR code.
+     */
+    public CompletableFuture<BufferedImage> getQRCodeAsync() {
+        return QrCodeService.getInstance().getImageAsync(isbn);
     }
 }
@@ -0,0 +1,54 @@
+package org.example.models;
+
+/**
+ * Các trường văn bản của sách có thể tìm kiếm, kèm danh sách cột tương ứng trong bảng Books.
+ */
+public enum BookField {
+  TITLE("Title"),
+  AUTHOR("AuthorName"),
+  CATEGORY("Category"),
+  PUBLISHER("PublisherName"),
+  // Tìm đồng thời trên cả bốn trường, dùng chỉ mục FULLTEXT gộp
+  ALL("Title, AuthorName, Category, PublisherName");
+
+  private final String columns;
+
+  BookField(String columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Danh sách cột (phân tách bởi dấu phẩy), trùng với định nghĩa chỉ mục FULLTEXT tương ứng.
+   *
+   * @return Danh sách cột.
+   */
+  public String getColumns() {
+    return columns;
+  }
+
+  /**
+   * Lấy giá trị của trường này từ một cuốn sách ({@link #ALL} trả về các trường ghép lại).
+   *
+   * @param book Cuốn sách.
+   * @return Giá trị của trường, có thể null.
+   */
+  public String extract(BookEntity book) {
+    switch (this) {
+      case TITLE:
+        return book.getTitle();
+      case AUTHOR:
+        return book.getAuthorName();
+      case CATEGORY:
+        return book.getCategory();
+      case PUBLISHER:
+        return book.getPublisherName();
+      default:
+        return String.join(
+            " ",
+            String.valueOf(book.getTitle()),
+            String.valueOf(book.getAuthorName()),
+            String.valueOf(book.getCategory()),
+            String.valueOf(book.getPublisherName()));
+    }
+  }
+}
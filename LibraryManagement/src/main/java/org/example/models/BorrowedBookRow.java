@@ -0,0 +1,23 @@
+package org.example.models;
+
+import java.time.LocalDate;
+
+/**
+ * Một dòng sách đã mượn để hiển thị, đọc bằng một truy vấn nối BorrowedBooks với Books.
+ *
+ * @param borrowId ID lượt mượn.
+ * @param bookId ID của sách.
+ * @param bookTitle Tiêu đề sách.
+ * @param authorName Tên tác giả.
+ * @param borrowDate Ngày mượn.
+ * @param returnDate Ngày phải trả.
+ * @param returned Sách đã được trả hay chưa.
+ */
+public record BorrowedBookRow(
+    int borrowId,
+    int bookId,
+    String bookTitle,
+    String authorName,
+    LocalDate borrowDate,
+    LocalDate returnDate,
+    boolean returned) {}
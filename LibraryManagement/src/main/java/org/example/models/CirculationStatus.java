@@ -0,0 +1,15 @@
+package org.example.models;
+
+/**
+ * Kết quả của một giao dịch mượn hoặc trả sách.
+ */
+public enum CirculationStatus {
+  // Giao dịch đã được ghi nhận
+  SUCCESS,
+  // Sách không tồn tại hoặc đã hết bản sao có sẵn
+  NOT_AVAILABLE,
+  // Người dùng còn sách quá hạn chưa trả
+  OVERDUE,
+  // Người dùng không có lượt mượn nào chưa trả cho sách này
+  NOT_BORROWED
+}
@@ -0,0 +1,11 @@
+package org.example.models;
+
+/**
+ * Một dòng sách đã đọc để hiển thị, đọc bằng một truy vấn nối ReadBooks với Books.
+ *
+ * @param readId ID lượt đánh dấu đã đọc.
+ * @param bookId ID của sách.
+ * @param bookTitle Tiêu đề sách.
+ * @param authorName Tên tác giả.
+ */
+public record ReadBookRow(int readId, int bookId, String bookTitle, String authorName) {}
@@ -0,0 +1,14 @@
+package org.example.services.advanced;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.example.models.BookEntity;
+
+// Target Adapter bất đồng bộ để chương trình tương tác với BooksAPI Service mà không chặn luồng gọi
+public interface AsyncAPIInterface {
+    // AsyncBooksAPIAdapter, kết quả null nếu API không có sách
+    public CompletableFuture<BookEntity> getBookEntityAsync(String ISBN);
+
+    // AsyncBooksAPIAdapter, kết quả null nếu API không có sách
+    public CompletableFuture<String> getLinkAsync(String ISBN);
+}
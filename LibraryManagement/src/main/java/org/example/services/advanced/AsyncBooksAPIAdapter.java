@@ -0,0 +1,297 @@
+package org.example.services.advanced;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.models.BookEntity;
+import org.example.services.advanced.BookMetadataStore.VolumeMetadata;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.books.Books;
+import com.google.api.services.books.model.Volumes;
+
+
+/**
+ * Adapter bất đồng bộ cho BooksAPIService.
+ *
+ * <p>Các lời gọi đồng thời cho cùng một ISBN được gộp lại và chỉ tạo một yêu cầu tới API. Các ISBN
+ * khác nhau đang chờ được gửi chung trong một yêu cầu batch của Google API, tức một round-trip cho
+ * nhiều ISBN. Số round-trip chạy đồng thời bị giới hạn; trong lúc chờ, các ISBN mới dồn lại thành
+ * batch tiếp theo, nên không cần thêm độ trễ để gom. Kết quả được lưu vào BookMetadataStore giống
+ * như BooksAPIAdapter, thông tin đã lưu được trả về ngay.
+ *
+ * <p>Cấu hình qua system property {@code library.books.api.batchSize} (mặc định 40) và
+ * {@code library.books.api.maxConcurrentRequests} (mặc định 4).
+ */
+public class AsyncBooksAPIAdapter implements AsyncAPIInterface, AutoCloseable {
+
+    /**
+     * Các chỉ số của adapter.
+     *
+     * @param lookups Số lượt tra cứu.
+     * @param storeHits Số lượt có sẵn thông tin đã lưu.
+     * @param coalesced Số lượt được gộp vào một yêu cầu đang chờ cho cùng ISBN.
+     * @param fetched Số ISBN đã lấy được từ API.
+     * @param roundTrips Số yêu cầu HTTP đã gửi (một batch tính là một).
+     * @param failures Số ISBN không lấy được do lỗi.
+     */
+    public record Stats(long lookups, long storeHits, long coalesced, long fetched,
+            long roundTrips, long failures) {}
+
+    private static volatile AsyncBooksAPIAdapter instance;
+
+    private final Books books;
+    private final BookMetadataStore store;
+    private final int batchSize;
+
+    // Giới hạn số round-trip đồng thời
+    private final Semaphore permits;
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+
+    // Các ISBN chờ gửi, và yêu cầu đang chờ của mỗi ISBN
+    private final LinkedBlockingQueue<String> pending = new LinkedBlockingQueue<>();
+    private final Map<String, CompletableFuture<VolumeMetadata>> inFlight =
+            new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Tạo adapter. Ứng dụng nên dùng {@link #getInstance()}.
+     *
+     * @param books Client của API.
+     * @param store Kho thông tin sách.
+     * @param batchSize Số ISBN tối đa trong một round-trip.
+     * @param maxConcurrentRequests Số round-trip tối đa chạy đồng thời.
+     */
+    public AsyncBooksAPIAdapter(Books books, BookMetadataStore store, int batchSize,
+            int maxConcurrentRequests) {
+        if (batchSize < 1 || maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("batchSize and maxConcurrentRequests must be positive");
+        }
+        this.books = books;
+        this.store = store;
+        this.batchSize = batchSize;
+        this.permits = new Semaphore(maxConcurrentRequests);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(maxConcurrentRequests, runnable -> {
+            Thread thread = new Thread(runnable, "books-api-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "books-api-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Lấy adapter bất đồng bộ dùng chung của ứng dụng.
+     *
+     * @return Adapter dùng chung.
+     */
+    public static AsyncBooksAPIAdapter getInstance() {
+        if (instance == null) {
+            synchronized (AsyncBooksAPIAdapter.class) {
+                if (instance == null) {
+                    instance = new AsyncBooksAPIAdapter(BooksAPIService.getBooksService(),
+                            BookMetadataStore.getInstance(),
+                            Integer.getInteger("library.books.api.batchSize", 40),
+                            Integer.getInteger("library.books.api.maxConcurrentRequests", 4));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Lấy sách theo ISBN mà không chặn luồng gọi.
+     *
+     * @return BookEntity, hoặc null nếu API không có sách; hoàn thành với lỗi nếu không gọi được API.
+     */
+    @Override
+    public CompletableFuture<BookEntity> getBookEntityAsync(String ISBN) {
+        return lookupAsync(ISBN).thenApply(VolumeMetadata::toBookEntity);
+    }
+
+    /**
+     * Lấy link sách theo ISBN mà không chặn luồng gọi.
+     *
+     * @return Link sách, hoặc null nếu API không có sách; hoàn thành với lỗi nếu không gọi được API.
+     */
+    @Override
+    public CompletableFuture<String> getLinkAsync(String ISBN) {
+        return lookupAsync(ISBN).thenApply(metadata -> metadata.found() ? metadata.infoLink() : null);
+    }
+
+    /**
+     * Lấy thông tin sách theo ISBN: thông tin đã lưu được trả về ngay (thông tin đã cũ được làm mới
+     * ở nền), nếu chưa có thì ISBN được đưa vào batch tiếp theo.
+     *
+     * @param ISBN ISBN của sách.
+     * @return Thông tin sách; hoàn thành với IOException nếu không gọi được API.
+     */
+    public CompletableFuture<VolumeMetadata> lookupAsync(String ISBN) {
+        lookups.incrementAndGet();
+        VolumeMetadata cached = store.get(ISBN);
+        if (cached != null) {
+            storeHits.incrementAndGet();
+            if (store.isStale(cached)) {
+                fetch(ISBN);
+            }
+            return CompletableFuture.completedFuture(cached);
+        }
+        // Mỗi người gọi nhận một bản sao để việc hủy của họ không ảnh hưởng người khác
+        return fetch(ISBN).copy();
+    }
+
+    /**
+     * Lấy các chỉ số hiện tại.
+     *
+     * @return Ảnh chụp các chỉ số.
+     */
+    public Stats getStats() {
+        return new Stats(lookups.get(), storeHits.get(), coalesced.get(), fetched.get(),
+                roundTrips.get(), failures.get());
+    }
+
+    /**
+     * Dừng luồng gửi; các yêu cầu chưa xong hoàn thành với lỗi. Kho thông tin sách không bị đóng.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        senders.shutdown();
+        try {
+            senders.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException closedError = new IOException("Books API adapter is closed");
+        inFlight.forEach((isbn, future) -> fail(isbn, future, closedError));
+    }
+
+    private CompletableFuture<VolumeMetadata> fetch(String ISBN) {
+        CompletableFuture<VolumeMetadata> created = new CompletableFuture<>();
+        CompletableFuture<VolumeMetadata> existing = inFlight.putIfAbsent(ISBN, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        if (closed) {
+            fail(ISBN, created, new IOException("Books API adapter is closed"));
+        } else {
+            pending.add(ISBN);
+        }
+        return created;
+    }
+
+    // Lấy ISBN đầu tiên, chờ tới khi có round-trip trống rồi gom tất cả ISBN đang chờ vào cùng batch
+    private void dispatchLoop() {
+        try {
+            while (!closed) {
+                String first = pending.take();
+                permits.acquire();
+                List<String> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                senders.execute(() -> {
+                    try {
+                        send(batch);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            // Adapter đã đóng
+        }
+    }
+
+    private void send(List<String> isbns) {
+        Map<String, CompletableFuture<VolumeMetadata>> futures = new HashMap<>();
+        for (String isbn : isbns) {
+            CompletableFuture<VolumeMetadata> future = inFlight.get(isbn);
+            if (future != null) {
+                futures.put(isbn, future);
+            }
+        }
+        if (futures.isEmpty()) {
+            return;
+        }
+        roundTrips.incrementAndGet();
+        long now = System.currentTimeMillis();
+        try {
+            if (futures.size() == 1) {
+                String isbn = futures.keySet().iterator().next();
+                Volumes volumes = BooksAPIAdapter.isbnQuery(books, isbn).execute();
+                complete(isbn, futures.get(isbn), BooksAPIAdapter.toMetadata(isbn, volumes, now));
+                return;
+            }
+            BatchRequest batch = books.batch();
+            for (Map.Entry<String, CompletableFuture<VolumeMetadata>> entry : futures.entrySet()) {
+                String isbn = entry.getKey();
+                CompletableFuture<VolumeMetadata> future = entry.getValue();
+                BooksAPIAdapter.isbnQuery(books, isbn).queue(batch, new JsonBatchCallback<Volumes>() {
+                    @Override
+                    public void onSuccess(Volumes volumes, HttpHeaders responseHeaders) {
+                        complete(isbn, future, BooksAPIAdapter.toMetadata(isbn, volumes, now));
+                    }
+
+                    @Override
+                    public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                        System.err.println("Error fetching book data: " + error.getMessage());
+                        fail(isbn, future, new IOException(error.getMessage()));
+                    }
+                });
+            }
+            batch.execute();
+        } catch (IOException | RuntimeException e) {
+            // Handle potential exceptions from the API call
+            System.err.println("Error fetching book data: " + e.getMessage());
+            futures.forEach((isbn, future) -> fail(isbn, future, e));
+        }
+    }
+
+    private void complete(String ISBN, CompletableFuture<VolumeMetadata> future,
+            VolumeMetadata metadata) {
+        try {
+            store.put(metadata);
+        } catch (IOException e) {
+            System.err.println("Error caching book data: " + e.getMessage());
+        }
+        fetched.incrementAndGet();
+        inFlight.remove(ISBN, future);
+        future.complete(metadata);
+    }
+
+    private void fail(String ISBN, CompletableFuture<VolumeMetadata> future, Throwable error) {
+        inFlight.remove(ISBN, future);
+        if (!future.isDone()) {
+            failures.incrementAndGet();
+            future.completeExceptionally(error);
+        }
+    }
+}
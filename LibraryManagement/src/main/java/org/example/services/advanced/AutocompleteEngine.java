@@ -0,0 +1,380 @@
+package org.example.services.advanced;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.example.models.BookField;
+import org.example.utils.ExecutorRegistry;
+
+/**
+ * Gợi ý tìm kiếm theo tiền tố cho tiêu đề, tác giả, thể loại và nhà xuất bản.
+ *
+ * <p>Mỗi trường có một cây tiền tố nén (radix trie) trên các giá trị đã chuẩn hóa. Mỗi nút lưu sẵn
+ * tối đa {@link #MAX_SUGGESTIONS} giá trị phổ biến nhất (nhiều sách nhất) trong nhánh của nó, nên
+ * một lần gợi ý chỉ cần đi theo tiền tố rồi đọc danh sách có sẵn, không truy vấn cơ sở dữ liệu và
+ * không phụ thuộc vào kích thước danh mục. Tiêu đề còn được đánh chỉ mục theo vài từ đầu tiên để gõ
+ * "potter" vẫn gợi ý được "Harry Potter".
+ *
+ * <p>Cây được xây từ {@link CatalogIndex} trên executor CPU dùng chung của {@link ExecutorRegistry}
+ * và được xây lại khi chỉ mục thay đổi; mỗi lúc chỉ có một lần xây, trong lúc đó các gợi ý vẫn
+ * được trả lời từ cây cũ.
+ */
+public final class AutocompleteEngine {
+
+  /** Số gợi ý tối đa được lưu sẵn ở mỗi nút. */
+  public static final int MAX_SUGGESTIONS = 10;
+
+  // Số từ đầu tiên của tiêu đề được dùng làm điểm bắt đầu gợi ý
+  private static final int MAX_TITLE_WORDS = 4;
+
+  private static final BookField[] FIELDS = {
+      BookField.TITLE, BookField.AUTHOR, BookField.CATEGORY, BookField.PUBLISHER
+  };
+
+  private static final AutocompleteEngine instance =
+      new AutocompleteEngine(CatalogIndex.getInstance());
+
+  private final CatalogIndex catalogIndex;
+
+  // Executor dùng chung do ExecutorRegistry quản lý, để xây lại cây mà không chặn luồng giao diện
+  private final ExecutorService cpuExecutor;
+
+  private final AtomicBoolean building = new AtomicBoolean();
+
+  private volatile Map<BookField, Trie> tries = Collections.emptyMap();
+
+  private volatile long builtVersion = -1;
+
+  /**
+   * Tạo bộ gợi ý dựa trên một chỉ mục sách. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param catalogIndex Chỉ mục sách làm nguồn dữ liệu.
+   */
+  public AutocompleteEngine(CatalogIndex catalogIndex) {
+    this.catalogIndex = catalogIndex;
+    this.cpuExecutor = ExecutorRegistry.getInstance().cpu();
+  }
+
+  /**
+   * Lấy bộ gợi ý dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của AutocompleteEngine.
+   */
+  public static AutocompleteEngine getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gợi ý các giá trị của một trường bắt đầu bằng tiền tố (không phân biệt hoa thường và dấu). Nếu
+   * cây chưa được xây hoặc đã cũ, việc xây lại được lên lịch ở luồng nền và kết quả hiện tại được
+   * trả về ngay.
+   *
+   * @param field Trường cần gợi ý (không dùng {@link BookField#ALL}).
+   * @param prefix Tiền tố người dùng đã nhập.
+   * @param limit Số gợi ý tối đa, không vượt quá {@link #MAX_SUGGESTIONS}.
+   * @return Danh sách gợi ý, giá trị phổ biến trước.
+   */
+  public List<String> suggest(BookField field, String prefix, int limit) {
+    refreshAsync();
+    Trie trie = tries.get(field);
+    if (trie == null || limit <= 0) {
+      return Collections.emptyList();
+    }
+    return trie.suggest(CatalogIndex.normalize(prefix).trim(), Math.min(limit, MAX_SUGGESTIONS));
+  }
+
+  /**
+   * Xây lại các cây gợi ý ngay trên luồng hiện tại.
+   *
+   * @throws SQLException Nếu chỉ mục sách chưa được nạp và việc nạp thất bại.
+   */
+  public void rebuild() throws SQLException {
+    catalogIndex.ensureLoaded();
+    long version = catalogIndex.getVersion();
+
+    Map<BookField, TrieBuilder> builders = new EnumMap<>(BookField.class);
+    for (BookField field : FIELDS) {
+      builders.put(field, new TrieBuilder());
+    }
+    catalogIndex.forEachBook(
+        book -> {
+          for (BookField field : FIELDS) {
+            builders.get(field).count(field.extract(book));
+          }
+        });
+
+    Map<BookField, Trie> built = new EnumMap<>(BookField.class);
+    for (BookField field : FIELDS) {
+      built.put(field, builders.get(field).build(field == BookField.TITLE));
+    }
+    tries = built;
+    builtVersion = version;
+  }
+
+  /**
+   * Lên lịch xây lại các cây gợi ý ở luồng nền nếu chúng chưa có hoặc đã cũ so với chỉ mục sách.
+   * Có thể gọi sớm (ví dụ khi mở màn hình tìm kiếm) để gợi ý sẵn sàng trước khi người dùng gõ.
+   */
+  public void refreshAsync() {
+    if (builtVersion == catalogIndex.getVersion() && catalogIndex.isLoaded()) {
+      return;
+    }
+    if (!building.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      cpuExecutor.execute(
+          () -> {
+            try {
+              rebuild();
+            } catch (SQLException | RuntimeException e) {
+              System.out.println("Lỗi khi xây dựng gợi ý tìm kiếm: " + e.getMessage());
+            } finally {
+              building.set(false);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // Registry đã đóng khi ứng dụng thoát, lần gọi sau sẽ thử lại
+      building.set(false);
+    }
+  }
+
+  /** Đếm số sách theo từng giá trị rồi dựng cây. */
+  private static final class TrieBuilder {
+    final Map<String, Integer> idsByKey = new HashMap<>();
+    final List<String> keys = new ArrayList<>();
+    final List<String> displays = new ArrayList<>();
+    int[] weights = new int[16];
+
+    void count(String value) {
+      if (value == null || value.isBlank()) {
+        return;
+      }
+      String key = CatalogIndex.normalize(value).trim();
+      Integer id = idsByKey.get(key);
+      if (id == null) {
+        id = keys.size();
+        idsByKey.put(key, id);
+        keys.add(key);
+        displays.add(value.trim());
+        if (id == weights.length) {
+          weights = Arrays.copyOf(weights, id * 2);
+        }
+      }
+      weights[id]++;
+    }
+
+    Trie build(boolean wordStarts) {
+      Trie trie = new Trie(displays.toArray(new String[0]), Arrays.copyOf(weights, keys.size()));
+      for (int id = 0; id < keys.size(); id++) {
+        String key = keys.get(id);
+        trie.insert(key, id);
+        if (wordStarts) {
+          int words = 1;
+          for (int i = 1; i < key.length() && words < MAX_TITLE_WORDS; i++) {
+            if (key.charAt(i - 1) == ' ' && key.charAt(i) != ' ') {
+              trie.insert(key.substring(i), id);
+              words++;
+            }
+          }
+        }
+      }
+      trie.computeTop(trie.root);
+      return trie;
+    }
+  }
+
+  /** Cây tiền tố nén, mỗi nút lưu sẵn các giá trị phổ biến nhất của nhánh. */
+  private static final class Trie {
+    final Node root = new Node("");
+    final String[] displays;
+    final int[] weights;
+
+    Trie(String[] displays, int[] weights) {
+      this.displays = displays;
+      this.weights = weights;
+    }
+
+    void insert(String key, int valueId) {
+      Node node = root;
+      int i = 0;
+      while (i < key.length()) {
+        int index = node.find(key.charAt(i));
+        if (index < 0) {
+          Node leaf = new Node(key.substring(i));
+          leaf.addTerminal(valueId);
+          node.addChild(leaf);
+          return;
+        }
+        Node child = node.children[index];
+        int common = commonPrefix(child.label, key, i);
+        if (common < child.label.length()) {
+          // Tách cạnh tại vị trí khác nhau đầu tiên
+          Node middle = new Node(child.label.substring(0, common));
+          child.label = child.label.substring(common);
+          middle.addChild(child);
+          node.children[index] = middle;
+          child = middle;
+        }
+        node = child;
+        i += common;
+      }
+      node.addTerminal(valueId);
+    }
+
+    List<String> suggest(String prefix, int limit) {
+      Node node = root;
+      int i = 0;
+      while (i < prefix.length()) {
+        int index = node.find(prefix.charAt(i));
+        if (index < 0) {
+          return Collections.emptyList();
+        }
+        Node child = node.children[index];
+        int common = commonPrefix(child.label, prefix, i);
+        if (i + common < prefix.length() && common < child.label.length()) {
+          return Collections.emptyList();
+        }
+        node = child;
+        i += common;
+      }
+
+      int[] ids = node.top != null ? node.top : rank(collect(node, new int[node.count], 0));
+      List<String> result = new ArrayList<>(Math.min(limit, ids.length));
+      for (int k = 0; k < ids.length && k < limit; k++) {
+        result.add(displays[ids[k]]);
+      }
+      return result;
+    }
+
+    // Tính số mục trong mỗi nhánh và danh sách phổ biến nhất cho các nhánh lớn
+    int computeTop(Node node) {
+      int count = node.terminals == null ? 0 : node.terminals.length;
+      for (int c = 0; c < node.childCount; c++) {
+        count += computeTop(node.children[c]);
+      }
+      node.count = count;
+      if (count > MAX_SUGGESTIONS) {
+        int own = node.terminals == null ? 0 : node.terminals.length;
+        int size = own;
+        for (int c = 0; c < node.childCount; c++) {
+          size += Math.min(node.children[c].count, MAX_SUGGESTIONS);
+        }
+        int[] candidates = new int[size];
+        if (own > 0) {
+          System.arraycopy(node.terminals, 0, candidates, 0, own);
+        }
+        int offset = own;
+        for (int c = 0; c < node.childCount; c++) {
+          Node child = node.children[c];
+          if (child.top != null) {
+            System.arraycopy(child.top, 0, candidates, offset, child.top.length);
+            offset += child.top.length;
+          } else {
+            collect(child, candidates, offset);
+            offset += child.count;
+          }
+        }
+        node.top = rank(Arrays.copyOf(candidates, offset));
+      }
+      return count;
+    }
+
+    // Gom mọi mục của một nhánh nhỏ (không quá MAX_SUGGESTIONS mục)
+    private int[] collect(Node node, int[] out, int start) {
+      int n = start;
+      if (node.terminals != null) {
+        System.arraycopy(node.terminals, 0, out, n, node.terminals.length);
+        n += node.terminals.length;
+      }
+      for (int c = 0; c < node.childCount; c++) {
+        collect(node.children[c], out, n);
+        n += node.children[c].count;
+      }
+      return out;
+    }
+
+    // Bỏ trùng, sắp xếp theo số sách giảm dần rồi theo tên, giữ tối đa MAX_SUGGESTIONS mục
+    private int[] rank(int[] ids) {
+      Integer[] boxed = Arrays.stream(ids).distinct().boxed().toArray(Integer[]::new);
+      Arrays.sort(
+          boxed,
+          (a, b) -> weights[a] != weights[b]
+              ? Integer.compare(weights[b], weights[a])
+              : displays[a].compareToIgnoreCase(displays[b]));
+      int size = Math.min(boxed.length, MAX_SUGGESTIONS);
+      int[] top = new int[size];
+      for (int k = 0; k < size; k++) {
+        top[k] = boxed[k];
+      }
+      return top;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+      int max = Math.min(label.length(), key.length() - from);
+      int n = 0;
+      while (n < max && label.charAt(n) == key.charAt(from + n)) {
+        n++;
+      }
+      return n;
+    }
+  }
+
+  /** Một nút của cây: nhãn cạnh đi vào, các nút con sắp theo ký tự đầu và các giá trị kết thúc. */
+  private static final class Node {
+    String label;
+    char[] firstChars = new char[0];
+    Node[] children = new Node[0];
+    int childCount;
+    int[] terminals;
+    int count;
+    int[] top;
+
+    Node(String label) {
+      this.label = label;
+    }
+
+    int find(char c) {
+      int index = Arrays.binarySearch(firstChars, 0, childCount, c);
+      return index >= 0 ? index : -1;
+    }
+
+    void addChild(Node child) {
+      char c = child.label.charAt(0);
+      int pos = -Arrays.binarySearch(firstChars, 0, childCount, c) - 1;
+      if (childCount == children.length) {
+        int capacity = Math.max(2, childCount * 2);
+        firstChars = Arrays.copyOf(firstChars, capacity);
+        children = Arrays.copyOf(children, capacity);
+      }
+      System.arraycopy(firstChars, pos, firstChars, pos + 1, childCount - pos);
+      System.arraycopy(children, pos, children, pos + 1, childCount - pos);
+      firstChars[pos] = c;
+      children[pos] = child;
+      childCount++;
+    }
+
+    void addTerminal(int valueId) {
+      if (terminals == null) {
+        terminals = new int[] {valueId};
+        return;
+      }
+      for (int id : terminals) {
+        if (id == valueId) {
+          return;
+        }
+      }
+      terminals = Arrays.copyOf(terminals, terminals.length + 1);
+      terminals[terminals.length - 1] = valueId;
+    }
+  }
+}
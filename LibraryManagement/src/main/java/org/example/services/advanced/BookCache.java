@@ -0,0 +1,209 @@
+package org.example.services.advanced;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.models.BookEntity;
+import org.example.utils.TinyLfuCache;
+
+/**
+ * Bộ nhớ đệm đọc xuyên (read-through) cho sách theo ID và theo ISBN.
+ *
+ * <p>Sách được lưu trong một {@link TinyLfuCache} theo ID, kèm một bảng ánh xạ ISBN sang ID. Bộ
+ * đệm lưu bản sao của sách và trả về bản sao mới ở mỗi lần đọc nên người gọi có thể sửa đối tượng
+ * nhận được mà không làm hỏng dữ liệu trong bộ đệm. {@code BookService} xóa sách khỏi bộ đệm sau
+ * mỗi thao tác ghi; một lần đọc từ cơ sở dữ liệu bắt đầu trước khi bị xóa sẽ không được lưu lại,
+ * nên bộ đệm không giữ dữ liệu cũ.
+ *
+ * <p>Cấu hình qua system property {@code library.cache.books.maxSize} (mặc định 10000) và {@code
+ * library.cache.books.ttlSeconds} (mặc định 0, không hết hạn).
+ */
+public final class BookCache {
+
+  /**
+   * Hàm đọc sách từ cơ sở dữ liệu khi không có trong bộ đệm.
+   *
+   * @param <K> Kiểu khóa (ID hoặc ISBN).
+   */
+  @FunctionalInterface
+  public interface Loader<K> {
+    BookEntity load(K key) throws SQLException;
+  }
+
+  /** Hàm đọc nhiều sách theo ID cùng lúc khi không có trong bộ đệm. */
+  @FunctionalInterface
+  public interface BulkLoader {
+    Map<Integer, BookEntity> loadAll(Collection<Integer> bookIds) throws SQLException;
+  }
+
+  private static final BookCache instance =
+      new BookCache(
+          Integer.getInteger("library.cache.books.maxSize", 10_000),
+          TimeUnit.SECONDS.toNanos(Long.getLong("library.cache.books.ttlSeconds", 0)));
+
+  private final TinyLfuCache<Integer, BookEntity> books;
+  private final Map<String, Integer> idsByIsbn = new ConcurrentHashMap<>();
+
+  // Tăng sau mỗi lần xóa, dùng để bỏ kết quả của các lần đọc bắt đầu trước khi xóa
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Tạo bộ đệm. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param maximumSize Số sách tối đa.
+   * @param ttlNanos Thời gian sống của một sách (nano giây), 0 nếu không hết hạn.
+   */
+  public BookCache(int maximumSize, long ttlNanos) {
+    this.books = new TinyLfuCache<>(maximumSize, ttlNanos, this::onRemoval);
+  }
+
+  /**
+   * Lấy bộ đệm dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của BookCache.
+   */
+  public static BookCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Lấy sách theo ID, đọc từ cơ sở dữ liệu nếu chưa có trong bộ đệm.
+   *
+   * @param bookId ID của sách.
+   * @param loader Hàm đọc sách theo ID.
+   * @return Bản sao của sách, hoặc null nếu không tồn tại.
+   * @throws SQLException Nếu có lỗi khi đọc.
+   */
+  public BookEntity getById(int bookId, Loader<Integer> loader) throws SQLException {
+    BookEntity cached = books.getIfPresent(bookId);
+    if (cached != null) {
+      return new BookEntity(cached);
+    }
+    long version = invalidations.get();
+    BookEntity loaded = loader.load(bookId);
+    return store(loaded, version);
+  }
+
+  /**
+   * Lấy nhiều sách theo ID. Các sách chưa có trong bộ đệm được đọc bằng một lời gọi {@code loader}
+   * duy nhất.
+   *
+   * @param bookIds ID của các sách.
+   * @param loader Hàm đọc nhiều sách theo ID.
+   * @return Bảng ánh xạ từ ID tới bản sao của sách; ID không tồn tại không có trong bảng.
+   * @throws SQLException Nếu có lỗi khi đọc.
+   */
+  public Map<Integer, BookEntity> getAllById(Collection<Integer> bookIds, BulkLoader loader)
+      throws SQLException {
+    Map<Integer, BookEntity> found = new HashMap<>();
+    List<Integer> missing = new ArrayList<>();
+    for (Integer bookId : bookIds) {
+      BookEntity cached = bookId == null ? null : books.getIfPresent(bookId);
+      if (cached != null) {
+        found.put(bookId, new BookEntity(cached));
+      } else if (bookId != null) {
+        missing.add(bookId);
+      }
+    }
+    if (!missing.isEmpty()) {
+      long version = invalidations.get();
+      for (BookEntity loaded : loader.loadAll(missing).values()) {
+        found.put(loaded.getId(), store(loaded, version));
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Lấy sách theo ISBN, đọc từ cơ sở dữ liệu nếu chưa có trong bộ đệm.
+   *
+   * @param isbn ISBN của sách.
+   * @param loader Hàm đọc sách theo ISBN.
+   * @return Bản sao của sách, hoặc null nếu không tồn tại.
+   * @throws SQLException Nếu có lỗi khi đọc.
+   */
+  public BookEntity getByIsbn(String isbn, Loader<String> loader) throws SQLException {
+    Integer bookId = idsByIsbn.get(isbn);
+    if (bookId != null) {
+      BookEntity cached = books.getIfPresent(bookId);
+      // ISBN của sách có thể đã đổi, khi đó ánh xạ cũ không còn đúng
+      if (cached != null && isbn.equals(cached.getIsbn())) {
+        return new BookEntity(cached);
+      }
+    }
+    long version = invalidations.get();
+    BookEntity loaded = loader.load(isbn);
+    return store(loaded, version);
+  }
+
+  /**
+   * Xóa một sách khỏi bộ đệm theo ID.
+   *
+   * @param bookId ID của sách.
+   */
+  public void invalidate(int bookId) {
+    invalidations.incrementAndGet();
+    books.invalidate(bookId);
+  }
+
+  /**
+   * Xóa một sách khỏi bộ đệm theo ISBN.
+   *
+   * @param isbn ISBN của sách.
+   */
+  public void invalidate(String isbn) {
+    invalidations.incrementAndGet();
+    Integer bookId = idsByIsbn.remove(isbn);
+    if (bookId != null) {
+      books.invalidate(bookId);
+    }
+  }
+
+  /** Xóa toàn bộ bộ đệm. */
+  public void invalidateAll() {
+    invalidations.incrementAndGet();
+    books.invalidateAll();
+    idsByIsbn.clear();
+  }
+
+  /**
+   * Lấy các chỉ số của bộ đệm.
+   *
+   * @return Ảnh chụp các chỉ số.
+   */
+  public TinyLfuCache.Stats getStats() {
+    return books.getStats();
+  }
+
+  // Lưu sách vừa đọc nếu không có lần xóa nào xảy ra trong lúc đọc, trả về bản sao cho người gọi
+  private BookEntity store(BookEntity loaded, long version) {
+    if (loaded == null) {
+      return null;
+    }
+    BookEntity copy = new BookEntity(loaded);
+    if (invalidations.get() == version) {
+      books.put(copy.getId(), copy);
+      if (copy.getIsbn() != null) {
+        idsByIsbn.put(copy.getIsbn(), copy.getId());
+      }
+      // Kiểm tra lại để không giữ sách bị xóa trong lúc đang lưu
+      if (invalidations.get() != version) {
+        books.invalidate(copy.getId());
+      }
+    }
+    return loaded;
+  }
+
+  private void onRemoval(Integer bookId, BookEntity book) {
+    if (book.getIsbn() != null) {
+      idsByIsbn.remove(book.getIsbn(), bookId);
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package org.example.services.advanced;
+
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.example.models.BookEntity;
+import org.example.models.BorrowedBookEntity;
+import org.example.models.ReviewEntity;
+import org.example.services.basics.BookService;
+import org.example.services.basics.BorrowedBookService;
+import org.example.services.basics.ReviewService;
+import org.example.utils.Page;
+
+/**
+ * Tải mọi thông tin của màn hình chi tiết sách cùng lúc: bản ghi sách, trang nhận xét đầu tiên,
+ * điểm trung bình, trạng thái mượn của người dùng hiện tại và ảnh mã QR.
+ *
+ * <p>Các phần được gửi đi song song (truy vấn trên executor cơ sở dữ liệu dùng chung, mã QR trên
+ * {@link QrCodeService}), nên màn hình chỉ phải chờ khoảng một lượt truy vấn. Mỗi phần được báo
+ * cho {@link Listener} ngay khi có, để giao diện vẽ dần. Cả lượt tải dùng chung một thời hạn: hết
+ * hạn thì các phần chưa xong bị hủy (kể cả câu lệnh JDBC đang chạy) và kết quả chỉ gồm các phần đã
+ * có. Hủy kết quả của {@link #load} cũng hủy mọi phần còn đang chạy, ví dụ khi người dùng đóng màn
+ * hình.
+ */
+public final class BookDetailLoader {
+
+  /** Các phần thông tin của màn hình chi tiết sách. */
+  public enum Part {
+    BOOK,
+    REVIEWS,
+    AVERAGE_RATING,
+    BORROW_STATUS,
+    QR_CODE
+  }
+
+  /** Trạng thái mượn cuốn sách của người dùng hiện tại. */
+  public enum BorrowStatus {
+    NOT_BORROWED,
+    BORROWED,
+    OVERDUE
+  }
+
+  /**
+   * Nhận từng phần thông tin ngay khi tải xong. Các hàm được gọi trên luồng đã tải phần đó, giao
+   * diện cần tự chuyển về luồng của mình.
+   */
+  public interface Listener {
+
+    default void onBook(BookEntity book) {}
+
+    default void onReviews(Page<ReviewEntity> reviews) {}
+
+    default void onAverageRating(Double averageRating) {}
+
+    default void onBorrowStatus(BorrowStatus status) {}
+
+    default void onQrCode(BufferedImage image) {}
+
+    /**
+     * Một phần không tải được. Hết thời hạn được báo bằng {@link TimeoutException}; phần bị hủy do
+     * người gọi hủy cả lượt tải thì không được báo.
+     *
+     * @param part Phần bị lỗi.
+     * @param error Lỗi gặp phải.
+     */
+    default void onFailure(Part part, Throwable error) {}
+  }
+
+  /**
+   * Kết quả của một lượt tải.
+   *
+   * @param book Bản ghi sách mới nhất, null nếu không có.
+   * @param reviews Trang nhận xét đầu tiên, null nếu không có.
+   * @param averageRating Điểm trung bình, null nếu không có.
+   * @param borrowStatus Trạng thái mượn của người dùng hiện tại, null nếu không có.
+   * @param qrCode Ảnh mã QR, null nếu không có.
+   * @param missing Các phần không tải được trước thời hạn.
+   * @param elapsedMillis Thời gian của cả lượt tải (mili giây).
+   */
+  public record BookDetails(
+      BookEntity book,
+      Page<ReviewEntity> reviews,
+      Double averageRating,
+      BorrowStatus borrowStatus,
+      BufferedImage qrCode,
+      Set<Part> missing,
+      long elapsedMillis) {
+
+    /**
+     * Kiểm tra lượt tải có lấy được mọi phần hay không.
+     *
+     * @return True nếu không thiếu phần nào.
+     */
+    public boolean isComplete() {
+      return missing.isEmpty();
+    }
+  }
+
+  private final BookService bookService;
+  private final ReviewService reviewService;
+  private final BorrowedBookService borrowedBookService;
+  private final QrCodeService qrCodeService;
+  private final int reviewPageSize;
+  private final long deadlineMillis;
+
+  /**
+   * Tạo bộ tải với các dịch vụ mặc định. Cấu hình qua {@code library.bookDetail.reviewPageSize}
+   * (mặc định 20) và {@code library.bookDetail.deadlineMs} (mặc định 3000).
+   */
+  public BookDetailLoader() {
+    this(
+        new BookService(),
+        new ReviewService(),
+        new BorrowedBookService(),
+        QrCodeService.getInstance(),
+        Integer.getInteger("library.bookDetail.reviewPageSize", 20),
+        Long.getLong("library.bookDetail.deadlineMs", 3000));
+  }
+
+  /**
+   * Tạo bộ tải.
+   *
+   * @param bookService Dịch vụ sách.
+   * @param reviewService Dịch vụ nhận xét.
+   * @param borrowedBookService Dịch vụ mượn sách.
+   * @param qrCodeService Bộ tạo mã QR.
+   * @param reviewPageSize Số nhận xét của trang đầu tiên.
+   * @param deadlineMillis Thời hạn của cả lượt tải (mili giây).
+   */
+  public BookDetailLoader(
+      BookService bookService,
+      ReviewService reviewService,
+      BorrowedBookService borrowedBookService,
+      QrCodeService qrCodeService,
+      int reviewPageSize,
+      long deadlineMillis) {
+    if (deadlineMillis <= 0) {
+      throw new IllegalArgumentException("Thời hạn tải phải là số dương");
+    }
+    this.bookService = bookService;
+    this.reviewService = reviewService;
+    this.borrowedBookService = borrowedBookService;
+    this.qrCodeService = qrCodeService;
+    this.reviewPageSize = reviewPageSize;
+    this.deadlineMillis = deadlineMillis;
+  }
+
+  /**
+   * Tải mọi phần thông tin của một cuốn sách cùng lúc.
+   *
+   * @param book Cuốn sách đang hiển thị (lấy ID và ISBN).
+   * @param listener Nhận từng phần ngay khi có.
+   * @return Kết quả, luôn hoàn thành bình thường khi hết thời hạn (thiếu các phần chưa xong); hủy
+   *     kết quả sẽ hủy mọi phần còn đang chạy.
+   */
+  public CompletableFuture<BookDetails> load(BookEntity book, Listener listener) {
+    long startNanos = System.nanoTime();
+    int bookId = book.getId();
+    String isbn = book.getIsbn();
+
+    // Gửi mọi truy vấn trước rồi mới gắn callback, để không phần nào phải chờ phần khác
+    Map<Part, CompletableFuture<?>> parts = new EnumMap<>(Part.class);
+    parts.put(Part.BOOK, bookService.getBookByIdAsync(bookId));
+    parts.put(
+        Part.REVIEWS, reviewService.getReviewsPageByBookIdAsync(bookId, null, reviewPageSize));
+    parts.put(Part.AVERAGE_RATING, reviewService.getAverageRatingByIdAsync(bookId));
+    CompletableFuture<List<BorrowedBookEntity>> borrowed =
+        borrowedBookService.getNotReturnedBooksByUserAsync();
+    parts.put(Part.BORROW_STATUS, borrowed.thenApply(rows -> borrowStatus(rows, bookId)));
+    parts.put(
+        Part.QR_CODE,
+        isbn == null || isbn.isBlank()
+            ? CompletableFuture.failedFuture(new IllegalArgumentException("Sách không có ISBN"))
+            : qrCodeService.getImageAsync(isbn));
+
+    CompletableFuture<Void> all =
+        CompletableFuture.allOf(
+                parts.values().stream()
+                    .map(part -> part.exceptionally(error -> null))
+                    .toArray(CompletableFuture[]::new))
+            .orTimeout(deadlineMillis, TimeUnit.MILLISECONDS);
+    // Hết hạn hoặc người gọi hủy: các phần chưa xong không còn ai cần nữa
+    Runnable cancelPending =
+        () -> {
+          borrowed.cancel(true);
+          parts.values().forEach(part -> part.cancel(true));
+        };
+    CompletableFuture<BookDetails> result =
+        all.handle(
+            (ignored, error) -> {
+              BookDetails details = snapshot(parts, startNanos);
+              cancelPending.run();
+              return details;
+            });
+    result.whenComplete((details, error) -> cancelPending.run());
+
+    deliver(Part.BOOK, parts, result, listener, listener::onBook);
+    deliver(Part.REVIEWS, parts, result, listener, listener::onReviews);
+    deliver(Part.AVERAGE_RATING, parts, result, listener, listener::onAverageRating);
+    deliver(Part.BORROW_STATUS, parts, result, listener, listener::onBorrowStatus);
+    deliver(Part.QR_CODE, parts, result, listener, listener::onQrCode);
+    return result;
+  }
+
+  // Báo một phần cho listener khi có kết quả, hoặc báo lỗi nếu phần đó thất bại hay hết hạn
+  @SuppressWarnings("unchecked")
+  private static <T> void deliver(
+      Part part,
+      Map<Part, CompletableFuture<?>> parts,
+      CompletableFuture<BookDetails> result,
+      Listener listener,
+      Consumer<T> onValue) {
+    CompletableFuture<T> future = (CompletableFuture<T>) parts.get(part);
+    future.whenComplete(
+        (value, error) -> {
+          if (error == null) {
+            onValue.accept(value);
+          } else if (!(unwrap(error) instanceof CancellationException)) {
+            listener.onFailure(part, unwrap(error));
+          } else if (!result.isCancelled()) {
+            listener.onFailure(
+                part, new TimeoutException("Quá thời hạn tải " + part.name().toLowerCase()));
+          }
+        });
+  }
+
+  // Chụp lại các phần đã xong tại thời điểm kết thúc lượt tải
+  private static BookDetails snapshot(Map<Part, CompletableFuture<?>> parts, long startNanos) {
+    Set<Part> missing = EnumSet.noneOf(Part.class);
+    Map<Part, Object> values = new EnumMap<>(Part.class);
+    parts.forEach(
+        (part, future) -> {
+          if (future.isDone() && !future.isCompletedExceptionally()) {
+            values.put(part, future.join());
+          } else {
+            missing.add(part);
+          }
+        });
+    @SuppressWarnings("unchecked")
+    Page<ReviewEntity> reviews = (Page<ReviewEntity>) values.get(Part.REVIEWS);
+    return new BookDetails(
+        (BookEntity) values.get(Part.BOOK),
+        reviews,
+        (Double) values.get(Part.AVERAGE_RATING),
+        (BorrowStatus) values.get(Part.BORROW_STATUS),
+        (BufferedImage) values.get(Part.QR_CODE),
+        Set.copyOf(missing),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
+
+  // Người dùng đang giữ cuốn sách nếu nó nằm trong danh sách chưa trả; quá hạn nếu đã qua ngày trả
+  private static BorrowStatus borrowStatus(List<BorrowedBookEntity> borrowed, int bookId) {
+    BorrowStatus status = BorrowStatus.NOT_BORROWED;
+    for (BorrowedBookEntity entry : borrowed) {
+      if (entry.getBookId() != bookId) {
+        continue;
+      }
+      if (entry.getReturnDate() != null && entry.getReturnDate().isBefore(LocalDate.now())) {
+        return BorrowStatus.OVERDUE;
+      }
+      status = BorrowStatus.BORROWED;
+    }
+    return status;
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause()
+        : error;
+  }
+}
@@ -0,0 +1,370 @@
+package org.example.services.advanced;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.daos.implementations.AsyncLogDao;
+import org.example.daos.interfaces.BookDao;
+import org.example.daos.interfaces.LogDao;
+import org.example.models.BookEntity;
+import org.example.models.LogEntity;
+import org.example.models.UserEntity;
+import org.example.models.UserEntity.Roles;
+import org.example.services.basics.UserService;
+import org.example.utils.CsvUtils;
+
+/**
+ * Lớp BookImportService nhập sách hàng loạt từ file CSV hoặc JSON-lines.
+ *
+ * <p>Dữ liệu được xử lý theo từng lô: mỗi lô được lọc trùng với cơ sở dữ liệu bằng một truy vấn
+ * theo tập ISBN, thêm vào bằng JDBC batch trong một giao dịch và ghi một log tổng kết duy nhất. Kết
+ * quả từng lô được báo qua {@link ProgressListener}.
+ *
+ * <p>File CSV phải có dòng tiêu đề; các cột được nhận theo tên (không phân biệt hoa thường): isbn,
+ * title, authorName, publisherName, publishedDate, category, bookCoverDirectory, quantity. Mỗi dòng
+ * JSON-lines là một đối tượng với các khóa cùng tên.
+ */
+public class BookImportService {
+
+  /** Định dạng file nhập. */
+  public enum Format {
+    CSV,
+    JSON_LINES;
+
+    /**
+     * Xác định định dạng theo phần mở rộng của file (.jsonl, .ndjson, .json là JSON-lines).
+     *
+     * @param file File cần nhập.
+     * @return Định dạng tương ứng.
+     */
+    public static Format detect(Path file) {
+      String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+      if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+        return JSON_LINES;
+      }
+      return CSV;
+    }
+  }
+
+  /** Nhận thông báo tiến độ sau mỗi lô. */
+  @FunctionalInterface
+  public interface ProgressListener {
+    void onProgress(ImportProgress progress);
+  }
+
+  /**
+   * Tiến độ (hoặc kết quả cuối cùng) của một lần nhập.
+   *
+   * @param rowsRead Số bản ghi đã đọc.
+   * @param inserted Số sách đã thêm.
+   * @param duplicates Số bản ghi bị bỏ qua do ISBN đã tồn tại hoặc lặp trong file.
+   * @param invalid Số bản ghi bị bỏ qua do dữ liệu không hợp lệ.
+   * @param elapsedMillis Thời gian đã chạy (mili giây).
+   */
+  public record ImportProgress(
+      long rowsRead, long inserted, long duplicates, long invalid, long elapsedMillis) {
+
+    /**
+     * Tốc độ xử lý tính theo số bản ghi đã đọc mỗi giây.
+     *
+     * @return Số bản ghi mỗi giây.
+     */
+    public double rowsPerSecond() {
+      return elapsedMillis == 0 ? rowsRead : rowsRead * 1000.0 / elapsedMillis;
+    }
+  }
+
+  // Số bản ghi mỗi lô mặc định
+  public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+  // Các cột được nhận diện trong file nhập
+  private static final List<String> COLUMNS =
+      List.of(
+          "isbn",
+          "title",
+          "authorname",
+          "publishername",
+          "publisheddate",
+          "category",
+          "bookcoverdirectory",
+          "quantity");
+
+  private final BookDao bookDao;
+  private final LogDao logDao;
+  private final UserService userService;
+  private final int chunkSize;
+
+  /** Constructor của lớp BookImportService với kích thước lô mặc định. */
+  public BookImportService() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor của lớp BookImportService.
+   *
+   * @param chunkSize Số bản ghi mỗi lô (mỗi giao dịch).
+   */
+  public BookImportService(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Kích thước lô phải là số dương");
+    }
+    this.bookDao = new BookDaoImpl();
+    this.logDao = AsyncLogDao.getInstance();
+    this.userService = UserService.getInstance();
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Nhập sách từ file, định dạng được xác định theo phần mở rộng.
+   *
+   * @param file File cần nhập.
+   * @param listener Nhận tiến độ sau mỗi lô, có thể null.
+   * @return Kết quả nhập.
+   * @throws IOException nếu không đọc được file.
+   * @throws SQLException nếu có lỗi cơ sở dữ liệu; các lô trước đó vẫn được giữ lại.
+   */
+  public ImportProgress importFile(Path file, ProgressListener listener)
+      throws IOException, SQLException {
+    return importFile(file, Format.detect(file), listener);
+  }
+
+  /**
+   * Nhập sách từ file với định dạng cho trước.
+   *
+   * @param file File cần nhập.
+   * @param format Định dạng file.
+   * @param listener Nhận tiến độ sau mỗi lô, có thể null.
+   * @return Kết quả nhập.
+   * @throws IOException nếu không đọc được file.
+   * @throws SQLException nếu có lỗi cơ sở dữ liệu; các lô trước đó vẫn được giữ lại.
+   * @throws SecurityException nếu chưa đăng nhập hoặc không phải quản trị viên, thủ thư.
+   */
+  public ImportProgress importFile(Path file, Format format, ProgressListener listener)
+      throws IOException, SQLException {
+    UserEntity loginUser = userService.getLoginUser();
+    if (loginUser == null) {
+      throw new SecurityException("Bạn cần đăng nhập trước khi nhập sách");
+    }
+    Roles role = loginUser.getRole();
+    if (role != Roles.ADMIN && role != Roles.LIBRARIAN) {
+      throw new SecurityException("Bạn không có quyền nhập sách");
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      // Ghi log theo người bắt đầu nhập, kể cả khi người đó đăng xuất giữa chừng
+      Run run = new Run(file.getFileName().toString(), loginUser.getUserName(), listener);
+      if (format == Format.CSV) {
+        readCsv(reader, run);
+      } else {
+        readJsonLines(reader, run);
+      }
+      run.flush();
+      return run.progress();
+    }
+  }
+
+  private void readCsv(BufferedReader reader, Run run) throws IOException, SQLException {
+    List<String> header = CsvUtils.readRecord(reader);
+    if (header == null) {
+      return;
+    }
+    // Ánh xạ tên cột sang vị trí cột trong file
+    Map<String, Integer> positions = new HashMap<>();
+    for (int i = 0; i < header.size(); i++) {
+      String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace("\uFEFF", "");
+      if (COLUMNS.contains(name)) {
+        positions.put(name, i);
+      }
+    }
+    if (!positions.containsKey("isbn") || !positions.containsKey("title")) {
+      throw new IOException("File CSV phải có cột isbn và title");
+    }
+
+    List<String> record;
+    while ((record = CsvUtils.readRecord(reader)) != null) {
+      if (record.size() == 1 && record.get(0).isBlank()) {
+        continue;
+      }
+      Map<String, String> values = new HashMap<>();
+      for (Map.Entry<String, Integer> column : positions.entrySet()) {
+        int index = column.getValue();
+        values.put(column.getKey(), index < record.size() ? record.get(index) : null);
+      }
+      run.accept(values);
+    }
+  }
+
+  private void readJsonLines(BufferedReader reader, Run run) throws IOException, SQLException {
+    JacksonFactory jsonFactory = JacksonFactory.getDefaultInstance();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+      Map<String, String> values = new HashMap<>();
+      try {
+        GenericJson json = jsonFactory.fromString(line, GenericJson.class);
+        for (Map.Entry<String, Object> entry : json.entrySet()) {
+          String name = entry.getKey().toLowerCase(Locale.ROOT);
+          if (COLUMNS.contains(name) && entry.getValue() != null) {
+            values.put(name, entry.getValue().toString());
+          }
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        // Dòng JSON hỏng được tính là bản ghi không hợp lệ, không dừng cả quá trình nhập
+        values.clear();
+      }
+      run.accept(values);
+    }
+  }
+
+  /**
+   * Chuyển một bản ghi thành BookEntity.
+   *
+   * @param values Giá trị các cột theo tên cột viết thường.
+   * @return BookEntity hợp lệ, hoặc null nếu bản ghi không hợp lệ.
+   */
+  static BookEntity toBook(Map<String, String> values) {
+    String isbn = trimToNull(values.get("isbn"));
+    String title = trimToNull(values.get("title"));
+    if (isbn == null || title == null) {
+      return null;
+    }
+    isbn = isbn.replaceAll("[\\s-]+", "");
+    if (!new BookEntity().validateISBN(isbn)) {
+      return null;
+    }
+    int quantity = 1;
+    String rawQuantity = trimToNull(values.get("quantity"));
+    if (rawQuantity != null) {
+      try {
+        quantity = new BigDecimal(rawQuantity).intValueExact();
+      } catch (NumberFormatException | ArithmeticException e) {
+        return null;
+      }
+      if (quantity < 0) {
+        return null;
+      }
+    }
+    return new BookEntity(
+        0,
+        isbn,
+        title,
+        trimToNull(values.get("authorname")),
+        trimToNull(values.get("publishername")),
+        trimToNull(values.get("publisheddate")),
+        trimToNull(values.get("category")),
+        trimToNull(values.get("bookcoverdirectory")),
+        quantity > 0,
+        quantity);
+  }
+
+  private static String trimToNull(String value) {
+    if (value == null) {
+      return null;
+    }
+    String trimmed = value.trim();
+    return trimmed.isEmpty() ? null : trimmed;
+  }
+
+  /** Trạng thái của một lần nhập: lô hiện tại, các ISBN đã gặp và bộ đếm. */
+  private final class Run {
+    private final String source;
+    private final String userName;
+    private final ProgressListener listener;
+    private final long startNanos = System.nanoTime();
+    private final List<BookEntity> chunk = new ArrayList<>();
+    // ISBN đã gặp trong file, để loại bản ghi lặp lại giữa các lô
+    private final Set<String> seenIsbns = new HashSet<>();
+    private long rowsRead;
+    private long inserted;
+    private long duplicates;
+    private long invalid;
+    private int chunkNumber;
+
+    private Run(String source, String userName, ProgressListener listener) {
+      this.source = source;
+      this.userName = userName;
+      this.listener = listener;
+    }
+
+    private void accept(Map<String, String> values) throws SQLException {
+      rowsRead++;
+      BookEntity book = toBook(values);
+      if (book == null) {
+        invalid++;
+      } else if (!seenIsbns.add(book.getIsbn())) {
+        duplicates++;
+      } else {
+        chunk.add(book);
+      }
+      if (chunk.size() >= chunkSize) {
+        flush();
+      }
+    }
+
+    private void flush() throws SQLException {
+      if (chunk.isEmpty()) {
+        return;
+      }
+      chunkNumber++;
+      List<String> isbns = new ArrayList<>(chunk.size());
+      for (BookEntity book : chunk) {
+        isbns.add(book.getIsbn());
+      }
+      Set<String> existing = bookDao.findExistingIsbns(isbns);
+      List<BookEntity> toInsert = new ArrayList<>(chunk.size() - existing.size());
+      for (BookEntity book : chunk) {
+        if (!existing.contains(book.getIsbn())) {
+          toInsert.add(book);
+        }
+      }
+      int added = bookDao.addBooks(toInsert);
+      inserted += added;
+      if (added > 0) {
+        // Nạp lại chỉ mục tìm kiếm một lần khi cần, thay vì đọc lại từng cuốn vừa thêm
+        CatalogIndex.getInstance().invalidate();
+      }
+      duplicates += chunk.size() - toInsert.size();
+      chunk.clear();
+
+      // Một log tổng kết cho cả lô thay vì vài log cho từng cuốn sách
+      logDao.addLog(
+          new LogEntity(
+              LocalDateTime.now(),
+              userName,
+              "Nhập sách hàng loạt từ "
+                  + source
+                  + " - lô "
+                  + chunkNumber
+                  + ": thêm "
+                  + added
+                  + ", bỏ qua "
+                  + existing.size()
+                  + " sách đã tồn tại"));
+      if (listener != null) {
+        listener.onProgress(progress());
+      }
+    }
+
+    private ImportProgress progress() {
+      long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+      return new ImportProgress(rowsRead, inserted, duplicates, invalid, elapsedMillis);
+    }
+  }
+}
@@ -0,0 +1,402 @@
+package org.example.services.advanced;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.example.models.BookEntity;
+
+/**
+ * Lưu thông tin sách lấy từ Google Books API trên đĩa, theo ISBN, để các lần tra cứu sau không cần
+ * gọi mạng và vẫn còn sau khi khởi động lại ứng dụng.
+ *
+ * <p>Dữ liệu nằm trong một file chỉ ghi nối (append-only). Mỗi bản ghi gồm độ dài, mã CRC32 và nội
+ * dung; bản ghi mới của một ISBN thay thế bản ghi cũ. Khi mở, file được quét một lần để dựng chỉ
+ * mục ISBN → vị trí trong bộ nhớ, phần đuôi bị ghi dở (ví dụ do mất điện) được cắt bỏ, và file được
+ * thu gọn nếu quá nửa số bản ghi đã bị thay thế. Việc đọc được thực hiện trên vùng nhớ ánh xạ
+ * (memory-mapped) của file.
+ *
+ * <p>Cấu hình qua system property {@code library.books.metadata.file} (mặc định {@code
+ * books-metadata.dat}) và {@code library.books.metadata.maxAgeHours} (mặc định 720, tức 30 ngày).
+ */
+public final class BookMetadataStore implements AutoCloseable {
+
+  /**
+   * Thông tin một cuốn sách (volume) trả về từ Google Books API.
+   *
+   * @param isbn ISBN dùng để tra cứu.
+   * @param found false nếu API không có sách này (được lưu để không tra cứu lại liên tục).
+   * @param title Tiêu đề.
+   * @param authors Danh sách tác giả.
+   * @param publisher Nhà xuất bản.
+   * @param publishedDate Ngày xuất bản.
+   * @param categories Danh sách thể loại.
+   * @param thumbnail Đường dẫn ảnh bìa.
+   * @param infoLink Đường dẫn tới trang thông tin sách.
+   * @param fetchedAtMillis Thời điểm lấy dữ liệu (mili giây từ epoch).
+   */
+  public record VolumeMetadata(String isbn, boolean found, String title, List<String> authors,
+      String publisher, String publishedDate, List<String> categories, String thumbnail,
+      String infoLink, long fetchedAtMillis) {
+
+    // Ảnh bìa mặc định khi API không có ảnh
+    private static final String DEFAULT_COVER =
+        "https://i.pinimg.com/originals/49/e5/8d/49e58d5922019b8ec4642a2e2b9291c2.png";
+
+    /**
+     * Tạo thông tin cho một ISBN không có trên API.
+     *
+     * @param isbn ISBN đã tra cứu.
+     * @param fetchedAtMillis Thời điểm tra cứu.
+     * @return Thông tin rỗng với found = false.
+     */
+    public static VolumeMetadata notFound(String isbn, long fetchedAtMillis) {
+      return new VolumeMetadata(isbn, false, null, List.of(), null, null, List.of(), null, null,
+          fetchedAtMillis);
+    }
+
+    /**
+     * Chuyển thành BookEntity mới (chưa có ID), các trường thiếu được điền giá trị mặc định.
+     *
+     * @return BookEntity, hoặc null nếu API không có sách này.
+     */
+    public BookEntity toBookEntity() {
+      if (!found) {
+        return null;
+      }
+      BookEntity bookEntity = new BookEntity();
+      bookEntity.setTitle(title);
+      bookEntity.setIsbn(isbn);
+      bookEntity.setAuthorName(authors.isEmpty() ? "Unknown Author" : authors.get(0));
+      bookEntity.setPublisherName(
+          publisher == null || publisher.isEmpty() ? "Unknown Publisher" : publisher);
+      bookEntity.setPublishedDate(
+          publishedDate == null ? "Unknown Published Date" : publishedDate);
+      bookEntity.setCategory(categories.isEmpty() ? "Unknown Category" : categories.get(0));
+      bookEntity.setBookCoverDirectory(thumbnail == null ? DEFAULT_COVER : thumbnail);
+      bookEntity.setAvailable(true);
+      bookEntity.setQuantity(1);
+      return bookEntity;
+    }
+
+    /**
+     * Kiểm tra thông tin đã cũ hơn thời gian cho phép hay chưa.
+     *
+     * @param maxAge Thời gian tối đa.
+     * @return true nếu đã cũ.
+     */
+    public boolean isStale(Duration maxAge) {
+      return System.currentTimeMillis() - fetchedAtMillis > maxAge.toMillis();
+    }
+  }
+
+  // Kích thước phần đầu của bản ghi: độ dài nội dung và CRC32
+  private static final int HEADER_BYTES = 8;
+
+  // Chỉ thu gọn file khi lớn hơn ngưỡng này
+  private static final long COMPACTION_MIN_BYTES = 1 << 20;
+
+  private static volatile BookMetadataStore instance;
+
+  private final Duration maxAge;
+  private final FileChannel channel;
+  private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Vùng nhớ ánh xạ của file, được ánh xạ lại sau mỗi lần ghi thêm
+  private MappedByteBuffer mapped;
+  private long size;
+
+  /**
+   * Mở (hoặc tạo) kho dữ liệu.
+   *
+   * @param file File dữ liệu.
+   * @param maxAge Thời gian sau đó thông tin được coi là cũ và cần làm mới.
+   * @throws IOException Nếu không mở được file.
+   */
+  public BookMetadataStore(Path file, Duration maxAge) throws IOException {
+    this.maxAge = maxAge;
+    compactIfNeeded(file);
+    this.channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.size = load(readAll(channel), offsets);
+    // Cắt phần đuôi hỏng để các bản ghi mới được ghi tiếp ngay sau bản ghi hợp lệ cuối cùng
+    if (channel.size() > size) {
+      channel.truncate(size);
+    }
+    remap();
+  }
+
+  /**
+   * Lấy kho dữ liệu dùng chung của ứng dụng, cấu hình theo system property.
+   *
+   * @return Thể hiện duy nhất của BookMetadataStore.
+   */
+  public static BookMetadataStore getInstance() {
+    BookMetadataStore current = instance;
+    if (current == null) {
+      synchronized (BookMetadataStore.class) {
+        current = instance;
+        if (current == null) {
+          try {
+            current =
+                new BookMetadataStore(
+                    Paths.get(
+                        System.getProperty("library.books.metadata.file", "books-metadata.dat")),
+                    Duration.ofHours(Long.getLong("library.books.metadata.maxAgeHours", 720)));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          instance = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Lấy thông tin đã lưu của một ISBN.
+   *
+   * @param isbn ISBN cần tìm.
+   * @return Thông tin đã lưu, hoặc null nếu chưa có.
+   */
+  public VolumeMetadata get(String isbn) {
+    Long offset = offsets.get(isbn);
+    if (offset == null) {
+      return null;
+    }
+    lock.readLock().lock();
+    try {
+      ByteBuffer view = mapped.duplicate();
+      view.position((int) (long) offset);
+      int length = view.getInt();
+      view.getInt();
+      byte[] payload = new byte[length];
+      view.get(payload);
+      return decode(payload);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Lưu thông tin của một ISBN, thay thế thông tin cũ nếu có.
+   *
+   * @param metadata Thông tin cần lưu.
+   * @throws IOException Nếu không ghi được file.
+   */
+  public void put(VolumeMetadata metadata) throws IOException {
+    byte[] payload = encode(metadata);
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+    record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+    lock.writeLock().lock();
+    try {
+      long offset = size;
+      while (record.hasRemaining()) {
+        channel.write(record, offset + record.position());
+      }
+      size += record.limit();
+      remap();
+      offsets.put(metadata.isbn(), offset);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Kiểm tra thông tin đã cũ và cần làm mới hay chưa.
+   *
+   * @param metadata Thông tin đã lưu.
+   * @return true nếu đã cũ.
+   */
+  public boolean isStale(VolumeMetadata metadata) {
+    return metadata.isStale(maxAge);
+  }
+
+  /**
+   * Số ISBN đang được lưu.
+   *
+   * @return Số ISBN.
+   */
+  public int size() {
+    return offsets.size();
+  }
+
+  /**
+   * Đóng file dữ liệu.
+   *
+   * @throws IOException Nếu có lỗi khi đóng.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      channel.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Gọi khi đang giữ khóa ghi hoặc trong constructor
+  private void remap() throws IOException {
+    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+  }
+
+  // Đọc toàn bộ file vào bộ nhớ heap. Không dùng ánh xạ ở đây vì trên Windows file đang được ánh
+  // xạ không thể bị cắt ngắn hay thay thế
+  private static ByteBuffer readAll(FileChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+    while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+      // Đọc tiếp tới khi đầy
+    }
+    return buffer.flip();
+  }
+
+  /**
+   * Quét nội dung file, thêm vị trí bản ghi mới nhất của mỗi ISBN vào chỉ mục.
+   *
+   * @return Độ dài phần hợp lệ của file (dừng ở bản ghi hỏng đầu tiên).
+   */
+  private static long load(ByteBuffer buffer, Map<String, Long> offsets) throws IOException {
+    long fileSize = buffer.limit();
+    long position = 0;
+    while (position + HEADER_BYTES <= fileSize) {
+      buffer.position((int) position);
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length < 0 || position + HEADER_BYTES + length > fileSize) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      buffer.get(payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      offsets.put(decode(payload).isbn(), position);
+      position += HEADER_BYTES + length;
+    }
+    return position;
+  }
+
+  // Ghi lại các bản ghi còn dùng sang file mới nếu quá nửa file là bản ghi đã bị thay thế
+  private static void compactIfNeeded(Path file) throws IOException {
+    if (!Files.exists(file) || Files.size(file) < COMPACTION_MIN_BYTES) {
+      return;
+    }
+    ByteBuffer buffer;
+    try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = readAll(source);
+    }
+    Map<String, Long> live = new ConcurrentHashMap<>();
+    long validBytes = load(buffer, live);
+    int records = 0;
+    for (long position = 0; position < validBytes; records++) {
+      position += HEADER_BYTES + buffer.getInt((int) position);
+    }
+    if (live.size() * 2 >= records) {
+      return;
+    }
+    List<Long> positions = new ArrayList<>(live.values());
+    Collections.sort(positions);
+    Path temp = file.resolveSibling(file.getFileName() + ".compact");
+    try (FileChannel target =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (long position : positions) {
+        int length = buffer.getInt((int) position);
+        ByteBuffer record = buffer.duplicate();
+        record.limit((int) position + HEADER_BYTES + length).position((int) position);
+        while (record.hasRemaining()) {
+          target.write(record);
+        }
+      }
+      target.force(true);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static byte[] encode(VolumeMetadata metadata) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(metadata.isbn());
+      out.writeBoolean(metadata.found());
+      out.writeLong(metadata.fetchedAtMillis());
+      writeNullable(out, metadata.title());
+      writeList(out, metadata.authors());
+      writeNullable(out, metadata.publisher());
+      writeNullable(out, metadata.publishedDate());
+      writeList(out, metadata.categories());
+      writeNullable(out, metadata.thumbnail());
+      writeNullable(out, metadata.infoLink());
+    }
+    return bytes.toByteArray();
+  }
+
+  private static VolumeMetadata decode(byte[] payload) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      String isbn = in.readUTF();
+      boolean found = in.readBoolean();
+      long fetchedAtMillis = in.readLong();
+      return new VolumeMetadata(isbn, found, readNullable(in), readList(in), readNullable(in),
+          readNullable(in), readList(in), readNullable(in), readNullable(in), fetchedAtMillis);
+    }
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+    List<String> list = values == null ? List.of() : values;
+    out.writeShort(list.size());
+    for (String value : list) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static List<String> readList(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+    List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(in.readUTF());
+    }
+    return Collections.unmodifiableList(values);
+  }
+}
@@ -1,8 +1,14 @@
 package org.example.services.advanced;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.example.models.BookEntity;
+import org.example.services.advanced.BookMetadataStore.VolumeMetadata;
+import org.example.utils.ExecutorRegistry;
 
 import com.google.api.services.books.Books;
 import com.google.api.services.books.model.Volume;
@@ -12,75 +18,129 @@ import com.google.api.services.books.model.Volumes;
 
 // Adapter cho BooksAPIService
 public class BooksAPIAdapter implements APIInterface {
-    private final Books booksAccessing = BooksAPIService.getBooksService();
+    private static volatile BooksAPIAdapter instance;
+
+    // Các ISBN đang được làm mới ở nền, mỗi ISBN chỉ được làm mới một lần tại một thời điểm
+    private static final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Các trường của volume được dùng trong toMetadata
+    private static final String VOLUME_FIELDS = "items/volumeInfo(title,authors,publisher,"
+            + "publishedDate,categories,imageLinks/thumbnail,infoLink)";
+
+    // Thông tin sách đã lấy từ API, lưu trên đĩa theo ISBN
+    private final BookMetadataStore store;
+
+    // Chỉ tạo client khi thật sự cần gọi API
+    private Books booksAccessing;
+
+    /**
+     * Tạo adapter dùng kho thông tin sách mặc định.
+     */
+    public BooksAPIAdapter() {
+        this(BookMetadataStore.getInstance());
+    }
+
+    /**
+     * Tạo adapter với một kho thông tin sách cho trước.
+     *
+     * @param store Kho thông tin sách.
+     */
+    public BooksAPIAdapter(BookMetadataStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Lấy adapter dùng chung của ứng dụng.
+     *
+     * @return Adapter dùng chung.
+     */
+    public static BooksAPIAdapter getInstance() {
+        // Tạo khi cần để việc dùng các hàm tĩnh không mở kho thông tin sách mặc định
+        if (instance == null) {
+            synchronized (BooksAPIAdapter.class) {
+                if (instance == null) {
+                    instance = new BooksAPIAdapter();
+                }
+            }
+        }
+        return instance;
+    }
 
     /**
      * Convert Books của GGBooks API thành BookEntity.
-     * 
+     *
      * @return BookEntity
      */
     @Override
     public BookEntity getBookEntity(String ISBN) {
-        try {
-            // 1. Make the API call to get book information
-            Volumes volumes = booksAccessing.volumes().list("isbn:" + ISBN).execute();
-            if (volumes == null || volumes.getItems() == null || volumes.getItems().isEmpty()) {
-                System.err.println("No book found.");
-                return null;
-            }
+        VolumeMetadata metadata = lookup(ISBN);
+        if (metadata == null) {
+            return null;
+        }
+        if (!metadata.found()) {
+            System.err.println("No book found.");
+            return null;
+        }
+        return metadata.toBookEntity();
+    }
 
-            // 2. Check if any results were found
-            if (volumes.getTotalItems() > 0) {
-                // 3. Get the first volume
-                Volume volume = volumes.getItems().get(0);
-                VolumeInfo info = volume.getVolumeInfo();
+    /**
+     * Tạo liên kết với API để lấy link sách dựa vào ISBN.
+     *
+     * @return Link sách
+     */
+    @Override
+    public String getLink(String ISBN) {
+        VolumeMetadata metadata = lookup(ISBN);
+        return metadata == null || !metadata.found() ? null : metadata.infoLink();
+    }
 
-                // 4. Extract relevant information and create a BookEntity
-                BookEntity bookEntity = new BookEntity();
+    /**
+     * Lấy thông tin sách theo ISBN: dùng thông tin đã lưu nếu có (thông tin đã cũ được trả về ngay
+     * và được làm mới ở luồng nền), nếu chưa có thì gọi API một lần và lưu lại.
+     *
+     * @param ISBN ISBN của sách.
+     * @return Thông tin sách, hoặc null nếu không gọi được API.
+     */
+    public VolumeMetadata lookup(String ISBN) {
+        VolumeMetadata cached = store.get(ISBN);
+        if (cached != null) {
+            if (store.isStale(cached)) {
+                refreshAsync(ISBN);
+            }
+            return cached;
+        }
+        return fetchAndStore(ISBN);
+    }
 
-                bookEntity.setTitle(info.getTitle());
-                bookEntity.setIsbn(ISBN);
+    /**
+     * Lấy lại thông tin của một ISBN từ API ở luồng nền.
+     *
+     * @param ISBN ISBN cần làm mới.
+     */
+    public void refreshAsync(String ISBN) {
+        if (refreshing.add(ISBN)) {
+            ExecutorRegistry.getInstance().http().execute(() -> {
                 try {
-                    bookEntity.setAuthorName(info.getAuthors().get(0));
-                } catch (Exception e) {
-                    bookEntity.setAuthorName("Unknown Author");
-                }
-                
-                String publisher = info.getPublisher();
-                if (publisher == null || publisher.isEmpty()) {
-                    bookEntity.setPublisherName("Unknown Publisher");
-                } else {
-                    bookEntity.setPublisherName(info.getPublisher());
-                }
-                
-                String publishedDate = info.getPublishedDate();
-                if (publishedDate == null) {
-                    bookEntity.setPublishedDate("Unknown Published Date");
-                } else {
-                    bookEntity.setPublishedDate(info.getPublishedDate());
+                    fetchAndStore(ISBN);
+                } finally {
+                    refreshing.remove(ISBN);
                 }
+            });
+        }
+    }
 
-                try {
-                    bookEntity.setCategory(info.getCategories().get(0));
-                } catch (Exception e) {
-                    bookEntity.setCategory("Unknown Category");
-                }
-                
-                try {
-                    bookEntity.setBookCoverDirectory(info.getImageLinks().getThumbnail());
-                } catch (Exception e) {
-                    bookEntity.setBookCoverDirectory(
-                        "https://i.pinimg.com/originals/49/e5/8d/49e58d5922019b8ec4642a2e2b9291c2.png");
-                }
-                
-                bookEntity.setAvailable(true);
-                bookEntity.setQuantity(1);
-                
-                return bookEntity;
-            } else {
-                // Handle case where no book was found
-                return null; 
+    private VolumeMetadata fetchAndStore(String ISBN) {
+        try {
+            // Make the API call to get book information
+            Volumes volumes = isbnQuery(books(), ISBN).execute();
+            VolumeMetadata metadata = toMetadata(ISBN, volumes, System.currentTimeMillis());
+            try {
+                store.put(metadata);
+            } catch (IOException e) {
+                System.err.println("Error caching book data: " + e.getMessage());
             }
+            return metadata;
         } catch (IOException e) {
             // Handle potential exceptions from the API call
             System.err.println("Error fetching book data: " + e.getMessage());
@@ -88,23 +148,53 @@ public class BooksAPIAdapter implements APIInterface {
         }
     }
 
+    private synchronized Books books() {
+        if (booksAccessing == null) {
+            booksAccessing = BooksAPIService.getBooksService();
+        }
+        return booksAccessing;
+    }
+
     /**
-     * Tạo liên kết với API để lấy link sách dựa vào ISBN.
-     * 
-     * @return Link sách
+     * Tạo truy vấn tìm sách theo ISBN. Chỉ lấy volume đầu tiên và chỉ các trường cần dùng để
+     * giảm kích thước phản hồi.
+     *
+     * @param books Client của API.
+     * @param ISBN ISBN cần tra cứu.
+     * @return Truy vấn chưa được gửi.
+     * @throws IOException Nếu không tạo được truy vấn.
      */
-    @Override
-    public String getLink(String ISBN) {
-        try {
-            // 1. Make the API call to get book information
-            Volume volume = booksAccessing.volumes().list("isbn:" + ISBN).execute().getItems().get(0);
-            VolumeInfo info = volume.getVolumeInfo();
+    static Books.Volumes.List isbnQuery(Books books, String ISBN) throws IOException {
+        Books.Volumes.List query = books.volumes().list("isbn:" + ISBN);
+        query.setMaxResults(1L);
+        query.setFields(VOLUME_FIELDS);
+        return query;
+    }
 
-            return info.getInfoLink();
-        } catch (IOException e) {
-            // Handle potential exceptions from the API call
-            System.err.println("Error getting book link: " + e.getMessage());
-            return null;
+    /**
+     * Chuyển kết quả tìm kiếm của API thành thông tin sách (lấy volume đầu tiên).
+     *
+     * @param ISBN ISBN đã tra cứu.
+     * @param volumes Kết quả của API.
+     * @param fetchedAtMillis Thời điểm gọi API.
+     * @return Thông tin sách, với found = false nếu không có kết quả.
+     */
+    static VolumeMetadata toMetadata(String ISBN, Volumes volumes, long fetchedAtMillis) {
+        if (volumes == null || volumes.getItems() == null || volumes.getItems().isEmpty()) {
+            return VolumeMetadata.notFound(ISBN, fetchedAtMillis);
+        }
+        Volume volume = volumes.getItems().get(0);
+        VolumeInfo info = volume.getVolumeInfo();
+        if (info == null) {
+            return VolumeMetadata.notFound(ISBN, fetchedAtMillis);
         }
+        String thumbnail = info.getImageLinks() == null ? null : info.getImageLinks().getThumbnail();
+        return new VolumeMetadata(ISBN, true, info.getTitle(), orEmpty(info.getAuthors()),
+                info.getPublisher(), info.getPublishedDate(), orEmpty(info.getCategories()),
+                thumbnail, info.getInfoLink(), fetchedAtMillis);
+    }
+
+    private static List<String> orEmpty(List<String> values) {
+        return values == null ? Collections.emptyList() : values;
     }
 }
@@ -0,0 +1,751 @@
+package org.example.services.advanced;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.daos.interfaces.BookDao;
+import org.example.models.BookEntity;
+import org.example.models.BookField;
+
+/**
+ * Chỉ mục tìm kiếm sách nằm trong bộ nhớ, thay cho các truy vấn LIKE '%từ khóa%'.
+ *
+ * <p>Với mỗi trường (tiêu đề, tác giả, thể loại, nhà xuất bản), chỉ mục lưu danh sách ID sách
+ * (mảng int đã sắp xếp) cho từng n-gram ký tự độ dài 1 đến 3 và cho từng từ. Tìm chuỗi con được
+ * thực hiện bằng cách giao các danh sách trigram của từ khóa rồi kiểm tra lại trên giá trị đã chuẩn
+ * hóa, nên kết quả giống hệt LIKE nhưng không cần truy vấn cơ sở dữ liệu. Danh sách theo từ dùng
+ * để xếp các sách khớp nguyên từ lên trước.
+ *
+ * <p>Giá trị được chuẩn hóa về chữ thường và bỏ dấu, tương tự collation không phân biệt hoa thường
+ * và dấu của MySQL. Chỉ mục được nạp từ một lần quét luồng bảng Books và được {@code BookService}
+ * cập nhật khi thêm, sửa, xóa sách.
+ */
+public final class CatalogIndex {
+
+  // Các trường được đánh chỉ mục (ALL được xử lý bằng cách gộp kết quả các trường)
+  private static final BookField[] INDEXED_FIELDS = {
+      BookField.TITLE, BookField.AUTHOR, BookField.CATEGORY, BookField.PUBLISHER
+  };
+
+  // Độ dài n-gram lớn nhất
+  private static final int GRAM = 3;
+
+  // Khởi tạo sau các hằng số ở trên vì constructor dùng tới chúng
+  private static final CatalogIndex instance = new CatalogIndex();
+
+  private final BookDao bookDao;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Trạng thái hiện tại của chỉ mục, được thay thế nguyên khối khi nạp lại
+  private State state = new State();
+
+  // Các thay đổi xảy ra trong lúc đang nạp lại, được áp dụng lại sau khi nạp xong
+  private List<Consumer<State>> pendingChanges;
+
+  private volatile boolean loaded;
+
+  // Tăng sau mỗi thay đổi, cho phép các cấu trúc dẫn xuất (gợi ý tìm kiếm) biết khi nào cần xây lại
+  private volatile long version;
+
+  /**
+   * Tạo một chỉ mục rỗng. Ứng dụng nên dùng {@link #getInstance()}.
+   */
+  public CatalogIndex() {
+    this(new BookDaoImpl());
+  }
+
+  /**
+   * Tạo một chỉ mục rỗng, được nạp từ một DAO cho trước.
+   *
+   * @param bookDao DAO dùng để đọc bảng Books khi nạp chỉ mục.
+   */
+  public CatalogIndex(BookDao bookDao) {
+    this.bookDao = bookDao;
+  }
+
+  /**
+   * Lấy chỉ mục dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của CatalogIndex.
+   */
+  public static CatalogIndex getInstance() {
+    return instance;
+  }
+
+  /**
+   * Kiểm tra chỉ mục đã được nạp từ cơ sở dữ liệu hay chưa.
+   *
+   * @return true nếu đã nạp.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Đánh dấu chỉ mục cần nạp lại, ví dụ sau khi nhập sách hàng loạt.
+   */
+  public void invalidate() {
+    loaded = false;
+  }
+
+  /**
+   * Nạp chỉ mục nếu chưa nạp hoặc đã bị đánh dấu cần nạp lại.
+   *
+   * @throws SQLException Nếu có lỗi khi đọc bảng Books.
+   */
+  public void ensureLoaded() throws SQLException {
+    if (!loaded) {
+      synchronized (this) {
+        if (!loaded) {
+          rebuild();
+        }
+      }
+    }
+  }
+
+  /**
+   * Xây dựng lại toàn bộ chỉ mục bằng một lần quét luồng bảng Books. Việc tìm kiếm vẫn dùng chỉ mục
+   * cũ cho tới khi chỉ mục mới được xây xong.
+   *
+   * @throws SQLException Nếu có lỗi khi đọc bảng Books.
+   */
+  public synchronized void rebuild() throws SQLException {
+    lock.writeLock().lock();
+    try {
+      pendingChanges = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    State fresh = new State();
+    try (Stream<BookEntity> books = bookDao.streamAllBooks()) {
+      books.forEach(fresh::put);
+    } catch (IllegalStateException e) {
+      lock.writeLock().lock();
+      try {
+        pendingChanges = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw e;
+    }
+
+    lock.writeLock().lock();
+    try {
+      pendingChanges.forEach(change -> change.accept(fresh));
+      state = fresh;
+      pendingChanges = null;
+      loaded = true;
+      version++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Thêm hoặc thay thế một cuốn sách trong chỉ mục. Nếu ISBN và các trường được đánh chỉ mục không
+   * đổi, chỉ dữ liệu của sách được thay, không đánh chỉ mục lại và phiên bản không đổi.
+   *
+   * @param book Cuốn sách (đã có ID).
+   */
+  public void put(BookEntity book) {
+    BookEntity copy = copyOf(book);
+    lock.writeLock().lock();
+    try {
+      if (state.put(copy)) {
+        version++;
+      }
+      if (pendingChanges != null) {
+        pendingChanges.add(target -> target.put(copy));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Thay đổi số lượng của một cuốn sách trong chỉ mục, trạng thái còn sách được tính lại theo số
+   * lượng mới. Số lượng không được đánh chỉ mục nên các danh sách n-gram không bị động tới và
+   * phiên bản chỉ mục không đổi (các gợi ý tìm kiếm không phụ thuộc số lượng).
+   *
+   * @param bookId ID của sách; không làm gì nếu sách không có trong chỉ mục.
+   * @param delta Lượng thay đổi, số lượng mới không nhỏ hơn 0.
+   */
+  public void adjustQuantity(int bookId, int delta) {
+    lock.writeLock().lock();
+    try {
+      Entry entry = state.entries.get(bookId);
+      if (entry == null) {
+        return;
+      }
+      int quantity = Math.max(0, entry.book.getQuantity() + delta);
+      state.setQuantity(bookId, quantity);
+      if (pendingChanges != null) {
+        // Áp dụng lại giá trị tuyệt đối, không phải delta, vì bản nạp lại có thể đã thấy thay đổi
+        pendingChanges.add(target -> target.setQuantity(bookId, quantity));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Xóa một cuốn sách khỏi chỉ mục.
+   *
+   * @param bookId ID của sách.
+   */
+  public void remove(int bookId) {
+    lock.writeLock().lock();
+    try {
+      state.remove(bookId);
+      version++;
+      if (pendingChanges != null) {
+        pendingChanges.add(target -> target.remove(bookId));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Đọc lại một cuốn sách từ cơ sở dữ liệu và cập nhật vào chỉ mục.
+   *
+   * @param bookId ID của sách.
+   * @throws SQLException Nếu có lỗi khi truy vấn.
+   */
+  public void refresh(int bookId) throws SQLException {
+    BookEntity book = bookDao.findBookById(bookId);
+    if (book == null) {
+      remove(bookId);
+    } else {
+      put(book);
+    }
+  }
+
+  /**
+   * Đọc lại một cuốn sách theo ISBN từ cơ sở dữ liệu và cập nhật vào chỉ mục.
+   *
+   * @param isbn ISBN của sách.
+   * @throws SQLException Nếu có lỗi khi truy vấn.
+   */
+  public void refresh(String isbn) throws SQLException {
+    BookEntity book = bookDao.findBookByIsbn(isbn);
+    if (book != null) {
+      put(book);
+    } else {
+      Integer bookId = findIdByIsbn(isbn);
+      if (bookId != null) {
+        remove(bookId);
+      }
+    }
+  }
+
+  /**
+   * Lấy ID sách theo ISBN. Dấu gạch nối, khoảng trắng và chữ hoa thường của ISBN không ảnh hưởng.
+   *
+   * @param isbn ISBN của sách.
+   * @return ID của sách, hoặc null nếu không có trong chỉ mục.
+   */
+  public Integer findIdByIsbn(String isbn) {
+    String key = normalizeIsbn(isbn);
+    lock.readLock().lock();
+    try {
+      return state.idsByIsbn.get(key);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Lấy một cuốn sách trong chỉ mục theo ID.
+   *
+   * @param bookId ID của sách.
+   * @return Bản sao của cuốn sách, hoặc null nếu không có.
+   */
+  public BookEntity getBook(int bookId) {
+    lock.readLock().lock();
+    try {
+      Entry entry = state.entries.get(bookId);
+      return entry == null ? null : copyOf(entry.book);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Phiên bản hiện tại của chỉ mục, thay đổi sau mỗi lần thêm, sửa, xóa hoặc nạp lại.
+   *
+   * @return Số phiên bản.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Duyệt mọi sách trong chỉ mục mà không sao chép. Hành động không được sửa đổi sách nhận được.
+   *
+   * @param action Hành động thực hiện với mỗi cuốn sách.
+   */
+  void forEachBook(Consumer<BookEntity> action) {
+    lock.readLock().lock();
+    try {
+      for (Entry entry : state.entries.values()) {
+        action.accept(entry.book);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Số sách hiện có trong chỉ mục.
+   *
+   * @return Số sách.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return state.entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Tìm các sách có trường chứa từ khóa (cùng ngữ nghĩa với LIKE '%từ khóa%'). Sách có trường chứa
+   * nguyên các từ của từ khóa được xếp trước, sau đó theo ID tăng dần.
+   *
+   * @param field Trường cần tìm, {@link BookField#ALL} để tìm trên cả bốn trường.
+   * @param keyword Từ khóa.
+   * @return Danh sách bản sao các sách tìm được.
+   */
+  public List<BookEntity> search(BookField field, String keyword) {
+    String needle = normalize(keyword);
+    BookField[] fields = field == BookField.ALL ? INDEXED_FIELDS : new BookField[] {field};
+
+    lock.readLock().lock();
+    try {
+      int[] matches = null;
+      int[] wholeWords = null;
+      for (BookField f : fields) {
+        FieldIndex index = state.fields.get(f);
+        matches = union(matches, index.match(needle, state.entries));
+        wholeWords = union(wholeWords, index.matchTerms(needle));
+      }
+
+      // Sách khớp nguyên từ lên trước, phần còn lại theo ID
+      List<BookEntity> result = new ArrayList<>(matches.length);
+      for (int id : matches) {
+        if (Arrays.binarySearch(wholeWords, id) >= 0) {
+          result.add(copyOf(state.entries.get(id).book));
+        }
+      }
+      for (int id : matches) {
+        if (Arrays.binarySearch(wholeWords, id) < 0) {
+          result.add(copyOf(state.entries.get(id).book));
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Duyệt các sách có trường chứa từ khóa mà không sao chép, theo ID tăng dần. Hành động không được
+   * sửa đổi sách nhận được.
+   *
+   * @param field Trường cần tìm (không dùng {@link BookField#ALL}).
+   * @param keyword Từ khóa.
+   * @param action Hành động thực hiện với mỗi cuốn sách khớp.
+   * @return Số sách khớp.
+   */
+  int forEachMatch(BookField field, String keyword, Consumer<BookEntity> action) {
+    String needle = normalize(keyword);
+    lock.readLock().lock();
+    try {
+      int[] matches = state.fields.get(field).match(needle, state.entries);
+      for (int id : matches) {
+        action.accept(state.entries.get(id).book);
+      }
+      return matches.length;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Chuẩn hóa ISBN để tra cứu: bỏ dấu gạch nối và khoảng trắng, chữ X viết hoa.
+   *
+   * @param isbn ISBN gốc.
+   * @return ISBN đã chuẩn hóa, chuỗi rỗng nếu isbn là null.
+   */
+  public static String normalizeIsbn(String isbn) {
+    return isbn == null ? "" : isbn.replaceAll("[\\s-]+", "").toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Chuẩn hóa chuỗi để so khớp: chữ thường, bỏ dấu tiếng Việt.
+   *
+   * @param value Chuỗi gốc.
+   * @return Chuỗi đã chuẩn hóa, chuỗi rỗng nếu value là null.
+   */
+  static String normalize(String value) {
+    if (value == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+    StringBuilder builder = new StringBuilder(decomposed.length());
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) == Character.NON_SPACING_MARK) {
+        continue;
+      }
+      builder.append(c == 'đ' ? 'd' : c);
+    }
+    return builder.toString();
+  }
+
+  private static BookEntity copyOf(BookEntity book) {
+    return new BookEntity(
+        book.getId(),
+        book.getIsbn(),
+        book.getTitle(),
+        book.getAuthorName(),
+        book.getPublisherName(),
+        book.getPublishedDate(),
+        book.getCategory(),
+        book.getBookCoverDirectory(),
+        book.isAvailable(),
+        book.getQuantity());
+  }
+
+  // Mã hóa một n-gram (tối đa 3 ký tự 16 bit) thành một số long, kèm độ dài để phân biệt
+  private static long gramKey(String s, int from, int length) {
+    long key = length;
+    for (int i = 0; i < length; i++) {
+      key = (key << 16) | s.charAt(from + i);
+    }
+    return key;
+  }
+
+  // Tách chuỗi đã chuẩn hóa thành các từ (chữ cái hoặc chữ số liên tiếp)
+  private static Set<String> terms(String normalized) {
+    Set<String> terms = new HashSet<>();
+    int start = -1;
+    for (int i = 0; i <= normalized.length(); i++) {
+      boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        terms.add(normalized.substring(start, i));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  private static int[] union(int[] a, int[] b) {
+    if (a == null || a.length == 0) {
+      return b;
+    }
+    if (b.length == 0) {
+      return a;
+    }
+    int[] out = new int[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        out[n++] = a[i++];
+      } else if (a[i] > b[j]) {
+        out[n++] = b[j++];
+      } else {
+        out[n++] = a[i++];
+        j++;
+      }
+    }
+    while (i < a.length) {
+      out[n++] = a[i++];
+    }
+    while (j < b.length) {
+      out[n++] = b[j++];
+    }
+    return Arrays.copyOf(out, n);
+  }
+
+  // Giao các danh sách, bắt đầu từ danh sách ngắn nhất
+  private static int[] intersect(List<IntList> lists) {
+    lists.sort((x, y) -> Integer.compare(x.size, y.size));
+    int[] result = lists.get(0).toArray();
+    for (int k = 1; k < lists.size() && result.length > 0; k++) {
+      IntList other = lists.get(k);
+      int n = 0;
+      int from = 0;
+      for (int id : result) {
+        int pos = Arrays.binarySearch(other.ids, from, other.size, id);
+        if (pos >= 0) {
+          result[n++] = id;
+          from = pos + 1;
+        } else {
+          from = -pos - 1;
+        }
+      }
+      result = Arrays.copyOf(result, n);
+    }
+    return result;
+  }
+
+  /** Một cuốn sách trong chỉ mục cùng các giá trị đã chuẩn hóa theo từng trường. */
+  private static final class Entry {
+    final BookEntity book;
+    final Map<BookField, String> normalized = new EnumMap<>(BookField.class);
+
+    Entry(BookEntity book) {
+      this.book = book;
+      for (BookField field : INDEXED_FIELDS) {
+        normalized.put(field, normalize(field.extract(book)));
+      }
+    }
+
+    // So sánh giá trị gốc (không chuẩn hóa) vì gợi ý tìm kiếm hiển thị giá trị gốc
+    boolean hasSameIndexedValues(BookEntity other) {
+      if (!Objects.equals(book.getIsbn(), other.getIsbn())) {
+        return false;
+      }
+      for (BookField field : INDEXED_FIELDS) {
+        if (!Objects.equals(field.extract(book), field.extract(other))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Toàn bộ dữ liệu của chỉ mục. */
+  private static final class State {
+    final Map<Integer, Entry> entries = new HashMap<>();
+    final Map<String, Integer> idsByIsbn = new HashMap<>();
+    final Map<BookField, FieldIndex> fields = new EnumMap<>(BookField.class);
+
+    State() {
+      for (BookField field : INDEXED_FIELDS) {
+        fields.put(field, new FieldIndex(field));
+      }
+    }
+
+    // Trả về false nếu chỉ dữ liệu không được đánh chỉ mục thay đổi
+    boolean put(BookEntity book) {
+      Entry old = entries.get(book.getId());
+      Entry entry = new Entry(book);
+      if (old != null && old.hasSameIndexedValues(book)) {
+        entries.put(book.getId(), entry);
+        return false;
+      }
+      remove(book.getId());
+      entries.put(book.getId(), entry);
+      if (book.getIsbn() != null) {
+        idsByIsbn.put(normalizeIsbn(book.getIsbn()), book.getId());
+      }
+      for (FieldIndex index : fields.values()) {
+        index.add(book.getId(), entry);
+      }
+      return true;
+    }
+
+    // Sách trong chỉ mục chỉ được đọc dưới khóa đọc và được sao chép khi trả ra ngoài, nên có thể
+    // sửa tại chỗ dưới khóa ghi
+    void setQuantity(int bookId, int quantity) {
+      Entry entry = entries.get(bookId);
+      if (entry != null) {
+        entry.book.setQuantity(quantity);
+        entry.book.setAvailable(quantity > 0);
+      }
+    }
+
+    void remove(int bookId) {
+      Entry old = entries.remove(bookId);
+      if (old == null) {
+        return;
+      }
+      if (old.book.getIsbn() != null) {
+        idsByIsbn.remove(normalizeIsbn(old.book.getIsbn()), bookId);
+      }
+      for (FieldIndex index : fields.values()) {
+        index.remove(bookId, old);
+      }
+    }
+  }
+
+  /** Chỉ mục n-gram và theo từ của một trường. */
+  private static final class FieldIndex {
+    final BookField field;
+    final Map<Long, IntList> grams = new HashMap<>();
+    final Map<String, IntList> terms = new HashMap<>();
+
+    FieldIndex(BookField field) {
+      this.field = field;
+    }
+
+    void add(int id, Entry entry) {
+      String value = entry.normalized.get(field);
+      for (long key : gramKeys(value)) {
+        grams.computeIfAbsent(key, k -> new IntList()).add(id);
+      }
+      for (String term : terms(value)) {
+        terms.computeIfAbsent(term, k -> new IntList()).add(id);
+      }
+    }
+
+    void remove(int id, Entry entry) {
+      String value = entry.normalized.get(field);
+      for (long key : gramKeys(value)) {
+        removeFrom(grams, key, id);
+      }
+      for (String term : terms(value)) {
+        removeFrom(terms, term, id);
+      }
+    }
+
+    // Các sách có giá trị chứa needle
+    int[] match(String needle, Map<Integer, Entry> entries) {
+      if (needle.isEmpty()) {
+        // LIKE '%%' khớp mọi giá trị khác null
+        int[] all = new int[entries.size()];
+        int n = 0;
+        for (Map.Entry<Integer, Entry> e : entries.entrySet()) {
+          if (field.extract(e.getValue().book) != null) {
+            all[n++] = e.getKey();
+          }
+        }
+        all = Arrays.copyOf(all, n);
+        Arrays.sort(all);
+        return all;
+      }
+      if (needle.length() <= GRAM) {
+        // Từ khóa ngắn chính là một n-gram nên danh sách đã chính xác
+        IntList list = grams.get(gramKey(needle, 0, needle.length()));
+        return list == null ? new int[0] : list.toArray();
+      }
+
+      List<IntList> lists = new ArrayList<>();
+      for (long key : gramKeys(needle, GRAM)) {
+        IntList list = grams.get(key);
+        if (list == null) {
+          return new int[0];
+        }
+        lists.add(list);
+      }
+      // Giao trigram có thể cho kết quả thừa (các trigram không liền nhau), cần kiểm tra lại
+      int[] candidates = intersect(lists);
+      int n = 0;
+      for (int id : candidates) {
+        if (entries.get(id).normalized.get(field).contains(needle)) {
+          candidates[n++] = id;
+        }
+      }
+      return Arrays.copyOf(candidates, n);
+    }
+
+    // Các sách có giá trị chứa nguyên vẹn mọi từ của needle
+    int[] matchTerms(String needle) {
+      Set<String> words = terms(needle);
+      if (words.isEmpty()) {
+        return new int[0];
+      }
+      List<IntList> lists = new ArrayList<>();
+      for (String word : words) {
+        IntList list = terms.get(word);
+        if (list == null) {
+          return new int[0];
+        }
+        lists.add(list);
+      }
+      return intersect(lists);
+    }
+
+    private static Set<Long> gramKeys(String value) {
+      Set<Long> keys = new HashSet<>();
+      for (int length = 1; length <= GRAM; length++) {
+        keys.addAll(gramKeys(value, length));
+      }
+      return keys;
+    }
+
+    private static Set<Long> gramKeys(String value, int length) {
+      Set<Long> keys = new HashSet<>();
+      for (int i = 0; i + length <= value.length(); i++) {
+        keys.add(gramKey(value, i, length));
+      }
+      return keys;
+    }
+
+    private static <K> void removeFrom(Map<K, IntList> postings, K key, int id) {
+      IntList list = postings.get(key);
+      if (list != null && list.remove(id) && list.size == 0) {
+        postings.remove(key);
+      }
+    }
+  }
+
+  /** Danh sách ID sách dạng mảng int tăng dần, không trùng lặp. */
+  private static final class IntList {
+    int[] ids = new int[4];
+    int size;
+
+    void add(int id) {
+      if (size > 0 && ids[size - 1] >= id) {
+        // ID mới thường lớn nhất (AUTO_INCREMENT); trường hợp khác thì chèn đúng vị trí
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+          return;
+        }
+        insertAt(-pos - 1, id);
+        return;
+      }
+      insertAt(size, id);
+    }
+
+    boolean remove(int id) {
+      int pos = Arrays.binarySearch(ids, 0, size, id);
+      if (pos < 0) {
+        return false;
+      }
+      System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+      size--;
+      return true;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(ids, size);
+    }
+
+    private void insertAt(int pos, int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+      }
+      System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+      ids[pos] = id;
+      size++;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package org.example.services.advanced;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.daos.implementations.BorrowedBookDaoImpl;
+import org.example.daos.interfaces.BorrowedBookDao;
+import org.example.models.CirculationStatus;
+
+/**
+ * Thực hiện mượn và trả sách, mỗi lượt là một giao dịch duy nhất trên cơ sở dữ liệu.
+ *
+ * <p>Số lượng sách có sẵn được giảm bằng một câu lệnh UPDATE có điều kiện ({@code Quantity > 0})
+ * nên không có cập nhật nào bị mất khi nhiều người cùng mượn một cuốn sách. Khi giao dịch bị hủy
+ * do deadlock hoặc hết thời gian chờ khóa, nó được chạy lại sau một khoảng chờ ngẫu nhiên tăng
+ * dần. Số lượt thành công, bị từ chối, xung đột và chạy lại được đếm trong {@link Stats}.
+ */
+public final class CirculationEngine {
+
+  /**
+   * Các chỉ số của bộ mượn trả.
+   *
+   * @param checkouts Số lượt mượn thành công.
+   * @param returns Số lượt trả thành công.
+   * @param soldOut Số lượt mượn bị từ chối vì hết sách (tranh chấp bản sao cuối).
+   * @param overdue Số lượt mượn bị từ chối vì người dùng có sách quá hạn.
+   * @param notBorrowed Số lượt trả bị từ chối vì không có lượt mượn tương ứng.
+   * @param conflicts Số lần giao dịch bị hủy do deadlock hoặc hết thời gian chờ khóa.
+   * @param retries Số lần giao dịch được chạy lại.
+   * @param failures Số lượt thất bại sau khi đã chạy lại tối đa hoặc do lỗi khác.
+   * @param meanMillis Thời gian trung bình của một lượt (mili giây), kể cả các lần chạy lại.
+   */
+  public record Stats(long checkouts, long returns, long soldOut, long overdue, long notBorrowed,
+      long conflicts, long retries, long failures, double meanMillis) {}
+
+  // Số lần chạy tối đa của một giao dịch
+  private static final int MAX_ATTEMPTS = 5;
+
+  // Khoảng chờ cơ sở trước khi chạy lại, nhân đôi sau mỗi lần
+  private static final long BASE_BACKOFF_MILLIS = 2;
+
+  // Mã lỗi MySQL khi hết thời gian chờ khóa (deadlock dùng SQLState 40001)
+  private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+  private static final CirculationEngine instance =
+      new CirculationEngine(new BorrowedBookDaoImpl(), CatalogIndex.getInstance());
+
+  private final BorrowedBookDao borrowedBookDao;
+  private final CatalogIndex catalogIndex;
+
+  private final AtomicLong checkouts = new AtomicLong();
+  private final AtomicLong returns = new AtomicLong();
+  private final AtomicLong soldOut = new AtomicLong();
+  private final AtomicLong overdue = new AtomicLong();
+  private final AtomicLong notBorrowed = new AtomicLong();
+  private final AtomicLong conflicts = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong operations = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+
+  /**
+   * Tạo bộ mượn trả. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param borrowedBookDao DAO thực hiện các giao dịch.
+   * @param catalogIndex Chỉ mục sách cần cập nhật số lượng sau mỗi lượt.
+   */
+  public CirculationEngine(BorrowedBookDao borrowedBookDao, CatalogIndex catalogIndex) {
+    this.borrowedBookDao = borrowedBookDao;
+    this.catalogIndex = catalogIndex;
+  }
+
+  /**
+   * Lấy bộ mượn trả dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của CirculationEngine.
+   */
+  public static CirculationEngine getInstance() {
+    return instance;
+  }
+
+  /**
+   * Mượn một cuốn sách.
+   *
+   * @param bookId ID của sách.
+   * @param userName Tên người mượn.
+   * @param borrowDate Ngày mượn.
+   * @param returnDate Hạn trả.
+   * @return Kết quả của lượt mượn.
+   * @throws SQLException Nếu giao dịch vẫn lỗi sau khi đã chạy lại tối đa.
+   * @throws InterruptedException Nếu luồng bị ngắt khi đang chờ để chạy lại.
+   */
+  public CirculationStatus checkout(
+      int bookId, String userName, LocalDate borrowDate, LocalDate returnDate)
+      throws SQLException, InterruptedException {
+    CirculationStatus status =
+        runWithRetry(() -> borrowedBookDao.checkout(bookId, userName, borrowDate, returnDate));
+    switch (status) {
+      case SUCCESS -> {
+        checkouts.incrementAndGet();
+        adjustIndexedQuantity(bookId, -1);
+      }
+      case NOT_AVAILABLE -> soldOut.incrementAndGet();
+      case OVERDUE -> overdue.incrementAndGet();
+      default -> { }
+    }
+    return status;
+  }
+
+  /**
+   * Trả một cuốn sách.
+   *
+   * @param bookId ID của sách.
+   * @param userName Tên người trả.
+   * @param returnDate Ngày trả.
+   * @return Kết quả của lượt trả.
+   * @throws SQLException Nếu giao dịch vẫn lỗi sau khi đã chạy lại tối đa.
+   * @throws InterruptedException Nếu luồng bị ngắt khi đang chờ để chạy lại.
+   */
+  public CirculationStatus checkin(int bookId, String userName, LocalDate returnDate)
+      throws SQLException, InterruptedException {
+    CirculationStatus status =
+        runWithRetry(() -> borrowedBookDao.checkin(bookId, userName, returnDate));
+    if (status == CirculationStatus.SUCCESS) {
+      returns.incrementAndGet();
+      adjustIndexedQuantity(bookId, 1);
+    } else {
+      notBorrowed.incrementAndGet();
+    }
+    return status;
+  }
+
+  /**
+   * Lấy các chỉ số hiện tại.
+   *
+   * @return Ảnh chụp các chỉ số.
+   */
+  public Stats getStats() {
+    long count = operations.get();
+    double meanMillis = count == 0 ? 0 : totalNanos.get() / 1_000_000.0 / count;
+    return new Stats(checkouts.get(), returns.get(), soldOut.get(), overdue.get(),
+        notBorrowed.get(), conflicts.get(), retries.get(), failures.get(), meanMillis);
+  }
+
+  /** Một giao dịch có thể chạy lại. */
+  @FunctionalInterface
+  private interface Transaction {
+    CirculationStatus run() throws SQLException;
+  }
+
+  private CirculationStatus runWithRetry(Transaction transaction)
+      throws SQLException, InterruptedException {
+    long start = System.nanoTime();
+    try {
+      for (int attempt = 1; ; attempt++) {
+        try {
+          return transaction.run();
+        } catch (SQLException e) {
+          if (!isRetryable(e)) {
+            failures.incrementAndGet();
+            throw e;
+          }
+          conflicts.incrementAndGet();
+          if (attempt == MAX_ATTEMPTS) {
+            failures.incrementAndGet();
+            throw e;
+          }
+          retries.incrementAndGet();
+          // Chờ ngẫu nhiên để các giao dịch xung đột không chạy lại cùng lúc
+          long bound = BASE_BACKOFF_MILLIS << attempt;
+          TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(1, bound));
+        }
+      }
+    } finally {
+      operations.incrementAndGet();
+      totalNanos.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Kiểm tra lỗi có phải do xung đột khóa (deadlock, lỗi tuần tự hóa, hết thời gian chờ khóa) hay
+   * không, tức là giao dịch đã bị hoàn tác và có thể chạy lại an toàn.
+   *
+   * @param e Lỗi SQL.
+   * @return true nếu có thể chạy lại.
+   */
+  static boolean isRetryable(SQLException e) {
+    return e instanceof SQLTransactionRollbackException
+        || "40001".equals(e.getSQLState())
+        || e.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT;
+  }
+
+  // Cập nhật số lượng trong chỉ mục để kết quả tìm kiếm không bị cũ, không cần đọc lại từ CSDL, và
+  // xóa sách khỏi bộ nhớ đệm
+  private void adjustIndexedQuantity(int bookId, int delta) {
+    BookCache.getInstance().invalidate(bookId);
+    catalogIndex.adjustQuantity(bookId, delta);
+  }
+}
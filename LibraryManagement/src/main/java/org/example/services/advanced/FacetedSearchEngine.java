@@ -0,0 +1,226 @@
+package org.example.services.advanced;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.daos.interfaces.BookDao;
+import org.example.models.BookEntity;
+import org.example.models.BookField;
+import org.example.utils.ExecutorRegistry;
+
+/**
+ * Tìm kiếm theo nhiều trường (tác giả, thể loại, nhà xuất bản, tiêu đề) trả về các giá trị phù hợp
+ * kèm số sách của mỗi giá trị (facet), ưu tiên các giá trị có trong lịch sử đọc và mượn của người
+ * dùng.
+ *
+ * <p>Các sách khớp được lấy từ {@link CatalogIndex} trong bộ nhớ, lịch sử của người dùng được đọc
+ * bằng một truy vấn duy nhất ngay trên luồng gọi, trong lúc các trường được xử lý song song trên
+ * executor CPU của {@link ExecutorRegistry}. Điểm của mỗi giá trị kết hợp mức độ
+ * khớp với từ khóa, số lần người dùng đã đọc hoặc mượn sách có giá trị đó và số sách của giá trị
+ * đó trong danh mục.
+ */
+public final class FacetedSearchEngine {
+
+  /**
+   * Một giá trị tìm được của một trường.
+   *
+   * @param value Giá trị (ví dụ tên tác giả).
+   * @param bookCount Số sách khớp từ khóa có giá trị này.
+   * @param historyCount Số lần người dùng đã đọc hoặc mượn sách có giá trị này.
+   * @param score Điểm xếp hạng.
+   */
+  public record Facet(String value, int bookCount, int historyCount, double score) {}
+
+  /**
+   * Kết quả tìm kiếm theo từng trường.
+   *
+   * @param facets Danh sách giá trị đã xếp hạng của từng trường.
+   */
+  public record SearchResult(Map<BookField, List<Facet>> facets) {
+
+    /**
+     * Lấy các giá trị đã xếp hạng của một trường.
+     *
+     * @param field Trường cần lấy.
+     * @return Danh sách giá trị, rỗng nếu trường không được tìm.
+     */
+    public List<String> values(BookField field) {
+      List<String> values = new ArrayList<>();
+      for (Facet facet : facets.getOrDefault(field, Collections.emptyList())) {
+        values.add(facet.value());
+      }
+      return values;
+    }
+  }
+
+  // Trọng số của các thành phần trong điểm xếp hạng
+  private static final double MATCH_WEIGHT = 1.0;
+  private static final double HISTORY_WEIGHT = 2.0;
+  private static final double POPULARITY_WEIGHT = 0.5;
+
+  private static final FacetedSearchEngine instance =
+      new FacetedSearchEngine(CatalogIndex.getInstance(), new BookDaoImpl());
+
+  private final CatalogIndex catalogIndex;
+  private final BookDao bookDao;
+
+  // Executor dùng chung do ExecutorRegistry quản lý, cho việc so khớp trong bộ nhớ
+  private final ExecutorService cpuExecutor;
+
+  /**
+   * Tạo bộ tìm kiếm. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param catalogIndex Chỉ mục sách.
+   * @param bookDao DAO dùng để đọc lịch sử của người dùng.
+   */
+  public FacetedSearchEngine(CatalogIndex catalogIndex, BookDao bookDao) {
+    this.catalogIndex = catalogIndex;
+    this.bookDao = bookDao;
+    this.cpuExecutor = ExecutorRegistry.getInstance().cpu();
+  }
+
+  /**
+   * Lấy bộ tìm kiếm dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của FacetedSearchEngine.
+   */
+  public static FacetedSearchEngine getInstance() {
+    return instance;
+  }
+
+  /**
+   * Tìm các giá trị của các trường chứa từ khóa.
+   *
+   * @param fields Các trường cần tìm (không dùng {@link BookField#ALL}).
+   * @param keyword Từ khóa.
+   * @param userName Người dùng có lịch sử được ưu tiên, null nếu không ưu tiên.
+   * @param limit Số giá trị tối đa mỗi trường.
+   * @return Kết quả theo từng trường.
+   * @throws SQLException Nếu có lỗi khi đọc danh mục hoặc lịch sử.
+   * @throws InterruptedException Nếu luồng bị ngắt khi chờ kết quả.
+   */
+  public SearchResult search(Set<BookField> fields, String keyword, String userName, int limit)
+      throws SQLException, InterruptedException {
+    catalogIndex.ensureLoaded();
+    Map<BookField, Future<Map<String, Bucket>>> matches = new EnumMap<>(BookField.class);
+    for (BookField field : fields) {
+      matches.put(field, cpuExecutor.submit(() -> collectMatches(field, keyword)));
+    }
+
+    try {
+      // Đọc lịch sử ngay trên luồng gọi, không gửi sang executor cơ sở dữ liệu rồi chờ: luồng gọi
+      // có thể chính là một tác vụ của executor đó và sẽ giữ chỗ trong khi chờ
+      Map<Integer, Integer> historyCounts =
+          userName == null ? Collections.emptyMap() : bookDao.countHistoryByUser(userName);
+      String needle = CatalogIndex.normalize(keyword).trim();
+
+      Map<BookField, List<Facet>> facets = new EnumMap<>(BookField.class);
+      for (Map.Entry<BookField, Future<Map<String, Bucket>>> entry : matches.entrySet()) {
+        BookField field = entry.getKey();
+        Map<String, Bucket> buckets = entry.getValue().get();
+        addHistory(field, buckets, historyCounts);
+        facets.put(field, rank(buckets, needle, limit));
+      }
+      return new SearchResult(facets);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      matches.values().forEach(future -> future.cancel(true));
+    }
+  }
+
+  // Gom các sách khớp theo giá trị đã chuẩn hóa của trường
+  private Map<String, Bucket> collectMatches(BookField field, String keyword) {
+    Map<String, Bucket> buckets = new HashMap<>();
+    catalogIndex.forEachMatch(
+        field,
+        keyword,
+        book -> {
+          String value = field.extract(book);
+          buckets.computeIfAbsent(CatalogIndex.normalize(value), k -> new Bucket(value))
+              .bookCount++;
+        });
+    return buckets;
+  }
+
+  // Cộng số lần đọc/mượn vào các giá trị đã khớp, bỏ qua các giá trị không khớp từ khóa
+  private void addHistory(
+      BookField field, Map<String, Bucket> buckets, Map<Integer, Integer> historyCounts) {
+    for (Map.Entry<Integer, Integer> entry : historyCounts.entrySet()) {
+      BookEntity book = catalogIndex.getBook(entry.getKey());
+      if (book == null) {
+        continue;
+      }
+      Bucket bucket = buckets.get(CatalogIndex.normalize(field.extract(book)));
+      if (bucket != null) {
+        bucket.historyCount += entry.getValue();
+      }
+    }
+  }
+
+  private static List<Facet> rank(Map<String, Bucket> buckets, String needle, int limit) {
+    List<Facet> facets = new ArrayList<>(buckets.size());
+    for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+      Bucket bucket = entry.getValue();
+      double score =
+          MATCH_WEIGHT * matchQuality(entry.getKey(), needle)
+              + HISTORY_WEIGHT * Math.log1p(bucket.historyCount)
+              + POPULARITY_WEIGHT * Math.log1p(bucket.bookCount);
+      facets.add(new Facet(bucket.value, bucket.bookCount, bucket.historyCount, score));
+    }
+    facets.sort(
+        (a, b) -> a.score() != b.score()
+            ? Double.compare(b.score(), a.score())
+            : a.value().compareToIgnoreCase(b.value()));
+    return facets.size() > limit ? new ArrayList<>(facets.subList(0, limit)) : facets;
+  }
+
+  /**
+   * Mức độ khớp của một giá trị với từ khóa: trùng hoàn toàn, khớp đầu chuỗi, khớp đầu một từ, hoặc
+   * chỉ chứa từ khóa.
+   *
+   * @param value Giá trị đã chuẩn hóa.
+   * @param needle Từ khóa đã chuẩn hóa.
+   * @return Điểm khớp từ 1 đến 3.
+   */
+  static double matchQuality(String value, String needle) {
+    if (value.equals(needle)) {
+      return 3.0;
+    }
+    if (value.startsWith(needle)) {
+      return 2.0;
+    }
+    int index = value.indexOf(needle);
+    while (index > 0) {
+      if (!Character.isLetterOrDigit(value.charAt(index - 1))) {
+        return 1.5;
+      }
+      index = value.indexOf(needle, index + 1);
+    }
+    return 1.0;
+  }
+
+  /** Số liệu gom được cho một giá trị. */
+  private static final class Bucket {
+    final String value;
+    int bookCount;
+    int historyCount;
+
+    Bucket(String value) {
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package org.example.services.advanced;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.example.models.BookEntity;
+import org.example.models.BookField;
+import org.example.services.advanced.BookMetadataStore.VolumeMetadata;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+/**
+ * Tạo các trang nhãn QR để in khi dán nhãn lại cho nhiều sách cùng lúc.
+ *
+ * <p>Mỗi trang là một ảnh PNG đen trắng gồm lưới nhãn, mỗi nhãn có mã QR cùng tiêu đề và ISBN của
+ * sách. Các trang được vẽ song song trên một {@link ForkJoinPool}; trong mỗi trang, các mã QR lại
+ * được mã hóa song song. Trang được ghi ra đĩa ngay khi vẽ xong và số trang đang vẽ bị giới hạn,
+ * nên bộ nhớ dùng không phụ thuộc vào số sách. Việc tạo nhãn không gọi mạng: đường dẫn được lấy từ
+ * {@link BookMetadataStore} (nếu chưa có thì dùng trang Google Books theo ISBN, giống
+ * {@link QrCodeService}), tiêu đề lấy từ {@link CatalogIndex}.
+ */
+public final class LabelSheetGenerator {
+
+  /**
+   * Bố cục một trang nhãn (đơn vị điểm ảnh).
+   *
+   * @param columns Số cột nhãn.
+   * @param rows Số hàng nhãn.
+   * @param labelWidth Chiều rộng một nhãn.
+   * @param labelHeight Chiều cao một nhãn.
+   * @param qrSize Kích thước mã QR trong nhãn.
+   * @param margin Lề trang.
+   */
+  public record Layout(int columns, int rows, int labelWidth, int labelHeight, int qrSize,
+      int margin) {
+
+    /** Trang A4 ở 150 dpi, 3 x 8 nhãn. */
+    public static final Layout A4 = new Layout(3, 8, 400, 215, 190, 20);
+
+    /**
+     * Số nhãn trên một trang.
+     *
+     * @return Số nhãn.
+     */
+    public int labelsPerPage() {
+      return columns * rows;
+    }
+
+    int pageWidth() {
+      return 2 * margin + columns * labelWidth;
+    }
+
+    int pageHeight() {
+      return 2 * margin + rows * labelHeight;
+    }
+  }
+
+  /**
+   * Kết quả của một lần tạo nhãn.
+   *
+   * @param labels Số nhãn đã vẽ.
+   * @param failures Số nhãn không mã hóa được (được để trống mã QR).
+   * @param pages Các file trang đã ghi, theo thứ tự.
+   * @param elapsedMillis Thời gian chạy (mili giây).
+   */
+  public record Result(int labels, int failures, List<Path> pages, long elapsedMillis) {
+
+    /**
+     * Tốc độ tạo nhãn.
+     *
+     * @return Số nhãn mỗi giây.
+     */
+    public double labelsPerSecond() {
+      return elapsedMillis == 0 ? labels : labels * 1000.0 / elapsedMillis;
+    }
+  }
+
+  private static volatile LabelSheetGenerator instance;
+
+  private final CatalogIndex catalogIndex;
+  private final BookMetadataStore metadataStore;
+  private final Layout layout;
+  private final ForkJoinPool pool;
+
+  /**
+   * Tạo bộ tạo nhãn. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param catalogIndex Chỉ mục sách, dùng để tìm sách và lấy tiêu đề.
+   * @param metadataStore Kho thông tin sách, dùng để lấy đường dẫn đã lưu.
+   * @param layout Bố cục trang.
+   * @param parallelism Số luồng vẽ.
+   */
+  public LabelSheetGenerator(CatalogIndex catalogIndex, BookMetadataStore metadataStore,
+      Layout layout, int parallelism) {
+    this.catalogIndex = catalogIndex;
+    this.metadataStore = metadataStore;
+    this.layout = layout;
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Lấy bộ tạo nhãn dùng chung của ứng dụng (trang A4).
+   *
+   * @return Thể hiện duy nhất của LabelSheetGenerator.
+   */
+  public static LabelSheetGenerator getInstance() {
+    if (instance == null) {
+      synchronized (LabelSheetGenerator.class) {
+        if (instance == null) {
+          instance = new LabelSheetGenerator(CatalogIndex.getInstance(),
+              BookMetadataStore.getInstance(), Layout.A4,
+              Runtime.getRuntime().availableProcessors());
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Tạo nhãn cho các sách tìm được trong danh mục.
+   *
+   * @param field Trường cần tìm.
+   * @param keyword Từ khóa.
+   * @param outputDir Thư mục ghi các trang.
+   * @return Kết quả.
+   * @throws SQLException Nếu có lỗi khi nạp chỉ mục.
+   * @throws IOException Nếu có lỗi khi ghi file.
+   */
+  public Result generate(BookField field, String keyword, Path outputDir)
+      throws SQLException, IOException {
+    catalogIndex.ensureLoaded();
+    List<String> isbns = new ArrayList<>();
+    for (BookEntity book : catalogIndex.search(field, keyword)) {
+      isbns.add(book.getIsbn());
+    }
+    return generate(isbns, outputDir);
+  }
+
+  /**
+   * Tạo nhãn cho một danh sách ISBN, theo thứ tự. Các trang được ghi vào {@code
+   * labels-0001.png}, {@code labels-0002.png}, ...
+   *
+   * @param isbns Các ISBN.
+   * @param outputDir Thư mục ghi các trang.
+   * @return Kết quả.
+   * @throws IOException Nếu có lỗi khi ghi file.
+   */
+  public Result generate(List<String> isbns, Path outputDir) throws IOException {
+    Files.createDirectories(outputDir);
+    long start = System.nanoTime();
+    int perPage = layout.labelsPerPage();
+    int pageCount = (isbns.size() + perPage - 1) / perPage;
+
+    // Mỗi luồng vẽ được giữ tối đa hai trang, phần còn lại chưa được tạo
+    Semaphore inFlight = new Semaphore(pool.getParallelism() * 2);
+    AtomicInteger failures = new AtomicInteger();
+    List<Path> pages = new ArrayList<>(pageCount);
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(pageCount);
+    try {
+      for (int page = 0; page < pageCount; page++) {
+        List<String> pageIsbns =
+            isbns.subList(page * perPage, Math.min(isbns.size(), (page + 1) * perPage));
+        Path file = outputDir.resolve(String.format("labels-%04d.png", page + 1));
+        pages.add(file);
+        inFlight.acquire();
+        tasks.add(pool.submit(new PageTask(pageIsbns, file, failures, inFlight)));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      tasks.forEach(task -> task.cancel(true));
+      throw new IOException("Label generation interrupted", e);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    return new Result(isbns.size(), failures.get(), pages, elapsedMillis);
+  }
+
+  /** Vẽ và ghi một trang. Tác vụ chỉ chạy trong pool, không bao giờ được tuần tự hóa. */
+  @SuppressWarnings("serial")
+  private final class PageTask extends RecursiveAction {
+    private final List<String> isbns;
+    private final Path file;
+    private final AtomicInteger failures;
+    private final Semaphore inFlight;
+
+    PageTask(List<String> isbns, Path file, AtomicInteger failures, Semaphore inFlight) {
+      this.isbns = isbns;
+      this.file = file;
+      this.failures = failures;
+      this.inFlight = inFlight;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        // Mã hóa song song các mã QR của trang
+        List<ForkJoinTask<BitMatrix>> encodings = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+          encodings.add(ForkJoinTask.adapt(() -> encode(isbn)));
+        }
+        ForkJoinTask.invokeAll(encodings);
+
+        BufferedImage page = new BufferedImage(layout.pageWidth(), layout.pageHeight(),
+            BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D graphics = page.createGraphics();
+        try {
+          graphics.setColor(Color.WHITE);
+          graphics.fillRect(0, 0, page.getWidth(), page.getHeight());
+          graphics.setColor(Color.BLACK);
+          graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 16));
+          for (int i = 0; i < isbns.size(); i++) {
+            int x = layout.margin() + (i % layout.columns()) * layout.labelWidth();
+            int y = layout.margin() + (i / layout.columns()) * layout.labelHeight();
+            BitMatrix matrix = encodings.get(i).join();
+            if (matrix == null) {
+              failures.incrementAndGet();
+            } else {
+              int top = y + (layout.labelHeight() - layout.qrSize()) / 2;
+              drawMatrix(page.getRaster(), matrix, x, top);
+            }
+            drawCaption(graphics, isbns.get(i), x + layout.qrSize(), y);
+          }
+        } finally {
+          graphics.dispose();
+        }
+        ImageIO.write(page, "png", file.toFile());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        inFlight.release();
+      }
+    }
+  }
+
+  // Mã QR của một sách, null nếu không mã hóa được
+  private BitMatrix encode(String isbn) {
+    VolumeMetadata metadata = metadataStore.get(isbn);
+    String link = metadata != null && metadata.found() ? metadata.infoLink() : null;
+    try {
+      return new QRCodeWriter().encode(QrCodeService.contentsOf(isbn, link), BarcodeFormat.QR_CODE,
+          layout.qrSize(), layout.qrSize());
+    } catch (WriterException | IllegalArgumentException e) {
+      System.out.println("Error generating QR code: " + e.getMessage());
+      return null;
+    }
+  }
+
+  // Chép trực tiếp các điểm đen vào ảnh (ảnh nền đã là màu trắng)
+  private static void drawMatrix(WritableRaster raster, BitMatrix matrix, int left, int top) {
+    for (int y = 0; y < matrix.getHeight(); y++) {
+      for (int x = 0; x < matrix.getWidth(); x++) {
+        if (matrix.get(x, y)) {
+          raster.setSample(left + x, top + y, 0, 0);
+        }
+      }
+    }
+  }
+
+  private void drawCaption(Graphics2D graphics, String isbn, int left, int top) {
+    FontMetrics metrics = graphics.getFontMetrics();
+    int width = layout.labelWidth() - layout.qrSize() - 10;
+    int baseline = top + layout.labelHeight() / 2;
+    graphics.drawString(fit(titleOf(isbn), metrics, width), left, baseline - metrics.getHeight());
+    graphics.drawString(fit("ISBN " + isbn, metrics, width), left, baseline + metrics.getAscent());
+  }
+
+  private String titleOf(String isbn) {
+    Integer id = catalogIndex.findIdByIsbn(isbn);
+    BookEntity book = id == null ? null : catalogIndex.getBook(id);
+    if (book != null && book.getTitle() != null) {
+      return book.getTitle();
+    }
+    VolumeMetadata metadata = metadataStore.get(isbn);
+    return metadata != null && metadata.title() != null ? metadata.title() : "";
+  }
+
+  // Cắt bớt chuỗi cho vừa chiều rộng, thêm dấu "…" nếu bị cắt
+  private static String fit(String text, FontMetrics metrics, int width) {
+    if (metrics.stringWidth(text) <= width) {
+      return text;
+    }
+    int end = text.length();
+    while (end > 0 && metrics.stringWidth(text.substring(0, end) + "…") > width) {
+      end--;
+    }
+    return text.substring(0, end) + "…";
+  }
+}
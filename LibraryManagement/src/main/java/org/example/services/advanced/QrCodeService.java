@@ -0,0 +1,312 @@
+package org.example.services.advanced;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import org.example.utils.TinyLfuCache;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+/**
+ * Tạo và lưu mã QR dẫn tới trang Google Books của sách.
+ *
+ * <p>Mỗi mã QR (theo ISBN và kích thước) chỉ được vẽ một lần, rồi được lưu dưới dạng ảnh PNG đen
+ * trắng 1 bit (khoảng 1 KB) ở hai tầng: một {@link TinyLfuCache} trong bộ nhớ và một thư mục trên
+ * đĩa để dùng lại sau khi khởi động lại. Việc vẽ chạy trên một nhóm luồng riêng nên không chặn
+ * luồng giao diện, và nhiều yêu cầu cùng lúc cho một mã chỉ vẽ một lần. Đường dẫn sách được lấy
+ * qua {@link AsyncBooksAPIAdapter}, nên khi tạo hàng loạt, các ISBN chưa có đường dẫn được tra cứu
+ * theo batch. Nếu không lấy được đường dẫn, mã QR trỏ tới trang Google Books theo ISBN và không
+ * được lưu lại.
+ *
+ * <p>Cấu hình qua system property {@code library.qr.cache.maxSize} (mặc định 2000) và {@code
+ * library.qr.dir} (mặc định {@code qr-cache}).
+ */
+public final class QrCodeService {
+
+  /** Kích thước mặc định của mã QR (điểm ảnh). */
+  public static final int DEFAULT_SIZE = 200;
+
+  /** Hàm lấy đường dẫn sách theo ISBN, kết quả null nếu không có. */
+  @FunctionalInterface
+  public interface LinkResolver {
+    CompletableFuture<String> resolve(String isbn);
+  }
+
+  /**
+   * Các chỉ số của bộ tạo mã QR.
+   *
+   * @param memoryHits Số lần lấy được ảnh từ bộ nhớ.
+   * @param diskHits Số lần đọc được ảnh từ đĩa.
+   * @param renders Số lần vẽ mã QR.
+   * @param failures Số lần không tạo được mã QR.
+   */
+  public record Stats(long memoryHits, long diskHits, long renders, long failures) {}
+
+  // Trang Google Books theo ISBN, dùng khi không lấy được đường dẫn từ API
+  private static final String FALLBACK_LINK = "https://books.google.com/books?vid=ISBN";
+
+  private static volatile QrCodeService instance;
+
+  private final LinkResolver linkResolver;
+  private final Path directory;
+  private final ExecutorService renderers;
+  private final TinyLfuCache<String, byte[]> images;
+  private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+  private final AtomicLong memoryHits = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong renders = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  /**
+   * Tạo bộ tạo mã QR. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param linkResolver Hàm lấy đường dẫn sách.
+   * @param directory Thư mục lưu ảnh trên đĩa, null nếu chỉ lưu trong bộ nhớ.
+   * @param maximumSize Số ảnh tối đa trong bộ nhớ.
+   * @param threads Số luồng vẽ.
+   */
+  public QrCodeService(LinkResolver linkResolver, Path directory, int maximumSize, int threads) {
+    this.linkResolver = linkResolver;
+    this.directory = directory;
+    this.images = new TinyLfuCache<>(maximumSize, 0, null);
+
+    AtomicInteger threadCount = new AtomicInteger();
+    this.renderers = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "qr-render-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Lấy bộ tạo mã QR dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của QrCodeService.
+   */
+  public static QrCodeService getInstance() {
+    if (instance == null) {
+      synchronized (QrCodeService.class) {
+        if (instance == null) {
+          AsyncBooksAPIAdapter api = AsyncBooksAPIAdapter.getInstance();
+          instance = new QrCodeService(api::getLinkAsync,
+              Paths.get(System.getProperty("library.qr.dir", "qr-cache")),
+              Integer.getInteger("library.qr.cache.maxSize", 2000),
+              Runtime.getRuntime().availableProcessors());
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Lấy ảnh PNG của mã QR với kích thước mặc định mà không chặn luồng gọi.
+   *
+   * @param isbn ISBN của sách.
+   * @return Nội dung file PNG (dùng chung, không được sửa).
+   */
+  public CompletableFuture<byte[]> getPngAsync(String isbn) {
+    return getPngAsync(isbn, DEFAULT_SIZE);
+  }
+
+  /**
+   * Lấy ảnh PNG của mã QR mà không chặn luồng gọi: lấy từ bộ nhớ, rồi từ đĩa, nếu không có thì vẽ.
+   *
+   * @param isbn ISBN của sách.
+   * @param size Chiều rộng và chiều cao của ảnh (điểm ảnh).
+   * @return Nội dung file PNG (dùng chung, không được sửa).
+   */
+  public CompletableFuture<byte[]> getPngAsync(String isbn, int size) {
+    String key = key(isbn, size);
+    byte[] cached = images.getIfPresent(key);
+    if (cached != null) {
+      memoryHits.incrementAndGet();
+      return CompletableFuture.completedFuture(cached);
+    }
+    CompletableFuture<byte[]> created = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      return existing.copy();
+    }
+    CompletableFuture.supplyAsync(() -> readFromDisk(key), renderers)
+        .thenCompose(stored -> stored != null
+            ? CompletableFuture.completedFuture(stored)
+            : resolveLink(isbn).thenApplyAsync(link -> render(isbn, key, link, size), renderers))
+        .whenComplete((png, error) -> {
+          inFlight.remove(key, created);
+          if (error != null) {
+            failures.incrementAndGet();
+            created.completeExceptionally(error);
+          } else {
+            created.complete(png);
+          }
+        });
+    return created.copy();
+  }
+
+  /**
+   * Lấy mã QR với kích thước mặc định dưới dạng ảnh mà không chặn luồng gọi.
+   *
+   * @param isbn ISBN của sách.
+   * @return Ảnh mã QR.
+   */
+  public CompletableFuture<BufferedImage> getImageAsync(String isbn) {
+    return getPngAsync(isbn).thenApply(QrCodeService::decode);
+  }
+
+  /**
+   * Lấy mã QR với kích thước mặc định dưới dạng ảnh, chờ tới khi có kết quả.
+   *
+   * @param isbn ISBN của sách.
+   * @return Ảnh mã QR, hoặc null nếu không tạo được.
+   */
+  public BufferedImage getImage(String isbn) {
+    try {
+      return getImageAsync(isbn).join();
+    } catch (CompletionException e) {
+      System.out.println("Error generating QR code: " + e.getCause().getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Tạo mã QR cho nhiều sách cùng lúc, ví dụ để in nhãn cho cả một kệ sách. Đường dẫn của các ISBN
+   * được tra cứu theo batch và các mã được vẽ song song.
+   *
+   * @param isbns Các ISBN.
+   * @param size Chiều rộng và chiều cao của ảnh (điểm ảnh).
+   * @return Ảnh PNG theo ISBN, theo thứ tự đầu vào; null với ISBN không tạo được mã.
+   */
+  public CompletableFuture<Map<String, byte[]>> renderAll(Collection<String> isbns, int size) {
+    Map<String, CompletableFuture<byte[]>> futures = new LinkedHashMap<>();
+    for (String isbn : isbns) {
+      futures.computeIfAbsent(isbn, key -> getPngAsync(key, size).exceptionally(e -> null));
+    }
+    return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> {
+          Map<String, byte[]> result = new LinkedHashMap<>();
+          futures.forEach((isbn, future) -> result.put(isbn, future.join()));
+          return result;
+        });
+  }
+
+  /**
+   * Lấy các chỉ số hiện tại.
+   *
+   * @return Ảnh chụp các chỉ số.
+   */
+  public Stats getStats() {
+    return new Stats(memoryHits.get(), diskHits.get(), renders.get(), failures.get());
+  }
+
+  // Lỗi khi lấy đường dẫn không làm hỏng mã QR, chỉ dẫn tới đường dẫn dự phòng
+  private CompletableFuture<String> resolveLink(String isbn) {
+    return linkResolver.resolve(isbn).handle((link, error) -> {
+      if (error != null) {
+        System.out.println("Error fetching book link: " + error.getMessage());
+        return null;
+      }
+      return link;
+    });
+  }
+
+  private byte[] render(String isbn, String key, String link, int size) {
+    String contents = contentsOf(isbn, link);
+    try {
+      BitMatrix bitMatrix = new QRCodeWriter().encode(contents, BarcodeFormat.QR_CODE, size, size);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+      // Ảnh đen trắng được ghi với 1 bit mỗi điểm ảnh
+      MatrixToImageWriter.writeToStream(bitMatrix, "PNG", out);
+      byte[] png = out.toByteArray();
+      renders.incrementAndGet();
+      if (link != null) {
+        images.put(key, png);
+        writeToDisk(key, png);
+      }
+      return png;
+    } catch (WriterException | IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Nội dung được mã hóa vào mã QR của một sách.
+   *
+   * @param isbn ISBN của sách.
+   * @param link Đường dẫn sách, null nếu không có.
+   * @return Đường dẫn sách, hoặc trang Google Books theo ISBN nếu không có đường dẫn.
+   */
+  static String contentsOf(String isbn, String link) {
+    return link != null ? link : FALLBACK_LINK + isbn;
+  }
+
+  private byte[] readFromDisk(String key) {
+    if (directory == null) {
+      return null;
+    }
+    try {
+      byte[] png = Files.readAllBytes(directory.resolve(key + ".png"));
+      diskHits.incrementAndGet();
+      images.put(key, png);
+      return png;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      System.out.println("Error reading QR code: " + e.getMessage());
+      return null;
+    }
+  }
+
+  // Ghi ra file tạm rồi đổi tên để không bao giờ có file PNG ghi dở
+  private void writeToDisk(String key, byte[] png) {
+    if (directory == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory);
+      Path temp = Files.createTempFile(directory, key, ".tmp");
+      Files.write(temp, png);
+      Files.move(temp, directory.resolve(key + ".png"), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      System.out.println("Error saving QR code: " + e.getMessage());
+    }
+  }
+
+  private static BufferedImage decode(byte[] png) {
+    try {
+      return ImageIO.read(new ByteArrayInputStream(png));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Khóa cũng là tên file nên chỉ giữ các ký tự an toàn
+  private static String key(String isbn, int size) {
+    return isbn.replaceAll("[^0-9A-Za-z-]", "_") + "-" + size;
+  }
+}
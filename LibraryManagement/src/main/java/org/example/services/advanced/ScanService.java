@@ -0,0 +1,432 @@
+package org.example.services.advanced;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.example.services.basics.BorrowedBookService;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * Mượn và trả sách bằng cách quét mã: giải mã ảnh (khung hình camera hoặc file ảnh) thành ISBN,
+ * tìm sách qua bảng ISBN → ID trong {@link CatalogIndex}, rồi gọi {@link BorrowedBookService}.
+ *
+ * <p>Ảnh có thể chứa mã QR trên nhãn do {@link LabelSheetGenerator} tạo (ISBN được lấy từ đường
+ * dẫn Google Books, dạng {@code isbn:...} hoặc {@code vid=ISBN...}) hoặc mã vạch EAN-13 in sau bìa
+ * sách. ISBN-10 và ISBN-13 của cùng một sách được coi là một. Mỗi luồng dùng một bộ giải mã riêng
+ * chỉ tìm hai loại mã này; ảnh lớn được thu nhỏ trước khi giải mã để việc giải mã và tra cứu một
+ * ảnh mất dưới 20 ms. Chế độ hàng loạt xử lý song song mọi ảnh trong một thư mục.
+ *
+ * <p>Cấu hình qua system property {@code library.scan.loanDays} (hạn mượn, mặc định 14 ngày).
+ */
+public final class ScanService {
+
+  /** Việc cần làm với sách được quét. */
+  public enum Mode {
+    BORROW,
+    RETURN,
+    // Chỉ nhận diện sách, không mượn hay trả
+    LOOKUP
+  }
+
+  /** Kết quả của một lượt quét. */
+  public enum Outcome {
+    // Mượn hoặc trả thành công
+    SUCCESS,
+    // Đã nhận diện sách (chế độ LOOKUP)
+    IDENTIFIED,
+    // Nhận diện được sách nhưng việc mượn hoặc trả bị từ chối
+    REJECTED,
+    // Không tìm thấy mã hoặc mã không chứa ISBN
+    NO_CODE,
+    // ISBN không có trong danh mục
+    NOT_IN_CATALOG,
+    // Không đọc được file ảnh
+    UNREADABLE
+  }
+
+  /**
+   * Kết quả quét một ảnh.
+   *
+   * @param source Nguồn ảnh (tên file hoặc mô tả khung hình).
+   * @param isbn ISBN giải mã được, null nếu không có.
+   * @param bookId ID của sách, null nếu không tìm thấy.
+   * @param outcome Kết quả.
+   * @param identifyMicros Thời gian giải mã và tra cứu (micro giây).
+   */
+  public record ScanResult(String source, String isbn, Integer bookId, Outcome outcome,
+      long identifyMicros) {}
+
+  /**
+   * Kết quả quét một thư mục.
+   *
+   * @param results Kết quả từng ảnh, theo thứ tự tên file.
+   * @param elapsedMillis Thời gian chạy (mili giây).
+   */
+  public record BatchResult(List<ScanResult> results, long elapsedMillis) {
+
+    /**
+     * Đếm số ảnh có một kết quả.
+     *
+     * @param outcome Kết quả cần đếm.
+     * @return Số ảnh.
+     */
+    public long count(Outcome outcome) {
+      return results.stream().filter(result -> result.outcome() == outcome).count();
+    }
+
+    /**
+     * Thời gian giải mã và tra cứu trung bình của một ảnh.
+     *
+     * @return Số mili giây.
+     */
+    public double meanIdentifyMillis() {
+      return results.stream().mapToLong(ScanResult::identifyMicros).average().orElse(0) / 1000.0;
+    }
+  }
+
+  // Cạnh dài nhất của ảnh được giải mã, ảnh lớn hơn được thu nhỏ trước
+  private static final int MAX_DECODE_SIDE = 1024;
+
+  // ISBN nằm trong đường dẫn, ví dụ "dq=isbn:9780062315007" hoặc "vid=ISBN0062315005"
+  private static final Pattern ISBN_IN_TEXT =
+      Pattern.compile("(?i)isbn[:=]?\\s*([0-9][0-9-]{8,15}[0-9X])");
+
+  private static final Pattern IMAGE_FILE = Pattern.compile("(?i).+\\.(png|jpe?g|gif|bmp)$");
+
+  private static final Map<DecodeHintType, Object> HINTS = new EnumMap<>(DecodeHintType.class);
+
+  static {
+    HINTS.put(DecodeHintType.POSSIBLE_FORMATS,
+        List.of(BarcodeFormat.QR_CODE, BarcodeFormat.EAN_13));
+  }
+
+  // MultiFormatReader không an toàn luồng, mỗi luồng dùng một bộ riêng
+  private static final ThreadLocal<MultiFormatReader> readers = ThreadLocal.withInitial(() -> {
+    MultiFormatReader reader = new MultiFormatReader();
+    reader.setHints(HINTS);
+    return reader;
+  });
+
+  private static volatile ScanService instance;
+
+  private final CatalogIndex catalogIndex;
+  private final BorrowedBookService borrowedBookService;
+  private final int loanDays;
+  private final ForkJoinPool pool;
+
+  /**
+   * Tạo bộ quét. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param catalogIndex Chỉ mục sách, dùng để tìm sách theo ISBN.
+   * @param borrowedBookService Dịch vụ mượn trả sách.
+   * @param loanDays Số ngày mượn.
+   * @param parallelism Số luồng dùng cho chế độ hàng loạt.
+   */
+  public ScanService(CatalogIndex catalogIndex, BorrowedBookService borrowedBookService,
+      int loanDays, int parallelism) {
+    this.catalogIndex = catalogIndex;
+    this.borrowedBookService = borrowedBookService;
+    this.loanDays = loanDays;
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Lấy bộ quét dùng chung của ứng dụng.
+   *
+   * @return Thể hiện duy nhất của ScanService.
+   */
+  public static ScanService getInstance() {
+    if (instance == null) {
+      synchronized (ScanService.class) {
+        if (instance == null) {
+          instance = new ScanService(CatalogIndex.getInstance(), new BorrowedBookService(),
+              Integer.getInteger("library.scan.loanDays", 14),
+              Runtime.getRuntime().availableProcessors());
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Quét một khung hình.
+   *
+   * @param frame Ảnh cần quét.
+   * @param mode Việc cần làm với sách.
+   * @return Kết quả.
+   */
+  public ScanResult scan(BufferedImage frame, Mode mode) {
+    return scan("frame", frame, mode);
+  }
+
+  /**
+   * Quét một file ảnh.
+   *
+   * @param imageFile Đường dẫn file ảnh.
+   * @param mode Việc cần làm với sách.
+   * @return Kết quả.
+   */
+  public ScanResult scan(Path imageFile, Mode mode) {
+    String source = imageFile.getFileName().toString();
+    BufferedImage image;
+    try {
+      image = ImageIO.read(imageFile.toFile());
+    } catch (IOException e) {
+      System.out.println("Lỗi khi đọc ảnh " + source + ": " + e.getMessage());
+      image = null;
+    }
+    if (image == null) {
+      return new ScanResult(source, null, null, Outcome.UNREADABLE, 0);
+    }
+    return scan(source, image, mode);
+  }
+
+  /**
+   * Quét song song mọi file ảnh (png, jpg, gif, bmp) trong một thư mục.
+   *
+   * @param folder Thư mục chứa ảnh.
+   * @param mode Việc cần làm với sách.
+   * @return Kết quả từng ảnh và thời gian chạy.
+   * @throws IOException Nếu không đọc được thư mục.
+   */
+  public BatchResult scanFolder(Path folder, Mode mode) throws IOException {
+    long start = System.nanoTime();
+    List<Path> files;
+    try (Stream<Path> entries = Files.list(folder)) {
+      files = entries
+          .filter(path -> IMAGE_FILE.matcher(path.getFileName().toString()).matches())
+          .sorted()
+          .toList();
+    }
+    List<ScanResult> results;
+    try {
+      // Stream song song chạy trên chính nhóm luồng của bộ quét
+      results = pool.submit(() -> files.parallelStream().map(file -> scan(file, mode)).toList())
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Scan interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Scan failed", e.getCause());
+    }
+    return new BatchResult(results, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Giải mã một ảnh thành ISBN.
+   *
+   * @param image Ảnh cần giải mã.
+   * @return ISBN (đã chuẩn hóa), hoặc null nếu không có mã hoặc mã không chứa ISBN.
+   */
+  public String decodeIsbn(BufferedImage image) {
+    int longest = Math.max(image.getWidth(), image.getHeight());
+    int step = (longest + MAX_DECODE_SIDE - 1) / MAX_DECODE_SIDE;
+    String text = decodeText(luminance(image, step));
+    // Mã nhỏ trong ảnh lớn có thể bị mất khi thu nhỏ, thử lại ở kích thước gốc
+    if (text == null && step > 1) {
+      text = decodeText(luminance(image, 1));
+    }
+    return text == null ? null : extractIsbn(text);
+  }
+
+  /**
+   * Tìm ID sách theo ISBN, chấp nhận cả dạng ISBN-10 và ISBN-13 của cùng một sách.
+   *
+   * @param isbn ISBN.
+   * @return ID của sách, hoặc null nếu không có trong danh mục.
+   * @throws SQLException Nếu có lỗi khi nạp chỉ mục.
+   */
+  public Integer lookup(String isbn) throws SQLException {
+    catalogIndex.ensureLoaded();
+    Integer bookId = catalogIndex.findIdByIsbn(isbn);
+    if (bookId == null) {
+      String alternate = isbn.length() == 13 ? toIsbn10(isbn) : toIsbn13(isbn);
+      if (alternate != null) {
+        bookId = catalogIndex.findIdByIsbn(alternate);
+      }
+    }
+    return bookId;
+  }
+
+  private ScanResult scan(String source, BufferedImage image, Mode mode) {
+    long start = System.nanoTime();
+    String isbn = decodeIsbn(image);
+    Integer bookId = null;
+    if (isbn != null) {
+      try {
+        bookId = lookup(isbn);
+      } catch (SQLException e) {
+        System.out.println("Lỗi cơ sở dữ liệu: " + e.getMessage());
+      }
+    }
+    long identifyMicros = (System.nanoTime() - start) / 1000;
+
+    Outcome outcome;
+    if (isbn == null) {
+      outcome = Outcome.NO_CODE;
+    } else if (bookId == null) {
+      outcome = Outcome.NOT_IN_CATALOG;
+    } else {
+      outcome = switch (mode) {
+        case BORROW -> borrowedBookService.borrowBook(
+            bookId, LocalDate.now(), LocalDate.now().plusDays(loanDays))
+            ? Outcome.SUCCESS : Outcome.REJECTED;
+        case RETURN -> borrowedBookService.returnBook(bookId)
+            ? Outcome.SUCCESS : Outcome.REJECTED;
+        case LOOKUP -> Outcome.IDENTIFIED;
+      };
+    }
+    return new ScanResult(source, isbn, bookId, outcome, identifyMicros);
+  }
+
+  private static String decodeText(LuminanceSource source) {
+    BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
+    MultiFormatReader reader = readers.get();
+    try {
+      return reader.decodeWithState(bitmap).getText();
+    } catch (NotFoundException e) {
+      return null;
+    } finally {
+      reader.reset();
+    }
+  }
+
+  // Độ sáng của ảnh, thu nhỏ step lần bằng cách lấy điểm giữa của từng ô step x step. Chỉ các hàng
+  // được lấy mẫu mới được đọc; ảnh RGB 32 bit (khung hình camera) được đọc thẳng từ raster, không
+  // qua ColorModel.
+  private static LuminanceSource luminance(BufferedImage image, int step) {
+    int width = image.getWidth();
+    int outWidth = width / step;
+    int outHeight = image.getHeight() / step;
+    int offset = step / 2;
+    int type = image.getType();
+    boolean packed = type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB;
+    // Raster của TYPE_INT_RGB không có kênh alpha, mọi điểm đều không trong suốt
+    boolean hasAlpha = type != BufferedImage.TYPE_INT_RGB;
+    byte[] pixels = new byte[outWidth * outHeight];
+    int[] row = new int[width];
+    for (int y = 0; y < outHeight; y++) {
+      if (packed) {
+        image.getRaster().getDataElements(0, y * step + offset, width, 1, row);
+      } else {
+        image.getRGB(0, y * step + offset, width, 1, row, 0, width);
+      }
+      for (int x = 0; x < outWidth; x++) {
+        int argb = row[x * step + offset];
+        // Cùng công thức với BufferedImageLuminanceSource, điểm trong suốt được coi là trắng
+        int luminance = hasAlpha && (argb >>> 24) == 0 ? 0xFF
+            : (((argb >> 16) & 0xFF) + 2 * ((argb >> 8) & 0xFF) + (argb & 0xFF)) >> 2;
+        pixels[y * outWidth + x] = (byte) luminance;
+      }
+    }
+    return new PlanarYUVLuminanceSource(pixels, outWidth, outHeight, 0, 0, outWidth, outHeight,
+        false);
+  }
+
+  /**
+   * Lấy ISBN từ nội dung của mã: chính nội dung nếu là một ISBN hợp lệ (mã vạch EAN-13), hoặc ISBN
+   * nằm trong đường dẫn (mã QR).
+   *
+   * @param text Nội dung của mã.
+   * @return ISBN đã chuẩn hóa, hoặc null nếu không có ISBN hợp lệ.
+   */
+  static String extractIsbn(String text) {
+    String compact = CatalogIndex.normalizeIsbn(text.trim());
+    if (isValidIsbn(compact)) {
+      return compact;
+    }
+    Matcher matcher = ISBN_IN_TEXT.matcher(text);
+    while (matcher.find()) {
+      String candidate = CatalogIndex.normalizeIsbn(matcher.group(1));
+      if (isValidIsbn(candidate)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Kiểm tra chữ số kiểm tra của một ISBN-10 hoặc ISBN-13 đã chuẩn hóa.
+   *
+   * @param isbn ISBN đã chuẩn hóa.
+   * @return true nếu hợp lệ.
+   */
+  static boolean isValidIsbn(String isbn) {
+    if (isbn.length() == 13 && isbn.chars().allMatch(Character::isDigit)) {
+      return isbn13CheckDigit(isbn) == isbn.charAt(12);
+    }
+    if (isbn.length() == 10 && isbn.substring(0, 9).chars().allMatch(Character::isDigit)) {
+      return isbn10CheckDigit(isbn) == isbn.charAt(9);
+    }
+    return false;
+  }
+
+  /**
+   * Chuyển ISBN-13 (tiền tố 978) sang ISBN-10.
+   *
+   * @param isbn13 ISBN-13 đã chuẩn hóa.
+   * @return ISBN-10, hoặc null nếu không chuyển được.
+   */
+  static String toIsbn10(String isbn13) {
+    if (isbn13.length() != 13 || !isbn13.startsWith("978")) {
+      return null;
+    }
+    String core = isbn13.substring(3, 12);
+    return core + isbn10CheckDigit(core);
+  }
+
+  /**
+   * Chuyển ISBN-10 sang ISBN-13.
+   *
+   * @param isbn10 ISBN-10 đã chuẩn hóa.
+   * @return ISBN-13, hoặc null nếu không chuyển được.
+   */
+  static String toIsbn13(String isbn10) {
+    if (isbn10.length() != 10) {
+      return null;
+    }
+    String core = "978" + isbn10.substring(0, 9);
+    return core + isbn13CheckDigit(core);
+  }
+
+  // Chữ số kiểm tra tính trên 12 chữ số đầu
+  private static char isbn13CheckDigit(String digits) {
+    int sum = 0;
+    for (int i = 0; i < 12; i++) {
+      sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+    }
+    return (char) ('0' + (10 - sum % 10) % 10);
+  }
+
+  // Chữ số kiểm tra tính trên 9 chữ số đầu, 10 được viết là X
+  private static char isbn10CheckDigit(String digits) {
+    int sum = 0;
+    for (int i = 0; i < 9; i++) {
+      sum += (digits.charAt(i) - '0') * (10 - i);
+    }
+    int check = (11 - sum % 11) % 11;
+    return check == 10 ? 'X' : (char) ('0' + check);
+  }
+}
@@ -2,28 +2,17 @@ package org.example.services.advanced;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
-import org.example.daos.implementations.LogDaoImpl;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.interfaces.LogDao;
-import org.example.models.BookEntity;
-import org.example.models.BorrowedBookEntity;
+import org.example.models.BookField;
 import org.example.models.LogEntity;
-import org.example.models.ReadBookEntity;
-import org.example.services.basics.BookService;
-import org.example.services.basics.BorrowedBookService;
-import org.example.services.basics.ReadBookService;
+import org.example.models.UserEntity;
+import org.example.services.advanced.FacetedSearchEngine.SearchResult;
 import org.example.services.basics.UserService;
 
 /**
@@ -31,9 +20,10 @@ import org.example.services.basics.UserService;
  * Được sử dụng để quản lý và thực hiện các thao tác tìm kiếm liên quan đến sách và người dùng.
  */
 public class SearchService {
-  private final BorrowedBookService borrowedBookService;
-  private final ReadBookService readBookService;
-  private final BookService bookService;
+  // Số kết quả tối đa của các phương thức tìm kiếm theo một trường
+  private static final int DEFAULT_LIMIT = 5;
+
+  private final FacetedSearchEngine searchEngine;
   private final UserService userService;
   private final LogDao logDao;
 
@@ -42,11 +32,9 @@ public class SearchService {
    * Khởi tạo các đối tượng dịch vụ và DAO cần thiết.
    */
   public SearchService() {
-    this.borrowedBookService = new BorrowedBookService();
-    this.readBookService = new ReadBookService();
-    this.bookService = new BookService();
+    this.searchEngine = FacetedSearchEngine.getInstance();
     this.userService = UserService.getInstance();
-    this.logDao = new LogDaoImpl();
+    this.logDao = AsyncLogDao.getInstance();
   }
 
   /**
@@ -56,108 +44,7 @@ public class SearchService {
    * @return Danh sách tên tác giả phù hợp với từ khóa, tối đa 5 tên, danh sách rỗng nếu lỗi.
    */
   public List<String> searchAuthorsByKeyword(String keyword) {
-    try {
-      // Lấy danh sách các cuốn sách người dùng đã đọc và đã mượn
-      List<ReadBookEntity> readBooks = readBookService.getReadBooksByUser();
-      List<BorrowedBookEntity> borrowedBooks = borrowedBookService.getAllBorrowedBooksByUser();
-
-      // Kết hợp tất cả các sách đã đọc và đã mượn vào một danh sách chung
-      List<BookEntity> allBooks = new ArrayList<>();
-
-      // Thêm các cuốn sách đã đọc vào danh sách
-      for (ReadBookEntity readBook : readBooks) {
-        BookEntity book = bookService.getBookById(readBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-      for (BorrowedBookEntity borrowedBook : borrowedBooks) {
-        BookEntity book = bookService.getBookById(borrowedBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-
-      //Chuyển từ khóa tìm kiếm thành chữ thường.
-      String normalizedKeyword = keyword.toLowerCase();
-
-      // Khởi tạo một ExecutorService để xử lý song song các tác vụ tìm kiếm
-      ExecutorService executor = Executors.newFixedThreadPool(4);
-      List<Callable<List<String>>> tasks = new ArrayList<>();
-
-      // Chia các cuốn sách thành các phần nhỏ để xử lý song song
-      int partitionSize = allBooks.size() / 4 + 1;
-
-      // Phân chia các cuốn sách thành các phần nhỏ và thêm vào danh sách tác vụ
-      for (int i = 0; i < allBooks.size(); i += partitionSize) {
-        final List<BookEntity> sublist =
-            allBooks.subList(i, Math.min(i + partitionSize, allBooks.size()));
-        tasks.add(
-            () ->
-                sublist.stream()
-                    .map(
-                        BookEntity::getAuthorName)
-                    .filter(Objects::nonNull)
-                    .filter(
-                        author ->
-                            author
-                                .toLowerCase()
-                                .contains(normalizedKeyword))
-                    .distinct()
-                    .collect(Collectors.toList()));
-      }
-
-      // Thực thi các tác vụ song song
-      List<Future<List<String>>> futures = executor.invokeAll(tasks);
-      Set<String> resultSet = new TreeSet<>();
-      for (Future<List<String>> future : futures) {
-        resultSet.addAll(future.get());
-      }
-
-      // Đóng ExecutorService
-      executor.shutdown();
-
-      // Tạo danh sách kết quả cuối cùng
-      List<String> result = new ArrayList<>(resultSet);
-
-      // Đưa các tác giả có trong sách đã đọc và sách đã mượn lên đầu
-      List<String> prioritizedAuthors = new ArrayList<>();
-      for (BookEntity book : allBooks) {
-        if (book != null && result.contains(book.getAuthorName())) {
-          prioritizedAuthors.add(book.getAuthorName());
-          result.remove(book.getAuthorName());
-        }
-      }
-
-      // Kết hợp danh sách ưu tiên và danh sách còn lại
-      prioritizedAuthors.addAll(result.stream().sorted().toList());
-
-      // Trả về danh sách 5 tác giả đầu tiên sau khi sắp xếp
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Tìm kiếm tác giả thành công với từ khóa: " + keyword));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-      return prioritizedAuthors.stream().limit(5).collect(Collectors.toList());
-    } catch (InterruptedException | ExecutionException e) {
-      System.out.println("Lỗi: " + e.getMessage());
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Lỗi khi tìm kiếm tác giả: " + e.getMessage()));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-    } catch (IllegalArgumentException e) {
-      System.out.println("Lỗi: " + e.getMessage());
-    }
-    return Collections.emptyList();
+    return searchField(BookField.AUTHOR, keyword, "tác giả");
   }
 
   /**
@@ -167,111 +54,7 @@ public class SearchService {
    * @return Danh sách thể loại phù hợp với từ khóa, tối đa 5 tên, danh sách rỗng nếu lỗi.
    */
   public List<String> searchCategoriesByKeyword(String keyword) {
-    try {
-      // Lấy danh sách sách đã đọc và đã mượn
-      List<ReadBookEntity> readBooks = readBookService.getReadBooksByUser();
-      List<BorrowedBookEntity> borrowedBooks = borrowedBookService.getAllBorrowedBooksByUser();
-
-      // Kết hợp tất cả các sách đã đọc và đã mượn vào một danh sách chung
-      List<BookEntity> allBooks = new ArrayList<>();
-      for (ReadBookEntity readBook : readBooks) {
-        BookEntity book = bookService.getBookById(readBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-      for (BorrowedBookEntity borrowedBook : borrowedBooks) {
-        BookEntity book = bookService.getBookById(borrowedBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-
-      // Chuyển từ khóa tìm kiếm thành chữ thường
-      String normalizedKeyword = keyword.toLowerCase();
-
-      // Khởi tạo một ExecutorService để xử lý song song các tác vụ tìm kiếm
-      ExecutorService executor = Executors.newFixedThreadPool(4);
-      List<Callable<List<String>>> tasks = new ArrayList<>();
-
-      // Chia các cuốn sách thành các phần nhỏ để xử lý song song
-      int partitionSize = allBooks.size() / 4 + 1;
-
-      // Phân chia các cuốn sách thành các phần nhỏ và thêm vào danh sách tác vụ
-      for (int i = 0; i < allBooks.size(); i += partitionSize) {
-        final List<BookEntity> sublist =
-            allBooks.subList(i, Math.min(i + partitionSize, allBooks.size()));
-        tasks.add(
-            () ->
-                sublist.stream()
-                    .map(
-                        BookEntity::getCategory)
-                    .filter(Objects::nonNull)
-                    .filter(
-                        category ->
-                            category
-                                .toLowerCase()
-                                .contains(normalizedKeyword))
-                    .distinct()
-                    .collect(Collectors.toList()));
-      }
-
-      // Thực thi các tác vụ song song
-      List<Future<List<String>>> futures = executor.invokeAll(tasks);
-      Set<String> resultSet = new TreeSet<>();
-      for (Future<List<String>> future : futures) {
-        resultSet.addAll(future.get());
-      }
-
-      // Đóng ExecutorService
-      executor.shutdown();
-
-      // Tạo danh sách kết quả cuối cùng
-      List<String> result = new ArrayList<>(resultSet);
-
-      // Đưa các thể loại có trong sách đã đọc và sách đã mượn lên đầu
-      List<String> prioritizedCategories = new ArrayList<>();
-      for (BookEntity book : allBooks) {
-        if (book != null && result.contains(book.getCategory())) {
-          prioritizedCategories.add(book.getCategory());
-          result.remove(book.getCategory());
-        }
-      }
-
-      // Kết hợp danh sách ưu tiên và danh sách còn lại
-      prioritizedCategories.addAll(result.stream().sorted().toList());
-
-      // Ghi log tìm kiếm thành công
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Tìm kiếm thể loại thành công với từ khóa: " + keyword));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-
-      // Trả về danh sách 5 thể loại đầu tiên sau khi sắp xếp
-      return prioritizedCategories.stream().limit(5).collect(Collectors.toList());
-    } catch (InterruptedException | ExecutionException e) {
-      // Xử lý ngoại lệ khi thực thi tác vụ song song
-      System.out.println("Lỗi: " + e.getMessage());
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Lỗi khi tìm kiếm thể loại: " + e.getMessage()));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-      return Collections.emptyList();
-    } catch (IllegalArgumentException e) {
-      // Xử lý ngoại lệ liên quan đến đầu vào không hợp lệ
-      System.out.println("Lỗi: " + e.getMessage());
-      return Collections.emptyList();
-    }
+    return searchField(BookField.CATEGORY, keyword, "thể loại");
   }
 
   /**
@@ -281,111 +64,7 @@ public class SearchService {
    * @return Danh sách tên nhà xuất bản phù hợp với từ khóa, tối đa 5 tên, danh sách rỗng nếu lỗi.
    */
   public List<String> searchPublishersByKeyword(String keyword) {
-    try {
-      List<ReadBookEntity> readBooks = readBookService.getReadBooksByUser();
-      List<BorrowedBookEntity> borrowedBooks = borrowedBookService.getAllBorrowedBooksByUser();
-
-      // Kết hợp tất cả các sách đã đọc và đã mượn vào một danh sách chung
-      List<BookEntity> allBooks = new ArrayList<>();
-      for (ReadBookEntity readBook : readBooks) {
-        BookEntity book = bookService.getBookById(readBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-      for (BorrowedBookEntity borrowedBook : borrowedBooks) {
-        BookEntity book = bookService.getBookById(borrowedBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-
-      // Chuyển từ khóa tìm kiếm thành chữ thường
-      String normalizedKeyword = keyword.toLowerCase();
-
-      // Khởi tạo một ExecutorService để xử lý song song các tác vụ tìm kiếm
-      ExecutorService executor = Executors.newFixedThreadPool(4);
-      List<Callable<List<String>>> tasks = new ArrayList<>();
-
-      // Chia các cuốn sách thành các phần nhỏ để xử lý song song
-      int partitionSize = allBooks.size() / 4 + 1;
-
-      // Phân chia các cuốn sách thành các phần nhỏ và thêm vào danh sách tác vụ
-      for (int i = 0; i < allBooks.size(); i += partitionSize) {
-        final List<BookEntity> sublist =
-            allBooks.subList(i, Math.min(i + partitionSize, allBooks.size()));
-        tasks.add(
-            () ->
-                sublist.stream()
-                    .map(
-                        BookEntity::getPublisherName)
-                    .filter(Objects::nonNull)
-                    .filter(
-                        publisher ->
-                            publisher
-                                .toLowerCase()
-                                .contains(
-                                    normalizedKeyword))
-                    .distinct()
-                    .collect(Collectors.toList()));
-      }
-
-      // Thực thi các tác vụ song song
-      List<Future<List<String>>> futures = executor.invokeAll(tasks);
-      Set<String> resultSet = new TreeSet<>();
-      for (Future<List<String>> future : futures) {
-        resultSet.addAll(future.get());
-      }
-
-      // Đóng ExecutorService
-      executor.shutdown();
-
-      // Tạo danh sách kết quả cuối cùng
-      List<String> result = new ArrayList<>(resultSet);
-
-      // Đưa các nhà xuất bản có trong sách đã đọc và sách đã mượn lên đầu
-      List<String> prioritizedPublishers = new ArrayList<>();
-      for (BookEntity book : allBooks) {
-        if (book != null && result.contains(book.getPublisherName())) {
-          prioritizedPublishers.add(book.getPublisherName());
-          result.remove(book.getPublisherName());
-        }
-      }
-
-      // Kết hợp danh sách ưu tiên và danh sách còn lại
-      prioritizedPublishers.addAll(result.stream().sorted().toList());
-
-      // Ghi log tìm kiếm thành công
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Tìm kiếm nhà xuất bản thành công với từ khóa: " + keyword));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-
-      // Trả về danh sách 5 nhà xuất bản đầu tiên sau khi sắp xếp
-      return prioritizedPublishers.stream().limit(5).collect(Collectors.toList());
-    } catch (InterruptedException | ExecutionException e) {
-      // Xử lý ngoại lệ khi thực thi tác vụ song song
-      System.out.println("Lỗi: " + e.getMessage());
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Lỗi khi tìm kiếm nhà xuất bản: " + e.getMessage()));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-      return Collections.emptyList();
-    } catch (IllegalArgumentException e) {
-      // Xử lý ngoại lệ liên quan đến đầu vào không hợp lệ
-      System.out.println("Lỗi: " + e.getMessage());
-      return Collections.emptyList();
-    }
+    return searchField(BookField.PUBLISHER, keyword, "nhà xuất bản");
   }
 
   /**
@@ -395,110 +74,68 @@ public class SearchService {
    * @return Danh sách tên tiêu đề phù hợp với từ khóa, tối đa 5 tên, danh sách rỗng nếu có lỗi.
    */
   public List<String> searchTitlesByKeyword(String keyword) {
-    try {
-      List<ReadBookEntity> readBooks = readBookService.getReadBooksByUser();
-      List<BorrowedBookEntity> borrowedBooks = borrowedBookService.getAllBorrowedBooksByUser();
-
-      // Kết hợp tất cả các sách đã đọc và đã mượn vào một danh sách chung
-      List<BookEntity> allBooks = new ArrayList<>();
-      for (ReadBookEntity readBook : readBooks) {
-        BookEntity book = bookService.getBookById(readBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-      for (BorrowedBookEntity borrowedBook : borrowedBooks) {
-        BookEntity book = bookService.getBookById(borrowedBook.getBookId());
-        if (book != null) {
-          allBooks.add(book);
-        }
-      }
-
-      // Chuyển từ khóa tìm kiếm thành chữ thường
-      String normalizedKeyword = keyword.toLowerCase();
-
-      // Khởi tạo một ExecutorService để xử lý song song các tác vụ tìm kiếm
-      ExecutorService executor = Executors.newFixedThreadPool(4);
-      List<Callable<List<String>>> tasks = new ArrayList<>();
-
-      // Chia các cuốn sách thành các phần nhỏ để xử lý song song
-      int partitionSize = allBooks.size() / 4 + 1;
-
-      // Phân chia các cuốn sách thành các phần nhỏ và thêm vào danh sách tác vụ
-      for (int i = 0; i < allBooks.size(); i += partitionSize) {
-        final List<BookEntity> sublist =
-            allBooks.subList(i, Math.min(i + partitionSize, allBooks.size()));
-        tasks.add(
-            () ->
-                sublist.stream()
-                    .map(
-                        BookEntity::getTitle)
-                    .filter(Objects::nonNull)
-                    .filter(
-                        publisher ->
-                            publisher
-                                .toLowerCase()
-                                .contains(
-                                    normalizedKeyword))
-                    .distinct()
-                    .collect(Collectors.toList()));
-      }
-
-      // Thực thi các tác vụ song song
-      List<Future<List<String>>> futures = executor.invokeAll(tasks);
-      Set<String> resultSet = new TreeSet<>();
-      for (Future<List<String>> future : futures) {
-        resultSet.addAll(future.get());
-      }
-
-      // Đóng ExecutorService
-      executor.shutdown();
-
-      // Tạo danh sách kết quả cuối cùng
-      List<String> result = new ArrayList<>(resultSet);
-
-      // Đưa các nhà xuất bản có trong sách đã đọc và sách đã mượn lên đầu
-      List<String> prioritizedCategorys = new ArrayList<>();
-      for (BookEntity book : allBooks) {
-        if (book != null && result.contains(book.getCategory())) {
-          prioritizedCategorys.add(book.getCategory());
-          result.remove(book.getCategory());
-        }
-      }
-
-      // Kết hợp danh sách ưu tiên và danh sách còn lại
-      prioritizedCategorys.addAll(result.stream().sorted().toList());
-
-      // Ghi log tìm kiếm thành công
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Tìm kiếm nhà xuất bản thành công với từ khóa: " + keyword));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
+    return searchField(BookField.TITLE, keyword, "tiêu đề");
+  }
 
-      // Trả về danh sách 5 nhà xuất bản đầu tiên sau khi sắp xếp
-      return prioritizedCategorys.stream().limit(5).collect(Collectors.toList());
-    } catch (InterruptedException | ExecutionException e) {
-      // Xử lý ngoại lệ khi thực thi tác vụ song song
+  /**
+   * Tìm kiếm đồng thời trên nhiều trường, trả về các giá trị đã xếp hạng kèm số sách của mỗi giá
+   * trị. Các giá trị có trong sách người dùng đã đọc hoặc đã mượn được ưu tiên.
+   *
+   * @param fields Các trường cần tìm.
+   * @param keyword Từ khóa tìm kiếm.
+   * @param limit Số giá trị tối đa mỗi trường.
+   * @return Kết quả theo từng trường, hoặc null nếu có lỗi.
+   */
+  public SearchResult searchFacets(Set<BookField> fields, String keyword, int limit) {
+    try {
+      if (keyword == null) {
+        throw new IllegalArgumentException("Từ khóa không được để trống");
+      }
+      return searchEngine.search(EnumSet.copyOf(fields), keyword, currentUserName(), limit);
+    } catch (SQLException e) {
+      System.out.println("Lỗi cơ sở dữ liệu: " + e.getMessage());
+      writeLog("Lỗi khi tìm kiếm: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       System.out.println("Lỗi: " + e.getMessage());
-      try {
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Lỗi khi tìm kiếm nhà xuất bản: " + e.getMessage()));
-      } catch (SQLException logException) {
-        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
-      }
-      return Collections.emptyList();
+    } catch (IllegalStateException e) {
+      // Lỗi không mong đợi khi so khớp trên executor CPU
+      System.out.println("Lỗi khi tìm kiếm: " + e.getMessage());
+      writeLog("Lỗi khi tìm kiếm: " + e.getMessage());
     } catch (IllegalArgumentException e) {
-      // Xử lý ngoại lệ liên quan đến đầu vào không hợp lệ
       System.out.println("Lỗi: " + e.getMessage());
+    }
+    return null;
+  }
+
+  /**
+   * Tìm kiếm trên một trường và ghi log kết quả.
+   *
+   * @param field Trường cần tìm.
+   * @param keyword Từ khóa tìm kiếm.
+   * @param label Tên trường dùng trong log.
+   * @return Danh sách giá trị phù hợp, tối đa 5 giá trị, danh sách rỗng nếu lỗi.
+   */
+  private List<String> searchField(BookField field, String keyword, String label) {
+    SearchResult result = searchFacets(EnumSet.of(field), keyword, DEFAULT_LIMIT);
+    if (result == null) {
+      writeLog("Lỗi khi tìm kiếm " + label + " với từ khóa: " + keyword);
       return Collections.emptyList();
     }
+    writeLog("Tìm kiếm " + label + " thành công với từ khóa: " + keyword);
+    return result.values(field);
+  }
+
+  private String currentUserName() {
+    UserEntity user = userService.getLoginUser();
+    return user == null ? null : user.getUserName();
+  }
+
+  private void writeLog(String message) {
+    try {
+      logDao.addLog(new LogEntity(LocalDateTime.now(), currentUserName(), message));
+    } catch (SQLException logException) {
+      System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+    }
   }
 }
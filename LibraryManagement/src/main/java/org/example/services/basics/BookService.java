@@ -1,25 +1,52 @@
 package org.example.services.basics;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.example.daos.implementations.BookDaoImpl;
-import org.example.daos.implementations.LogDaoImpl;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.interfaces.BookDao;
 import org.example.daos.interfaces.LogDao;
 import org.example.models.BookEntity;
+import org.example.models.BookField;
 import org.example.models.LogEntity;
 import org.example.models.UserEntity.Roles;
 import org.example.services.advanced.APIInterface;
+import org.example.services.advanced.BookCache;
 import org.example.services.advanced.BooksAPIAdapter;
+import org.example.services.advanced.CatalogIndex;
+import org.example.utils.BatchLoader;
+import org.example.utils.CancellationToken;
+import org.example.utils.CsvUtils;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
+import org.example.utils.FullTextQuery;
+import org.example.utils.Page;
+import org.example.utils.PageToken;
 
 /**
  * Lớp BookService chịu trách nhiệm quản lý các chức năng liên quan đến sách. Các chức năng bao gồm
@@ -35,9 +62,31 @@ public class BookService {
 
   private final LogDao logDao;
 
-  // ExecutorService để quản lý các luồng xử lý đồng thời
+  // Executor dùng chung cho các truy vấn cơ sở dữ liệu, do ExecutorRegistry quản lý
   private final ExecutorService executorService;
 
+  // Số kết quả tối đa của một lần tìm kiếm toàn văn
+  private static final int FULL_TEXT_LIMIT = 200;
+
+  /** Cách tìm kiếm sách theo từ khóa. */
+  public enum SearchMode {
+    /** Tìm trong chỉ mục n-gram nằm trong bộ nhớ, không truy vấn cơ sở dữ liệu. */
+    INDEX,
+    /** So khớp chuỗi con bằng LIKE '%từ khóa%' (quét toàn bảng). */
+    LIKE,
+    /** Dùng chỉ mục FULLTEXT, kết quả xếp theo độ liên quan. */
+    FULL_TEXT
+  }
+
+  // Chế độ tìm kiếm hiện tại, mặc định lấy từ system property library.search.mode
+  private volatile SearchMode searchMode = defaultSearchMode();
+
+  // Chỉ mục tìm kiếm dùng chung, được đồng bộ sau mỗi thao tác ghi sách
+  private final CatalogIndex catalogIndex = CatalogIndex.getInstance();
+
+  // Bộ nhớ đệm sách theo ID và ISBN, được xóa sau mỗi thao tác ghi sách
+  private final BookCache bookCache = BookCache.getInstance();
+
   /**
    * Constructor của lớp BookService.
    * Khởi tạo các đối tượng DAO và dịch vụ cần thiết.
@@ -45,8 +94,139 @@ public class BookService {
   public BookService() {
     this.bookDao = new BookDaoImpl();
     this.userService = UserService.getInstance();
-    this.logDao = new LogDaoImpl();
-    this.executorService = Executors.newFixedThreadPool(4);
+    this.logDao = AsyncLogDao.getInstance();
+    this.executorService = ExecutorRegistry.getInstance().database();
+  }
+
+  /**
+   * Chế độ tìm kiếm mặc định, cấu hình qua system property {@code library.search.mode} ({@code
+   * index}, {@code like} hoặc {@code full_text}). Nếu không đặt hoặc giá trị không hợp lệ thì dùng
+   * chỉ mục trong bộ nhớ.
+   *
+   * @return Chế độ tìm kiếm mặc định.
+   */
+  public static SearchMode defaultSearchMode() {
+    String value = System.getProperty("library.search.mode", "index");
+    try {
+      return SearchMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      System.out.println("Chế độ tìm kiếm không hợp lệ: " + value + ", dùng chỉ mục trong bộ nhớ");
+      return SearchMode.INDEX;
+    }
+  }
+
+  /**
+   * Chọn cách tìm kiếm sách theo từ khóa.
+   *
+   * @param searchMode Chế độ tìm kiếm mới.
+   */
+  public void setSearchMode(SearchMode searchMode) {
+    this.searchMode = searchMode;
+  }
+
+  /**
+   * Lấy chế độ tìm kiếm hiện tại.
+   *
+   * @return Chế độ tìm kiếm.
+   */
+  public SearchMode getSearchMode() {
+    return searchMode;
+  }
+
+  /**
+   * Tìm sách theo một trường theo chế độ tìm kiếm hiện tại. Ở chế độ toàn văn, nếu backend không hỗ
+   * trợ hoặc từ khóa chỉ gồm các từ quá ngắn thì quay về tìm bằng LIKE.
+   *
+   * @param field Trường cần tìm.
+   * @param keyword Từ khóa người dùng nhập.
+   * @return Danh sách sách tìm được.
+   * @throws SQLException Nếu có lỗi khi truy vấn cơ sở dữ liệu.
+   */
+  private List<BookEntity> findBooks(BookField field, String keyword) throws SQLException {
+    if (searchMode == SearchMode.INDEX) {
+      catalogIndex.ensureLoaded();
+      return catalogIndex.search(field, keyword);
+    }
+    if (searchMode == SearchMode.FULL_TEXT && DatabaseConnection.getBackend().supportsFullText()) {
+      String booleanQuery =
+          FullTextQuery.toBooleanQuery(keyword, FullTextQuery.DEFAULT_MIN_TOKEN_LENGTH);
+      if (booleanQuery != null) {
+        return bookDao.searchBooksFullText(field, booleanQuery, FULL_TEXT_LIMIT);
+      }
+    }
+    // Các phương thức LIKE của DAO tự thêm ký tự wildcard
+    switch (field) {
+      case AUTHOR:
+        return bookDao.findBooksByAuthor(keyword);
+      case CATEGORY:
+        return bookDao.findBooksByGenre(keyword);
+      case PUBLISHER:
+        return bookDao.findBooksByPublisher(keyword);
+      default:
+        return bookDao.findBooksByTitle(keyword);
+    }
+  }
+  /**
+   * Xóa một cuốn sách vừa được ghi khỏi bộ nhớ đệm, đọc lại và cập nhật vào chỉ mục tìm kiếm. Nếu
+   * không đọc được thì đánh dấu chỉ mục cần nạp lại để kết quả tìm kiếm không bị sai.
+   *
+   * @param isbn ISBN của sách.
+   */
+  private void reindexBook(String isbn) {
+    bookCache.invalidate(isbn);
+    try {
+      catalogIndex.refresh(isbn);
+    } catch (SQLException e) {
+      System.out.println("Lỗi khi cập nhật chỉ mục tìm kiếm: " + e.getMessage());
+      catalogIndex.invalidate();
+    }
+  }
+
+  /**
+   * Xóa một cuốn sách vừa được ghi khỏi bộ nhớ đệm, đọc lại và cập nhật vào chỉ mục tìm kiếm.
+   *
+   * @param bookId ID của sách.
+   */
+  private void reindexBook(int bookId) {
+    bookCache.invalidate(bookId);
+    try {
+      catalogIndex.refresh(bookId);
+    } catch (SQLException e) {
+      System.out.println("Lỗi khi cập nhật chỉ mục tìm kiếm: " + e.getMessage());
+      catalogIndex.invalidate();
+    }
+  }
+
+  /**
+   * Chạy một truy vấn trên executor cơ sở dữ liệu dùng chung. Lỗi được in ra và ghi log, kết quả
+   * vẫn hoàn thành với lỗi đó để người gọi xử lý.
+   *
+   * @param action Mô tả thao tác, dùng trong log.
+   * @param query Truy vấn cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của truy vấn.
+   */
+  private <T> CompletableFuture<T> supplyAsync(String action, Callable<T> query) {
+    String userName =
+        userService.getLoginUser() == null ? null : userService.getLoginUser().getUserName();
+    CompletableFuture<T> future =
+        ExecutorRegistry.getInstance().supplyAsync(Resource.DATABASE, query);
+    future.whenComplete(
+        (result, error) -> {
+          if (error != null && !(error instanceof CancellationException)) {
+            String message =
+                error instanceof TimeoutException ? "quá thời hạn" : error.getMessage();
+            System.out.println("Lỗi khi " + action + ": " + message);
+            try {
+              logDao.addLog(
+                  new LogEntity(
+                      LocalDateTime.now(), userName, "Lỗi khi " + action + ": " + message));
+            } catch (SQLException logException) {
+              System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+            }
+          }
+        });
+    return future;
   }
 
     /**
@@ -61,7 +241,7 @@ public class BookService {
           System.out.println("ISBN không hợp lệ.");
           return false;
       } else {
-          APIInterface db = new BooksAPIAdapter();
+          APIInterface db = BooksAPIAdapter.getInstance();
           BookEntity toBeAdded = db.getBookEntity(ISBN);
           if (toBeAdded!= null) {
               return addBook(toBeAdded);
@@ -107,6 +287,9 @@ public class BookService {
               () -> {
                 try {
                   boolean result = bookDao.addBook(bookEntity);
+                  if (result) {
+                    reindexBook(bookEntity.getIsbn());
+                  }
                   logDao.addLog(
                       new LogEntity(
                           LocalDateTime.now(),
@@ -190,7 +373,10 @@ public class BookService {
       }
 
       // Tìm sách theo ISBN
-      Future<BookEntity> futureBooks = executorService.submit(() -> getBookByIsbn(isbn));
+      // Truy vấn trực tiếp trong tác vụ: getBookByIsbn lại gửi một tác vụ vào cùng executor và chờ
+      // nó, giữ chỗ của tác vụ ngoài trong lúc chờ
+      Future<BookEntity> futureBooks =
+          executorService.submit(() -> bookCache.getByIsbn(isbn, bookDao::findBookByIsbn));
       BookEntity bookEntity = futureBooks.get();
 
       if (bookEntity == null) {
@@ -209,6 +395,9 @@ public class BookService {
                 try {
                   boolean result = bookDao.deleteBookByIsbn(isbn);
                   if (result) {
+                    bookCache.invalidate(isbn);
+                    bookCache.invalidate(bookEntity.getId());
+                    catalogIndex.remove(bookEntity.getId());
                     logDao.addLog(
                         new LogEntity(
                             LocalDateTime.now(),
@@ -305,6 +494,8 @@ public class BookService {
                 try {
                   boolean result = bookDao.deleteBookById(bookId);
                   if (result) {
+                    bookCache.invalidate(bookId);
+                    catalogIndex.remove(bookId);
                     logDao.addLog(
                         new LogEntity(
                             LocalDateTime.now(),
@@ -415,6 +606,9 @@ public class BookService {
                 try {
                   boolean result = bookDao.updateBook(book);
                   if (result) {
+                    // ISBN có thể đã đổi nên xóa cả theo ID
+                    bookCache.invalidate(book.getId());
+                    reindexBook(book.getIsbn());
                     logDao.addLog(
                         new LogEntity(
                             LocalDateTime.now(),
@@ -515,6 +709,7 @@ public class BookService {
 
       // Cập nhật số lượng sách
       boolean updateQuantityResult = bookDao.updateBookQuantity(isbn, newQuantity);
+      bookCache.invalidate(isbn);
 
       if (updateQuantityResult) {
         // Lấy ID của sách dựa trên ISBN
@@ -523,6 +718,7 @@ public class BookService {
         // Cập nhật trạng thái sách
         boolean available = newQuantity > 0;
         boolean updateAvailabilityResult = bookDao.updateBookAvailability(bookId, available);
+        reindexBook(bookId);
         if (updateAvailabilityResult) {
           logDao.addLog(
               new LogEntity(
@@ -600,7 +796,11 @@ public class BookService {
       // Cập nhật trạng thái sách
       Future<Boolean> future =
           executorService.submit(() -> bookDao.updateBookAvailability(bookId, available));
-      return future.get();
+      boolean result = future.get();
+      if (result) {
+        reindexBook(bookId);
+      }
+      return result;
     } catch (InterruptedException | ExecutionException e) {
       return false;
     }
@@ -615,7 +815,8 @@ public class BookService {
   public BookEntity getBookById(int bookId) {
     try {
       // Tìm sách theo ID
-      Future<BookEntity> future = executorService.submit(() -> bookDao.findBookById(bookId));
+      Future<BookEntity> future =
+          executorService.submit(() -> bookCache.getById(bookId, bookDao::findBookById));
       try {
         logDao.addLog(
             new LogEntity(
@@ -651,6 +852,54 @@ public class BookService {
     return null;
   }
 
+  /**
+   * Tìm một cuốn sách theo ID mà không chặn luồng gọi. Hủy kết quả sẽ hủy truy vấn đang chạy.
+   *
+   * @param bookId ID của cuốn sách cần tìm.
+   * @return Cuốn sách, hoặc null nếu không có; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá
+   *     hạn.
+   */
+  public CompletableFuture<BookEntity> getBookByIdAsync(int bookId) {
+    return supplyAsync("tìm sách", () -> bookCache.getById(bookId, bookDao::findBookById));
+  }
+
+  /**
+   * Tìm nhiều cuốn sách theo ID. Sách chưa có trong bộ nhớ đệm được đọc bằng truy vấn theo lô
+   * thay vì từng cuốn một.
+   *
+   * @param bookIds ID của các cuốn sách cần tìm.
+   * @return Bảng ánh xạ từ ID tới sách (ID không tồn tại bị bỏ qua), hoặc bảng rỗng nếu có lỗi.
+   */
+  public Map<Integer, BookEntity> getBooksByIds(Collection<Integer> bookIds) {
+    try {
+      return bookCache.getAllById(bookIds, bookDao::findBooksByIds);
+    } catch (SQLException e) {
+      System.out.println("Lỗi khi tìm sách theo lô: " + e.getMessage());
+      try {
+        logDao.addLog(
+            new LogEntity(
+                LocalDateTime.now(),
+                userService.getLoginUser() == null
+                    ? null
+                    : userService.getLoginUser().getUserName(),
+                "Lỗi khi tìm sách theo lô: " + e.getMessage()));
+      } catch (SQLException logException) {
+        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+      }
+      return Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Tạo bộ gom đọc sách theo ID cho một thao tác: các lần đọc từng cuốn trong thao tác được gộp
+   * thành một truy vấn theo lô, sách đã có trong bộ nhớ đệm không phải đọc lại.
+   *
+   * @return Bộ gom mới, chỉ dùng trong một thao tác.
+   */
+  public BatchLoader<Integer, BookEntity> newBookLoader() {
+    return new BatchLoader<>(bookIds -> bookCache.getAllById(bookIds, bookDao::findBooksByIds));
+  }
+
   /**
    * Tìm một cuốn sách theo ISBN.
    *
@@ -660,7 +909,8 @@ public class BookService {
   public BookEntity getBookByIsbn(String isbn) {
     try {
       // Tìm sách theo ISBN
-      Future<BookEntity> futureBooks = executorService.submit(() -> bookDao.findBookByIsbn(isbn));
+      Future<BookEntity> futureBooks =
+          executorService.submit(() -> bookCache.getByIsbn(isbn, bookDao::findBookByIsbn));
       try {
         logDao.addLog(
             new LogEntity(
@@ -696,6 +946,17 @@ public class BookService {
     return null;
   }
 
+  /**
+   * Tìm một cuốn sách theo ISBN mà không chặn luồng gọi.
+   *
+   * @param isbn ISBN của cuốn sách cần tìm.
+   * @return Cuốn sách, hoặc null nếu không có; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá
+   *     hạn.
+   */
+  public CompletableFuture<BookEntity> getBookByIsbnAsync(String isbn) {
+    return supplyAsync("tìm sách", () -> bookCache.getByIsbn(isbn, bookDao::findBookByIsbn));
+  }
+
   /**
    * Tìm sách theo tên.
    *
@@ -706,7 +967,8 @@ public class BookService {
     try {
       // Tìm sách theo tiêu đề
       Future<List<BookEntity>> futureBooks =
-          executorService.submit(() -> bookDao.findBooksByTitle(title));
+          executorService.submit(
+              CancellationToken.propagate(() -> findBooks(BookField.TITLE, title)));
       List<BookEntity> bookEntities = futureBooks.get(); // Chờ kết quả
       if (bookEntities != null) {
         try {
@@ -746,6 +1008,16 @@ public class BookService {
     return Collections.emptyList();
   }
 
+  /**
+   * Tìm sách theo tiêu đề mà không chặn luồng gọi.
+   *
+   * @param title Tiêu đề của cuốn sách cần tìm.
+   * @return Danh sách sách tìm được; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByTitleAsync(String title) {
+    return supplyAsync("tìm sách", () -> new ArrayList<>(findBooks(BookField.TITLE, title)));
+  }
+
   /**
    * Tìm sách theo tên tác giả.
    *
@@ -759,12 +1031,10 @@ public class BookService {
         throw new IllegalStateException("Bạn cần đăng nhập trước khi tìm sách.");
       }
 
-      // Thêm ký tự wildcard cho tên tác giả
-      String searchAuthorName = "%" + authorName + "%";
-
       // Tìm sách theo tác giả
       Future<List<BookEntity>> futureBooks =
-          executorService.submit(() -> bookDao.findBooksByAuthor(searchAuthorName));
+          executorService.submit(
+              CancellationToken.propagate(() -> findBooks(BookField.AUTHOR, authorName)));
       List<BookEntity> bookEntities = futureBooks.get(); // Chờ kết quả
 
       if (bookEntities != null && !bookEntities.isEmpty()) {
@@ -805,6 +1075,16 @@ public class BookService {
     return Collections.emptyList();
   }
 
+  /**
+   * Tìm sách theo tên tác giả mà không chặn luồng gọi.
+   *
+   * @param authorName Tên tác giả của sách cần tìm.
+   * @return Danh sách sách tìm được; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByAuthorAsync(String authorName) {
+    return supplyAsync("tìm sách", () -> new ArrayList<>(findBooks(BookField.AUTHOR, authorName)));
+  }
+
   /**
    * Tìm sách theo thể loại.
    *
@@ -818,12 +1098,10 @@ public class BookService {
         throw new IllegalStateException("Bạn cần đăng nhập trước khi tìm sách.");
       }
 
-      // Thêm ký tự wildcard cho thể loại
-      String searchGenre = "%" + genre + "%";
-
       // Tìm sách theo thể loại
       Future<List<BookEntity>> futureBooks =
-          executorService.submit(() -> bookDao.findBooksByGenre(searchGenre));
+          executorService.submit(
+              CancellationToken.propagate(() -> findBooks(BookField.CATEGORY, genre)));
       List<BookEntity> bookEntities = futureBooks.get(); // Chờ kết quả
 
       if (bookEntities != null && !bookEntities.isEmpty()) {
@@ -864,6 +1142,16 @@ public class BookService {
     return Collections.emptyList();
   }
 
+  /**
+   * Tìm sách theo thể loại mà không chặn luồng gọi.
+   *
+   * @param genre Thể loại của sách cần tìm.
+   * @return Danh sách sách tìm được; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByGenreAsync(String genre) {
+    return supplyAsync("tìm sách", () -> new ArrayList<>(findBooks(BookField.CATEGORY, genre)));
+  }
+
   /**
    * Tìm sách theo tên nhà xuất bản.
    *
@@ -872,12 +1160,10 @@ public class BookService {
    */
   public List<BookEntity> getBooksByPublisher(String publisherName) {
     try {
-      // Thêm ký tự wildcard cho tên nhà xuất bản
-      String searchPublisherName = "%" + publisherName + "%";
-
       // Tìm sách theo nhà xuất bản
       Future<List<BookEntity>> futureBooks =
-          executorService.submit(() -> bookDao.findBooksByPublisher(searchPublisherName));
+          executorService.submit(
+              CancellationToken.propagate(() -> findBooks(BookField.PUBLISHER, publisherName)));
       List<BookEntity> bookEntities = futureBooks.get(); // Chờ kết quả
 
       if (bookEntities != null && !bookEntities.isEmpty()) {
@@ -918,6 +1204,69 @@ public class BookService {
     return Collections.emptyList();
   }
 
+  /**
+   * Tìm sách theo nhà xuất bản mà không chặn luồng gọi.
+   *
+   * @param publisherName Tên nhà xuất bản của sách cần tìm.
+   * @return Danh sách sách tìm được; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<BookEntity>> getBooksByPublisherAsync(String publisherName) {
+    return supplyAsync(
+        "tìm sách", () -> new ArrayList<>(findBooks(BookField.PUBLISHER, publisherName)));
+  }
+
+  /**
+   * Tìm sách theo một trường ngay trên luồng gọi, dành cho người gọi đã chạy ở luồng nền và tự hủy
+   * truy vấn (ví dụ {@code AsyncQueryPipeline} của giao diện). Khác với {@code getBooksBy*}, lỗi
+   * được ném ra thay vì trả về danh sách rỗng; truy vấn bị hủy qua {@link CancellationToken} thì
+   * không bị ghi log như một lỗi.
+   *
+   * @param field Trường cần tìm.
+   * @param keyword Từ khóa người dùng nhập.
+   * @return Danh sách sách tìm được.
+   * @throws SQLException Nếu có lỗi khi truy vấn cơ sở dữ liệu.
+   */
+  public List<BookEntity> searchBooks(BookField field, String keyword) throws SQLException {
+    String userName =
+        userService.getLoginUser() == null ? null : userService.getLoginUser().getUserName();
+    List<BookEntity> books;
+    try {
+      books = new ArrayList<>(findBooks(field, keyword));
+    } catch (SQLException e) {
+      CancellationToken token = CancellationToken.current();
+      if (token == null || !token.isCancelled()) {
+        System.out.println("Lỗi: " + e.getMessage());
+        addSearchLog(userName, "Lỗi khi tìm sách: " + e.getMessage());
+      }
+      throw e;
+    }
+    addSearchLog(userName, (books.isEmpty() ? "Không tìm thấy sách " : "Tìm thấy sách ")
+        + searchLabel(field) + ": " + keyword);
+    return books;
+  }
+
+  // Cách gọi trường trong log, giống các phương thức getBooksBy*
+  private static String searchLabel(BookField field) {
+    switch (field) {
+      case AUTHOR:
+        return "của tác giả";
+      case CATEGORY:
+        return "với thể loại";
+      case PUBLISHER:
+        return "của nhà xuất bản";
+      default:
+        return "với tiêu đề";
+    }
+  }
+
+  private void addSearchLog(String userName, String message) {
+    try {
+      logDao.addLog(new LogEntity(LocalDateTime.now(), userName, message));
+    } catch (SQLException logException) {
+      System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+    }
+  }
+
   /**
    * Lấy tất cả các cuốn sách.
    *
@@ -966,6 +1315,15 @@ public class BookService {
     return Collections.emptyList();
   }
 
+  /**
+   * Lấy tất cả các cuốn sách mà không chặn luồng gọi.
+   *
+   * @return Danh sách tất cả các cuốn sách; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<BookEntity>> getAllBooksAsync() {
+    return supplyAsync("lấy sách", () -> new ArrayList<>(bookDao.findAllBooks()));
+  }
+
   /**
    * Kiểm tra xem sách có tồn tại trong cơ sở dữ liệu không.
    *
@@ -980,4 +1338,130 @@ public class BookService {
       return false;
     }
   }
+
+  /**
+   * Duyệt lần lượt toàn bộ sách trong cơ sở dữ liệu mà không nạp cả bảng vào bộ nhớ.
+   *
+   * @param action Hành động thực hiện với từng cuốn sách.
+   * @return Số sách đã duyệt, hoặc -1 nếu có lỗi.
+   */
+  public long forEachBook(Consumer<BookEntity> action) {
+    try (Stream<BookEntity> books = bookDao.streamAllBooks()) {
+      long[] count = {0};
+      books.forEach(
+          book -> {
+            action.accept(book);
+            count[0]++;
+          });
+      return count[0];
+    } catch (SQLException | IllegalStateException e) {
+      System.out.println("Lỗi khi duyệt danh sách sách: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  /**
+   * Xuất toàn bộ danh mục sách ra file CSV, đọc và ghi lần lượt từng cuốn. Nếu xuất thất bại
+   * giữa chừng thì file dở dang bị xóa.
+   *
+   * @param file Đường dẫn file CSV cần ghi.
+   * @return Số sách đã xuất, hoặc -1 nếu có lỗi.
+   */
+  public long exportBooksToCsv(Path file) {
+    Future<Long> futureCount = null;
+    try {
+      if (userService.getLoginUser().getRole() == Roles.USER) {
+        throw new SecurityException("Bạn không có quyền xuất danh mục sách");
+      }
+
+      // Ghi danh mục ra file bằng luồng riêng
+      futureCount =
+          executorService.submit(
+              () -> {
+                try (BufferedWriter writer =
+                    Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                  writer.write(CsvUtils.toLine(List.of("isbn", "title", "authorName",
+                      "publisherName", "publishedDate", "category", "quantity")));
+                  writer.newLine();
+                  long count = forEachBook(book -> {
+                    try {
+                      writer.write(CsvUtils.toLine(Arrays.asList(book.getIsbn(), book.getTitle(),
+                          book.getAuthorName(), book.getPublisherName(), book.getPublishedDate(),
+                          book.getCategory(), book.getQuantity())));
+                      writer.newLine();
+                    } catch (IOException e) {
+                      throw new UncheckedIOException(e);
+                    }
+                  });
+                  return count;
+                }
+              });
+      long count = futureCount.get();
+      if (count < 0) {
+        // forEachBook đã in lỗi đọc danh mục
+        abortExport(file, "không đọc được danh mục sách");
+        return -1;
+      }
+      try {
+        logDao.addLog(
+            new LogEntity(
+                LocalDateTime.now(),
+                userService.getLoginUser().getUserName(),
+                "Xuất " + count + " sách ra file " + file.getFileName()));
+      } catch (SQLException logException) {
+        System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+      }
+      return count;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futureCount.cancel(true);
+      System.out.println("Lỗi khi xuất danh mục sách: " + e.getMessage());
+      abortExport(file, "bị ngắt");
+      return -1;
+    } catch (ExecutionException e) {
+      System.out.println("Lỗi khi xuất danh mục sách: " + e.getMessage());
+      abortExport(file, e.getCause().getMessage());
+      return -1;
+    } catch (IllegalStateException | SecurityException e) {
+      System.out.println("Lỗi: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  // Xóa file xuất dở dang và ghi log lỗi thay cho log xuất thành công
+  private void abortExport(Path file, String reason) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      System.out.println("Lỗi khi xóa file xuất dở dang: " + e.getMessage());
+    }
+    try {
+      logDao.addLog(
+          new LogEntity(
+              LocalDateTime.now(),
+              userService.getLoginUser().getUserName(),
+              "Lỗi khi xuất sách ra file " + file.getFileName() + ": " + reason));
+    } catch (SQLException logException) {
+      System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+    }
+  }
+
+  /**
+   * Lấy một trang sách theo thứ tự BookID (phân trang theo khóa).
+   *
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số sách tối đa mỗi trang.
+   * @return Trang sách kèm token của trang tiếp theo, hoặc trang rỗng nếu có lỗi.
+   */
+  public Page<BookEntity> getBooksPage(String pageToken, int pageSize) {
+    try {
+      int size = PageToken.checkPageSize(pageSize);
+      int afterId = (int) PageToken.decode(pageToken, "books", 0);
+      List<BookEntity> rows = bookDao.findBooksAfterId(afterId, size + 1);
+      return PageToken.toPage(rows, size, "books", BookEntity::getId);
+    } catch (SQLException | IllegalArgumentException e) {
+      System.out.println("Lỗi khi lấy trang sách: " + e.getMessage());
+      return Page.empty();
+    }
+  }
 }
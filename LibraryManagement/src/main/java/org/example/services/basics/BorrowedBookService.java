@@ -4,22 +4,26 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import org.example.daos.implementations.BookDaoImpl;
 import org.example.daos.implementations.BorrowedBookDaoImpl;
-import org.example.daos.implementations.LogDaoImpl;
-import org.example.daos.interfaces.BookDao;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.interfaces.BorrowedBookDao;
 import org.example.daos.interfaces.LogDao;
-import org.example.models.BookEntity;
 import org.example.models.BorrowedBookEntity;
+import org.example.models.BorrowedBookRow;
+import org.example.models.CirculationStatus;
 import org.example.models.LogEntity;
 import org.example.models.UserEntity.Roles;
+import org.example.services.advanced.CirculationEngine;
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
 
 /**
  * Lớp BorrowedbookDao chịu trách nhiệm quản lý các thao tác liên quan đến sách đã mượn, bao gồm
@@ -34,13 +38,13 @@ public class BorrowedBookService {
   // Dịch vụ quản lý người dùng, được sử dụng để xác thực người dùng hiện tại
   private final UserService userService;
 
-  // Dịch vụ quản lý sách, được sử dụng để kiểm tra tình trạng sách
-  private final BookDao bookDao;
+  // Thực hiện mượn và trả sách trong một giao dịch
+  private final CirculationEngine circulationEngine;
 
   // Dịch vụ ghi log, lưu lại các hoạt động liên quan đến sách đã mượn
   private final LogDao logDao;
 
-  // ExecutorService để quản lý các luồng xử lý đồng thời
+  // Executor dùng chung cho các truy vấn cơ sở dữ liệu, do ExecutorRegistry quản lý
   private final ExecutorService executorService;
 
   /**
@@ -50,16 +54,18 @@ public class BorrowedBookService {
   public BorrowedBookService() {
     this.borrowedBookDao = new BorrowedBookDaoImpl();
     this.userService = UserService.getInstance();
-    this.bookDao = new BookDaoImpl();
-    this.logDao = new LogDaoImpl();
-    this.executorService = Executors.newFixedThreadPool(4);
+    this.circulationEngine = CirculationEngine.getInstance();
+    this.logDao = AsyncLogDao.getInstance();
+    this.executorService = ExecutorRegistry.getInstance().database();
   }
 
   /**
-   * Mượn một cuốn sách và cập nhật trạng thái của sách.
+   * Mượn một cuốn sách. Việc kiểm tra sách quá hạn, ghi nhận lượt mượn và giảm số lượng sách được
+   * thực hiện trong một giao dịch của {@link CirculationEngine}.
    *
    * @param bookId ID của sách cần mượn.
    * @param borrowDate Ngày mượn sách.
+   * @param returnDate Hạn trả sách.
    * @return True nếu mượn sách thành công, ngược lại False.
    */
   public boolean borrowBook(int bookId, LocalDate borrowDate, LocalDate returnDate) {
@@ -69,80 +75,58 @@ public class BorrowedBookService {
         throw new IllegalStateException("Bạn cần đăng nhập trước khi mượn sách");
       }
 
-      // Kiểm tra xem người dùng có sách quá hạn không
-      Future<List<BorrowedBookEntity>> futureOverdueBooks =
-          executorService.submit(
-              () ->
-                  borrowedBookDao.findOverdueBooksByUser(
-                      userService.getLoginUser().getUserName(), LocalDate.now()));
-      List<BorrowedBookEntity> overdueBooks =
-          futureOverdueBooks.get(5, TimeUnit.SECONDS);
-
-      if (!overdueBooks.isEmpty()) {
-        throw new IllegalStateException(
+      String userName = userService.getLoginUser().getUserName();
+      CirculationStatus status =
+          circulationEngine.checkout(bookId, userName, borrowDate, returnDate);
+      switch (status) {
+        case OVERDUE -> throw new IllegalStateException(
             "Bạn có sách quá hạn. Vui lòng trả sách trước khi mượn sách mới.");
+        case NOT_AVAILABLE -> throw new IllegalStateException("Không có sách này để mượn.");
+        default -> { }
       }
-
-      // Kiểm tra xem sách còn bản sao không
-      Future<BookEntity> futureBook = executorService.submit(() -> bookDao.findBookById(bookId));
-      BookEntity book = futureBook.get(5, TimeUnit.SECONDS);
-
-      if (book == null || !book.isAvailable()) {
-        throw new IllegalStateException("Không có sách này để mượn.");
+      logDao.addLog(
+          new LogEntity(LocalDateTime.now(), userName, "Mượn sách ID: " + bookId + " thành công"));
+      return true;
+    } catch (InterruptedException | IllegalStateException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
       }
-
-      // Lấy số lượng sách đã mượn mà chưa trả
-      int borrowedCount = borrowedBookDao.findBorrowedBooksCountByIsbn(book.getIsbn());
-
-      // Ghi nhận mượn sách
-      Future<Boolean> futureBorrow =
-          executorService.submit(
-              () ->
-                  borrowedBookDao.borrowBook(
-                      bookId, userService.getLoginUser().getUserName(), borrowDate, returnDate));
-      boolean result = futureBorrow.get(5, TimeUnit.SECONDS);
-
-      if (result) {
-        // Cập nhật trạng thái sách nếu chỉ còn 1 quyển
-        if (book.getQuantity() - borrowedCount == 1) {
-          Future<Boolean> futureUpdate =
-              executorService.submit(() -> bookDao.updateBookAvailability(bookId, false));
-          if (!futureUpdate.get(5, TimeUnit.SECONDS)) {
-            throw new IllegalStateException("Không thể cập nhật trạng thái sách.");
-          }
-        }
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Mượn sách ID: " + bookId + " thành công"));
-      } else {
-        throw new IllegalStateException("Không thể ghi nhận mượn sách.");
-      }
-      return result;
-    } catch (InterruptedException
-             | ExecutionException
-             | IllegalStateException
-             | TimeoutException e) {
       System.out.println("Lỗi: " + e.getMessage());
       try {
         logDao.addLog(
             new LogEntity(
                 LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
+                userService.getLoginUser() == null
+                    ? null
+                    : userService.getLoginUser().getUserName(),
                 "Lỗi: " + e.getMessage()));
       } catch (SQLException logException) {
         System.out.println("Lỗi khi ghi log: " + logException.getMessage());
       }
       return false;
-    } catch (SQLException logException) {
-      System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+    } catch (SQLException e) {
+      System.out.println("Lỗi cơ sở dữ liệu: " + e.getMessage());
       return false;
     }
   }
 
   /**
-   * Trả một cuốn sách và cập nhật trạng thái của sách.
+   * Mượn một cuốn sách mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách cần mượn.
+   * @param borrowDate Ngày mượn sách.
+   * @param returnDate Hạn trả sách.
+   * @return True nếu mượn sách thành công, ngược lại False.
+   * @see #borrowBook(int, LocalDate, LocalDate)
+   */
+  public CompletableFuture<Boolean> borrowBookAsync(
+      int bookId, LocalDate borrowDate, LocalDate returnDate) {
+    return supplyAsync("mượn sách", () -> borrowBook(bookId, borrowDate, returnDate));
+  }
+
+  /**
+   * Trả một cuốn sách. Việc đánh dấu lượt mượn đã trả và tăng số lượng sách được thực hiện trong
+   * một giao dịch của {@link CirculationEngine}.
    *
    * @param bookId ID của sách cần trả.
    * @return True nếu trả sách thành công, ngược lại False.
@@ -159,31 +143,18 @@ public class BorrowedBookService {
         throw new SecurityException("Bạn không có quyền");
       }
       // Ghi nhận trả sách
-      Future<Boolean> futureReturn =
-          executorService.submit(
-              () -> borrowedBookDao.returnBook(bookId, userService.getLoginUser().getUserName()));
-      boolean result = futureReturn.get(5, TimeUnit.SECONDS);
-
-      if (result) {
-        // Cập nhật trạng thái sách luôn là available
-        Future<Boolean> futureUpdate =
-            executorService.submit(() -> bookDao.updateBookAvailability(bookId, true));
-        if (!futureUpdate.get(5, TimeUnit.SECONDS)) {
-          throw new IllegalStateException("Không thể cập nhật trạng thái sách.");
-        }
-        logDao.addLog(
-            new LogEntity(
-                LocalDateTime.now(),
-                userService.getLoginUser().getUserName(),
-                "Trả sách ID: " + bookId + " thành công"));
-      } else {
+      String userName = userService.getLoginUser().getUserName();
+      CirculationStatus status = circulationEngine.checkin(bookId, userName, LocalDate.now());
+      if (status != CirculationStatus.SUCCESS) {
         throw new IllegalStateException("Không thể ghi nhận trả sách.");
       }
-      return result;
-    } catch (InterruptedException
-        | ExecutionException
-        | IllegalStateException
-        | TimeoutException e) {
+      logDao.addLog(
+          new LogEntity(LocalDateTime.now(), userName, "Trả sách ID: " + bookId + " thành công"));
+      return true;
+    } catch (InterruptedException | IllegalStateException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
       System.out.println("Lỗi: " + e.getMessage());
       try {
         logDao.addLog(
@@ -206,12 +177,32 @@ public class BorrowedBookService {
         System.out.println("Lỗi khi ghi log: " + logException.getMessage());
       }
       return false;
-    } catch (SQLException logException) {
-      System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+    } catch (SQLException e) {
+      System.out.println("Lỗi cơ sở dữ liệu: " + e.getMessage());
     }
     return false;
   }
 
+  /**
+   * Trả một cuốn sách mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách cần trả.
+   * @return True nếu trả sách thành công, ngược lại False.
+   * @see #returnBook(int)
+   */
+  public CompletableFuture<Boolean> returnBookAsync(int bookId) {
+    return supplyAsync("trả sách", () -> returnBook(bookId));
+  }
+
+  /**
+   * Lấy các chỉ số của bộ mượn trả (số lượt thành công, tranh chấp, chạy lại).
+   *
+   * @return Ảnh chụp các chỉ số.
+   */
+  public CirculationEngine.Stats getCirculationStats() {
+    return circulationEngine.getStats();
+  }
+
   /**
    * Lấy danh sách các sách chưa trả của người dùng.
    *
@@ -264,6 +255,22 @@ public class BorrowedBookService {
     }
   }
 
+  /**
+   * Lấy danh sách các sách chưa trả của người dùng mà không chặn luồng gọi.
+   *
+   * @return Danh sách sách chưa trả; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc
+   *     quá hạn.
+   */
+  public CompletableFuture<List<BorrowedBookEntity>> getNotReturnedBooksByUserAsync() {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync(
+          "tìm sách chưa trả", () -> borrowedBookDao.findNotReturnedBooksByUser(userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Lấy danh sách các sách đã mượn trong một khoảng thời gian.
    *
@@ -372,6 +379,22 @@ public class BorrowedBookService {
     }
   }
 
+  /**
+   * Lấy số lượng sách đã mượn của người dùng mà không chặn luồng gọi.
+   *
+   * @return Số lượng sách đã mượn; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc
+   *     quá hạn.
+   */
+  public CompletableFuture<Integer> getBorrowedBooksCountByUserAsync() {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync(
+          "đếm sách đã mượn", () -> borrowedBookDao.findBorrowedBooksCountByUser(userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Lấy tất cả các sách đã mượn của người dùng.
    *
@@ -424,4 +447,77 @@ public class BorrowedBookService {
       return null;
     }
   }
+
+  /**
+   * Lấy tất cả sách đã mượn của người dùng mà không chặn luồng gọi.
+   *
+   * @return Danh sách sách đã mượn; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc
+   *     quá hạn.
+   */
+  public CompletableFuture<List<BorrowedBookEntity>> getAllBorrowedBooksByUserAsync() {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync(
+          "tìm sách đã mượn", () -> borrowedBookDao.findAllBorrowedBooksByUser(userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Lấy các dòng hiển thị sách đã mượn của người dùng (kèm tiêu đề, tác giả) bằng một truy vấn,
+   * không chặn luồng gọi.
+   *
+   * @return Các dòng hiển thị; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc quá
+   *     hạn.
+   */
+  public CompletableFuture<List<BorrowedBookRow>> getBorrowedBookRowsByUserAsync() {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync(
+          "tìm sách đã mượn", () -> borrowedBookDao.findBorrowedBookRowsByUser(userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  // Tên người dùng đang đăng nhập, lấy ngay trên luồng gọi trước khi chuyển tác vụ sang luồng khác
+  private String requireLoginUserName() {
+    if (userService.getLoginUser() == null) {
+      throw new IllegalStateException("Bạn cần đăng nhập trước");
+    }
+    return userService.getLoginUser().getUserName();
+  }
+
+  /**
+   * Chạy một truy vấn trên executor cơ sở dữ liệu dùng chung. Lỗi được in ra và ghi log, kết quả
+   * vẫn hoàn thành với lỗi đó để người gọi xử lý.
+   *
+   * @param action Mô tả thao tác, dùng trong log.
+   * @param query Truy vấn cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của truy vấn.
+   */
+  private <T> CompletableFuture<T> supplyAsync(String action, Callable<T> query) {
+    String userName =
+        userService.getLoginUser() == null ? null : userService.getLoginUser().getUserName();
+    CompletableFuture<T> future =
+        ExecutorRegistry.getInstance().supplyAsync(Resource.DATABASE, query);
+    future.whenComplete(
+        (result, error) -> {
+          if (error != null && !(error instanceof CancellationException)) {
+            String message =
+                error instanceof TimeoutException ? "quá thời hạn" : error.getMessage();
+            System.out.println("Lỗi khi " + action + ": " + message);
+            try {
+              logDao.addLog(
+                  new LogEntity(
+                      LocalDateTime.now(), userName, "Lỗi khi " + action + ": " + message));
+            } catch (SQLException logException) {
+              System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+            }
+          }
+        });
+    return future;
+  }
 }
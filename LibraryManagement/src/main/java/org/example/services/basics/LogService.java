@@ -1,18 +1,32 @@
 package org.example.services.basics;
 
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import org.example.daos.implementations.LogDaoImpl;
+import java.util.stream.Stream;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.interfaces.LogDao;
 import org.example.models.LogEntity;
 import org.example.models.UserEntity.Roles;
+import org.example.utils.CsvUtils;
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
+import org.example.utils.Page;
+import org.example.utils.PageToken;
 
 /**
  * Lớp LogService chịu trách nhiệm quản lý các thao tác liên quan đến nhật ký (log). Bao gồm thêm
@@ -26,7 +40,7 @@ public class LogService {
   // Dịch vụ quản lý người dùng, được sử dụng để xác thực người dùng hiện tại
   private final UserService userService;
 
-  // ExecutorService để quản lý các luồng xử lý đồng thời
+  // Executor dùng chung cho các truy vấn cơ sở dữ liệu, do ExecutorRegistry quản lý
   private final ExecutorService executorService;
 
   /**
@@ -34,9 +48,9 @@ public class LogService {
    * Khởi tạo các đối tượng DAO và dịch vụ cần thiết.
    */
   public LogService() {
-    this.logDao = new LogDaoImpl();
+    this.logDao = AsyncLogDao.getInstance();
     this.userService = UserService.getInstance();
-    this.executorService = Executors.newFixedThreadPool(4);
+    this.executorService = ExecutorRegistry.getInstance().database();
   }
 
   /** Lấy tất cả danh sách các log. */
@@ -78,6 +92,20 @@ public class LogService {
     }
   }
 
+  /**
+   * Lấy tất cả danh sách các log mà không chặn luồng gọi. Chỉ quản trị viên và thủ thư được xem.
+   *
+   * @return Danh sách log; hoàn thành với lỗi nếu không có quyền, truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<LogEntity>> getAllLogsAsync() {
+    if (userService.getLoginUser() == null
+        || (userService.getLoginUser().getRole() != Roles.ADMIN
+            && userService.getLoginUser().getRole() != Roles.LIBRARIAN)) {
+      return CompletableFuture.failedFuture(new SecurityException("Bạn không có quyền"));
+    }
+    return supplyAsync("lấy log", logDao::findAllLogs);
+  }
+
   /**
    * lấy thông tin log theo id.
    *
@@ -158,6 +186,16 @@ public class LogService {
     }
   }
 
+  /**
+   * Lấy log theo tên người dùng mà không chặn luồng gọi.
+   *
+   * @param userName tên người dùng lấy log.
+   * @return Danh sách log; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<LogEntity>> getLogsByUserNameAsync(String userName) {
+    return supplyAsync("lấy log", () -> logDao.findLogsByUserName(userName));
+  }
+
   /**
    * Lấy danh sách các log trong 1 khoảng thời gian.
    *
@@ -195,4 +233,113 @@ public class LogService {
       return null;
     }
   }
+
+  /**
+   * Xuất toàn bộ log ra file CSV. Log được đọc lần lượt qua cursor phía máy chủ và ghi thẳng ra
+   * file nên bộ nhớ sử dụng không phụ thuộc vào số lượng log.
+   *
+   * @param file Đường dẫn file CSV cần ghi.
+   * @return Số log đã xuất, hoặc -1 nếu có lỗi.
+   */
+  public long exportLogsToCsv(Path file) {
+    try {
+      Roles role = userService.getLoginUser().getRole();
+      if (role != Roles.ADMIN && role != Roles.LIBRARIAN) {
+        throw new SecurityException("Bạn không có quyền");
+      }
+
+      // Ghi log ra file bằng luồng riêng
+      Future<Long> futureCount =
+          executorService.submit(
+              () -> {
+                long count = 0;
+                try (Stream<LogEntity> logs = logDao.streamAllLogs();
+                    BufferedWriter writer =
+                        Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                  writer.write(CsvUtils.toLine(List.of("timeStamp", "userName", "actionDetails")));
+                  writer.newLine();
+                  Iterator<LogEntity> iterator = logs.iterator();
+                  while (iterator.hasNext()) {
+                    LogEntity log = iterator.next();
+                    writer.write(
+                        CsvUtils.toLine(
+                            Arrays.asList(
+                                log.getTimeStamp(), log.getUserName(), log.getActionDetails())));
+                    writer.newLine();
+                    count++;
+                  }
+                }
+                return count;
+              });
+      return futureCount.get();
+    } catch (InterruptedException | ExecutionException e) {
+      System.out.println("Lỗi trong quá trình xuất log: " + e.getMessage());
+      return -1;
+    } catch (IllegalStateException e) {
+      // Ghi log thất bại khi người dùng chưa đăng nhập
+      System.out.println("Lỗi: " + e.getMessage());
+      return -1;
+    } catch (SecurityException e) {
+      System.out.println("Lỗi: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  /**
+   * Lấy một trang log, log mới nhất trước (phân trang theo khóa LogID).
+   *
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số log tối đa mỗi trang.
+   * @return Trang log kèm token của trang tiếp theo, hoặc trang rỗng nếu có lỗi.
+   */
+  public Page<LogEntity> getLogsPage(String pageToken, int pageSize) {
+    try {
+      Roles role = userService.getLoginUser().getRole();
+      if (role != Roles.ADMIN && role != Roles.LIBRARIAN) {
+        throw new SecurityException("Bạn không có quyền");
+      }
+      int size = PageToken.checkPageSize(pageSize);
+      int beforeId = (int) PageToken.decode(pageToken, "logs", Integer.MAX_VALUE);
+      List<LogEntity> rows = logDao.findLogsBeforeId(beforeId, size + 1);
+      return PageToken.toPage(rows, size, "logs", LogEntity::getId);
+    } catch (SQLException e) {
+      System.out.println("Lỗi cơ sở dữ liệu trong quá trình lấy trang log: " + e.getMessage());
+      return Page.empty();
+    } catch (IllegalStateException | IllegalArgumentException | SecurityException e) {
+      System.out.println("Lỗi: " + e.getMessage());
+      return Page.empty();
+    }
+  }
+
+  /**
+   * Chạy một truy vấn trên executor cơ sở dữ liệu dùng chung. Lỗi được in ra và ghi log, kết quả
+   * vẫn hoàn thành với lỗi đó để người gọi xử lý.
+   *
+   * @param action Mô tả thao tác, dùng trong log.
+   * @param query Truy vấn cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của truy vấn.
+   */
+  private <T> CompletableFuture<T> supplyAsync(String action, Callable<T> query) {
+    String userName =
+        userService.getLoginUser() == null ? null : userService.getLoginUser().getUserName();
+    CompletableFuture<T> future =
+        ExecutorRegistry.getInstance().supplyAsync(Resource.DATABASE, query);
+    future.whenComplete(
+        (result, error) -> {
+          if (error != null && !(error instanceof CancellationException)) {
+            String message =
+                error instanceof TimeoutException ? "quá thời hạn" : error.getMessage();
+            System.out.println("Lỗi khi " + action + ": " + message);
+            try {
+              logDao.addLog(
+                  new LogEntity(
+                      LocalDateTime.now(), userName, "Lỗi khi " + action + ": " + message));
+            } catch (SQLException logException) {
+              System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+            }
+          }
+        });
+    return future;
+  }
 }
@@ -3,16 +3,22 @@ package org.example.services.basics;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import org.example.daos.implementations.LogDaoImpl;
+import java.util.concurrent.TimeoutException;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.implementations.ReadBookDaoImpl;
 import org.example.daos.interfaces.LogDao;
 import org.example.daos.interfaces.ReadBookDao;
 import org.example.models.LogEntity;
 import org.example.models.ReadBookEntity;
+import org.example.models.ReadBookRow;
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
 
 /**
  * Lớp ReadBookService chịu trách nhiệm quản lý các chức năng liên quan đến sách đã đọc, bao gồm
@@ -30,7 +36,7 @@ public class ReadBookService {
   // Dịch vụ ghi log, lưu lại các hoạt động liên quan đến sách đã đọc
   private final LogDao logDao;
 
-  // ExecutorService để quản lý các luồng xử lý đồng thời
+  // Executor dùng chung cho các truy vấn cơ sở dữ liệu, do ExecutorRegistry quản lý
   private final ExecutorService executorService;
 
   /**
@@ -40,8 +46,8 @@ public class ReadBookService {
   public ReadBookService() {
     this.readBookDao = new ReadBookDaoImpl();
     this.userService = UserService.getInstance();
-    this.logDao = new LogDaoImpl();
-    this.executorService = Executors.newFixedThreadPool(4);
+    this.logDao = AsyncLogDao.getInstance();
+    this.executorService = ExecutorRegistry.getInstance().database();
   }
 
   /**
@@ -162,6 +168,37 @@ public class ReadBookService {
     }
   }
 
+  /**
+   * Lấy danh sách sách đã đọc của người dùng mà không chặn luồng gọi.
+   *
+   * @return Danh sách sách đã đọc; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc
+   *     quá hạn.
+   */
+  public CompletableFuture<List<ReadBookEntity>> getReadBooksByUserAsync() {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync("lấy sách đã đọc", () -> readBookDao.findReadBooks(userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Lấy các dòng hiển thị sách đã đọc của người dùng (kèm tiêu đề, tác giả) bằng một truy vấn,
+   * không chặn luồng gọi.
+   *
+   * @return Các dòng hiển thị; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc quá
+   *     hạn.
+   */
+  public CompletableFuture<List<ReadBookRow>> getReadBookRowsByUserAsync() {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync("lấy sách đã đọc", () -> readBookDao.findReadBookRows(userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Kiểm tra xem sách đã được đánh dấu là đã đọc hay chưa.
    *
@@ -225,6 +262,22 @@ public class ReadBookService {
     }
   }
 
+  /**
+   * Kiểm tra người dùng đã đọc một cuốn sách hay chưa mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách cần kiểm tra.
+   * @return True nếu đã đọc; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc quá
+   *     hạn.
+   */
+  public CompletableFuture<Boolean> isBookReadAsync(int bookId) {
+    try {
+      String userName = requireLoginUserName();
+      return supplyAsync("kiểm tra sách đã đọc", () -> readBookDao.isBookRead(bookId, userName));
+    } catch (IllegalStateException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Xóa đánh dấu sách đã đọc.
    *
@@ -290,4 +343,44 @@ public class ReadBookService {
       return false;
     }
   }
+
+  // Tên người dùng đang đăng nhập, lấy ngay trên luồng gọi trước khi chuyển tác vụ sang luồng khác
+  private String requireLoginUserName() {
+    if (userService.getLoginUser() == null) {
+      throw new IllegalStateException("Bạn cần đăng nhập trước");
+    }
+    return userService.getLoginUser().getUserName();
+  }
+
+  /**
+   * Chạy một truy vấn trên executor cơ sở dữ liệu dùng chung. Lỗi được in ra và ghi log, kết quả
+   * vẫn hoàn thành với lỗi đó để người gọi xử lý.
+   *
+   * @param action Mô tả thao tác, dùng trong log.
+   * @param query Truy vấn cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của truy vấn.
+   */
+  private <T> CompletableFuture<T> supplyAsync(String action, Callable<T> query) {
+    String userName =
+        userService.getLoginUser() == null ? null : userService.getLoginUser().getUserName();
+    CompletableFuture<T> future =
+        ExecutorRegistry.getInstance().supplyAsync(Resource.DATABASE, query);
+    future.whenComplete(
+        (result, error) -> {
+          if (error != null && !(error instanceof CancellationException)) {
+            String message =
+                error instanceof TimeoutException ? "quá thời hạn" : error.getMessage();
+            System.out.println("Lỗi khi " + action + ": " + message);
+            try {
+              logDao.addLog(
+                  new LogEntity(
+                      LocalDateTime.now(), userName, "Lỗi khi " + action + ": " + message));
+            } catch (SQLException logException) {
+              System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+            }
+          }
+        });
+    return future;
+  }
 }
@@ -4,14 +4,22 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 import org.example.daos.implementations.BookDaoImpl;
-import org.example.daos.implementations.LogDaoImpl;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.implementations.ReviewDaoImpl;
 import org.example.daos.interfaces.BookDao;
 import org.example.daos.interfaces.LogDao;
 import org.example.daos.interfaces.ReviewDao;
 import org.example.models.LogEntity;
 import org.example.models.ReviewEntity;
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
+import org.example.utils.Page;
+import org.example.utils.PageToken;
 
 /**
  * Lớp ReviewService chịu trách nhiệm quản lý các chức năng liên quan đến nhận xét. Bao gồm thêm,
@@ -36,7 +44,7 @@ public class ReviewService {
   public ReviewService() {
     this.reviewDao = new ReviewDaoImpl();
     this.userService = UserService.getInstance();
-    this.logDao = new LogDaoImpl();
+    this.logDao = AsyncLogDao.getInstance();
     this.bookDao = new BookDaoImpl();
   }
 
@@ -195,6 +203,16 @@ public class ReviewService {
     }
   }
 
+  /**
+   * Lấy danh sách nhận xét của một sách mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách cần lấy nhận xét.
+   * @return Danh sách nhận xét; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<List<ReviewEntity>> getReviewsByBookIdAsync(int bookId) {
+    return supplyAsync("lấy nhận xét", () -> reviewDao.findReviewsByBookId(bookId));
+  }
+
   /**
    * Lấy danh sách nhận xét theo ISBN.
    *
@@ -490,6 +508,16 @@ public class ReviewService {
     }
   }
 
+  /**
+   * Lấy điểm trung bình theo ISBN mà không chặn luồng gọi.
+   *
+   * @param isbn Mã ISBN của sách.
+   * @return Điểm trung bình; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<Double> getAverageRatingByIsbnAsync(String isbn) {
+    return supplyAsync("lấy điểm trung bình", () -> reviewDao.findAverageRatingByIsbn(isbn));
+  }
+
   /**
    * Lấy điểm trung bình theo ID.
    *
@@ -503,4 +531,95 @@ public class ReviewService {
       return null;
     }
   }
+
+  /**
+   * Lấy điểm trung bình theo ID mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách.
+   * @return Điểm trung bình; hoàn thành với lỗi nếu truy vấn thất bại hoặc quá hạn.
+   */
+  public CompletableFuture<Double> getAverageRatingByIdAsync(int bookId) {
+    return supplyAsync("lấy điểm trung bình", () -> reviewDao.findAverageRatingById(bookId));
+  }
+
+  /**
+   * Lấy một trang nhận xét của sách (phân trang theo khóa ReviewID).
+   *
+   * @param bookId ID của sách.
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số nhận xét tối đa mỗi trang.
+   * @return Trang nhận xét kèm token của trang tiếp theo, hoặc trang rỗng nếu có lỗi.
+   */
+  public Page<ReviewEntity> getReviewsPageByBookId(int bookId, String pageToken, int pageSize) {
+    try {
+      return findReviewsPage(bookId, pageToken, pageSize);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Lỗi lấy trang đánh giá theo ID của sách: " + e.getMessage());
+      return Page.empty();
+    } catch (SQLException e) {
+      System.out.println("Lỗi cơ sở dữ liệu khi lấy trang đánh giá: " + e.getMessage());
+      return Page.empty();
+    }
+  }
+
+  /**
+   * Lấy một trang nhận xét của sách mà không chặn luồng gọi.
+   *
+   * @param bookId ID của sách.
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số nhận xét tối đa mỗi trang.
+   * @return Trang nhận xét; hoàn thành với lỗi nếu tham số không hợp lệ, truy vấn thất bại hoặc quá
+   *     hạn.
+   */
+  public CompletableFuture<Page<ReviewEntity>> getReviewsPageByBookIdAsync(
+      int bookId, String pageToken, int pageSize) {
+    return supplyAsync(
+        "lấy trang nhận xét", () -> findReviewsPage(bookId, pageToken, pageSize));
+  }
+
+  // Đọc một trang nhận xét, lấy thừa một dòng để biết còn trang sau hay không
+  private Page<ReviewEntity> findReviewsPage(int bookId, String pageToken, int pageSize)
+      throws SQLException {
+    if (bookId <= 0) {
+      throw new IllegalArgumentException("ID sách không được để trống và phải là số dương");
+    }
+    // Token gắn với từng sách để không thể dùng nhầm token của sách khác
+    String scope = "reviews:" + bookId;
+    int size = PageToken.checkPageSize(pageSize);
+    int afterId = (int) PageToken.decode(pageToken, scope, 0);
+    List<ReviewEntity> rows = reviewDao.findReviewsByBookIdAfterId(bookId, afterId, size + 1);
+    return PageToken.toPage(rows, size, scope, ReviewEntity::getId);
+  }
+
+  /**
+   * Chạy một truy vấn trên executor cơ sở dữ liệu dùng chung. Lỗi được in ra và ghi log, kết quả
+   * vẫn hoàn thành với lỗi đó để người gọi xử lý.
+   *
+   * @param action Mô tả thao tác, dùng trong log.
+   * @param query Truy vấn cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của truy vấn.
+   */
+  private <T> CompletableFuture<T> supplyAsync(String action, Callable<T> query) {
+    String userName =
+        userService.getLoginUser() == null ? null : userService.getLoginUser().getUserName();
+    CompletableFuture<T> future =
+        ExecutorRegistry.getInstance().supplyAsync(Resource.DATABASE, query);
+    future.whenComplete(
+        (result, error) -> {
+          if (error != null && !(error instanceof CancellationException)) {
+            String message =
+                error instanceof TimeoutException ? "quá thời hạn" : error.getMessage();
+            System.out.println("Lỗi khi " + action + ": " + message);
+            try {
+              logDao.addLog(
+                  new LogEntity(
+                      LocalDateTime.now(), userName, "Lỗi khi " + action + ": " + message));
+            } catch (SQLException logException) {
+              System.out.println("Lỗi khi ghi log: " + logException.getMessage());
+            }
+          }
+        });
+    return future;
+  }
 }
@@ -2,24 +2,31 @@ package org.example.services.basics;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.example.daos.implementations.LogDaoImpl;
+import org.example.daos.implementations.AsyncLogDao;
 import org.example.daos.implementations.UserDaoImpl;
+import org.example.daos.interfaces.LogDao;
 import org.example.models.LogEntity;
 import org.example.models.UserEntity;
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
+import org.example.utils.Page;
+import org.example.utils.PageToken;
 
 /** * Lớp UserService quản lý các thao tác liên quan đến người dùng. */
 public class UserService {
   private static UserService instance;
   private final UserDaoImpl userDao;
-  private final LogDaoImpl logDao;
+  private final LogDao logDao;
   private UserEntity loginUser;
 
   // Constructor riêng tư để ngăn chặn khởi tạo từ bên ngoài
   private UserService() {
     this.userDao = new UserDaoImpl();
-    this.logDao = new LogDaoImpl();
+    this.logDao = AsyncLogDao.getInstance();
     this.loginUser = null;
   }
 
@@ -606,6 +613,22 @@ public class UserService {
     }
   }
 
+  /**
+   * Lấy thông tin người dùng mà không chặn luồng gọi.
+   *
+   * @return Thông tin người dùng; hoàn thành với lỗi nếu chưa đăng nhập, truy vấn thất bại hoặc
+   *     quá hạn.
+   */
+  public CompletableFuture<UserEntity> getUserInfoAsync() {
+    UserEntity user = loginUser;
+    if (user == null) {
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("Bạn cần đăng nhập trước khi xem thông tin tài khoản"));
+    }
+    return ExecutorRegistry.getInstance()
+        .supplyAsync(Resource.DATABASE, () -> userDao.findUserInfo(user.getId()));
+  }
+
   /**
    * Kiểm tra tính hợp lệ của email.
    *
@@ -631,4 +654,33 @@ public class UserService {
     Matcher matcher = pattern.matcher(phoneNumber);
     return !matcher.matches();
   }
+
+  /**
+   * Lấy một trang danh sách người dùng (phân trang theo khóa UserID). Chỉ quản trị viên được phép.
+   *
+   * @param pageToken Token của trang trước, null để lấy trang đầu tiên.
+   * @param pageSize Số người dùng tối đa mỗi trang.
+   * @return Trang người dùng kèm token của trang tiếp theo, hoặc trang rỗng nếu có lỗi.
+   */
+  public Page<UserEntity> getUsersPage(String pageToken, int pageSize) {
+    try {
+      if (loginUser == null) {
+        throw new IllegalStateException("Bạn cần đăng nhập trước khi xem danh sách người dùng");
+      }
+      if (loginUser.getRole() != UserEntity.Roles.ADMIN) {
+        throw new SecurityException("Bạn không có quyền xem danh sách người dùng");
+      }
+      int size = PageToken.checkPageSize(pageSize);
+      int afterId = (int) PageToken.decode(pageToken, "users", 0);
+      List<UserEntity> rows = userDao.findUsersAfterId(afterId, size + 1);
+      return PageToken.toPage(rows, size, "users", UserEntity::getId);
+    } catch (IllegalStateException | IllegalArgumentException | SecurityException e) {
+      System.out.println("Lỗi: " + e.getMessage());
+      return Page.empty();
+    } catch (SQLException e) {
+      System.out.println(
+          "Lỗi cơ sở dữ liệu trong quá trình lấy danh sách người dùng: " + e.getMessage());
+      return Page.empty();
+    }
+  }
 }
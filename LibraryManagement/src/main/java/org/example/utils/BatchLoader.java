@@ -0,0 +1,186 @@
+package org.example.utils;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Gom các lần đọc theo từng khóa trong một thao tác thành một truy vấn theo lô (kiểu data loader).
+ *
+ * <p>Mỗi thao tác (một lần vẽ màn hình, một lần xử lý yêu cầu) tạo một BatchLoader riêng. Các lời
+ * gọi {@link #load(Object)} chỉ ghi nhận khóa; lần đầu tiên cần giá trị ({@link #get(Object)},
+ * {@link #getAll(Collection)} hoặc {@link #dispatch()}), mọi khóa đang chờ được đọc bằng một lời
+ * gọi hàm theo lô duy nhất. Kết quả được nhớ trong suốt thao tác, nên cùng một khóa chỉ được đọc
+ * một lần. Không dùng chung một BatchLoader giữa các thao tác vì dữ liệu đã nhớ sẽ cũ.
+ *
+ * <pre>{@code
+ * BatchLoader<Integer, BookEntity> books = new BatchLoader<>(bookDao::findBooksByIds);
+ * rows.forEach(row -> books.load(row.getBookId()));
+ * for (BorrowedBookEntity row : rows) {
+ *   BookEntity book = books.get(row.getBookId()); // một truy vấn cho mọi dòng
+ * }
+ * }</pre>
+ *
+ * @param <K> Kiểu khóa.
+ * @param <V> Kiểu giá trị.
+ */
+public final class BatchLoader<K, V> {
+
+  /**
+   * Hàm đọc nhiều khóa cùng lúc.
+   *
+   * @param <K> Kiểu khóa.
+   * @param <V> Kiểu giá trị.
+   */
+  @FunctionalInterface
+  public interface BatchFunction<K, V> {
+
+    /**
+     * Đọc các khóa cho trước.
+     *
+     * @param keys Các khóa, không trùng.
+     * @return Bảng ánh xạ từ khóa tới giá trị; khóa không có trong bảng được coi là không tồn tại.
+     * @throws SQLException nếu có lỗi khi đọc.
+     */
+    Map<K, V> loadAll(Set<K> keys) throws SQLException;
+  }
+
+  private final BatchFunction<K, V> batchFunction;
+
+  // Kết quả đã đọc hoặc đang chờ của từng khóa trong thao tác hiện tại
+  private final Map<K, CompletableFuture<V>> results = new HashMap<>();
+  private final Set<K> pending = new LinkedHashSet<>();
+
+  private int batches;
+  private int loadedKeys;
+
+  /**
+   * Tạo bộ gom cho một thao tác.
+   *
+   * @param batchFunction Hàm đọc theo lô, ví dụ {@code bookDao::findBooksByIds}.
+   */
+  public BatchLoader(BatchFunction<K, V> batchFunction) {
+    this.batchFunction = batchFunction;
+  }
+
+  /**
+   * Ghi nhận một khóa cần đọc mà chưa truy vấn ngay.
+   *
+   * @param key Khóa cần đọc.
+   * @return Giá trị của khóa (null nếu không tồn tại), hoàn thành ở lần gửi lô tiếp theo.
+   */
+  public synchronized CompletableFuture<V> load(K key) {
+    CompletableFuture<V> result = results.get(key);
+    if (result == null) {
+      result = new CompletableFuture<>();
+      results.put(key, result);
+      pending.add(key);
+    }
+    return result;
+  }
+
+  /**
+   * Lấy giá trị của một khóa, gửi lô cùng mọi khóa đang chờ nếu khóa chưa được đọc.
+   *
+   * @param key Khóa cần đọc.
+   * @return Giá trị của khóa, hoặc null nếu không tồn tại.
+   * @throws SQLException nếu lô chứa khóa này đọc thất bại.
+   */
+  public V get(K key) throws SQLException {
+    CompletableFuture<V> result = load(key);
+    dispatch();
+    return join(result);
+  }
+
+  /**
+   * Lấy giá trị của nhiều khóa bằng tối đa một lần gửi lô.
+   *
+   * @param keys Các khóa cần đọc.
+   * @return Bảng ánh xạ theo thứ tự khóa; khóa không tồn tại không có trong bảng.
+   * @throws SQLException nếu lô đọc thất bại.
+   */
+  public Map<K, V> getAll(Collection<K> keys) throws SQLException {
+    Map<K, CompletableFuture<V>> requested = new LinkedHashMap<>();
+    for (K key : keys) {
+      requested.put(key, load(key));
+    }
+    dispatch();
+    Map<K, V> values = new LinkedHashMap<>();
+    for (Map.Entry<K, CompletableFuture<V>> entry : requested.entrySet()) {
+      V value = join(entry.getValue());
+      if (value != null) {
+        values.put(entry.getKey(), value);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Đọc mọi khóa đang chờ bằng một lời gọi hàm theo lô. Không làm gì nếu không có khóa nào chờ.
+   *
+   * @throws SQLException nếu đọc thất bại; các khóa trong lô bị bỏ khỏi bộ nhớ để có thể thử lại.
+   */
+  public void dispatch() throws SQLException {
+    Set<K> keys;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      keys = new LinkedHashSet<>(pending);
+      pending.clear();
+      batches++;
+      loadedKeys += keys.size();
+    }
+    try {
+      Map<K, V> values = batchFunction.loadAll(keys);
+      synchronized (this) {
+        for (K key : keys) {
+          results.get(key).complete(values.get(key));
+        }
+      }
+    } catch (SQLException | RuntimeException e) {
+      synchronized (this) {
+        for (K key : keys) {
+          results.remove(key).completeExceptionally(e);
+        }
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Lấy số lần đã gửi lô, tức số truy vấn theo lô đã chạy.
+   *
+   * @return Số lần gửi lô.
+   */
+  public synchronized int getBatchCount() {
+    return batches;
+  }
+
+  /**
+   * Lấy tổng số khóa đã gửi đi đọc (không tính các lần đọc lại cùng khóa).
+   *
+   * @return Số khóa đã đọc.
+   */
+  public synchronized int getLoadedKeyCount() {
+    return loadedKeys;
+  }
+
+  // Lấy kết quả, trả lại lỗi SQL gốc thay cho lỗi bọc của CompletableFuture
+  private static <V> V join(CompletableFuture<V> result) throws SQLException {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof SQLException sqlException) {
+        throw sqlException;
+      }
+      throw e;
+    }
+  }
+}
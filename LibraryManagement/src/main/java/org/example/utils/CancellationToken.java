@@ -0,0 +1,124 @@
+package org.example.utils;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cho phép hủy một truy vấn đang chạy, kể cả câu lệnh JDBC đang thực thi trên máy chủ.
+ *
+ * <p>Trong lúc một tác vụ chạy qua {@link #call(CancellationToken, Callable)}, mọi câu lệnh được
+ * tạo từ kết nối của {@link ConnectionPool} trên luồng đó sẽ được đăng ký với token. Khi {@link
+ * #cancel()} được gọi, các câu lệnh này bị hủy bằng {@link Statement#cancel()} và các câu lệnh mới
+ * sẽ không được tạo nữa.
+ */
+public final class CancellationToken {
+
+  private static final ThreadLocal<CancellationToken> current = new ThreadLocal<>();
+
+  private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean cancelled;
+
+  /**
+   * Token của tác vụ đang chạy trên luồng hiện tại.
+   *
+   * @return Token hiện tại, hoặc null nếu không có.
+   */
+  public static CancellationToken current() {
+    return current.get();
+  }
+
+  /**
+   * Chạy một tác vụ với token này là token hiện tại của luồng.
+   *
+   * @param token Token của tác vụ.
+   * @param task Tác vụ cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của tác vụ.
+   * @throws Exception Lỗi do tác vụ ném ra.
+   */
+  public static <T> T call(CancellationToken token, Callable<T> task) throws Exception {
+    CancellationToken previous = current.get();
+    current.set(token);
+    try {
+      return task.call();
+    } finally {
+      if (previous == null) {
+        current.remove();
+      } else {
+        current.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Bọc một tác vụ để nó chạy với token hiện tại của luồng gọi, dùng khi chuyển tác vụ sang một
+   * ExecutorService khác.
+   *
+   * @param task Tác vụ cần bọc.
+   * @param <T> Kiểu kết quả.
+   * @return Tác vụ đã bọc, hoặc chính task nếu luồng gọi không có token.
+   */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    CancellationToken token = current.get();
+    if (token == null) {
+      return task;
+    }
+    return () -> call(token, task);
+  }
+
+  /**
+   * Kiểm tra token đã bị hủy hay chưa.
+   *
+   * @return true nếu đã hủy.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Hủy token và mọi câu lệnh JDBC đang được đăng ký.
+   */
+  public void cancel() {
+    cancelled = true;
+    for (Statement statement : statements) {
+      try {
+        statement.cancel();
+      } catch (SQLException e) {
+        // Câu lệnh đã đóng hoặc driver không hỗ trợ hủy, bỏ qua
+      }
+    }
+    statements.clear();
+  }
+
+  /**
+   * Đăng ký một câu lệnh vừa được tạo.
+   *
+   * @param statement Câu lệnh JDBC.
+   * @throws SQLException Nếu token đã bị hủy.
+   */
+  void register(Statement statement) throws SQLException {
+    if (cancelled) {
+      statement.close();
+      throw new SQLException("Truy vấn đã bị hủy");
+    }
+    statements.add(statement);
+    if (cancelled) {
+      // cancel() có thể chạy xen giữa hai lần kiểm tra
+      statement.cancel();
+    }
+  }
+
+  /**
+   * Bỏ đăng ký một câu lệnh không còn thuộc tác vụ này, ví dụ câu lệnh được trả về bộ nhớ đệm
+   * của kết nối để tác vụ khác dùng lại.
+   *
+   * @param statement Câu lệnh JDBC.
+   */
+  void unregister(Statement statement) {
+    statements.remove(statement);
+  }
+}
@@ -0,0 +1,277 @@
+package org.example.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hàm ánh xạ dòng được biên dịch sẵn cho một phép chiếu (danh sách cột) của một kiểu đối tượng.
+ *
+ * <p>Hàm khởi tạo và các setter của kiểu đích được tìm một lần bằng {@link MethodHandle} khi tạo
+ * mapper, mỗi dòng không còn phản chiếu hay tra cứu nào. Chỉ số cột được tra theo nhãn một lần cho
+ * mỗi kết quả truy vấn ({@link #bind(ResultSetMetaData)}), sau đó mọi dòng chỉ đọc theo chỉ số.
+ * Nhãn không phân biệt hoa thường và cột thừa bị bỏ qua, nên cùng một mapper dùng được cho {@code
+ * SELECT *}, truy vấn nối bảng và các phép chiếu hẹp hơn có cột tùy chọn. Mapper không có trạng
+ * thái thay đổi, được khai báo một lần làm hằng số và dùng chung giữa các luồng.
+ *
+ * <pre>{@code
+ * static final CompiledRowMapper<ReadBookEntity> READ_BOOK_MAPPER =
+ *     CompiledRowMapper.of(
+ *         ReadBookEntity.class,
+ *         Column.ofInt("ReadID"), Column.ofInt("BookID"), Column.ofString("Username"));
+ * List<ReadBookEntity> readBooks = READ_BOOK_MAPPER.mapAll(resultSet);
+ * }</pre>
+ *
+ * @param <T> Kiểu đối tượng kết quả.
+ */
+public final class CompiledRowMapper<T> implements RowMapper<T> {
+
+  /** Đọc giá trị của một cột theo chỉ số. */
+  @FunctionalInterface
+  public interface ColumnReader {
+
+    /**
+     * Đọc giá trị cột của dòng hiện tại.
+     *
+     * @param resultSet ResultSet đang trỏ tới dòng cần đọc.
+     * @param index Chỉ số cột (bắt đầu từ 1).
+     * @return Giá trị của cột.
+     * @throws SQLException nếu có lỗi khi đọc dữ liệu.
+     */
+    Object read(ResultSet resultSet, int index) throws SQLException;
+  }
+
+  /**
+   * Một cột của phép chiếu.
+   *
+   * @param label Nhãn cột trong kết quả, không phân biệt hoa thường.
+   * @param type Kiểu tham số tương ứng của hàm khởi tạo hoặc setter.
+   * @param reader Cách đọc giá trị của cột.
+   * @param optional Cột được phép vắng mặt trong phép chiếu; khi đó tham số nhận giá trị mặc định
+   *     của kiểu (0, false hoặc null) và setter không được gọi.
+   */
+  public record Column(String label, Class<?> type, ColumnReader reader, boolean optional) {
+
+    public static Column ofInt(String label) {
+      return new Column(label, int.class, ResultSet::getInt, false);
+    }
+
+    public static Column ofBoolean(String label) {
+      return new Column(label, boolean.class, ResultSet::getBoolean, false);
+    }
+
+    public static Column ofString(String label) {
+      return new Column(label, String.class, ResultSet::getString, false);
+    }
+
+    public static Column ofLocalDate(String label) {
+      ColumnReader reader =
+          (resultSet, index) -> {
+            Date date = resultSet.getDate(index);
+            return date != null ? date.toLocalDate() : null;
+          };
+      return new Column(label, LocalDate.class, reader, false);
+    }
+
+    public static Column ofLocalDateTime(String label) {
+      ColumnReader reader =
+          (resultSet, index) -> {
+            Timestamp timestamp = resultSet.getTimestamp(index);
+            return timestamp != null ? timestamp.toLocalDateTime() : null;
+          };
+      return new Column(label, LocalDateTime.class, reader, false);
+    }
+
+    public static <E extends Enum<E>> Column ofEnum(String label, Class<E> enumType) {
+      ColumnReader reader =
+          (resultSet, index) -> {
+            String name = resultSet.getString(index);
+            return name != null ? Enum.valueOf(enumType, name) : null;
+          };
+      return new Column(label, enumType, reader, false);
+    }
+
+    /**
+     * Tạo bản sao của cột được phép vắng mặt trong phép chiếu.
+     *
+     * @return Cột tùy chọn.
+     */
+    public Column asOptional() {
+      return new Column(label, type, reader, true);
+    }
+  }
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+  private final Class<T> type;
+  private final Column[] arguments;
+  private final Object[] defaults;
+  // (Object[]) -> Object, nhận các tham số của hàm khởi tạo theo thứ tự cột
+  private final MethodHandle constructor;
+  private final Column[] setterColumns;
+  // (Object, Object) -> void
+  private final MethodHandle[] setters;
+
+  private CompiledRowMapper(
+      Class<T> type,
+      Column[] arguments,
+      MethodHandle constructor,
+      Column[] setterColumns,
+      MethodHandle[] setters) {
+    this.type = type;
+    this.arguments = arguments;
+    this.defaults = new Object[arguments.length];
+    for (int i = 0; i < arguments.length; i++) {
+      // Phần tử đầu của một mảng mới là giá trị mặc định của kiểu: 0, false hoặc null
+      defaults[i] = Array.get(Array.newInstance(arguments[i].type(), 1), 0);
+    }
+    this.constructor = constructor;
+    this.setterColumns = setterColumns;
+    this.setters = setters;
+  }
+
+  /**
+   * Biên dịch mapper gọi hàm khởi tạo công khai của kiểu đích với các cột theo thứ tự.
+   *
+   * @param type Kiểu đối tượng kết quả.
+   * @param columns Các cột, khớp thứ tự và kiểu tham số của hàm khởi tạo.
+   * @param <T> Kiểu đối tượng kết quả.
+   * @return Mapper dùng chung được.
+   * @throws IllegalArgumentException nếu kiểu không có hàm khởi tạo công khai phù hợp.
+   */
+  public static <T> CompiledRowMapper<T> of(Class<T> type, Column... columns) {
+    Class<?>[] parameterTypes = Arrays.stream(columns).map(Column::type).toArray(Class<?>[]::new);
+    MethodHandle constructor;
+    try {
+      constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class, parameterTypes));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalArgumentException(
+          "Không có hàm khởi tạo công khai "
+              + type.getSimpleName()
+              + Arrays.toString(parameterTypes),
+          e);
+    }
+    return new CompiledRowMapper<>(
+        type,
+        columns.clone(),
+        constructor
+            .asSpreader(Object[].class, columns.length)
+            .asType(MethodType.methodType(Object.class, Object[].class)),
+        new Column[0],
+        new MethodHandle[0]);
+  }
+
+  /**
+   * Tạo mapper mới gọi thêm một setter sau hàm khởi tạo, cho các cột không có trong hàm khởi tạo.
+   *
+   * @param setterName Tên setter công khai, ví dụ {@code "setId"}.
+   * @param column Cột cung cấp giá trị, kiểu khớp tham số của setter.
+   * @return Mapper mới; mapper hiện tại không đổi.
+   * @throws IllegalArgumentException nếu kiểu không có setter công khai phù hợp.
+   */
+  public CompiledRowMapper<T> withSetter(String setterName, Column column) {
+    MethodHandle setter;
+    try {
+      setter =
+          LOOKUP
+              .findVirtual(type, setterName, MethodType.methodType(void.class, column.type()))
+              .asType(MethodType.methodType(void.class, Object.class, Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalArgumentException(
+          "Không có setter công khai " + type.getSimpleName() + "." + setterName, e);
+    }
+    Column[] columns = Arrays.copyOf(setterColumns, setterColumns.length + 1);
+    columns[setterColumns.length] = column;
+    MethodHandle[] handles = Arrays.copyOf(setters, setters.length + 1);
+    handles[setters.length] = setter;
+    return new CompiledRowMapper<>(type, arguments, constructor, columns, handles);
+  }
+
+  /**
+   * Tra chỉ số của mọi cột một lần cho kết quả truy vấn. Khi nhãn bị trùng (truy vấn nối bảng),
+   * cột xuất hiện đầu tiên được dùng.
+   *
+   * @param metaData Mô tả các cột của kết quả.
+   * @return Hàm ánh xạ chỉ đọc theo chỉ số, dùng cho mọi dòng của kết quả này.
+   * @throws SQLException nếu kết quả thiếu một cột bắt buộc.
+   */
+  @Override
+  public RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+    Map<String, Integer> indexes = new HashMap<>();
+    for (int i = metaData.getColumnCount(); i >= 1; i--) {
+      indexes.put(metaData.getColumnLabel(i).toUpperCase(Locale.ROOT), i);
+    }
+    int[] argumentIndexes = resolve(arguments, indexes);
+    int[] setterIndexes = resolve(setterColumns, indexes);
+    return resultSet -> {
+      Object[] values = new Object[arguments.length];
+      for (int i = 0; i < values.length; i++) {
+        int index = argumentIndexes[i];
+        values[i] = index > 0 ? arguments[i].reader().read(resultSet, index) : defaults[i];
+      }
+      T row = construct(values);
+      for (int i = 0; i < setters.length; i++) {
+        int index = setterIndexes[i];
+        if (index > 0) {
+          set(setters[i], row, setterColumns[i].reader().read(resultSet, index));
+        }
+      }
+      return row;
+    };
+  }
+
+  /**
+   * Ánh xạ một dòng đơn lẻ. Chỉ số cột được tra lại mỗi lần gọi, nên khi đọc nhiều dòng hãy dùng
+   * {@link #bind(ResultSetMetaData)} hoặc {@link #mapAll(ResultSet)}.
+   */
+  @Override
+  public T map(ResultSet resultSet) throws SQLException {
+    return bind(resultSet.getMetaData()).map(resultSet);
+  }
+
+  private int[] resolve(Column[] columns, Map<String, Integer> indexes) throws SQLException {
+    int[] resolved = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Integer index = indexes.get(columns[i].label().toUpperCase(Locale.ROOT));
+      if (index != null) {
+        resolved[i] = index;
+      } else if (!columns[i].optional()) {
+        throw new SQLException(
+            "Kết quả truy vấn thiếu cột " + columns[i].label() + " của " + type.getSimpleName());
+      }
+    }
+    return resolved;
+  }
+
+  private T construct(Object[] values) {
+    try {
+      return type.cast((Object) constructor.invokeExact(values));
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Không thể tạo " + type.getSimpleName(), e);
+    }
+  }
+
+  private void set(MethodHandle setter, T row, Object value) {
+    try {
+      setter.invokeExact((Object) row, value);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Không thể gán giá trị cho " + type.getSimpleName(), e);
+    }
+  }
+}
@@ -0,0 +1,526 @@
+package org.example.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool kết nối JDBC có giới hạn, dùng chung cho toàn bộ các DAO.
+ *
+ * <p>Mỗi lần gọi {@link #getConnection()} sẽ mượn một kết nối vật lý từ pool (hoặc tạo mới nếu
+ * chưa đạt giới hạn) và trả về một đối tượng {@link Connection} đại diện. Khi gọi {@code close()}
+ * trên đối tượng đó, kết nối được trả lại pool thay vì bị đóng thật. Pool hỗ trợ kiểm tra kết nối
+ * trước khi cho mượn, giới hạn thời gian sống tối đa, phát hiện rò rỉ kết nối và thống kê thời gian
+ * chờ. Mỗi kết nối vật lý giữ một {@link StatementCache}, nên {@code prepareStatement(sql)} với
+ * cùng SQL trên các lần mượn sau dùng lại câu lệnh đã chuẩn bị. Vì vậy SQL sinh động phải có số
+ * dạng giới hạn (ví dụ danh sách IN được đệm bởi {@link InList}, ghi nhiều dòng bằng JDBC batch),
+ * nếu không mỗi câu SQL khác nhau sẽ đẩy các câu lệnh hay dùng ra khỏi bộ nhớ đệm.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+  /** Nguồn tạo kết nối vật lý mới cho pool. */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+    Connection create() throws SQLException;
+  }
+
+  /** Nơi nhận cảnh báo khi một kết nối bị giữ quá ngưỡng phát hiện rò rỉ. */
+  @FunctionalInterface
+  public interface LeakListener {
+    /**
+     * Được gọi từ luồng dọn dẹp nền, tối đa một lần cho mỗi lần mượn.
+     *
+     * @param heldMillis Thời gian kết nối đã bị giữ (mili giây).
+     * @param borrowSite Ngăn xếp lời gọi tại thời điểm mượn kết nối.
+     */
+    void onLeak(long heldMillis, StackTraceElement[] borrowSite);
+  }
+
+  // Kết nối chỉ được kiểm tra lại bằng isValid() nếu đã nằm yên trong pool lâu hơn ngưỡng này
+  private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private final ConnectionFactory factory;
+  private final int maxPoolSize;
+  private final long connectionTimeoutMillis;
+  private final long maxLifetimeNanos;
+  private final long idleTimeoutNanos;
+  private final long leakDetectionThresholdNanos;
+  private final int validationTimeoutSeconds;
+  private final int statementCacheSize;
+  private final LeakListener leakListener;
+
+  // Số "giấy phép" mượn kết nối, bằng đúng kích thước tối đa của pool
+  private final Semaphore permits;
+  // Các kết nối rảnh, dùng theo thứ tự LIFO để kết nối nóng được tái sử dụng trước
+  private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+  // Các kết nối đang được cho mượn, dùng cho phát hiện rò rỉ
+  private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService housekeeper;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicLong timeoutCount = new AtomicLong();
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong destroyedCount = new AtomicLong();
+  private final AtomicLong validationFailureCount = new AtomicLong();
+  private final AtomicLong leakCount = new AtomicLong();
+  private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+  private ConnectionPool(Builder builder) {
+    this.factory = builder.factory;
+    this.maxPoolSize = builder.maxPoolSize;
+    this.connectionTimeoutMillis = builder.connectionTimeoutMillis;
+    this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxLifetimeMillis);
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.idleTimeoutMillis);
+    this.leakDetectionThresholdNanos =
+        TimeUnit.MILLISECONDS.toNanos(builder.leakDetectionThresholdMillis);
+    this.validationTimeoutSeconds = builder.validationTimeoutSeconds;
+    this.statementCacheSize = builder.statementCacheSize;
+    this.leakListener = builder.leakListener;
+    this.permits = new Semaphore(maxPoolSize, true);
+    this.housekeeper =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long period = Math.max(1000L, builder.housekeepingPeriodMillis);
+    housekeeper.scheduleAtFixedRate(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Tạo builder cho pool với nguồn kết nối cho trước.
+   *
+   * @param factory Hàm tạo kết nối vật lý mới.
+   * @return Builder để cấu hình pool.
+   */
+  public static Builder builder(ConnectionFactory factory) {
+    return new Builder(factory);
+  }
+
+  /**
+   * Mượn một kết nối từ pool. Gọi {@code close()} trên kết nối trả về để trả nó lại pool.
+   *
+   * @return Kết nối đã được kiểm tra và sẵn sàng sử dụng.
+   * @throws SQLException nếu hết thời gian chờ, pool đã đóng hoặc không thể tạo kết nối mới.
+   */
+  public Connection getConnection() throws SQLException {
+    if (closed.get()) {
+      throw new SQLException("Pool kết nối đã bị đóng");
+    }
+
+    long start = System.nanoTime();
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Bị ngắt khi đang chờ kết nối từ pool", e);
+    }
+    long waited = System.nanoTime() - start;
+    totalWaitNanos.addAndGet(waited);
+    maxWaitNanos.accumulateAndGet(waited, Math::max);
+    if (!acquired) {
+      timeoutCount.incrementAndGet();
+      throw new SQLTimeoutException(
+          "Hết thời gian chờ kết nối sau " + connectionTimeoutMillis + " ms (" + getStats() + ")");
+    }
+
+    try {
+      PooledConnection pooled = takeIdle();
+      if (pooled == null) {
+        pooled = new PooledConnection(factory.create());
+        createdCount.incrementAndGet();
+      }
+      pooled.borrowedAt = System.nanoTime();
+      pooled.borrowSite =
+          leakDetectionThresholdNanos > 0 ? new Throwable("Vị trí mượn kết nối") : null;
+      pooled.leakReported = false;
+      inUse.add(pooled);
+      borrowCount.incrementAndGet();
+      return pooled.newHandle();
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Lấy ảnh chụp các chỉ số hiện tại của pool.
+   *
+   * @return Thống kê của pool.
+   */
+  public PoolStats getStats() {
+    return new PoolStats(
+        maxPoolSize,
+        inUse.size(),
+        idle.size(),
+        permits.getQueueLength(),
+        borrowCount.get(),
+        TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get()),
+        TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+        timeoutCount.get(),
+        createdCount.get(),
+        destroyedCount.get(),
+        validationFailureCount.get(),
+        leakCount.get());
+  }
+
+  /**
+   * Lấy ảnh chụp các chỉ số bộ nhớ đệm PreparedStatement, cộng dồn trên mọi kết nối.
+   *
+   * @return Thống kê bộ nhớ đệm câu lệnh.
+   */
+  public StatementCacheStats getStatementCacheStats() {
+    int cached = 0;
+    for (PooledConnection pooled : idle) {
+      cached += pooled.statements != null ? pooled.statements.size() : 0;
+    }
+    for (PooledConnection pooled : inUse) {
+      cached += pooled.statements != null ? pooled.statements.size() : 0;
+    }
+    return new StatementCacheStats(
+        statementCacheSize,
+        cached,
+        statementCounters.hits.get(),
+        statementCounters.misses.get(),
+        statementCounters.evictions.get(),
+        statementCounters.discarded.get(),
+        statementCounters.bypassed.get());
+  }
+
+  /** Đóng pool: đóng mọi kết nối rảnh; kết nối đang mượn sẽ bị đóng thật khi được trả về. */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    housekeeper.shutdownNow();
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      destroy(pooled);
+    }
+  }
+
+  // Lấy một kết nối rảnh còn dùng được, loại bỏ các kết nối hết hạn hoặc hỏng
+  private PooledConnection takeIdle() {
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      long now = System.nanoTime();
+      if (isExpired(pooled, now)) {
+        destroy(pooled);
+        continue;
+      }
+      if (now - pooled.lastReturnedAt > VALIDATION_BYPASS_NANOS && !isValid(pooled)) {
+        validationFailureCount.incrementAndGet();
+        destroy(pooled);
+        continue;
+      }
+      return pooled;
+    }
+    return null;
+  }
+
+  private boolean isValid(PooledConnection pooled) {
+    try {
+      return pooled.physical.isValid(validationTimeoutSeconds);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private boolean isExpired(PooledConnection pooled, long now) {
+    return maxLifetimeNanos > 0 && now - pooled.createdAt > maxLifetimeNanos;
+  }
+
+  // Được gọi khi người dùng đóng đối tượng đại diện: khôi phục trạng thái và trả kết nối về pool
+  private void release(PooledConnection pooled) {
+    inUse.remove(pooled);
+    try {
+      if (pooled.statements != null) {
+        pooled.statements.releaseLeases();
+      }
+      boolean reusable = !closed.get() && !isExpired(pooled, System.nanoTime());
+      if (reusable) {
+        reusable = resetState(pooled);
+      }
+      if (reusable) {
+        pooled.lastReturnedAt = System.nanoTime();
+        idle.offerFirst(pooled);
+      } else {
+        destroy(pooled);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  // Hoàn tác giao dịch dang dở và đưa kết nối về trạng thái mặc định trước khi cho mượn lại
+  private boolean resetState(PooledConnection pooled) {
+    Connection physical = pooled.physical;
+    try {
+      if (physical.isClosed()) {
+        return false;
+      }
+      if (!physical.getAutoCommit()) {
+        physical.rollback();
+        physical.setAutoCommit(true);
+      }
+      if (physical.isReadOnly()) {
+        physical.setReadOnly(false);
+      }
+      if (physical.getTransactionIsolation() != pooled.defaultIsolation) {
+        physical.setTransactionIsolation(pooled.defaultIsolation);
+      }
+      physical.clearWarnings();
+      return true;
+    } catch (SQLException e) {
+      System.out.println("Không thể khôi phục trạng thái kết nối, sẽ loại bỏ: " + e.getMessage());
+      return false;
+    }
+  }
+
+  private void destroy(PooledConnection pooled) {
+    destroyedCount.incrementAndGet();
+    if (pooled.statements != null) {
+      pooled.statements.close();
+    }
+    try {
+      pooled.physical.close();
+    } catch (SQLException e) {
+      System.out.println("Lỗi khi đóng kết nối: " + e.getMessage());
+    }
+  }
+
+  // Tác vụ nền: loại bỏ kết nối rảnh quá lâu/hết hạn và cảnh báo kết nối bị giữ quá ngưỡng
+  private void housekeep() {
+    long now = System.nanoTime();
+    for (PooledConnection pooled : idle) {
+      boolean idleTooLong = idleTimeoutNanos > 0 && now - pooled.lastReturnedAt > idleTimeoutNanos;
+      if ((idleTooLong || isExpired(pooled, now)) && idle.remove(pooled)) {
+        destroy(pooled);
+      }
+    }
+
+    if (leakDetectionThresholdNanos <= 0) {
+      return;
+    }
+    for (PooledConnection pooled : inUse) {
+      if (!pooled.leakReported && now - pooled.borrowedAt > leakDetectionThresholdNanos) {
+        pooled.leakReported = true;
+        leakCount.incrementAndGet();
+        Throwable borrowSite = pooled.borrowSite;
+        leakListener.onLeak(
+            TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt),
+            borrowSite != null ? borrowSite.getStackTrace() : new StackTraceElement[0]);
+      }
+    }
+  }
+
+  // Cảnh báo mặc định: một dòng chỉ ra nơi gọi đầu tiên nằm ngoài pool đã mượn kết nối
+  private static void reportLeak(long heldMillis, StackTraceElement[] borrowSite) {
+    String caller = "không rõ";
+    for (StackTraceElement frame : borrowSite) {
+      String className = frame.getClassName();
+      if (!className.startsWith(ConnectionPool.class.getName())
+          && !className.equals(DatabaseConnection.class.getName())) {
+        caller = frame.toString();
+        break;
+      }
+    }
+    System.out.println(
+        "Cảnh báo: kết nối bị giữ "
+            + heldMillis
+            + " ms mà chưa được trả về pool, có thể bị rò rỉ (mượn tại "
+            + caller
+            + ")");
+  }
+
+  /** Kết nối vật lý cùng các thông tin quản lý của pool. */
+  private final class PooledConnection {
+    private final Connection physical;
+    private final long createdAt = System.nanoTime();
+    private final int defaultIsolation;
+    // null nếu bộ nhớ đệm câu lệnh bị tắt
+    private final StatementCache statements;
+    private volatile long lastReturnedAt = createdAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    private PooledConnection(Connection physical) throws SQLException {
+      this.physical = physical;
+      this.defaultIsolation = physical.getTransactionIsolation();
+      this.statements =
+          statementCacheSize > 0
+              ? new StatementCache(physical, statementCacheSize, statementCounters)
+              : null;
+    }
+
+    // Mỗi lần mượn tạo một đối tượng đại diện riêng, nên handle cũ không thể dùng lại sau close()
+    private Connection newHandle() {
+      return (Connection)
+          Proxy.newProxyInstance(
+              ConnectionPool.class.getClassLoader(),
+              new Class<?>[] {Connection.class},
+              new Handle(this));
+    }
+  }
+
+  /** Chặn lời gọi close() để trả kết nối về pool, chuyển tiếp mọi lời gọi còn lại. */
+  private final class Handle implements InvocationHandler {
+    private final PooledConnection pooled;
+    private final AtomicBoolean returned = new AtomicBoolean(false);
+
+    private Handle(PooledConnection pooled) {
+      this.pooled = pooled;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (returned.compareAndSet(false, true)) {
+            release(pooled);
+          }
+          return null;
+        case "isClosed":
+          return returned.get() || pooled.physical.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "PooledConnection[" + pooled.physical + "]";
+        default:
+          break;
+      }
+      if (returned.get()) {
+        throw new SQLException("Kết nối đã được trả về pool");
+      }
+      // prepareStatement(sql) không kèm tùy chọn là dạng mọi DAO dùng cho SQL cố định
+      if (pooled.statements != null
+          && method.getName().equals("prepareStatement")
+          && args.length == 1) {
+        return pooled.statements.prepare((String) args[0], (Connection) proxy);
+      }
+      Object result;
+      try {
+        result = method.invoke(pooled.physical, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+      // Cho phép hủy câu lệnh từ luồng khác khi tác vụ hiện tại có token hủy
+      CancellationToken token = CancellationToken.current();
+      if (token != null && result instanceof Statement) {
+        token.register((Statement) result);
+      }
+      return result;
+    }
+  }
+
+  /** Builder cấu hình pool kết nối. */
+  public static final class Builder {
+    private final ConnectionFactory factory;
+    private int maxPoolSize = 10;
+    private long connectionTimeoutMillis = 30_000;
+    private long maxLifetimeMillis = TimeUnit.MINUTES.toMillis(30);
+    private long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(10);
+    private long leakDetectionThresholdMillis = 60_000;
+    private long housekeepingPeriodMillis = 5_000;
+    private int validationTimeoutSeconds = 2;
+    private int statementCacheSize = 64;
+    private LeakListener leakListener = ConnectionPool::reportLeak;
+
+    private Builder(ConnectionFactory factory) {
+      if (factory == null) {
+        throw new IllegalArgumentException("Nguồn tạo kết nối không được null");
+      }
+      this.factory = factory;
+    }
+
+    /** Số kết nối tối đa được mở đồng thời. */
+    public Builder maxPoolSize(int maxPoolSize) {
+      if (maxPoolSize <= 0) {
+        throw new IllegalArgumentException("Kích thước pool phải là số dương");
+      }
+      this.maxPoolSize = maxPoolSize;
+      return this;
+    }
+
+    /** Thời gian tối đa chờ mượn kết nối trước khi báo lỗi. */
+    public Builder connectionTimeoutMillis(long connectionTimeoutMillis) {
+      this.connectionTimeoutMillis = connectionTimeoutMillis;
+      return this;
+    }
+
+    /** Thời gian sống tối đa của một kết nối vật lý; 0 để tắt. */
+    public Builder maxLifetimeMillis(long maxLifetimeMillis) {
+      this.maxLifetimeMillis = maxLifetimeMillis;
+      return this;
+    }
+
+    /** Thời gian một kết nối được phép nằm rảnh trong pool; 0 để tắt. */
+    public Builder idleTimeoutMillis(long idleTimeoutMillis) {
+      this.idleTimeoutMillis = idleTimeoutMillis;
+      return this;
+    }
+
+    /** Ngưỡng giữ kết nối để bị coi là rò rỉ; 0 để tắt. */
+    public Builder leakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+      this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+      return this;
+    }
+
+    /** Chu kỳ chạy tác vụ dọn dẹp nền. */
+    public Builder housekeepingPeriodMillis(long housekeepingPeriodMillis) {
+      this.housekeepingPeriodMillis = housekeepingPeriodMillis;
+      return this;
+    }
+
+    /** Thời gian tối đa cho một lần kiểm tra kết nối bằng isValid(). */
+    public Builder validationTimeoutSeconds(int validationTimeoutSeconds) {
+      this.validationTimeoutSeconds = validationTimeoutSeconds;
+      return this;
+    }
+
+    /** Số PreparedStatement tối đa được giữ cho mỗi kết nối; 0 để tắt bộ nhớ đệm câu lệnh. */
+    public Builder statementCacheSize(int statementCacheSize) {
+      if (statementCacheSize < 0) {
+        throw new IllegalArgumentException("Kích thước bộ nhớ đệm câu lệnh không được âm");
+      }
+      this.statementCacheSize = statementCacheSize;
+      return this;
+    }
+
+    /** Nơi nhận cảnh báo rò rỉ; mặc định in một dòng kèm vị trí mượn kết nối. */
+    public Builder leakListener(LeakListener leakListener) {
+      if (leakListener == null) {
+        throw new IllegalArgumentException("Nơi nhận cảnh báo rò rỉ không được null");
+      }
+      this.leakListener = leakListener;
+      return this;
+    }
+
+    public ConnectionPool build() {
+      return new ConnectionPool(this);
+    }
+  }
+}
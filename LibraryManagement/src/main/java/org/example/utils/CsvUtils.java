@@ -0,0 +1,99 @@
+package org.example.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tiện ích đọc và ghi dữ liệu CSV theo RFC 4180. */
+public final class CsvUtils {
+
+  private CsvUtils() {}
+
+  /**
+   * Ghép các giá trị thành một dòng CSV, đặt trong dấu nháy kép khi cần.
+   *
+   * @param values Các giá trị của dòng.
+   * @return Dòng CSV (không có ký tự xuống dòng).
+   */
+  public static String toLine(List<?> values) {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      line.append(escape(values.get(i)));
+    }
+    return line.toString();
+  }
+
+  /**
+   * Định dạng một giá trị cho CSV.
+   *
+   * @param value Giá trị cần định dạng, null được ghi thành chuỗi rỗng.
+   * @return Giá trị đã được escape.
+   */
+  public static String escape(Object value) {
+    if (value == null) {
+      return "";
+    }
+    String text = value.toString();
+    if (text.indexOf(',') < 0
+        && text.indexOf('"') < 0
+        && text.indexOf('\n') < 0
+        && text.indexOf('\r') < 0) {
+      return text;
+    }
+    return '"' + text.replace("\"", "\"\"") + '"';
+  }
+
+  /**
+   * Đọc một bản ghi CSV từ luồng, hỗ trợ trường đặt trong dấu nháy kép chứa dấu phẩy, dấu nháy
+   * kép được nhân đôi và ký tự xuống dòng.
+   *
+   * @param reader Luồng đọc.
+   * @return Danh sách các trường của bản ghi, hoặc null nếu đã hết dữ liệu.
+   * @throws IOException nếu có lỗi khi đọc.
+   */
+  public static List<String> readRecord(BufferedReader reader) throws IOException {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    boolean any = false;
+    int c;
+    while ((c = reader.read()) != -1) {
+      any = true;
+      char ch = (char) c;
+      if (quoted) {
+        if (ch != '"') {
+          field.append(ch);
+          continue;
+        }
+        reader.mark(1);
+        int next = reader.read();
+        if (next == '"') {
+          field.append('"');
+        } else {
+          quoted = false;
+          if (next != -1) {
+            reader.reset();
+          }
+        }
+      } else if (ch == '"') {
+        quoted = true;
+      } else if (ch == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (ch == '\n') {
+        break;
+      } else if (ch != '\r') {
+        field.append(ch);
+      }
+    }
+    if (!any) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
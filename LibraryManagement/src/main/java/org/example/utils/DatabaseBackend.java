@@ -0,0 +1,85 @@
+package org.example.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Nguồn cơ sở dữ liệu mà ứng dụng kết nối tới (MySQL hoặc cơ sở dữ liệu nhúng).
+ *
+ * <p>Backend được chọn qua system property {@code library.db.backend}: {@code mysql} (mặc định)
+ * hoặc {@code embedded}. Các DAO chỉ làm việc với {@link Connection} nên chạy được trên mọi backend.
+ */
+public interface DatabaseBackend {
+
+  /**
+   * Tên hiển thị của backend.
+   *
+   * @return Tên backend.
+   */
+  String getName();
+
+  /**
+   * Mở một kết nối vật lý mới tới backend.
+   *
+   * @return Kết nối mới.
+   * @throws SQLException nếu không thể kết nối.
+   */
+  Connection connect() throws SQLException;
+
+  /**
+   * Chuẩn bị backend trước khi sử dụng (ví dụ: tạo schema cho cơ sở dữ liệu nhúng).
+   *
+   * @throws SQLException nếu có lỗi xảy ra trong quá trình khởi tạo.
+   */
+  default void initialize() throws SQLException {}
+
+  /**
+   * Kích thước fetch dùng cho các truy vấn đọc dạng luồng (streaming cursor) trên backend này.
+   *
+   * @return Giá trị truyền cho {@link java.sql.Statement#setFetchSize(int)}.
+   */
+  default int getStreamingFetchSize() {
+    return 500;
+  }
+
+  /**
+   * Backend có hỗ trợ chỉ mục FULLTEXT và {@code MATCH ... AGAINST} hay không.
+   *
+   * @return true nếu hỗ trợ tìm kiếm toàn văn.
+   */
+  default boolean supportsFullText() {
+    return false;
+  }
+
+  /**
+   * Tạo backend theo các system property hiện tại.
+   *
+   * <ul>
+   *   <li>{@code library.db.backend}: {@code mysql} hoặc {@code embedded}.
+   *   <li>{@code library.db.url}, {@code library.db.user}, {@code library.db.password}: thông tin
+   *       kết nối MySQL.
+   *   <li>{@code library.db.embedded.path}: đường dẫn file của cơ sở dữ liệu nhúng; bỏ trống để
+   *       chạy hoàn toàn trong bộ nhớ.
+   * </ul>
+   *
+   * @return Backend tương ứng với cấu hình.
+   */
+  static DatabaseBackend fromSystemProperties() {
+    String backend = System.getProperty("library.db.backend", "mysql").trim().toLowerCase();
+    switch (backend) {
+      case "mysql":
+        return new MySqlBackend(
+            System.getProperty("library.db.url", MySqlBackend.DEFAULT_URL),
+            System.getProperty("library.db.user", MySqlBackend.DEFAULT_USER),
+            System.getProperty("library.db.password", MySqlBackend.DEFAULT_PASSWORD));
+      case "embedded":
+      case "h2":
+        String path = System.getProperty("library.db.embedded.path");
+        return path == null || path.isBlank()
+            ? EmbeddedBackend.inMemory("library")
+            : EmbeddedBackend.onDisk(path);
+      default:
+        throw new IllegalArgumentException("Backend cơ sở dữ liệu không hợp lệ: " + backend);
+    }
+  }
+}
@@ -1,26 +1,99 @@
 package org.example.utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
-    // URL kết nối tới cơ sở dữ liệu
-    private static final String URL = "jdbc:mysql://localhost:3306/library";
-    // Tên người dùng cơ sở dữ liệu
-    private static final String USER = "root";
-    // Mật khẩu của người dùng cơ sở dữ liệu
-    private static final String PASSWORD = "password";
+    // Backend cơ sở dữ liệu đang dùng, mặc định lấy theo system property library.db.backend
+    private static DatabaseBackend backend;
+
+    // Pool kết nối dùng chung cho toàn bộ ứng dụng, được khởi tạo khi cần lần đầu
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Chọn backend cơ sở dữ liệu cho ứng dụng (ví dụ: backend nhúng khi chạy kiểm thử). Pool hiện
+     * tại (nếu có) sẽ bị đóng và được tạo lại với backend mới ở lần mượn kết nối tiếp theo.
+     *
+     * @param newBackend Backend cần sử dụng.
+     */
+    public static synchronized void useBackend(DatabaseBackend newBackend) {
+        ConnectionPool old = pool;
+        backend = newBackend;
+        pool = null;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * Lấy backend cơ sở dữ liệu hiện tại.
+     *
+     * @return Backend đang dùng.
+     */
+    public static synchronized DatabaseBackend getBackend() {
+        if (backend == null) {
+            backend = DatabaseBackend.fromSystemProperties();
+        }
+        return backend;
+    }
+
+    /**
+     * Lấy pool kết nối dùng chung. Kích thước và các ngưỡng của pool có thể cấu hình qua các
+     * system property {@code library.db.pool.*}.
+     *
+     * @return Pool kết nối của ứng dụng.
+     * @throws SQLException nếu không thể khởi tạo backend.
+     */
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    DatabaseBackend activeBackend = getBackend();
+                    activeBackend.initialize();
+                    current = ConnectionPool.builder(activeBackend::connect)
+                            .maxPoolSize(Integer.getInteger("library.db.pool.maxSize", 10))
+                            .connectionTimeoutMillis(
+                                    Long.getLong("library.db.pool.connectionTimeoutMs", 30_000))
+                            .maxLifetimeMillis(
+                                    Long.getLong("library.db.pool.maxLifetimeMs", 1_800_000))
+                            .idleTimeoutMillis(
+                                    Long.getLong("library.db.pool.idleTimeoutMs", 600_000))
+                            .leakDetectionThresholdMillis(
+                                    Long.getLong("library.db.pool.leakThresholdMs", 60_000))
+                            .statementCacheSize(
+                                    Integer.getInteger("library.db.pool.statementCacheSize", 64))
+                            .build();
+                    ConnectionPool created = current;
+                    Runtime.getRuntime().addShutdownHook(
+                            new Thread(created::close, "connection-pool-shutdown"));
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Mượn một kết nối từ pool. Gọi {@code close()} trên kết nối để trả nó lại pool.
+     *
+     * @return Kết nối cơ sở dữ liệu.
+     * @throws SQLException nếu không thể lấy kết nối.
+     */
+    public static Connection openConnection() throws SQLException {
+        return getPool().getConnection();
+    }
 
     /**
-     * Lấy kết nối cơ sở dữ liệu.
+     * Lấy kết nối cơ sở dữ liệu từ pool.
      *
      * @return Connection đối tượng đại diện cho kết nối cơ sở dữ liệu, hoặc null nếu kết nối thất bại.
      */
     public static Connection getConnection() {
         try {
-            // Trả về kết nối đã được thiết lập
-            return DriverManager.getConnection(URL, USER, PASSWORD);
+            // Trả về kết nối mượn từ pool, đóng kết nối sẽ trả nó về pool
+            return openConnection();
         } catch (SQLException e) {
             // Nếu kết nối thất bại, in ra thông báo lỗi và chi tiết ngoại lệ
             System.err.println("Error: Connection failed");
@@ -0,0 +1,80 @@
+package org.example.utils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Backend cơ sở dữ liệu nhúng (H2 ở chế độ tương thích MySQL), chạy trong bộ nhớ hoặc trên file.
+ *
+ * <p>Dùng cho việc chạy ứng dụng không cần máy chủ MySQL, cho các bộ kiểm thử và benchmark. Khi
+ * khởi tạo, nếu cơ sở dữ liệu còn trống thì schema {@code Library_Database_0.1.0.sql} được nạp tự
+ * động.
+ */
+public class EmbeddedBackend implements DatabaseBackend {
+  // Tên file schema được đóng gói cùng classpath
+  public static final String SCHEMA_RESOURCE = "/Library_Database_0.1.0.sql";
+
+  // Tùy chọn để H2 hiểu cú pháp và cách đặt tên định danh của MySQL mà các DAO đang dùng
+  private static final String OPTIONS =
+      ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+  private final String url;
+
+  private EmbeddedBackend(String url) {
+    this.url = url;
+  }
+
+  /**
+   * Tạo backend nhúng chạy hoàn toàn trong bộ nhớ, dữ liệu mất khi tiến trình kết thúc.
+   *
+   * @param name Tên cơ sở dữ liệu, các backend cùng tên dùng chung dữ liệu.
+   * @return Backend trong bộ nhớ.
+   */
+  public static EmbeddedBackend inMemory(String name) {
+    return new EmbeddedBackend("jdbc:h2:mem:" + name + OPTIONS);
+  }
+
+  /**
+   * Tạo backend nhúng lưu dữ liệu trên file.
+   *
+   * @param path Đường dẫn file cơ sở dữ liệu (không gồm phần mở rộng).
+   * @return Backend lưu trên file.
+   */
+  public static EmbeddedBackend onDisk(String path) {
+    return new EmbeddedBackend("jdbc:h2:file:" + path + OPTIONS);
+  }
+
+  @Override
+  public String getName() {
+    return "embedded";
+  }
+
+  @Override
+  public Connection connect() throws SQLException {
+    return DriverManager.getConnection(url, "sa", "");
+  }
+
+  /**
+   * Nạp schema nếu cơ sở dữ liệu chưa có bảng Books.
+   *
+   * @throws SQLException nếu có lỗi xảy ra khi nạp schema.
+   */
+  @Override
+  public void initialize() throws SQLException {
+    try (Connection connection = connect()) {
+      if (!hasSchema(connection)) {
+        SchemaLoader.load(connection, SCHEMA_RESOURCE);
+      }
+    }
+  }
+
+  private static boolean hasSchema(Connection connection) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet tables = metaData.getTables(null, null, "books", new String[] {"TABLE"})) {
+      return tables.next();
+    }
+  }
+}
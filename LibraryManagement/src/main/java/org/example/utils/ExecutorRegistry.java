@@ -0,0 +1,380 @@
+package org.example.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nơi quản lý tập trung các executor của ứng dụng, thay cho việc mỗi service tự tạo (và không bao
+ * giờ đóng) một pool luồng riêng.
+ *
+ * <p>Mỗi loại tài nguyên ({@link Resource}) có một executor dùng chung. Mỗi tác vụ chạy trên một
+ * virtual thread riêng nên các lời gọi JDBC hay HTTP bị chặn không giữ luồng hệ điều hành, còn số
+ * tác vụ chạy cùng lúc trên một tài nguyên bị giới hạn bằng semaphore; các tác vụ vượt giới hạn
+ * chờ tới lượt. Các executor không thể bị đóng bởi service dùng nó, chỉ registry mới đóng được
+ * (khi ứng dụng tắt, qua shutdown hook).
+ *
+ * <p>Một tác vụ không được gửi tác vụ khác vào cùng executor rồi chờ nó: tác vụ ngoài giữ chỗ
+ * trong lúc chờ, nên chỉ cần đủ số tác vụ như vậy chạy cùng lúc là mọi truy vấn của ứng dụng bị
+ * treo. Khi đã ở trong tác vụ, hãy gọi thẳng DAO.
+ *
+ * <p>{@link #supplyAsync(Resource, Callable)} chạy một tác vụ và trả về {@link CompletableFuture}
+ * có thời hạn; hủy kết quả hoặc hết hạn sẽ ngắt tác vụ và hủy câu lệnh JDBC đang chạy của nó (qua
+ * {@link CancellationToken}).
+ *
+ * <p>Giới hạn cấu hình qua các system property {@code library.executor.db.maxConcurrency} (mặc định
+ * bằng kích thước pool kết nối {@code library.db.pool.maxSize}, 10), {@code
+ * library.executor.http.maxConcurrency} (mặc định 8), {@code library.executor.cpu.maxConcurrency}
+ * (mặc định bằng số nhân CPU) và {@code library.executor.timeoutMs} (thời hạn mặc định của tác vụ
+ * bất đồng bộ, mặc định 10000).
+ */
+public final class ExecutorRegistry implements AutoCloseable {
+
+  /** Loại tài nguyên mà tác vụ sử dụng. */
+  public enum Resource {
+    // Truy vấn cơ sở dữ liệu
+    DATABASE("database"),
+    // Gọi API qua mạng
+    HTTP("http"),
+    // Tính toán trong bộ nhớ, không chặn trên I/O
+    CPU("cpu");
+
+    private final String label;
+
+    Resource(String label) {
+      this.label = label;
+    }
+  }
+
+  // Thời gian chờ các tác vụ đang chạy khi đóng registry
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+  private static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+  private static volatile ExecutorRegistry instance;
+
+  private final Map<Resource, BoundedExecutor> executors = new EnumMap<>(Resource.class);
+  private final long defaultTimeoutMillis;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  /**
+   * Tạo registry với giới hạn cho từng tài nguyên và thời hạn mặc định 10 giây.
+   *
+   * @param databaseConcurrency Số tác vụ cơ sở dữ liệu tối đa chạy cùng lúc.
+   * @param httpConcurrency Số tác vụ HTTP tối đa chạy cùng lúc.
+   */
+  public ExecutorRegistry(int databaseConcurrency, int httpConcurrency) {
+    this(databaseConcurrency, httpConcurrency, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Tạo registry với giới hạn cho từng tài nguyên. Ứng dụng nên dùng {@link #getInstance()}.
+   *
+   * @param databaseConcurrency Số tác vụ cơ sở dữ liệu tối đa chạy cùng lúc.
+   * @param httpConcurrency Số tác vụ HTTP tối đa chạy cùng lúc.
+   * @param defaultTimeoutMillis Thời hạn mặc định của tác vụ bất đồng bộ (mili giây).
+   */
+  public ExecutorRegistry(int databaseConcurrency, int httpConcurrency,
+      long defaultTimeoutMillis) {
+    this(databaseConcurrency, httpConcurrency, Runtime.getRuntime().availableProcessors(),
+        defaultTimeoutMillis);
+  }
+
+  /**
+   * Tạo registry với giới hạn cho từng tài nguyên, kể cả tác vụ tính toán.
+   *
+   * @param databaseConcurrency Số tác vụ cơ sở dữ liệu tối đa chạy cùng lúc.
+   * @param httpConcurrency Số tác vụ HTTP tối đa chạy cùng lúc.
+   * @param cpuConcurrency Số tác vụ tính toán tối đa chạy cùng lúc.
+   * @param defaultTimeoutMillis Thời hạn mặc định của tác vụ bất đồng bộ (mili giây).
+   */
+  public ExecutorRegistry(int databaseConcurrency, int httpConcurrency, int cpuConcurrency,
+      long defaultTimeoutMillis) {
+    this.defaultTimeoutMillis = defaultTimeoutMillis;
+    executors.put(Resource.DATABASE, new BoundedExecutor(Resource.DATABASE, databaseConcurrency));
+    executors.put(Resource.HTTP, new BoundedExecutor(Resource.HTTP, httpConcurrency));
+    executors.put(Resource.CPU, new BoundedExecutor(Resource.CPU, cpuConcurrency));
+  }
+
+  /**
+   * Lấy registry dùng chung của ứng dụng. Registry được đóng khi JVM tắt.
+   *
+   * @return Thể hiện duy nhất của ExecutorRegistry.
+   */
+  public static ExecutorRegistry getInstance() {
+    if (instance == null) {
+      synchronized (ExecutorRegistry.class) {
+        if (instance == null) {
+          ExecutorRegistry created = new ExecutorRegistry(
+              Integer.getInteger("library.executor.db.maxConcurrency",
+                  Integer.getInteger("library.db.pool.maxSize", 10)),
+              Integer.getInteger("library.executor.http.maxConcurrency", 8),
+              Integer.getInteger("library.executor.cpu.maxConcurrency",
+                  Runtime.getRuntime().availableProcessors()),
+              Long.getLong("library.executor.timeoutMs", DEFAULT_TIMEOUT_MILLIS));
+          Runtime.getRuntime().addShutdownHook(
+              new Thread(created::close, "executor-registry-shutdown"));
+          instance = created;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Lấy executor dùng chung của một tài nguyên.
+   *
+   * @param resource Loại tài nguyên.
+   * @return Executor của tài nguyên, không được đóng bởi người gọi.
+   */
+  public ExecutorService executor(Resource resource) {
+    return executors.get(resource);
+  }
+
+  /**
+   * Lấy executor cho các tác vụ truy vấn cơ sở dữ liệu.
+   *
+   * @return Executor của cơ sở dữ liệu.
+   */
+  public ExecutorService database() {
+    return executor(Resource.DATABASE);
+  }
+
+  /**
+   * Lấy executor cho các tác vụ gọi API qua mạng.
+   *
+   * @return Executor của HTTP.
+   */
+  public ExecutorService http() {
+    return executor(Resource.HTTP);
+  }
+
+  /**
+   * Lấy executor cho các tác vụ tính toán trong bộ nhớ.
+   *
+   * @return Executor của CPU.
+   */
+  public ExecutorService cpu() {
+    return executor(Resource.CPU);
+  }
+
+  /**
+   * Chạy một tác vụ trên executor của tài nguyên với thời hạn mặc định.
+   *
+   * @param resource Loại tài nguyên.
+   * @param task Tác vụ cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của tác vụ.
+   * @see #supplyAsync(Resource, Callable, long)
+   */
+  public <T> CompletableFuture<T> supplyAsync(Resource resource, Callable<T> task) {
+    return supplyAsync(resource, task, defaultTimeoutMillis);
+  }
+
+  /**
+   * Chạy một tác vụ trên executor của tài nguyên mà không chặn luồng gọi. Kết quả hoàn thành với
+   * lỗi của tác vụ nếu tác vụ ném ngoại lệ, với {@link TimeoutException} nếu quá thời hạn (tính cả
+   * thời gian chờ tới lượt). Khi kết quả bị hủy hoặc hết hạn, tác vụ bị ngắt và câu lệnh JDBC đang
+   * chạy của nó bị hủy. Chỉ chính future trả về mới hủy được tác vụ, các future tạo từ nó bằng
+   * {@code thenApply}... thì không.
+   *
+   * @param resource Loại tài nguyên.
+   * @param task Tác vụ cần chạy.
+   * @param timeoutMillis Thời hạn (mili giây).
+   * @param <T> Kiểu kết quả.
+   * @return Kết quả của tác vụ.
+   */
+  public <T> CompletableFuture<T> supplyAsync(Resource resource, Callable<T> task,
+      long timeoutMillis) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    CancellationToken token = new CancellationToken();
+    AtomicBoolean finished = new AtomicBoolean();
+    Future<?> running;
+    try {
+      running = executor(resource).submit(() -> {
+        try {
+          T value = CancellationToken.call(token, task);
+          finished.set(true);
+          result.complete(value);
+        } catch (Exception e) {
+          finished.set(true);
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    // Kết quả kết thúc trước tác vụ nghĩa là đã bị hủy hoặc hết hạn
+    result.whenComplete((value, error) -> {
+      if (!finished.get()) {
+        token.cancel();
+        running.cancel(true);
+      }
+    });
+    return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Lấy chỉ số hiện tại của mọi executor.
+   *
+   * @return Ảnh chụp chỉ số, theo thứ tự của {@link Resource}.
+   */
+  public List<ExecutorStats> getStats() {
+    List<ExecutorStats> stats = new ArrayList<>(executors.size());
+    for (BoundedExecutor executor : executors.values()) {
+      stats.add(executor.stats());
+    }
+    return Collections.unmodifiableList(stats);
+  }
+
+  /**
+   * Lấy chỉ số hiện tại của một executor.
+   *
+   * @param resource Loại tài nguyên.
+   * @return Ảnh chụp chỉ số.
+   */
+  public ExecutorStats getStats(Resource resource) {
+    return executors.get(resource).stats();
+  }
+
+  /**
+   * Đóng mọi executor: không nhận thêm tác vụ, chờ tối đa 5 giây cho các tác vụ đã gửi rồi ngắt
+   * các tác vụ còn lại.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    for (BoundedExecutor executor : executors.values()) {
+      executor.threads.shutdown();
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+    for (BoundedExecutor executor : executors.values()) {
+      try {
+        long remaining = deadline - System.nanoTime();
+        if (!executor.threads.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+          System.err.println("Executor " + executor.resource.label
+              + " did not finish in time, interrupting remaining tasks");
+          executor.threads.shutdownNow();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        executor.threads.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Executor chạy mỗi tác vụ trên một virtual thread, tối đa maxConcurrency tác vụ cùng lúc.
+   * Tác vụ vượt giới hạn chờ trên semaphore, việc chờ này không giữ luồng hệ điều hành nào.
+   */
+  private static final class BoundedExecutor extends AbstractExecutorService {
+    private final Resource resource;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ExecutorService threads;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    BoundedExecutor(Resource resource, int maxConcurrency) {
+      if (maxConcurrency < 1) {
+        throw new IllegalArgumentException("maxConcurrency must be positive");
+      }
+      this.resource = resource;
+      this.maxConcurrency = maxConcurrency;
+      this.permits = new Semaphore(maxConcurrency, true);
+      this.threads = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name(resource.label + "-", 1).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      long enqueuedAt = System.nanoTime();
+      submitted.incrementAndGet();
+      queued.incrementAndGet();
+      try {
+        threads.execute(() -> run(task, enqueuedAt));
+      } catch (RejectedExecutionException e) {
+        submitted.decrementAndGet();
+        queued.decrementAndGet();
+        throw e;
+      }
+    }
+
+    private void run(Runnable task, long enqueuedAt) {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        // Registry bị đóng khi tác vụ còn đang chờ, người chờ kết quả không bị treo
+        queued.decrementAndGet();
+        completed.incrementAndGet();
+        if (task instanceof Future<?> future) {
+          future.cancel(false);
+        }
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queued.decrementAndGet();
+      active.incrementAndGet();
+      totalWaitNanos.addAndGet(System.nanoTime() - enqueuedAt);
+      try {
+        task.run();
+      } finally {
+        active.decrementAndGet();
+        completed.incrementAndGet();
+        permits.release();
+      }
+    }
+
+    ExecutorStats stats() {
+      return new ExecutorStats(resource.label, maxConcurrency, queued.get(), active.get(),
+          submitted.get(), completed.get(), totalWaitNanos.get() / 1000);
+    }
+
+    // Executor dùng chung chỉ được đóng qua ExecutorRegistry.close()
+    @Override
+    public void shutdown() {
+      throw new UnsupportedOperationException("Shared executors are closed by ExecutorRegistry");
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      throw new UnsupportedOperationException("Shared executors are closed by ExecutorRegistry");
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return threads.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return threads.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return threads.awaitTermination(timeout, unit);
+    }
+  }
+}
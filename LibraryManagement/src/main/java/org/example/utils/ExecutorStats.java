@@ -0,0 +1,32 @@
+package org.example.utils;
+
+/**
+ * Ảnh chụp các chỉ số của một executor trong {@link ExecutorRegistry} tại một thời điểm.
+ *
+ * @param name Tên tài nguyên (ví dụ "database", "http").
+ * @param maxConcurrency Số tác vụ tối đa được chạy cùng lúc.
+ * @param queued Số tác vụ đang chờ tới lượt chạy.
+ * @param active Số tác vụ đang chạy.
+ * @param submitted Tổng số tác vụ đã gửi.
+ * @param completed Tổng số tác vụ đã chạy xong (kể cả bị lỗi).
+ * @param totalWaitMicros Tổng thời gian chờ tới lượt chạy (micro giây).
+ */
+public record ExecutorStats(
+    String name,
+    int maxConcurrency,
+    int queued,
+    int active,
+    long submitted,
+    long completed,
+    long totalWaitMicros) {
+
+  /**
+   * Thời gian chờ trung bình của một tác vụ trước khi được chạy.
+   *
+   * @return Thời gian chờ trung bình (micro giây).
+   */
+  public double averageWaitMicros() {
+    long started = completed + active;
+    return started == 0 ? 0 : (double) totalWaitMicros / started;
+  }
+}
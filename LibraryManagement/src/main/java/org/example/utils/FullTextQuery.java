@@ -0,0 +1,112 @@
+package org.example.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chuyển từ khóa người dùng nhập thành truy vấn FULLTEXT ở chế độ BOOLEAN MODE của MySQL.
+ *
+ * <p>Cú pháp hỗ trợ:
+ *
+ * <ul>
+ *   <li>{@code harry potter}: mọi từ đều bắt buộc, từ cuối cùng được so khớp theo tiền tố để gợi ý
+ *       khi đang gõ.
+ *   <li>{@code "chúa tể"}: cụm từ chính xác.
+ *   <li>{@code -nhẫn}: loại trừ kết quả chứa từ.
+ *   <li>{@code pott*}: so khớp tiền tố.
+ * </ul>
+ *
+ * Các ký tự toán tử và dấu câu khác trong từ được coi là dấu phân cách, giống cách InnoDB tách từ
+ * khi đánh chỉ mục: {@code spider-man} thành hai từ bắt buộc {@code +spider +man*}, từ bị loại trừ
+ * gồm nhiều phần thành một cụm từ. Nhờ vậy người dùng không thể tạo truy vấn sai cú pháp và các từ
+ * có dấu câu vẫn tìm được như khi dùng LIKE.
+ */
+public final class FullTextQuery {
+  // Độ dài từ tối thiểu được InnoDB đánh chỉ mục (innodb_ft_min_token_size mặc định là 3)
+  public static final int DEFAULT_MIN_TOKEN_LENGTH = 3;
+
+  private FullTextQuery() {}
+
+  /**
+   * Tạo truy vấn boolean từ chuỗi người dùng nhập.
+   *
+   * @param input Chuỗi tìm kiếm.
+   * @param minTokenLength Độ dài tối thiểu của từ có trong chỉ mục.
+   * @return Truy vấn boolean, hoặc null nếu không có từ nào dùng được với chỉ mục (khi đó cần
+   *     chuyển sang tìm kiếm LIKE).
+   */
+  public static String toBooleanQuery(String input, int minTokenLength) {
+    if (input == null) {
+      return null;
+    }
+    List<String> terms = new ArrayList<>();
+    boolean hasPositive = false;
+    int i = 0;
+    int length = input.length();
+    while (i < length) {
+      char ch = input.charAt(i);
+      if (Character.isWhitespace(ch)) {
+        i++;
+        continue;
+      }
+      boolean exclude = ch == '-';
+      if (exclude) {
+        i++;
+      }
+      if (i < length && input.charAt(i) == '"') {
+        int end = input.indexOf('"', i + 1);
+        List<String> words = words(input.substring(i + 1, end < 0 ? length : end));
+        i = end < 0 ? length : end + 1;
+        if (!words.isEmpty()) {
+          terms.add((exclude ? "-" : "+") + '"' + String.join(" ", words) + '"');
+          hasPositive |= !exclude;
+        }
+        continue;
+      }
+      int start = i;
+      while (i < length && !Character.isWhitespace(input.charAt(i))) {
+        i++;
+      }
+      String raw = input.substring(start, i);
+      boolean prefix = raw.endsWith("*") || i >= length;
+      List<String> words = words(raw);
+      if (exclude) {
+        if (words.size() > 1) {
+          // Chỉ loại các kết quả chứa đúng chuỗi các phần, không loại mọi kết quả chứa một phần
+          terms.add("-\"" + String.join(" ", words) + '"');
+        } else if (words.size() == 1 && words.get(0).length() >= minTokenLength) {
+          terms.add("-" + words.get(0));
+        }
+        continue;
+      }
+      for (int w = 0; w < words.size(); w++) {
+        String word = words.get(w);
+        if (word.length() < minTokenLength) {
+          // Từ quá ngắn không có trong chỉ mục, bắt buộc nó sẽ khiến truy vấn không có kết quả
+          continue;
+        }
+        terms.add("+" + word + (prefix && w == words.size() - 1 ? "*" : ""));
+        hasPositive = true;
+      }
+    }
+    // Truy vấn chỉ có điều kiện loại trừ luôn trả về rỗng trong BOOLEAN MODE
+    return hasPositive ? String.join(" ", terms) : null;
+  }
+
+  // Tách văn bản thành các từ gồm chữ, số, ' và _; mọi ký tự khác (khoảng trắng, dấu câu, toán tử
+  // của BOOLEAN MODE) là dấu phân cách
+  private static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    StringBuilder word = new StringBuilder();
+    for (int i = 0; i <= text.length(); i++) {
+      char ch = i < text.length() ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(ch) || ch == '\'' || ch == '_') {
+        word.append(ch);
+      } else if (word.length() > 0) {
+        words.add(word.toString());
+        word.setLength(0);
+      }
+    }
+    return words;
+  }
+}
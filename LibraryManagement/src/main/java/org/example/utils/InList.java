@@ -0,0 +1,79 @@
+package org.example.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tiện ích cho các truy vấn {@code WHERE ... IN (?, ?, ...)} theo nhiều khóa.
+ *
+ * <p>Khóa được bỏ trùng (giữ thứ tự gặp đầu tiên) và chia thành các nhóm tối đa {@link
+ * #CHUNK_SIZE} khóa để câu lệnh không vượt giới hạn tham số của trình điều khiển. Mỗi nhóm được
+ * đệm tới một trong vài kích thước cố định ({@code 1, 10, 50, 100, 500}) bằng cách lặp lại khóa
+ * cuối, nên mỗi truy vấn chỉ sinh tối đa năm câu SQL khác nhau: cơ sở dữ liệu không phải phân tích
+ * lại câu lệnh cho từng độ dài danh sách và các câu lệnh này dùng lại được từ bộ nhớ đệm
+ * PreparedStatement của pool. Khóa lặp trong IN không làm đổi kết quả truy vấn.
+ */
+public final class InList {
+
+  /** Số khóa tối đa trong một danh sách IN. */
+  public static final int CHUNK_SIZE = 500;
+
+  // Các kích thước danh sách IN được dùng, tăng dần, phần tử cuối bằng CHUNK_SIZE
+  private static final int[] BUCKETS = {1, 10, 50, 100, CHUNK_SIZE};
+
+  private InList() {}
+
+  /**
+   * Bỏ trùng, bỏ null và chia các khóa thành từng nhóm có kích thước cố định.
+   *
+   * @param keys Các khóa.
+   * @param <K> Kiểu khóa.
+   * @return Các nhóm khóa, mỗi nhóm tối đa {@link #CHUNK_SIZE} khóa và đã được đệm bằng khóa cuối
+   *     tới kích thước cố định gần nhất; rỗng nếu không có khóa nào.
+   */
+  public static <K> List<List<K>> chunks(Collection<K> keys) {
+    List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+    distinct.removeIf(Objects::isNull);
+    List<List<K>> chunks = new ArrayList<>();
+    for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+      List<K> chunk =
+          new ArrayList<>(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size())));
+      K last = chunk.get(chunk.size() - 1);
+      int size = bucketSize(chunk.size());
+      while (chunk.size() < size) {
+        chunk.add(last);
+      }
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  /**
+   * Kích thước cố định nhỏ nhất chứa được số khóa cho trước.
+   *
+   * @param count Số khóa, từ 1 tới {@link #CHUNK_SIZE}.
+   * @return Số tham số của danh sách IN.
+   */
+  static int bucketSize(int count) {
+    for (int bucket : BUCKETS) {
+      if (count <= bucket) {
+        return bucket;
+      }
+    }
+    throw new IllegalArgumentException("Quá nhiều khóa trong một danh sách IN: " + count);
+  }
+
+  /**
+   * Tạo danh sách tham số cho mệnh đề IN.
+   *
+   * @param count Số tham số.
+   * @return Chuỗi dạng {@code "?, ?, ?"}.
+   */
+  public static String placeholders(int count) {
+    return String.join(", ", Collections.nCopies(count, "?"));
+  }
+}
@@ -0,0 +1,60 @@
+package org.example.utils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/** Backend kết nối tới máy chủ MySQL. */
+public class MySqlBackend implements DatabaseBackend {
+  // URL kết nối mặc định tới cơ sở dữ liệu
+  // rewriteBatchedStatements gộp JDBC batch thành câu INSERT nhiều dòng
+  // useServerPrepStmts chuẩn bị câu lệnh trên máy chủ; StatementCache của pool giữ chúng để dùng
+  // lại, nên bộ nhớ đệm phía driver (cachePrepStmts) không cần bật
+  static final String DEFAULT_URL =
+      "jdbc:mysql://localhost:3306/library?rewriteBatchedStatements=true&useServerPrepStmts=true";
+  // Tên người dùng mặc định của cơ sở dữ liệu
+  static final String DEFAULT_USER = "root";
+  // Mật khẩu mặc định của người dùng cơ sở dữ liệu
+  static final String DEFAULT_PASSWORD = "password";
+
+  private final String url;
+  private final String user;
+  private final String password;
+
+  /**
+   * Tạo backend MySQL.
+   *
+   * @param url URL JDBC của máy chủ MySQL.
+   * @param user Tên người dùng.
+   * @param password Mật khẩu.
+   */
+  public MySqlBackend(String url, String user, String password) {
+    this.url = url;
+    this.user = user;
+    this.password = password;
+  }
+
+  @Override
+  public String getName() {
+    return "mysql";
+  }
+
+  /**
+   * MySQL Connector/J chỉ trả từng dòng qua cursor phía máy chủ khi fetch size là
+   * {@link Integer#MIN_VALUE}; các giá trị khác sẽ nạp toàn bộ kết quả vào bộ nhớ.
+   */
+  @Override
+  public int getStreamingFetchSize() {
+    return Integer.MIN_VALUE;
+  }
+
+  @Override
+  public boolean supportsFullText() {
+    return true;
+  }
+
+  @Override
+  public Connection connect() throws SQLException {
+    return DriverManager.getConnection(url, user, password);
+  }
+}
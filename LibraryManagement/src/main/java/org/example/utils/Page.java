@@ -0,0 +1,52 @@
+package org.example.utils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Một trang kết quả của truy vấn phân trang theo khóa (keyset pagination).
+ *
+ * @param <T> Kiểu phần tử trong trang.
+ */
+public final class Page<T> {
+  private final List<T> items;
+  private final String nextPageToken;
+
+  /**
+   * Tạo một trang kết quả.
+   *
+   * @param items Các phần tử của trang.
+   * @param nextPageToken Token để lấy trang tiếp theo, hoặc null nếu đây là trang cuối.
+   */
+  public Page(List<T> items, String nextPageToken) {
+    this.items = Collections.unmodifiableList(items);
+    this.nextPageToken = nextPageToken;
+  }
+
+  /**
+   * Tạo trang rỗng không có trang tiếp theo.
+   *
+   * @param <T> Kiểu phần tử.
+   * @return Trang rỗng.
+   */
+  public static <T> Page<T> empty() {
+    return new Page<>(Collections.emptyList(), null);
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Token mờ (opaque) để truyền lại khi lấy trang tiếp theo.
+   *
+   * @return Token của trang tiếp theo, hoặc null nếu không còn dữ liệu.
+   */
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public boolean hasNext() {
+    return nextPageToken != null;
+  }
+}
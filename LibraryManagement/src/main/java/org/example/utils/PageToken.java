@@ -0,0 +1,97 @@
+package org.example.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Mã hóa và giải mã token phân trang. Token chứa phạm vi truy vấn và giá trị khóa sắp xếp của phần
+ * tử cuối trang trước, để trang sau được lấy bằng điều kiện {@code WHERE key > ?} trên chỉ mục thay
+ * vì {@code OFFSET}; nhờ vậy thời gian lấy một trang không phụ thuộc vào vị trí trang hay kích
+ * thước bảng.
+ */
+public final class PageToken {
+  // Kích thước trang tối đa cho phép, tránh một trang kéo về quá nhiều dòng
+  public static final int MAX_PAGE_SIZE = 500;
+
+  private PageToken() {}
+
+  /**
+   * Mã hóa khóa của phần tử cuối trang thành token.
+   *
+   * @param scope Phạm vi truy vấn (ví dụ: "books", "reviews:12").
+   * @param lastKey Giá trị khóa sắp xếp của phần tử cuối.
+   * @return Token dạng Base64 an toàn cho URL.
+   */
+  public static String encode(String scope, long lastKey) {
+    String raw = scope + "|" + lastKey;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Giải mã token thành khóa, kiểm tra token thuộc đúng phạm vi truy vấn.
+   *
+   * @param token Token nhận từ trang trước, null hoặc rỗng nghĩa là trang đầu tiên.
+   * @param scope Phạm vi truy vấn mong đợi.
+   * @param firstKey Giá trị khóa dùng cho trang đầu tiên.
+   * @return Giá trị khóa để bắt đầu trang tiếp theo.
+   * @throws IllegalArgumentException nếu token không hợp lệ hoặc thuộc phạm vi khác.
+   */
+  public static long decode(String token, String scope, long firstKey) {
+    if (token == null || token.isEmpty()) {
+      return firstKey;
+    }
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Token phân trang không hợp lệ", e);
+    }
+    int separator = raw.lastIndexOf('|');
+    if (separator < 0 || !raw.substring(0, separator).equals(scope)) {
+      throw new IllegalArgumentException("Token phân trang không thuộc truy vấn này");
+    }
+    try {
+      return Long.parseLong(raw.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Token phân trang không hợp lệ", e);
+    }
+  }
+
+  /**
+   * Kiểm tra và chuẩn hóa kích thước trang.
+   *
+   * @param pageSize Kích thước trang yêu cầu.
+   * @return Kích thước trang hợp lệ.
+   * @throws IllegalArgumentException nếu kích thước trang không dương.
+   */
+  public static int checkPageSize(int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Kích thước trang phải là số dương");
+    }
+    return Math.min(pageSize, MAX_PAGE_SIZE);
+  }
+
+  /**
+   * Tạo trang từ kết quả truy vấn đã lấy dư một phần tử ({@code pageSize + 1}). Nếu có phần tử dư
+   * thì còn trang tiếp theo và token được tạo từ khóa của phần tử cuối trang.
+   *
+   * @param rows Kết quả truy vấn với tối đa pageSize + 1 phần tử.
+   * @param pageSize Kích thước trang.
+   * @param scope Phạm vi truy vấn.
+   * @param key Hàm lấy khóa sắp xếp của phần tử.
+   * @param <T> Kiểu phần tử.
+   * @return Trang kết quả.
+   */
+  public static <T> Page<T> toPage(
+      List<T> rows, int pageSize, String scope, ToLongFunction<T> key) {
+    if (rows.size() <= pageSize) {
+      return new Page<>(rows, null);
+    }
+    List<T> items = rows.subList(0, pageSize);
+    return new Page<>(items, encode(scope, key.applyAsLong(items.get(pageSize - 1))));
+  }
+}
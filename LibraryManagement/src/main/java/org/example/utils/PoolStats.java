@@ -0,0 +1,41 @@
+package org.example.utils;
+
+/**
+ * Ảnh chụp các chỉ số của {@link ConnectionPool} tại một thời điểm.
+ *
+ * @param maxPoolSize Số kết nối tối đa của pool.
+ * @param active Số kết nối đang được cho mượn.
+ * @param idle Số kết nối rảnh trong pool.
+ * @param waiting Số luồng đang chờ mượn kết nối.
+ * @param borrowCount Tổng số lần mượn kết nối.
+ * @param totalWaitMicros Tổng thời gian chờ mượn kết nối (micro giây).
+ * @param maxWaitMicros Thời gian chờ lâu nhất của một lần mượn (micro giây).
+ * @param timeoutCount Số lần mượn thất bại do hết thời gian chờ.
+ * @param createdCount Số kết nối vật lý đã tạo.
+ * @param destroyedCount Số kết nối vật lý đã đóng.
+ * @param validationFailureCount Số kết nối bị loại do kiểm tra thất bại.
+ * @param leakCount Số lần phát hiện kết nối bị giữ quá ngưỡng.
+ */
+public record PoolStats(
+    int maxPoolSize,
+    int active,
+    int idle,
+    int waiting,
+    long borrowCount,
+    long totalWaitMicros,
+    long maxWaitMicros,
+    long timeoutCount,
+    long createdCount,
+    long destroyedCount,
+    long validationFailureCount,
+    long leakCount) {
+
+  /**
+   * Thời gian chờ trung bình cho mỗi lần mượn kết nối.
+   *
+   * @return Thời gian chờ trung bình (micro giây).
+   */
+  public double averageWaitMicros() {
+    return borrowCount == 0 ? 0 : (double) totalWaitMicros / borrowCount;
+  }
+}
@@ -0,0 +1,115 @@
+package org.example.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Đọc kết quả truy vấn dưới dạng {@link Stream} dùng cursor chỉ-đọc, chỉ-tiến phía máy chủ.
+ *
+ * <p>Các dòng được đọc lần lượt khi stream được tiêu thụ nên bộ nhớ không phụ thuộc kích thước
+ * bảng. Stream giữ một kết nối của pool cho tới khi bị đóng, vì vậy người gọi phải dùng
+ * try-with-resources. Đóng stream khi chưa đọc hết sẽ hủy câu lệnh ({@link Statement#cancel()})
+ * trước khi đóng: với MySQL, đóng một result set đang stream mà không hủy sẽ phải đọc và bỏ hết
+ * các dòng còn lại.
+ */
+public final class ResultSetStream {
+
+  private ResultSetStream() {}
+
+  /**
+   * Thực thi truy vấn và trả về stream các đối tượng đã ánh xạ.
+   *
+   * @param sql Câu truy vấn.
+   * @param mapper Hàm ánh xạ từng dòng.
+   * @param params Tham số của câu truy vấn theo thứ tự.
+   * @param <T> Kiểu phần tử.
+   * @return Stream cần được đóng sau khi dùng.
+   * @throws SQLException nếu không thể thực thi truy vấn.
+   */
+  public static <T> Stream<T> query(String sql, RowMapper<T> mapper, Object... params)
+      throws SQLException {
+    Connection connection = DatabaseConnection.openConnection();
+    PreparedStatement statement = null;
+    ResultSet resultSet = null;
+    RowMapper<T> row;
+    try {
+      statement =
+          connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(DatabaseConnection.getBackend().getStreamingFetchSize());
+      for (int i = 0; i < params.length; i++) {
+        statement.setObject(i + 1, params[i]);
+      }
+      resultSet = statement.executeQuery();
+      row = mapper.bind(resultSet.getMetaData());
+    } catch (SQLException | RuntimeException e) {
+      closeQuietly(resultSet, statement, connection);
+      throw e;
+    }
+
+    ResultSet rows = resultSet;
+    PreparedStatement owner = statement;
+    AtomicBoolean exhausted = new AtomicBoolean();
+    Spliterator<T> spliterator =
+        new Spliterators.AbstractSpliterator<>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+          @Override
+          public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+              if (!rows.next()) {
+                exhausted.set(true);
+                return false;
+              }
+              action.accept(row.map(rows));
+              return true;
+            } catch (SQLException e) {
+              throw new IllegalStateException(
+                  "Lỗi khi đọc dữ liệu từ cursor: " + e.getMessage(), e);
+            }
+          }
+        };
+    return StreamSupport.stream(spliterator, false)
+        .onClose(() -> {
+          if (!exhausted.get()) {
+            cancelQuietly(owner, rows);
+          }
+          closeQuietly(rows, owner, connection);
+        });
+  }
+
+  // Dừng máy chủ gửi các dòng còn lại để việc đóng result set không phải đọc hết chúng
+  private static void cancelQuietly(Statement statement, ResultSet resultSet) {
+    try {
+      statement.cancel();
+    } catch (SQLException e) {
+      // Câu lệnh đã kết thúc hoặc driver không hỗ trợ hủy, đóng bình thường
+      return;
+    }
+    try {
+      resultSet.close();
+    } catch (SQLException e) {
+      // Lỗi "truy vấn bị ngắt" là kết quả mong đợi của việc hủy
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable... resources) {
+    for (AutoCloseable resource : resources) {
+      if (resource == null) {
+        continue;
+      }
+      try {
+        resource.close();
+      } catch (Exception e) {
+        System.out.println("Lỗi khi đóng tài nguyên truy vấn: " + e.getMessage());
+      }
+    }
+  }
+}
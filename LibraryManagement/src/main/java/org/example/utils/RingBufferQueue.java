@@ -0,0 +1,133 @@
+package org.example.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hàng đợi có giới hạn, không dùng khóa, dựa trên mảng vòng (thuật toán của Dmitry Vyukov).
+ *
+ * <p>Mỗi ô của mảng có một số thứ tự cho biết ô đang trống hay đã có dữ liệu ở vòng hiện tại, nên
+ * cả {@link #offer(Object)} và {@link #poll()} chỉ cần một phép compare-and-set, không cấp phát
+ * bộ nhớ và không bao giờ chặn luồng. Khi hàng đợi đầy, {@link #offer(Object)} trả về false để
+ * người gọi tự quyết định cách xử lý.
+ *
+ * @param <E> Kiểu phần tử.
+ */
+public final class RingBufferQueue<E> {
+
+  private final AtomicReferenceArray<E> buffer;
+  private final AtomicLongArray sequences;
+  private final int mask;
+
+  // Vị trí ghi tiếp theo (phía gửi) và vị trí đọc tiếp theo (phía nhận)
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * Tạo hàng đợi.
+   *
+   * @param capacity Sức chứa tối thiểu, được làm tròn lên lũy thừa của 2.
+   */
+  public RingBufferQueue(int capacity) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("Sức chứa phải lớn hơn 1");
+    }
+    int size = Integer.highestOneBit(capacity - 1) << 1;
+    this.buffer = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Thêm một phần tử vào cuối hàng đợi.
+   *
+   * @param element Phần tử (khác null).
+   * @return true nếu đã thêm, false nếu hàng đợi đầy.
+   */
+  public boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          buffer.lazySet(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Lấy và xóa phần tử ở đầu hàng đợi.
+   *
+   * @return Phần tử, hoặc null nếu hàng đợi rỗng.
+   */
+  public E poll() {
+    long position = head.get();
+    while (true) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          E element = buffer.get(index);
+          buffer.lazySet(index, null);
+          sequences.set(index, position + mask + 1);
+          return element;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        return null;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  /**
+   * Chuyển tối đa {@code maxElements} phần tử sang một collection.
+   *
+   * @param target Collection nhận phần tử.
+   * @param maxElements Số phần tử tối đa.
+   * @return Số phần tử đã chuyển.
+   */
+  public int drainTo(Collection<? super E> target, int maxElements) {
+    int count = 0;
+    E element;
+    while (count < maxElements && (element = poll()) != null) {
+      target.add(element);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Số phần tử hiện có (gần đúng khi có các luồng đang thêm hoặc lấy).
+   *
+   * @return Số phần tử.
+   */
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity()));
+  }
+
+  /**
+   * Sức chứa thực tế của hàng đợi.
+   *
+   * @return Sức chứa.
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+}
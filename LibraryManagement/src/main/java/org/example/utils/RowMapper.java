@@ -0,0 +1,54 @@
+package org.example.utils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chuyển dòng hiện tại của một {@link ResultSet} thành đối tượng.
+ *
+ * @param <T> Kiểu đối tượng kết quả.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+  /**
+   * Ánh xạ dòng hiện tại thành đối tượng. Không được gọi {@code next()} bên trong.
+   *
+   * @param resultSet ResultSet đang trỏ tới dòng cần ánh xạ.
+   * @return Đối tượng tương ứng với dòng.
+   * @throws SQLException nếu có lỗi khi đọc dữ liệu.
+   */
+  T map(ResultSet resultSet) throws SQLException;
+
+  /**
+   * Chuẩn bị ánh xạ cho một kết quả truy vấn cụ thể, gọi một lần trước dòng đầu tiên. Mặc định
+   * trả về chính nó; {@link CompiledRowMapper} dùng bước này để tra chỉ số cột một lần thay vì
+   * tra theo tên ở mỗi dòng.
+   *
+   * @param metaData Mô tả các cột của kết quả.
+   * @return Hàm ánh xạ dùng cho mọi dòng của kết quả này.
+   * @throws SQLException nếu kết quả thiếu cột cần thiết hoặc không đọc được mô tả cột.
+   */
+  default RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+    return this;
+  }
+
+  /**
+   * Ánh xạ mọi dòng còn lại của kết quả.
+   *
+   * @param resultSet ResultSet chưa đọc dòng nào.
+   * @return Danh sách đối tượng theo thứ tự dòng.
+   * @throws SQLException nếu có lỗi khi đọc dữ liệu.
+   */
+  default List<T> mapAll(ResultSet resultSet) throws SQLException {
+    RowMapper<T> row = bind(resultSet.getMetaData());
+    List<T> rows = new ArrayList<>();
+    while (resultSet.next()) {
+      rows.add(row.map(resultSet));
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,80 @@
+package org.example.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tiện ích nạp file schema SQL từ classpath và thực thi từng câu lệnh. */
+public final class SchemaLoader {
+
+  private SchemaLoader() {}
+
+  /**
+   * Nạp và thực thi file schema. Các câu lệnh quản lý database ({@code DROP DATABASE},
+   * {@code CREATE DATABASE}, {@code USE}) được bỏ qua vì kết nối đã trỏ tới database đích; chỉ
+   * mục {@code FULLTEXT} cũng được bỏ qua.
+   *
+   * @param connection Kết nối dùng để thực thi.
+   * @param resource Đường dẫn file schema trên classpath.
+   * @throws SQLException nếu không tìm thấy file hoặc câu lệnh thực thi thất bại.
+   */
+  public static void load(Connection connection, String resource) throws SQLException {
+    String script;
+    try (InputStream input = SchemaLoader.class.getResourceAsStream(resource)) {
+      if (input == null) {
+        throw new SQLException("Không tìm thấy file schema trên classpath: " + resource);
+      }
+      script = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new SQLException("Không thể đọc file schema: " + resource, e);
+    }
+
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : splitStatements(script)) {
+        if (!isDatabaseLevel(sql) && !isFullTextIndex(sql)) {
+          statement.execute(sql);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tách script thành các câu lệnh theo dấu chấm phẩy, bỏ các dòng chú thích {@code --}.
+   *
+   * @param script Nội dung script.
+   * @return Danh sách câu lệnh không rỗng.
+   */
+  static List<String> splitStatements(String script) {
+    StringBuilder cleaned = new StringBuilder();
+    for (String line : script.split("\\R")) {
+      if (!line.trim().startsWith("--")) {
+        cleaned.append(line).append('\n');
+      }
+    }
+    List<String> statements = new ArrayList<>();
+    for (String part : cleaned.toString().split(";")) {
+      String sql = part.trim();
+      if (!sql.isEmpty()) {
+        statements.add(sql);
+      }
+    }
+    return statements;
+  }
+
+  // Chỉ mục FULLTEXT là tính năng riêng của MySQL; backend nhúng tìm kiếm bằng LIKE thay thế
+  private static boolean isFullTextIndex(String sql) {
+    return sql.toUpperCase().startsWith("CREATE FULLTEXT");
+  }
+
+  private static boolean isDatabaseLevel(String sql) {
+    String upper = sql.toUpperCase();
+    return upper.startsWith("DROP DATABASE")
+        || upper.startsWith("CREATE DATABASE")
+        || upper.startsWith("USE ");
+  }
+}
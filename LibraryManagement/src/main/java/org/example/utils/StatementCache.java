@@ -0,0 +1,316 @@
+package org.example.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ nhớ đệm PreparedStatement của một kết nối vật lý, khóa theo nội dung câu SQL và giới hạn số
+ * câu lệnh theo LRU.
+ *
+ * <p>Các DAO chuẩn bị câu lệnh với SQL cố định rồi đóng ngay sau mỗi lần gọi; trên MySQL với
+ * {@code useServerPrepStmts} mỗi lần như vậy là một lượt phân tích câu lệnh trên máy chủ. Bộ nhớ
+ * đệm trả về một đối tượng đại diện cho câu lệnh đã chuẩn bị; {@code close()} trên đối tượng đó
+ * chỉ trả câu lệnh về bộ nhớ đệm. Các điều kiện để dùng lại an toàn:
+ *
+ * <ul>
+ *   <li>Mỗi câu lệnh chỉ được cho một người dùng tại một thời điểm; chuẩn bị cùng SQL khi bản lưu
+ *       đang được dùng sẽ nhận một câu lệnh riêng không lưu.
+ *   <li>Khi trả về, tham số, batch và cảnh báo được xóa, các ResultSet còn mở bị đóng, và câu lệnh
+ *       được bỏ đăng ký khỏi {@link CancellationToken} của tác vụ trước.
+ *   <li>Câu lệnh bị đổi cấu hình (setMaxRows, setQueryTimeout, setFetchSize...) hoặc thực thi lỗi
+ *       sẽ bị đóng thay vì dùng lại.
+ *   <li>Câu lệnh chưa được đóng khi kết nối trả về pool bị đóng hẳn, nên đối tượng đại diện cũ
+ *       không thể chạm vào kết nối đã cho người khác mượn.
+ * </ul>
+ *
+ * <p>Mỗi kết nối chỉ được một luồng dùng tại một thời điểm, khóa ở đây chỉ bảo vệ trước tác vụ
+ * dọn dẹp nền của pool.
+ */
+final class StatementCache {
+
+  /** Bộ đếm dùng chung cho mọi kết nối của một pool. */
+  static final class Counters {
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong evictions = new AtomicLong();
+    final AtomicLong discarded = new AtomicLong();
+    final AtomicLong bypassed = new AtomicLong();
+  }
+
+  private final Connection physical;
+  private final int capacity;
+  private final Counters counters;
+  // Thứ tự truy cập: phần tử đầu là câu lệnh lâu nhất chưa được dùng
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  StatementCache(Connection physical, int capacity, Counters counters) {
+    this.physical = physical;
+    this.capacity = capacity;
+    this.counters = counters;
+  }
+
+  /**
+   * Lấy câu lệnh cho SQL, dùng lại bản đã chuẩn bị nếu có và đang rảnh.
+   *
+   * @param sql Câu SQL.
+   * @param owner Kết nối đại diện mà người gọi đang giữ, trả về từ {@code getConnection()}.
+   * @return Câu lệnh; {@code close()} trả nó về bộ nhớ đệm.
+   * @throws SQLException nếu không thể chuẩn bị câu lệnh hoặc tác vụ hiện tại đã bị hủy.
+   */
+  PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+    Entry entry;
+    boolean shared;
+    synchronized (this) {
+      entry = entries.get(sql);
+      shared = entry != null && entry.inUse;
+      if (entry != null && !shared) {
+        entry.inUse = true;
+        counters.hits.incrementAndGet();
+      }
+    }
+    if (shared) {
+      // Bản lưu đang được dùng (ví dụ truy vấn lồng nhau cùng SQL): chuẩn bị riêng, không lưu
+      counters.bypassed.incrementAndGet();
+      PreparedStatement uncached = physical.prepareStatement(sql);
+      register(uncached);
+      return uncached;
+    }
+    if (entry == null) {
+      entry = new Entry(sql, physical.prepareStatement(sql));
+      entry.inUse = true;
+      counters.misses.incrementAndGet();
+      synchronized (this) {
+        entries.put(sql, entry);
+        evictOverflow();
+      }
+    }
+
+    CancellationToken token = CancellationToken.current();
+    if (token != null) {
+      try {
+        token.register(entry.statement);
+      } catch (SQLException e) {
+        // Token đã hủy và đóng câu lệnh, không thể giữ lại nữa
+        discard(entry);
+        throw e;
+      }
+    }
+    return (PreparedStatement)
+        Proxy.newProxyInstance(
+            StatementCache.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new Lease(entry, owner, token));
+  }
+
+  /**
+   * Đóng hẳn các câu lệnh người dùng chưa đóng, gọi khi kết nối được trả về pool.
+   */
+  void releaseLeases() {
+    List<Entry> leaked = new ArrayList<>();
+    synchronized (this) {
+      for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+        Entry entry = it.next();
+        if (entry.inUse) {
+          it.remove();
+          entry.removed = true;
+          leaked.add(entry);
+        }
+      }
+    }
+    for (Entry entry : leaked) {
+      counters.discarded.incrementAndGet();
+      closeQuietly(entry.statement);
+    }
+  }
+
+  /** Đóng mọi câu lệnh, gọi trước khi đóng kết nối vật lý. */
+  void close() {
+    List<Entry> all;
+    synchronized (this) {
+      all = new ArrayList<>(entries.values());
+      all.forEach(entry -> entry.removed = true);
+      entries.clear();
+    }
+    all.forEach(entry -> closeQuietly(entry.statement));
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  // Đóng các câu lệnh rảnh lâu nhất chưa dùng cho tới khi về lại giới hạn
+  private void evictOverflow() {
+    Iterator<Entry> it = entries.values().iterator();
+    while (entries.size() > capacity && it.hasNext()) {
+      Entry eldest = it.next();
+      if (eldest.inUse) {
+        continue;
+      }
+      it.remove();
+      eldest.removed = true;
+      counters.evictions.incrementAndGet();
+      closeQuietly(eldest.statement);
+    }
+  }
+
+  // Nhận lại câu lệnh từ người dùng: dọn trạng thái để dùng lại, hoặc đóng nếu không an toàn
+  private void checkIn(Lease lease) {
+    Entry entry = lease.entry;
+    if (lease.token != null) {
+      lease.token.unregister(entry.statement);
+    }
+    for (ResultSet resultSet : lease.resultSets) {
+      closeQuietly(resultSet);
+    }
+    synchronized (this) {
+      if (entry.removed) {
+        // Đã bị loại (và đóng) khi kết nối trả về pool hoặc khi vượt giới hạn lúc đang mượn
+        entry.inUse = false;
+        closeQuietly(entry.statement);
+        return;
+      }
+    }
+    boolean reusable = !lease.dirty;
+    if (reusable) {
+      try {
+        entry.statement.clearParameters();
+        if (lease.batched) {
+          entry.statement.clearBatch();
+        }
+        entry.statement.clearWarnings();
+      } catch (SQLException e) {
+        reusable = false;
+      }
+    }
+    if (!reusable) {
+      discard(entry);
+      return;
+    }
+    synchronized (this) {
+      entry.inUse = false;
+      evictOverflow();
+    }
+  }
+
+  private void discard(Entry entry) {
+    synchronized (this) {
+      entry.inUse = false;
+      if (entry.removed) {
+        return;
+      }
+      entries.remove(entry.sql);
+      entry.removed = true;
+    }
+    counters.discarded.incrementAndGet();
+    closeQuietly(entry.statement);
+  }
+
+  private static void register(Statement statement) throws SQLException {
+    CancellationToken token = CancellationToken.current();
+    if (token != null) {
+      token.register(statement);
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable resource) {
+    try {
+      resource.close();
+    } catch (Exception e) {
+      // Câu lệnh hoặc kết nối đã đóng, không còn gì để dọn
+    }
+  }
+
+  /** Một câu lệnh đã chuẩn bị cùng trạng thái cho mượn. */
+  private static final class Entry {
+    private final String sql;
+    private final PreparedStatement statement;
+    private boolean inUse;
+    // Đã bị loại khỏi bộ nhớ đệm, phải đóng hẳn khi người dùng trả về
+    private boolean removed;
+
+    private Entry(String sql, PreparedStatement statement) {
+      this.sql = sql;
+      this.statement = statement;
+    }
+  }
+
+  /**
+   * Một lần cho mượn câu lệnh. Mỗi lần mượn có đối tượng đại diện riêng, nên đối tượng đã đóng
+   * không thể dùng lại câu lệnh đang thuộc về người khác.
+   */
+  private final class Lease implements InvocationHandler {
+    private final Entry entry;
+    private final Connection owner;
+    private final CancellationToken token;
+    private final List<ResultSet> resultSets = new ArrayList<>();
+    private boolean closed;
+    private boolean dirty;
+    private boolean batched;
+
+    private Lease(Entry entry, Connection owner, CancellationToken token) {
+      this.entry = entry;
+      this.owner = owner;
+      this.token = token;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      switch (name) {
+        case "close":
+          if (!closed) {
+            closed = true;
+            checkIn(this);
+          }
+          return null;
+        case "isClosed":
+          return closed || entry.statement.isClosed();
+        case "getConnection":
+          return owner;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "CachedStatement[" + entry.sql + "]";
+        default:
+          break;
+      }
+      if (closed) {
+        throw new SQLException("Câu lệnh đã được đóng");
+      }
+      // Cấu hình đặt trên Statement (không phải tham số) sẽ lọt sang người dùng sau
+      if (method.getDeclaringClass() == Statement.class
+          && (name.startsWith("set") || name.equals("closeOnCompletion"))) {
+        dirty = true;
+      } else if (name.equals("addBatch")) {
+        batched = true;
+      }
+      Object result;
+      try {
+        result = method.invoke(entry.statement, args);
+      } catch (InvocationTargetException e) {
+        if (name.startsWith("execute")) {
+          dirty = true;
+        }
+        throw e.getCause();
+      }
+      if (result instanceof ResultSet) {
+        resultSets.add((ResultSet) result);
+      }
+      return result;
+    }
+  }
+}
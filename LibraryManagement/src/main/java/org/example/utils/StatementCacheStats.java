@@ -0,0 +1,35 @@
+package org.example.utils;
+
+/**
+ * Ảnh chụp các chỉ số bộ nhớ đệm PreparedStatement của {@link ConnectionPool} tại một thời điểm,
+ * cộng dồn trên mọi kết nối của pool.
+ *
+ * @param capacity Số câu lệnh tối đa được giữ cho mỗi kết nối; 0 nếu bộ nhớ đệm bị tắt.
+ * @param cached Số câu lệnh đang được giữ trên các kết nối hiện có.
+ * @param hits Số lần dùng lại một câu lệnh đã chuẩn bị.
+ * @param misses Số lần phải chuẩn bị câu lệnh mới rồi đưa vào bộ nhớ đệm.
+ * @param evictions Số câu lệnh bị đóng do vượt giới hạn LRU.
+ * @param discarded Số câu lệnh bị đóng thay vì dùng lại vì không còn an toàn (đổi cấu hình câu
+ *     lệnh, thực thi lỗi, hoặc chưa đóng khi kết nối được trả về pool).
+ * @param bypassed Số lần câu lệnh cùng SQL đang được dùng trên kết nối nên phải chuẩn bị riêng
+ *     một câu lệnh không lưu.
+ */
+public record StatementCacheStats(
+    int capacity,
+    int cached,
+    long hits,
+    long misses,
+    long evictions,
+    long discarded,
+    long bypassed) {
+
+  /**
+   * Tỉ lệ lần chuẩn bị câu lệnh được phục vụ từ bộ nhớ đệm.
+   *
+   * @return Tỉ lệ trúng trong khoảng [0, 1].
+   */
+  public double hitRate() {
+    long requests = hits + misses + bypassed;
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+}
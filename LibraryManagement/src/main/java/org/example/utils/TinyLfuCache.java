@@ -0,0 +1,404 @@
+package org.example.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Bộ nhớ đệm có giới hạn kích thước, dùng chính sách W-TinyLFU.
+ *
+ * <p>Phần tử mới vào một cửa sổ LRU nhỏ (1% sức chứa). Phần tử bị đẩy khỏi cửa sổ chỉ được nhận
+ * vào vùng chính (SLRU gồm vùng thử và vùng bảo vệ) nếu tần suất truy cập ước lượng của nó lớn hơn
+ * phần tử sắp bị loại của vùng chính. Tần suất được ước lượng bằng một Count-Min Sketch 4 hàng với
+ * bộ đếm tối đa 15, các bộ đếm được chia đôi định kỳ để quên dần lịch sử cũ.
+ *
+ * <p>Đọc không cần khóa (tra trong ConcurrentHashMap); việc cập nhật thứ tự LRU khi đọc chỉ được
+ * thực hiện nếu lấy được khóa ngay, nếu không thì bỏ qua, giống bộ đệm đọc có mất mát của Caffeine.
+ *
+ * @param <K> Kiểu khóa.
+ * @param <V> Kiểu giá trị.
+ */
+public final class TinyLfuCache<K, V> {
+
+  /**
+   * Các chỉ số của bộ nhớ đệm.
+   *
+   * @param hits Số lần tìm thấy.
+   * @param misses Số lần không tìm thấy.
+   * @param evictions Số phần tử bị loại do vượt sức chứa.
+   * @param expirations Số phần tử bị loại do hết hạn.
+   * @param size Số phần tử hiện có.
+   */
+  public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+
+    /**
+     * Tỉ lệ tìm thấy.
+     *
+     * @return Giá trị từ 0 đến 1.
+     */
+    public double hitRate() {
+      long requests = hits + misses;
+      return requests == 0 ? 0 : (double) hits / requests;
+    }
+  }
+
+  // Vùng chứa của một nút
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+  private final ReentrantLock policyLock = new ReentrantLock();
+  private final FrequencySketch sketch;
+  private final long ttlNanos;
+  private final BiConsumer<K, V> removalListener;
+
+  private final int windowMaximum;
+  private final int protectedMaximum;
+  private final int maximumSize;
+
+  // Danh sách LRU của từng vùng, đầu danh sách là phần tử lâu nhất chưa dùng
+  private final LinkedList<K, V> window = new LinkedList<>();
+  private final LinkedList<K, V> probation = new LinkedList<>();
+  private final LinkedList<K, V> protectedList = new LinkedList<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+
+  /**
+   * Tạo bộ nhớ đệm.
+   *
+   * @param maximumSize Số phần tử tối đa.
+   * @param ttlNanos Thời gian sống của một phần tử tính từ lúc ghi (nano giây), 0 nếu không hết hạn.
+   * @param removalListener Được gọi khi một phần tử bị loại hoặc xóa (không gọi khi giá trị bị
+   *     thay thế), có thể null.
+   */
+  public TinyLfuCache(int maximumSize, long ttlNanos, BiConsumer<K, V> removalListener) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Sức chứa phải lớn hơn 0");
+    }
+    this.maximumSize = maximumSize;
+    this.windowMaximum = Math.max(1, maximumSize / 100);
+    int mainMaximum = Math.max(1, maximumSize - windowMaximum);
+    this.protectedMaximum = Math.max(1, mainMaximum * 4 / 5);
+    this.ttlNanos = ttlNanos;
+    this.removalListener = removalListener;
+    this.sketch = new FrequencySketch(maximumSize);
+  }
+
+  /**
+   * Lấy giá trị của một khóa.
+   *
+   * @param key Khóa cần tìm.
+   * @return Giá trị, hoặc null nếu không có hoặc đã hết hạn.
+   */
+  public V getIfPresent(K key) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      misses.incrementAndGet();
+      recordFrequency(key);
+      return null;
+    }
+    if (ttlNanos > 0 && System.nanoTime() - node.writeNanos > ttlNanos) {
+      if (remove(node)) {
+        expirations.incrementAndGet();
+      }
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    if (policyLock.tryLock()) {
+      try {
+        sketch.increment(key.hashCode());
+        onAccess(node);
+      } finally {
+        policyLock.unlock();
+      }
+    }
+    return node.value;
+  }
+
+  /**
+   * Thêm hoặc thay thế giá trị của một khóa.
+   *
+   * @param key Khóa.
+   * @param value Giá trị (khác null).
+   */
+  public void put(K key, V value) {
+    policyLock.lock();
+    try {
+      Node<K, V> node = data.get(key);
+      if (node != null) {
+        node.value = value;
+        node.writeNanos = System.nanoTime();
+        sketch.increment(key.hashCode());
+        onAccess(node);
+        return;
+      }
+      node = new Node<>(key, value);
+      data.put(key, node);
+      sketch.increment(key.hashCode());
+      node.queue = WINDOW;
+      window.addLast(node);
+      evict();
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /**
+   * Xóa một khóa.
+   *
+   * @param key Khóa cần xóa.
+   */
+  public void invalidate(K key) {
+    Node<K, V> node = data.get(key);
+    if (node != null) {
+      remove(node);
+    }
+  }
+
+  /** Xóa mọi phần tử. */
+  public void invalidateAll() {
+    for (Node<K, V> node : data.values()) {
+      remove(node);
+    }
+  }
+
+  /**
+   * Lấy các chỉ số hiện tại.
+   *
+   * @return Ảnh chụp các chỉ số.
+   */
+  public Stats getStats() {
+    return new Stats(hits.get(), misses.get(), evictions.get(), expirations.get(), data.size());
+  }
+
+  /**
+   * Số phần tử tối đa.
+   *
+   * @return Sức chứa.
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  private void recordFrequency(K key) {
+    if (policyLock.tryLock()) {
+      try {
+        sketch.increment(key.hashCode());
+      } finally {
+        policyLock.unlock();
+      }
+    }
+  }
+
+  private boolean remove(Node<K, V> node) {
+    policyLock.lock();
+    try {
+      if (!data.remove(node.key, node)) {
+        return false;
+      }
+      unlink(node);
+    } finally {
+      policyLock.unlock();
+    }
+    if (removalListener != null) {
+      removalListener.accept(node.key, node.value);
+    }
+    return true;
+  }
+
+  // Các phương thức dưới đây được gọi khi đang giữ policyLock
+
+  private void onAccess(Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW -> window.moveToLast(node);
+      case PROBATION -> {
+        // Được dùng lại khi đang ở vùng thử: chuyển lên vùng bảo vệ
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedList.addLast(node);
+        if (protectedList.size > protectedMaximum) {
+          Node<K, V> demoted = protectedList.removeFirst();
+          demoted.queue = PROBATION;
+          probation.addLast(demoted);
+        }
+      }
+      case PROTECTED -> protectedList.moveToLast(node);
+      default -> { }
+    }
+  }
+
+  private void unlink(Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW -> window.remove(node);
+      case PROBATION -> probation.remove(node);
+      case PROTECTED -> protectedList.remove(node);
+      default -> { }
+    }
+    node.queue = -1;
+  }
+
+  private void evict() {
+    // Đẩy các phần tử thừa của cửa sổ sang vùng thử, chúng là ứng viên vào vùng chính
+    while (window.size > windowMaximum) {
+      Node<K, V> candidate = window.removeFirst();
+      candidate.queue = PROBATION;
+      probation.addLast(candidate);
+    }
+    while (data.size() > maximumSize) {
+      // Ứng viên là phần tử mới nhất của vùng thử, nạn nhân là phần tử cũ nhất của vùng chính
+      Node<K, V> candidate = probation.last;
+      Node<K, V> victim = probation.first;
+      if (victim == candidate) {
+        victim = protectedList.first;
+      }
+      Node<K, V> evicted;
+      if (candidate == null) {
+        evicted = victim != null ? victim : window.first;
+      } else if (victim == null) {
+        evicted = candidate;
+      } else {
+        // Chỉ nhận ứng viên nếu nó được dùng thường xuyên hơn nạn nhân
+        evicted =
+            sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())
+                ? victim
+                : candidate;
+      }
+      if (evicted == null) {
+        return;
+      }
+      data.remove(evicted.key, evicted);
+      unlink(evicted);
+      evictions.incrementAndGet();
+      if (removalListener != null) {
+        removalListener.accept(evicted.key, evicted.value);
+      }
+    }
+  }
+
+  /** Một phần tử của bộ nhớ đệm, đồng thời là nút của danh sách LRU. */
+  private static final class Node<K, V> {
+    final K key;
+    volatile V value;
+    volatile long writeNanos;
+    int queue;
+    Node<K, V> prev;
+    Node<K, V> next;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+      this.writeNanos = System.nanoTime();
+    }
+  }
+
+  /** Danh sách liên kết đôi của các nút, không cấp phát thêm khi di chuyển. */
+  private static final class LinkedList<K, V> {
+    Node<K, V> first;
+    Node<K, V> last;
+    int size;
+
+    void addLast(Node<K, V> node) {
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+      size++;
+    }
+
+    Node<K, V> removeFirst() {
+      Node<K, V> node = first;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void remove(Node<K, V> node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      size--;
+    }
+
+    void moveToLast(Node<K, V> node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+  }
+
+  /** Count-Min Sketch 4 hàng, mỗi bộ đếm 4 bit (tối đa 15). */
+  private static final class FrequencySketch {
+    private static final int[] SEEDS = {0x97cb3127, 0xb7bc3a1d, 0x2f4d5e47, 0x8d1e7f23};
+    private static final int MAX_COUNT = 15;
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+      int width = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+      this.table = new byte[SEEDS.length][width];
+      this.mask = width - 1;
+      this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    int frequency(int hash) {
+      int frequency = MAX_COUNT;
+      for (int i = 0; i < SEEDS.length; i++) {
+        frequency = Math.min(frequency, table[i][index(hash, i)]);
+      }
+      return frequency;
+    }
+
+    void increment(int hash) {
+      boolean added = false;
+      for (int i = 0; i < SEEDS.length; i++) {
+        int index = index(hash, i);
+        if (table[i][index] < MAX_COUNT) {
+          table[i][index]++;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    // Chia đôi mọi bộ đếm để tần suất cũ giảm dần ảnh hưởng
+    private void reset() {
+      for (byte[] row : table) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = (byte) (row[i] >>> 1);
+        }
+      }
+      additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+      int h = (hash ^ (hash >>> 16)) * SEEDS[row];
+      return (h ^ (h >>> 15)) & mask;
+    }
+  }
+}
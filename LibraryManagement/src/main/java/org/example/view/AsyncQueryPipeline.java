@@ -0,0 +1,218 @@
+package org.example.view;
+
+import javafx.application.Platform;
+import org.example.utils.CancellationToken;
+import org.example.utils.ExecutorRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Chạy các truy vấn của giao diện ở luồng nền để không chặn luồng JavaFX.
+ *
+ * <p>Mỗi truy vấn mới thay thế truy vấn trước đó: truy vấn đang chờ hết thời gian trễ (debounce) bị
+ * bỏ, truy vấn đang chạy bị hủy (kể cả câu lệnh JDBC, thông qua {@link CancellationToken}) và kết
+ * quả cũ không bao giờ được hiển thị. Kết quả của truy vấn mới nhất được trả về luồng JavaFX bằng
+ * {@link Platform#runLater(Runnable)}, hoặc qua executor được truyền vào constructor.
+ *
+ * @param <R> Kiểu kết quả của truy vấn.
+ */
+public class AsyncQueryPipeline<R> implements AutoCloseable {
+
+    /**
+     * Các chỉ số của pipeline.
+     *
+     * @param submitted Số truy vấn đã gửi.
+     * @param completed Số truy vấn có kết quả được hiển thị.
+     * @param dropped Số truy vấn bị bỏ trước khi chạy hoặc có kết quả đã cũ.
+     * @param cancelled Số truy vấn bị hủy khi đang chạy.
+     * @param failed Số truy vấn bị lỗi.
+     * @param lastLatencyMillis Thời gian chạy của truy vấn hoàn thành gần nhất (mili giây).
+     */
+    public record Stats(long submitted, long completed, long dropped, long cancelled, long failed,
+                        long lastLatencyMillis) {
+    }
+
+    // Luồng hẹn giờ debounce dùng chung cho mọi pipeline, chỉ chuyển truy vấn sang executor
+    private static final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(daemon("query-debounce"));
+
+    private final long debounceMillis;
+    private final Consumer<R> onResult;
+    private final Consumer<Throwable> onError;
+    private final Executor resultExecutor;
+
+    // Thế hệ của truy vấn mới nhất, kết quả của thế hệ cũ hơn bị bỏ
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastLatencyMillis;
+
+    private ScheduledFuture<?> pending;
+    private Future<?> running;
+    private CancellationToken runningToken;
+
+    /**
+     * Tạo một pipeline.
+     *
+     * @param debounce Thời gian chờ sau lần gửi cuối cùng trước khi chạy truy vấn.
+     * @param onResult Xử lý kết quả, chạy trên luồng JavaFX.
+     * @param onError Xử lý lỗi, chạy trên luồng JavaFX.
+     */
+    public AsyncQueryPipeline(Duration debounce, Consumer<R> onResult,
+                              Consumer<Throwable> onError) {
+        this(debounce, onResult, onError, Platform::runLater);
+    }
+
+    /**
+     * Tạo một pipeline trả kết quả qua một executor cho trước thay vì luồng JavaFX.
+     *
+     * @param debounce Thời gian chờ sau lần gửi cuối cùng trước khi chạy truy vấn.
+     * @param onResult Xử lý kết quả, chạy trên resultExecutor.
+     * @param onError Xử lý lỗi, chạy trên resultExecutor.
+     * @param resultExecutor Executor nhận kết quả và lỗi, chạy lần lượt từng tác vụ.
+     */
+    public AsyncQueryPipeline(Duration debounce, Consumer<R> onResult, Consumer<Throwable> onError,
+                              Executor resultExecutor) {
+        this.debounceMillis = debounce.toMillis();
+        this.onResult = onResult;
+        this.onError = onError;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Gửi truy vấn, chạy sau thời gian debounce nếu không có truy vấn nào mới hơn.
+     *
+     * @param query Truy vấn cần chạy.
+     */
+    public void submit(Callable<R> query) {
+        schedule(query, debounceMillis);
+    }
+
+    /**
+     * Gửi truy vấn và chạy ngay, không chờ debounce (ví dụ khi nhấn nút tìm kiếm).
+     *
+     * @param query Truy vấn cần chạy.
+     */
+    public void submitNow(Callable<R> query) {
+        schedule(query, 0);
+    }
+
+    /**
+     * Bỏ truy vấn đang chờ và hủy truy vấn đang chạy.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        supersede();
+    }
+
+    /**
+     * Lấy các chỉ số hiện tại.
+     *
+     * @return Ảnh chụp các chỉ số.
+     */
+    public Stats getStats() {
+        return new Stats(submitted.get(), completed.get(), dropped.get(), cancelled.get(),
+                failed.get(), lastLatencyMillis);
+    }
+
+    /**
+     * Hủy mọi truy vấn của pipeline. Các luồng dùng chung không bị dừng.
+     */
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    private synchronized void schedule(Callable<R> query, long delayMillis) {
+        submitted.incrementAndGet();
+        long gen = generation.incrementAndGet();
+        supersede();
+        pending = timer.schedule(() -> start(gen, query), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Bỏ truy vấn đang chờ và hủy truy vấn đang chạy, gọi khi đang giữ khóa
+    private void supersede() {
+        if (pending != null && pending.cancel(false)) {
+            dropped.incrementAndGet();
+        }
+        pending = null;
+        if (running != null && !running.isDone()) {
+            runningToken.cancel();
+            running.cancel(true);
+            cancelled.incrementAndGet();
+        }
+        running = null;
+        runningToken = null;
+    }
+
+    private synchronized void start(long gen, Callable<R> query) {
+        if (gen != generation.get()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        pending = null;
+        CancellationToken token = new CancellationToken();
+        runningToken = token;
+        // Truy vấn chạy trên executor cơ sở dữ liệu có giới hạn của ExecutorRegistry
+        running = ExecutorRegistry.getInstance().database()
+                .submit(() -> execute(gen, token, query));
+    }
+
+    private void execute(long gen, CancellationToken token, Callable<R> query) {
+        long start = System.nanoTime();
+        try {
+            R result = CancellationToken.call(token, query);
+            deliver(gen, token, () -> {
+                lastLatencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                completed.incrementAndGet();
+                onResult.accept(result);
+            });
+        } catch (InterruptedException | CancellationException e) {
+            // Đã được đếm trong supersede()
+        } catch (Exception e) {
+            if (token.isCancelled()) {
+                // Lỗi do câu lệnh JDBC bị hủy, đã được đếm trong supersede()
+                return;
+            }
+            deliver(gen, token, () -> {
+                failed.incrementAndGet();
+                onError.accept(e);
+            });
+        }
+    }
+
+    // Chỉ hiển thị kết quả nếu truy vấn vẫn là truy vấn mới nhất khi tới lượt luồng JavaFX
+    private void deliver(long gen, CancellationToken token, Runnable action) {
+        resultExecutor.execute(() -> {
+            if (gen == generation.get() && !token.isCancelled()) {
+                action.run();
+            } else {
+                dropped.incrementAndGet();
+            }
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,13 +1,20 @@
 package org.example.view;
 
+import java.awt.image.BufferedImage;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.example.controllers.BorrowedBookController;
 import org.example.controllers.ReviewController;
 import org.example.models.BookEntity;
 import org.example.models.ReviewEntity;
+import org.example.services.advanced.BookDetailLoader;
+import org.example.services.advanced.BookDetailLoader.BookDetails;
+import org.example.services.advanced.BookDetailLoader.BorrowStatus;
+import org.example.services.advanced.BookDetailLoader.Part;
+import org.example.utils.Page;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -15,6 +22,9 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextInputDialog;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.stage.Stage;
 
 public class BookView {
@@ -37,6 +47,15 @@ public class BookView {
     @FXML
     private Label lblQuantity;
 
+    @FXML
+    private Label lblRating;
+
+    @FXML
+    private Label lblBorrowStatus;
+
+    @FXML
+    private ImageView imgQrCode;
+
     @FXML
     private ListView<String> reviewList;
 
@@ -55,29 +74,111 @@ public class BookView {
     private BookEntity currentBook;
     private ReviewController reviewController = new ReviewController();
     private BorrowedBookController borrowedBookController = new BorrowedBookController();
+    private BookDetailLoader detailLoader = new BookDetailLoader();
+
+    // Lượt tải chi tiết đang chạy, hủy khi rời màn hình hoặc chuyển sang sách khác
+    private CompletableFuture<BookDetails> loading;
 
     public void setBookData(BookEntity book) {
         this.currentBook = book;
 
+        // Vẽ ngay thông tin đã có từ danh sách, các phần còn lại hiện dần khi tải xong
+        showBook(book);
+        lblRating.setText("Đang tải...");
+        lblBorrowStatus.setText("Đang tải...");
+        imgQrCode.setImage(null);
+        reviewList.getItems().setAll("Đang tải đánh giá...");
+
+        close();
+        loading = detailLoader.load(book, new BookDetailLoader.Listener() {
+            @Override
+            public void onBook(BookEntity latest) {
+                if (latest != null) {
+                    Platform.runLater(() -> {
+                        currentBook = latest;
+                        showBook(latest);
+                    });
+                }
+            }
+
+            @Override
+            public void onReviews(Page<ReviewEntity> reviews) {
+                Platform.runLater(() -> showReviews(reviews));
+            }
+
+            @Override
+            public void onAverageRating(Double averageRating) {
+                Platform.runLater(() -> lblRating.setText(averageRating == null || averageRating == 0
+                        ? "Chưa có đánh giá"
+                        : String.format("%.1f / 5", averageRating)));
+            }
+
+            @Override
+            public void onBorrowStatus(BorrowStatus status) {
+                Platform.runLater(() -> lblBorrowStatus.setText(switch (status) {
+                    case NOT_BORROWED -> "Bạn chưa mượn sách này";
+                    case BORROWED -> "Bạn đang mượn sách này";
+                    case OVERDUE -> "Bạn đang mượn sách này (quá hạn trả)";
+                }));
+            }
+
+            @Override
+            public void onQrCode(BufferedImage image) {
+                Platform.runLater(() -> imgQrCode.setImage(toFxImage(image)));
+            }
+
+            @Override
+            public void onFailure(Part part, Throwable error) {
+                Platform.runLater(() -> {
+                    switch (part) {
+                        case REVIEWS -> reviewList.getItems().setAll("Không tải được đánh giá.");
+                        case AVERAGE_RATING -> lblRating.setText("Không tải được");
+                        case BORROW_STATUS -> lblBorrowStatus.setText("Không tải được");
+                        default -> {
+                            // Thông tin sách đã hiện từ danh sách, thiếu mã QR thì để trống
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Hủy lượt tải chi tiết đang chạy, gọi khi đóng màn hình.
+     */
+    public void close() {
+        if (loading != null) {
+            loading.cancel(true);
+        }
+    }
+
+    private void showBook(BookEntity book) {
         lblIsbn.setText(book.getIsbn());
         lblTitle.setText(book.getTitle());
         lblAuthor.setText(book.getAuthorName());
         lblCategory.setText(book.getCategory());
         lblPublisher.setText(book.getPublisherName());
         lblQuantity.setText(String.valueOf(book.getQuantity()));
-
-        // Hiển thị đánh giá của cuốn sách
-        showReviews(book.getId());
     }
 
-    private void showReviews(int bookId) {
-        List<ReviewEntity> reviews = reviewController.getReviewsByBookId(bookId);
+    private void showReviews(Page<ReviewEntity> reviews) {
         reviewList.getItems().clear();
-        for (ReviewEntity review : reviews) {
+        for (ReviewEntity review : reviews.getItems()) {
             reviewList.getItems().add(review.getComment());
         }
     }
 
+    // Chép điểm ảnh sang ảnh JavaFX (ứng dụng không dùng module javafx-swing)
+    private static WritableImage toFxImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+        WritableImage fxImage = new WritableImage(width, height);
+        fxImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(),
+                argb, 0, width);
+        return fxImage;
+    }
+
     @FXML
     private void handleAddReview() {
         // Mở dialog cho người dùng nhập bình luận và điểm đánh giá
@@ -97,7 +198,8 @@ public class BookView {
         // Thêm đánh giá
         reviewController.addReview(currentBook.getId(), rating, comment);
         showAlert("Thành công", "Đánh giá đã được thêm thành công.", Alert.AlertType.INFORMATION);
-        showReviews(currentBook.getId()); // Cập nhật lại danh sách đánh giá
+        // Tải lại đánh giá và điểm trung bình
+        setBookData(currentBook);
     }
 
 
@@ -143,7 +245,8 @@ public class BookView {
 
     @FXML
     private void onBackButtonClick() {
-        // Đóng cửa sổ hiện tại
+        // Đóng cửa sổ hiện tại, các phần chưa tải xong không còn cần nữa
+        close();
         Stage stage = (Stage) btnBack.getScene().getWindow();
         stage.close();
     }
@@ -1,88 +1,81 @@
 package org.example.view;
 
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
-import org.example.daos.implementations.BorrowedBookDaoImpl;
-import org.example.daos.implementations.ReadBookDaoImpl;
-import org.example.models.BorrowedBookEntity;
-import org.example.models.ReadBookEntity;
+import org.example.controllers.BorrowedBookController;
+import org.example.controllers.ReadBookController;
+import org.example.models.BorrowedBookRow;
+import org.example.models.ReadBookRow;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class Bookshelf {
 
     @FXML
-    private TableView<BorrowedBookEntity> borrowedBooksTable;
+    private TableView<BorrowedBookRow> borrowedBooksTable;
 
     @FXML
-    private TableView<ReadBookEntity> readBooksTable;
+    private TableView<ReadBookRow> readBooksTable;
 
     @FXML
-    private TableColumn<BorrowedBookEntity, String> bookTitleColumn;
+    private TableColumn<BorrowedBookRow, String> bookTitleColumn;
     
     @FXML
-    private TableColumn<BorrowedBookEntity, LocalDate> borrowDateColumn;
+    private TableColumn<BorrowedBookRow, LocalDate> borrowDateColumn;
 
     @FXML
-    private TableColumn<BorrowedBookEntity, LocalDate> returnDateColumn;
+    private TableColumn<BorrowedBookRow, LocalDate> returnDateColumn;
 
     @FXML
-    private TableColumn<ReadBookEntity, String> readBookTitleColumn;
+    private TableColumn<ReadBookRow, String> readBookTitleColumn;
     
     @FXML
-    private TableColumn<ReadBookEntity, LocalDate> readDateColumn;
+    private TableColumn<ReadBookRow, String> readAuthorColumn;
 
-    private BorrowedBookDaoImpl borrowedBookDao = new BorrowedBookDaoImpl();
-    private ReadBookDaoImpl readBookDao = new ReadBookDaoImpl();
-
-    private String userName;
-
-    public Bookshelf() {}
-
-    public Bookshelf(String userName) {
-        this.userName = userName;
-    }
+    private BorrowedBookController borrowedBookController = new BorrowedBookController();
+    private ReadBookController readBookController = new ReadBookController();
 
     @FXML
     public void initialize() {
-        bookTitleColumn.setCellValueFactory(new PropertyValueFactory<>("bookTitle"));
-        borrowDateColumn.setCellValueFactory(new PropertyValueFactory<>("borrowDate"));
-        returnDateColumn.setCellValueFactory(new PropertyValueFactory<>("returnDate"));
+        // Các cột đọc thẳng từ dòng hiển thị, không cần tra cứu thêm hay phản chiếu
+        bind(bookTitleColumn, BorrowedBookRow::bookTitle);
+        bind(borrowDateColumn, BorrowedBookRow::borrowDate);
+        bind(returnDateColumn, BorrowedBookRow::returnDate);
 
-        readBookTitleColumn.setCellValueFactory(new PropertyValueFactory<>("bookTitle"));
-        readDateColumn.setCellValueFactory(new PropertyValueFactory<>("readDate"));
+        bind(readBookTitleColumn, ReadBookRow::bookTitle);
+        bind(readAuthorColumn, ReadBookRow::authorName);
 
-        loadBorrowedBooks();
-        loadReadBooks();
+        // Hai truy vấn chạy song song nên màn hình chỉ chờ một lượt truy vấn
+        show(borrowedBookController.getBorrowedBookRowsAsync(), borrowedBooksTable);
+        show(readBookController.getReadBookRowsAsync(), readBooksTable);
     }
 
-    private void loadBorrowedBooks() {
-        try {
-            List<BorrowedBookEntity> borrowedBooks = borrowedBookDao.findAllBorrowedBooksByUser(userName);
-            borrowedBooksTable.getItems().setAll(borrowedBooks);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private static <S, T> void bind(TableColumn<S, T> column, Function<S, T> value) {
+        column.setCellValueFactory(
+                cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
     }
 
-    private void loadReadBooks() {
-        try {
-            List<ReadBookEntity> readBooks = readBookDao.findReadBooks(userName);
-            readBooksTable.getItems().setAll(readBooks);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    // Đưa kết quả lên bảng trên luồng giao diện khi truy vấn xong
+    private static <S> void show(CompletableFuture<List<S>> rows, TableView<S> table) {
+        rows.whenComplete((items, error) -> {
+            if (error != null) {
+                System.out.println("Không thể tải tủ sách: " + error.getMessage());
+                return;
+            }
+            Platform.runLater(() -> table.getItems().setAll(items));
+        });
     }
 
     @FXML
@@ -11,13 +11,15 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import org.example.models.BookEntity;
+import org.example.models.BookField;
 import org.example.services.basics.BookService;
+import org.example.services.advanced.AutocompleteEngine;
 import org.example.services.advanced.SearchService;
+import org.example.utils.Page;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class LibraryView {
 
@@ -57,11 +59,37 @@ public class LibraryView {
     @FXML
     private ListView<String> suggestionsList;
 
+    @FXML
+    private Button btnLoadMore;
+
+    // Số sách tải mỗi lần, danh mục lớn được tải dần theo trang thay vì cả bảng
+    private static final int PAGE_SIZE = 100;
+
     private final BookService bookService = new BookService();
     private final SearchService searchService = new SearchService();
+    private final AutocompleteEngine autocompleteEngine = AutocompleteEngine.getInstance();
+
+    // Gợi ý và tìm kiếm chạy ngoài luồng JavaFX, truy vấn mới thay thế truy vấn cũ
+    private final AsyncQueryPipeline<List<String>> suggestionPipeline = new AsyncQueryPipeline<>(
+            Duration.ofMillis(150),
+            this::showSuggestions,
+            e -> {
+                suggestionsList.setVisible(false);
+                e.printStackTrace();
+            });
+    private final AsyncQueryPipeline<List<BookEntity>> searchPipeline = new AsyncQueryPipeline<>(
+            Duration.ZERO,
+            this::showSearchResults,
+            e -> {
+                lblStatus.setText("Lỗi khi tìm kiếm.");
+                e.printStackTrace();
+            });
 
     private ObservableList<BookEntity> bookList;
 
+    // Token của trang sách tiếp theo, null nếu đã tải hết hoặc đang hiển thị kết quả tìm kiếm
+    private String nextPageToken;
+
     @FXML
     public void initialize() {
         // Đặt các tiêu chí tìm kiếm
@@ -74,10 +102,19 @@ public class LibraryView {
         colIsbn.setCellValueFactory(new PropertyValueFactory<>("isbn"));
         colTitle.setCellValueFactory(new PropertyValueFactory<>("title"));
         colAuthor.setCellValueFactory(new PropertyValueFactory<>("authorName"));
-        colCategory.setCellValueFactory(new PropertyValueFactory<>("categoryName"));
+        colCategory.setCellValueFactory(new PropertyValueFactory<>("category"));
         colPublisher.setCellValueFactory(new PropertyValueFactory<>("publisherName"));
         colQuantity.setCellValueFactory(new PropertyValueFactory<>("quantity"));
     
+        // Chọn một gợi ý sẽ điền vào ô tìm kiếm và tìm ngay
+        suggestionsList.setOnMouseClicked(event -> {
+            String selected = suggestionsList.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                tfSearch.setText(selected);
+                onSearchButtonClick();
+            }
+        });
+
         // Xử lý khi nhấn vào một hàng trong bảng
         tableBooks.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2) { // Kiểm tra nhấn đúp chuột
@@ -88,6 +125,9 @@ public class LibraryView {
             }
         });
     
+        // Chuẩn bị sẵn gợi ý tìm kiếm ở luồng nền
+        autocompleteEngine.refreshAsync();
+
         // Tải danh sách sách
         loadAllBooks();
     }
@@ -98,65 +138,78 @@ public class LibraryView {
         String criteria = cbSearchCriteria.getValue();
     
         if (keyword.isEmpty() || criteria == null) {
+            suggestionPipeline.cancel();
             suggestionsList.setVisible(false);
             return;
         }
     
-        List<String> suggestions = new ArrayList<>();
-        try {
-            switch (criteria) {
-                case "Tiêu đề" -> suggestions = bookService.getBooksByTitle(keyword)
-                        .stream()
-                        .map(BookEntity::getTitle)
-                        .collect(Collectors.toList());
-                case "Tác giả" -> suggestions = bookService.getBooksByAuthor(keyword)
-                        .stream()
-                        .map(BookEntity::getAuthorName)
-                        .distinct()
-                        .collect(Collectors.toList());
-                case "Thể loại" -> suggestions = bookService.getBooksByGenre(keyword)
-                        .stream()
-                        .map(BookEntity::getCategoryName)
-                        .distinct()
-                        .collect(Collectors.toList());
-                case "Nhà xuất bản" -> suggestions = bookService.getBooksByPublisher(keyword)
-                        .stream()
-                        .map(BookEntity::getPublisherName)
-                        .distinct()
-                        .collect(Collectors.toList());
-            }
-    
-            if (!suggestions.isEmpty()) {
-                suggestionsList.setItems(FXCollections.observableArrayList(suggestions));
-                suggestionsList.setVisible(true);
-            } else {
-                suggestionsList.setVisible(false);
-            }
-        } catch (Exception e) {
+        // Chỉ gợi ý sau khi người dùng ngừng gõ, lần gõ mới sẽ bỏ truy vấn gợi ý cũ
+        BookField field = toBookField(criteria);
+        suggestionPipeline.submit(
+                () -> autocompleteEngine.suggest(field, keyword, AutocompleteEngine.MAX_SUGGESTIONS));
+    }
+
+    private void showSuggestions(List<String> suggestions) {
+        if (!suggestions.isEmpty()) {
+            suggestionsList.setItems(FXCollections.observableArrayList(suggestions));
+            suggestionsList.setVisible(true);
+        } else {
             suggestionsList.setVisible(false);
-            e.printStackTrace();
         }
     }
 
+    private static BookField toBookField(String criteria) {
+        return switch (criteria) {
+            case "Tác giả" -> BookField.AUTHOR;
+            case "Thể loại" -> BookField.CATEGORY;
+            case "Nhà xuất bản" -> BookField.PUBLISHER;
+            default -> BookField.TITLE;
+        };
+    }
+
     public void loadAllBooks() {
         try {
-            List<BookEntity> books = bookService.getAllBooks();
-            bookList = FXCollections.observableArrayList(books);
+            // Chỉ tải trang đầu tiên, các trang sau được tải khi nhấn "Tải thêm"
+            Page<BookEntity> page = bookService.getBooksPage(null, PAGE_SIZE);
+            bookList = FXCollections.observableArrayList(page.getItems());
             tableBooks.setItems(bookList);
-            lblStatus.setText("Đã tải danh sách sách.");
+            updatePaging(page.getNextPageToken());
+            lblStatus.setText("Đã tải " + bookList.size() + " sách.");
         } catch (Exception e) {
             lblStatus.setText("Lỗi khi tải danh sách sách.");
             e.printStackTrace();
         }
     }
 
+    @FXML
+    public void onLoadMoreButtonClick() {
+        if (nextPageToken == null) {
+            return;
+        }
+        try {
+            Page<BookEntity> page = bookService.getBooksPage(nextPageToken, PAGE_SIZE);
+            bookList.addAll(page.getItems());
+            updatePaging(page.getNextPageToken());
+            lblStatus.setText("Đã tải " + bookList.size() + " sách.");
+        } catch (Exception e) {
+            lblStatus.setText("Lỗi khi tải thêm sách.");
+            e.printStackTrace();
+        }
+    }
+
+    private void updatePaging(String token) {
+        nextPageToken = token;
+        btnLoadMore.setDisable(token == null);
+    }
+
 
     @FXML
     public void onSearchButtonClick() {
         String keyword = tfSearch.getText().trim();
         String criteria = cbSearchCriteria.getValue();
     
-        // Ẩn danh sách gợi ý
+        // Ẩn danh sách gợi ý, bỏ gợi ý đang chờ
+        suggestionPipeline.cancel();
         suggestionsList.setVisible(false);
         suggestionsList.setItems(FXCollections.observableArrayList());
     
@@ -165,46 +218,28 @@ public class LibraryView {
             return;
         }
     
-        try {
-            List<BookEntity> results = new ArrayList<>();
-    
-            // Xác định tiêu chí tìm kiếm
-            switch (criteria) {
-                case "Tiêu đề":
-                    results = bookService.getBooksByTitle(keyword);
-                    break;
-                case "Tác giả":
-                    results = bookService.getBooksByAuthor(keyword);
-                    break;
-                case "Thể loại":
-                    results = bookService.getBooksByGenre(keyword);
-                    break;
-                case "Nhà xuất bản":
-                    results = bookService.getBooksByPublisher(keyword);
-                    break;
-                default:
-                    lblStatus.setText("Tiêu chí không hợp lệ.");
-                    return;
-            }
-    
-            // Kiểm tra kết quả và cập nhật giao diện
-            if (results.isEmpty()) {
-                lblStatus.setText("Không tìm thấy kết quả nào.");
-                bookList = FXCollections.observableArrayList(); // Làm rỗng bảng
-            } else {
-                bookList = FXCollections.observableArrayList(results); // Cập nhật danh sách sách
-                lblStatus.setText("Đã tìm thấy " + results.size() + " kết quả.");
-            }
-    
-            // Hiển thị danh sách lên bảng
-            tableBooks.setItems(bookList);
-    
-        } catch (Exception e) {
-            lblStatus.setText("Lỗi khi tìm kiếm.");
-            e.printStackTrace();
+        // Tìm kiếm chạy ở luồng nền, lần tìm mới sẽ hủy lần tìm trước nếu chưa xong. Truy vấn chạy
+        // thẳng trên luồng của pipeline để việc hủy dừng câu lệnh JDBC thay vì bị coi là lỗi
+        lblStatus.setText("Đang tìm kiếm...");
+        BookField field = toBookField(criteria);
+        searchPipeline.submitNow(() -> bookService.searchBooks(field, keyword));
+    }
+
+    private void showSearchResults(List<BookEntity> results) {
+        // Kiểm tra kết quả và cập nhật giao diện
+        if (results == null || results.isEmpty()) {
+            lblStatus.setText("Không tìm thấy kết quả nào.");
+            bookList = FXCollections.observableArrayList(); // Làm rỗng bảng
+        } else {
+            bookList = FXCollections.observableArrayList(results); // Cập nhật danh sách sách
+            lblStatus.setText("Đã tìm thấy " + results.size() + " kết quả.");
         }
+
+        // Hiển thị danh sách lên bảng, kết quả tìm kiếm không phân trang
+        tableBooks.setItems(bookList);
+        updatePaging(null);
     }
-    
+
     
 
     public void openBookView(BookEntity selectedBook) {
@@ -221,6 +256,8 @@ public class LibraryView {
             Stage stage = new Stage();
             stage.setTitle("Chi tiết sách");
             stage.setScene(new Scene(bookViewRoot));
+            // Đóng cửa sổ thì hủy các phần chi tiết chưa tải xong
+            stage.setOnHidden(event -> bookViewController.close());
             stage.show();
             
         } catch (IOException e) {
@@ -233,6 +270,9 @@ public class LibraryView {
 
     @FXML
     public void onBackButtonClick() {
+        // Rời màn hình thì không cần kết quả của các truy vấn đang chạy nữa
+        suggestionPipeline.close();
+        searchPipeline.close();
         try {
             // Tải file FXML của trang HomepageForUser
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/homepageforuser.fxml"));
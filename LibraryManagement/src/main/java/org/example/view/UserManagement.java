@@ -14,9 +14,9 @@ import javafx.stage.Stage;
 
 import org.example.controllers.UserController;
 import org.example.models.UserEntity;
+import org.example.utils.Page;
 
 import java.io.IOException;
-import java.util.List;
 
 public class UserManagement {
 
@@ -26,6 +26,9 @@ public class UserManagement {
     @FXML
     private Button btnGoBack;
 
+    @FXML
+    private Button btnLoadMore;
+
     @FXML
     private TableColumn<UserEntity, String> colUsername;
 
@@ -44,8 +47,16 @@ public class UserManagement {
     @FXML
     private TableColumn<UserEntity, String> colRole;
 
+    // Số người dùng tải mỗi lần
+    private static final int PAGE_SIZE = 100;
+
     private final UserController userController;
 
+    private final ObservableList<UserEntity> userObservableList = FXCollections.observableArrayList();
+
+    // Token của trang người dùng tiếp theo, null nếu đã tải hết
+    private String nextPageToken;
+
     public UserManagement() {
         this.userController = new UserController();
     }
@@ -65,10 +76,23 @@ public class UserManagement {
     }
 
     private void loadUserData() {
-        // Giả sử UserService có phương thức lấy danh sách tất cả người dùng
-        List<UserEntity> users = userController.getAllUsers(); 
-        ObservableList<UserEntity> userObservableList = FXCollections.observableArrayList(users);
+        // Tải trang đầu tiên, các trang sau được tải khi nhấn "Tải thêm"
         tblUsers.setItems(userObservableList);
+        loadPage(null);
+    }
+
+    @FXML
+    public void onLoadMoreButtonClick() {
+        if (nextPageToken != null) {
+            loadPage(nextPageToken);
+        }
+    }
+
+    private void loadPage(String pageToken) {
+        Page<UserEntity> page = userController.getUsersPage(pageToken, PAGE_SIZE);
+        userObservableList.addAll(page.getItems());
+        nextPageToken = page.getNextPageToken();
+        btnLoadMore.setDisable(nextPageToken == null);
     }
 
 
@@ -0,0 +1,104 @@
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.example.models.BookEntity;
+import org.example.services.advanced.AsyncBooksAPIAdapter;
+import org.example.services.advanced.BookMetadataStore;
+import org.example.services.advanced.BooksAPIService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncBooksAPIAdapterTest {
+
+    @TempDir
+    Path tempDir;
+
+    // ISBN-13 hợp lệ (có chữ số kiểm tra) thứ n
+    static String isbn13(int n) {
+        String digits = String.format("978000%06d", n);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Nhiều lời gọi đồng thời cho cùng một ISBN chỉ tạo một yêu cầu HTTP, lần gọi sau dùng thông
+     * tin đã lưu.
+     */
+    @Test
+    void testConcurrentLookupsAreCoalesced() throws Exception {
+        try (BooksApiStubServer stub = new BooksApiStubServer(100);
+                BookMetadataStore store = new BookMetadataStore(tempDir.resolve("m.dat"),
+                        Duration.ofDays(30));
+                AsyncBooksAPIAdapter adapter = new AsyncBooksAPIAdapter(
+                        BooksAPIService.newBooksService(stub.rootUrl()), store, 40, 4)) {
+            List<CompletableFuture<BookEntity>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(adapter.getBookEntityAsync("9780062315007"));
+            }
+            for (CompletableFuture<BookEntity> future : futures) {
+                assertEquals("Title 9780062315007", future.get().getTitle());
+            }
+            assertEquals(1, stub.lookups());
+
+            assertEquals("http://stub.example/9780062315007",
+                    adapter.getLinkAsync("9780062315007").get());
+            assertEquals(1, stub.lookups());
+            assertEquals(19, adapter.getStats().coalesced());
+        }
+    }
+
+    /**
+     * Các ISBN khác nhau đang chờ được gửi chung trong ít round-trip hơn số ISBN, và ISBN không có
+     * trên API cho kết quả null.
+     */
+    @Test
+    void testLookupsAreBatched() throws Exception {
+        try (BooksApiStubServer stub = new BooksApiStubServer(50);
+                BookMetadataStore store = new BookMetadataStore(tempDir.resolve("m.dat"),
+                        Duration.ofDays(30));
+                AsyncBooksAPIAdapter adapter = new AsyncBooksAPIAdapter(
+                        BooksAPIService.newBooksService(stub.rootUrl()), store, 40, 2)) {
+            List<CompletableFuture<BookEntity>> futures = new ArrayList<>();
+            for (int i = 1; i <= 100; i++) {
+                futures.add(adapter.getBookEntityAsync(isbn13(i)));
+            }
+            CompletableFuture<BookEntity> missing = adapter.getBookEntityAsync("0000000000");
+
+            for (int i = 1; i <= 100; i++) {
+                BookEntity book = futures.get(i - 1).get();
+                assertEquals("Author " + isbn13(i), book.getAuthorName());
+            }
+            assertNull(missing.get());
+            assertEquals(101, stub.lookups());
+            assertTrue(stub.roundTrips() < 20, "Có " + stub.roundTrips() + " round-trip");
+            assertEquals(101, store.size());
+        }
+    }
+
+    /**
+     * Khi không gọi được API, kết quả hoàn thành với lỗi thay vì treo.
+     */
+    @Test
+    void testUnreachableApiFails() throws Exception {
+        String rootUrl;
+        try (BooksApiStubServer stub = new BooksApiStubServer(0)) {
+            rootUrl = stub.rootUrl();
+        }
+        try (BookMetadataStore store = new BookMetadataStore(tempDir.resolve("m.dat"),
+                        Duration.ofDays(30));
+                AsyncBooksAPIAdapter adapter = new AsyncBooksAPIAdapter(
+                        BooksAPIService.newBooksService(rootUrl), store, 40, 1)) {
+            CompletableFuture<BookEntity> future = adapter.getBookEntityAsync("9780062315007");
+            assertThrows(Exception.class, future::get);
+            assertEquals(1, adapter.getStats().failures());
+            assertNull(store.get("9780062315007"));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.example.daos.implementations.AsyncLogDao;
+import org.example.daos.implementations.AsyncLogDao.OverflowPolicy;
+import org.example.daos.implementations.LogDaoImpl;
+import org.example.daos.interfaces.LogDao;
+import org.example.models.LogEntity;
+import org.example.utils.CsvUtils;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLogDaoTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("async-log-dao"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('an', 'x', 'an@example.com', 'An', 'Nguyen', '0901', 'USER')");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * DAO giả lưu log trong bộ nhớ, có thể giả lập cơ sở dữ liệu không truy cập được.
+     */
+    private static class MemoryLogDao implements LogDao {
+        final List<LogEntity> logs = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean failing;
+
+        @Override
+        public void addLog(LogEntity log) throws SQLException {
+            addLogs(List.of(log));
+        }
+
+        @Override
+        public void addLogs(List<LogEntity> batch) throws SQLException {
+            if (failing) {
+                throw new SQLException("Mất kết nối");
+            }
+            batchSizes.add(batch.size());
+            logs.addAll(batch);
+        }
+
+        @Override
+        public List<LogEntity> findAllLogs() {
+            return new ArrayList<>(logs);
+        }
+
+        @Override
+        public Stream<LogEntity> streamAllLogs() {
+            return findAllLogs().stream();
+        }
+
+        @Override
+        public List<LogEntity> findLogsBeforeId(int beforeLogId, int limit) {
+            return findAllLogs();
+        }
+
+        @Override
+        public LogEntity findLogById(int logId) {
+            return null;
+        }
+
+        @Override
+        public List<LogEntity> findLogsByUserName(String userName) {
+            return findAllLogs();
+        }
+
+        @Override
+        public List<LogEntity> findLogsByTimeRange(LocalDateTime startDate, LocalDateTime endDate) {
+            return findAllLogs();
+        }
+    }
+
+    private static LogEntity log(int i) {
+        return new LogEntity(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i), "user" + i,
+                "Hành động, \"số\" " + i);
+    }
+
+    /**
+     * Log được gom thành lô, các phương thức đọc thấy ngay log vừa thêm và close() ghi hết phần còn lại.
+     */
+    @Test
+    void testBatchesAndReadYourWrites() throws SQLException {
+        MemoryLogDao memory = new MemoryLogDao();
+        AsyncLogDao logDao = AsyncLogDao.start(memory, 1024, 100, 60_000, OverflowPolicy.BLOCK,
+                tempDir.resolve("spill.csv"),
+                tempDir.resolve("rejected.csv"));
+        for (int i = 0; i < 250; i++) {
+            logDao.addLog(log(i));
+        }
+        assertEquals(250, logDao.findAllLogs().size());
+        assertTrue(memory.batchSizes.stream().allMatch(size -> size <= 100));
+
+        logDao.addLog(log(250));
+        logDao.close();
+        assertEquals(251, memory.logs.size());
+        assertEquals(251, logDao.getStats().written());
+    }
+
+    /**
+     * Chính sách DROP bỏ log khi hàng đợi đầy và đếm số log bị bỏ.
+     */
+    @Test
+    void testDropPolicy() {
+        MemoryLogDao memory = new MemoryLogDao();
+        AsyncLogDao logDao = AsyncLogDao.start(memory, 4, 1000, 60_000, OverflowPolicy.DROP,
+                tempDir.resolve("spill.csv"),
+                tempDir.resolve("rejected.csv"));
+        for (int i = 0; i < 10; i++) {
+            logDao.addLog(log(i));
+        }
+        logDao.close();
+        assertEquals(6, logDao.getStats().dropped());
+        assertEquals(4, memory.logs.size());
+    }
+
+    /**
+     * Lô ghi thất bại được ghi ra file tạm và được ghi lại đầy đủ khi cơ sở dữ liệu hoạt động lại.
+     */
+    @Test
+    void testFailedBatchesAreSpilledAndReplayed() throws Exception {
+        MemoryLogDao memory = new MemoryLogDao();
+        memory.failing = true;
+        Path spillFile = tempDir.resolve("spill.csv");
+        AsyncLogDao logDao = AsyncLogDao.start(memory, 16, 8, 60_000, OverflowPolicy.SPILL,
+                spillFile, tempDir.resolve("rejected.csv"));
+        for (int i = 0; i < 40; i++) {
+            logDao.addLog(log(i));
+        }
+        logDao.close();
+        assertTrue(Files.exists(spillFile));
+        assertTrue(memory.logs.isEmpty());
+
+        // Lần chạy sau đọc lại file tạm
+        memory.failing = false;
+        AsyncLogDao restarted = AsyncLogDao.start(memory, 16, 8, 60_000, OverflowPolicy.SPILL,
+                spillFile, tempDir.resolve("rejected.csv"));
+        restarted.flush();
+        restarted.close();
+        assertFalse(Files.exists(spillFile));
+        assertEquals(40, memory.logs.size());
+        assertEquals("Hành động, \"số\" 7", memory.logs.stream()
+                .filter(entry -> entry.getUserName().equals("user7"))
+                .findFirst().orElseThrow().getActionDetails());
+    }
+
+    /**
+     * Một log bị schema thật từ chối (Username NOT NULL, khóa ngoại tới Users) không làm hỏng cả
+     * lô: các log hợp lệ vẫn được ghi, chỉ dòng lỗi vào file log lỗi và không bị ghi ra file tạm.
+     * File tạm có dòng lỗi cũng được ghi lại hết các dòng hợp lệ, kể cả các dòng đứng sau nó.
+     */
+    @Test
+    void testRejectedRowsAreDeadLettered() throws Exception {
+        Path spillFile = tempDir.resolve("spill.csv");
+        Path deadLetterFile = tempDir.resolve("rejected.csv");
+        LogDaoImpl database = new LogDaoImpl();
+        int before = database.findLogsByUserName("an").size();
+        AsyncLogDao logDao = AsyncLogDao.start(database, 64, 32, 60_000, OverflowPolicy.SPILL,
+                spillFile, deadLetterFile);
+        for (int i = 0; i < 10; i++) {
+            logDao.addLog(new LogEntity(LocalDateTime.of(2024, 1, 1, 0, i), "an", "Tìm sách " + i));
+            if (i == 4) {
+                logDao.addLog(new LogEntity(LocalDateTime.of(2024, 1, 1, 0, i), null, "Ẩn danh"));
+            }
+        }
+        logDao.flush();
+        AsyncLogDao.Stats stats = logDao.getStats();
+        assertEquals(10, stats.written());
+        assertEquals(1, stats.rejected());
+        assertEquals(0, stats.spilled());
+        assertFalse(Files.exists(spillFile));
+        assertEquals(before + 10, database.findLogsByUserName("an").size());
+        List<List<String>> deadLetters = readRecords(deadLetterFile);
+        assertEquals(1, deadLetters.size());
+        assertEquals("Ẩn danh", deadLetters.get(0).get(2));
+        logDao.close();
+
+        // File tạm của lần chạy trước có dòng lỗi ở giữa
+        Files.write(spillFile, List.of("2024-02-01T08:00,an,Mượn sách", "2024-02-01T08:01,,Ẩn danh",
+                "2024-02-01T08:02,ghost,Trả sách", "2024-02-01T08:03,an,Trả sách"),
+                StandardCharsets.UTF_8);
+        AsyncLogDao restarted = AsyncLogDao.start(database, 64, 32, 60_000, OverflowPolicy.SPILL,
+                spillFile, deadLetterFile);
+        restarted.flush();
+        restarted.close();
+        assertEquals(2, restarted.getStats().written());
+        assertEquals(2, restarted.getStats().rejected());
+        assertFalse(Files.exists(spillFile));
+        assertEquals(before + 12, database.findLogsByUserName("an").size());
+        assertEquals(3, readRecords(deadLetterFile).size());
+    }
+
+    private static List<List<String>> readRecords(Path file) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> record;
+            while ((record = CsvUtils.readRecord(reader)) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
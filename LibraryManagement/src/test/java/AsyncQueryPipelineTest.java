@@ -0,0 +1,139 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.example.view.AsyncQueryPipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncQueryPipelineTest {
+
+    // Thay cho luồng JavaFX: kết quả chỉ được hiển thị khi test chủ động chạy tác vụ trong hàng đợi
+    private final BlockingQueue<Runnable> deliveries = new LinkedBlockingQueue<>();
+    private final List<String> results = new CopyOnWriteArrayList<>();
+    private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+    private AsyncQueryPipeline<String> pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new AsyncQueryPipeline<>(Duration.ofMillis(200), results::add, errors::add,
+                deliveries::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    // Chạy tác vụ hiển thị kế tiếp, chờ tối đa 5 giây cho truy vấn nền hoàn thành
+    private void deliverNext() throws InterruptedException {
+        Runnable delivery = deliveries.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delivery, "Truy vấn không trả kết quả");
+        delivery.run();
+    }
+
+    /** Các lần gửi liên tiếp trong thời gian debounce chỉ chạy truy vấn cuối cùng. */
+    @Test
+    void testDebounceRunsOnlyTheLastQuery() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        for (String keyword : List.of("h", "ha", "har")) {
+            pipeline.submit(() -> {
+                executed.incrementAndGet();
+                return keyword;
+            });
+        }
+        deliverNext();
+
+        assertEquals(List.of("har"), results);
+        assertEquals(1, executed.get());
+        AsyncQueryPipeline.Stats stats = pipeline.getStats();
+        assertEquals(3, stats.submitted());
+        assertEquals(2, stats.dropped());
+        assertEquals(1, stats.completed());
+        assertEquals(0, stats.cancelled());
+        assertTrue(deliveries.isEmpty());
+    }
+
+    /** Truy vấn mới hủy truy vấn đang chạy (ngắt luồng), chỉ kết quả mới được hiển thị. */
+    @Test
+    void testNewQueryCancelsRunningQuery() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        pipeline.submitNow(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "cũ";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        pipeline.submitNow(() -> "mới");
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        deliverNext();
+
+        assertEquals(List.of("mới"), results);
+        assertTrue(errors.isEmpty());
+        AsyncQueryPipeline.Stats stats = pipeline.getStats();
+        assertEquals(2, stats.submitted());
+        assertEquals(1, stats.cancelled());
+        assertEquals(0, stats.dropped());
+        assertEquals(1, stats.completed());
+    }
+
+    /**
+     * Kết quả đã về nhưng chưa tới lượt hiển thị thì bị bỏ nếu có truy vấn mới hơn, kể cả khi truy
+     * vấn mới được gửi sau khi truy vấn cũ đã chạy xong.
+     */
+    @Test
+    void testStaleResultIsNeverShown() throws Exception {
+        pipeline.submitNow(() -> "cũ");
+        Runnable stale = deliveries.poll(5, TimeUnit.SECONDS);
+        assertNotNull(stale);
+
+        pipeline.submitNow(() -> "mới");
+        stale.run();
+        assertTrue(results.isEmpty());
+        deliverNext();
+
+        assertEquals(List.of("mới"), results);
+        AsyncQueryPipeline.Stats stats = pipeline.getStats();
+        // Luồng của truy vấn cũ có thể chưa kết thúc khi kết quả đã vào hàng đợi, nên không kiểm
+        // tra số truy vấn bị hủy
+        assertEquals(1, stats.dropped());
+        assertEquals(1, stats.completed());
+    }
+
+    /** Lỗi của truy vấn mới nhất được báo, còn cancel() bỏ truy vấn đang chờ mà không báo gì. */
+    @Test
+    void testErrorsAndExplicitCancel() throws Exception {
+        pipeline.submitNow(() -> {
+            throw new IllegalStateException("hỏng");
+        });
+        deliverNext();
+        assertEquals(1, errors.size());
+        assertEquals("hỏng", errors.get(0).getMessage());
+        assertEquals(1, pipeline.getStats().failed());
+
+        pipeline.submit(() -> "bị hủy");
+        pipeline.cancel();
+        assertNull(deliveries.poll(400, TimeUnit.MILLISECONDS));
+        assertTrue(results.isEmpty());
+        AsyncQueryPipeline.Stats stats = pipeline.getStats();
+        assertEquals(2, stats.submitted());
+        assertEquals(1, stats.dropped());
+        assertEquals(0, stats.completed());
+    }
+}
@@ -0,0 +1,155 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.models.BookEntity;
+import org.example.models.BookField;
+import org.example.services.advanced.AutocompleteEngine;
+import org.example.services.advanced.CatalogIndex;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutocompleteEngineTest {
+    // Số tác giả "Nhóm tác giả xx", đủ để nhánh "n" vượt MAX_SUGGESTIONS và phải lưu sẵn top-K
+    private static final int FILLER_AUTHORS = 11;
+
+    private CatalogIndex index;
+    private AutocompleteEngine engine;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("autocomplete-engine"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                                + " PublishedDate, Category, Available, Quantity)"
+                                + " VALUES (?, ?, ?, ?, '2000-01-01', ?, TRUE, 1)")) {
+            insert(statement, "Harry Potter and the Philosopher's Stone", "J.K. Rowling",
+                    "Bloomsbury", "Giả tưởng");
+            insert(statement, "Nhà giả kim", "Paulo Coelho", "NXB Trẻ", "Văn học");
+            insert(statement, "Đắc Nhân Tâm", "Dale Carnegie", "NXB Trẻ", "Kỹ năng");
+            insert(statement, "Mắt biếc", "Nguyễn Nhật Ánh", "NXB Trẻ", "Văn học");
+            insert(statement, "Cho tôi xin một vé đi tuổi thơ", "Nguyễn Nhật Ánh", "NXB Trẻ",
+                    "Văn học");
+            insert(statement, "Tôi thấy hoa vàng trên cỏ xanh", "nguyễn nhật ánh", "NXB Trẻ",
+                    "Văn học");
+            insert(statement, "Chí Phèo", "Nam Cao", "Kim Đồng", "Văn học");
+            insert(statement, "Lão Hạc", "Nam Cao", "Kim Đồng", "Văn học");
+            insert(statement, "Truyện Kiều", "Nguyễn Du", "Kim Đồng", "Văn học");
+            for (int i = 1; i <= FILLER_AUTHORS; i++) {
+                insert(statement, "Tuyển tập " + i, String.format("Nhóm tác giả %02d", i),
+                        "Kim Đồng", "Tuyển tập");
+            }
+        }
+    }
+
+    private static int isbn = 1;
+
+    private static void insert(PreparedStatement statement, String title, String author,
+            String publisher, String category) throws SQLException {
+        statement.setString(1, String.format("978%010d", isbn++));
+        statement.setString(2, title);
+        statement.setString(3, author);
+        statement.setString(4, publisher);
+        statement.setString(5, category);
+        statement.executeUpdate();
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        index = new CatalogIndex(new BookDaoImpl());
+        engine = new AutocompleteEngine(index);
+        engine.rebuild();
+    }
+
+    /** Tiền tố được so khớp không phân biệt hoa thường và dấu, gợi ý giữ nguyên cách viết gốc. */
+    @Test
+    void testPrefixLookupFoldsCaseAndDiacritics() {
+        assertEquals(List.of("Nhà giả kim"), engine.suggest(BookField.TITLE, "NHA GIA", 5));
+        assertEquals(List.of("Đắc Nhân Tâm"), engine.suggest(BookField.TITLE, "dac", 5));
+        assertEquals(List.of("Nguyễn Nhật Ánh"),
+                engine.suggest(BookField.AUTHOR, "  nguyen nhat", 5));
+        assertEquals(List.of("Văn học"), engine.suggest(BookField.CATEGORY, "VĂN", 5));
+        assertEquals(List.of("Bloomsbury"), engine.suggest(BookField.PUBLISHER, "bloom", 5));
+        // Tiền tố đi quá một cạnh nén hoặc tách giữa cạnh đều được xử lý đúng; cùng số sách thì
+        // so tên gốc theo mã ký tự nên "Cho" đứng trước "Chí"
+        assertEquals(List.of("Cho tôi xin một vé đi tuổi thơ", "Chí Phèo"),
+                engine.suggest(BookField.TITLE, "ch", 5));
+        assertEquals(List.of("Chí Phèo"), engine.suggest(BookField.TITLE, "chi", 5));
+        assertTrue(engine.suggest(BookField.TITLE, "nhà giả kimx", 5).isEmpty());
+        assertTrue(engine.suggest(BookField.AUTHOR, "zz", 5).isEmpty());
+        assertTrue(engine.suggest(BookField.AUTHOR, "nguyen", 0).isEmpty());
+    }
+
+    /**
+     * Gợi ý xếp theo số sách giảm dần rồi theo tên; các cách viết khác nhau của cùng một giá trị
+     * được gộp, và nhánh lớn hơn MAX_SUGGESTIONS chỉ trả về các giá trị đứng đầu.
+     */
+    @Test
+    void testTopSuggestionsAreRankedByBookCount() {
+        assertEquals(List.of("Nguyễn Nhật Ánh", "Nam Cao", "Nguyễn Du", "Nhóm tác giả 01"),
+                engine.suggest(BookField.AUTHOR, "n", 4));
+        assertEquals(List.of("Nguyễn Nhật Ánh", "Nguyễn Du"),
+                engine.suggest(BookField.AUTHOR, "nguyen", 5));
+
+        List<String> all = engine.suggest(BookField.AUTHOR, "n", 50);
+        assertEquals(AutocompleteEngine.MAX_SUGGESTIONS, all.size());
+        assertEquals("Nhóm tác giả 07", all.get(AutocompleteEngine.MAX_SUGGESTIONS - 1));
+        assertEquals(List.of("Tuyển tập", "Văn học", "Giả tưởng"),
+                engine.suggest(BookField.CATEGORY, "", 3));
+    }
+
+    /** Tiêu đề được gợi ý từ bất kỳ từ nào trong MAX_TITLE_WORDS từ đầu tiên. */
+    @Test
+    void testTitleWordsAreEntryPoints() {
+        String harry = "Harry Potter and the Philosopher's Stone";
+        assertEquals(List.of(harry), engine.suggest(BookField.TITLE, "potter", 5));
+        assertEquals(List.of(harry), engine.suggest(BookField.TITLE, "the phil", 5));
+        assertEquals(List.of("Tôi thấy hoa vàng trên cỏ xanh"),
+                engine.suggest(BookField.TITLE, "hoa vang", 5));
+        // Từ thứ năm trở đi không còn là điểm bắt đầu
+        assertTrue(engine.suggest(BookField.TITLE, "philosopher", 5).isEmpty());
+        assertTrue(engine.suggest(BookField.TITLE, "tren co", 5).isEmpty());
+        // Tác giả chỉ được gợi ý từ đầu tên
+        assertTrue(engine.suggest(BookField.AUTHOR, "rowling", 5).isEmpty());
+    }
+
+    /**
+     * Khi phiên bản chỉ mục đổi, lần gợi ý kế tiếp lên lịch xây lại ở nền; sau khi xây xong, sách
+     * mới xuất hiện trong gợi ý mà không cần gọi rebuild().
+     */
+    @Test
+    void testRebuildsAfterIndexVersionChange() throws Exception {
+        long version = index.getVersion();
+        index.put(new BookEntity(1000, "9789999999999", "Hoàng tử bé", "Antoine de Saint-Exupéry",
+                "NXB Hội Nhà Văn", "1943", "Thiếu nhi", null, true, 1));
+        assertNotEquals(version, index.getVersion());
+
+        // Lần gợi ý đầu tiên lên lịch xây lại; cây mới có thể xong trước hoặc sau khi nó trả về
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<String> suggestions = engine.suggest(BookField.TITLE, "hoang tu", 5);
+        while (suggestions.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            suggestions = engine.suggest(BookField.TITLE, "hoang tu", 5);
+        }
+        assertEquals(List.of("Hoàng tử bé"), suggestions);
+        assertEquals(List.of("Thiếu nhi"), engine.suggest(BookField.CATEGORY, "thieu", 5));
+
+        index.remove(1000);
+        engine.rebuild();
+        assertTrue(engine.suggest(BookField.TITLE, "hoang tu", 5).isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.daos.implementations.ReviewDaoImpl;
+import org.example.daos.implementations.UserDaoImpl;
+import org.example.models.BookEntity;
+import org.example.models.ReviewEntity;
+import org.example.models.UserEntity;
+import org.example.utils.BatchLoader;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.InList;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchLoaderTest {
+
+    // Nhiều hơn một nhóm IN để kiểm tra việc chia nhóm
+    private static final int BOOK_COUNT = InList.CHUNK_SIZE + 20;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("batch-loader"));
+        List<BookEntity> books = new ArrayList<>();
+        for (int i = 1; i <= BOOK_COUNT; i++) {
+            books.add(new BookEntity(0, String.format("978%010d", i), "Book " + i, "Author",
+                    "NXB Trẻ", "2020-01-01", "Văn học", null, true, 1));
+        }
+        assertEquals(BOOK_COUNT, new BookDaoImpl().addBooks(books));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('an', 'x', 'an@example.com', 'An', 'Nguyen', '0901', 'USER'),"
+                    + " ('binh', 'x', 'binh@example.com', 'Binh', 'Tran', '0902', 'ADMIN')");
+            statement.executeUpdate("INSERT INTO Reviews (Username, BookID, Rating, Comment) VALUES"
+                    + " ('an', 1, 5, 'Hay'), ('binh', 1, 4, 'Được'), ('an', 2, 3, 'Tạm')");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * Các lần đọc từng khóa trong một thao tác được gộp thành một lô, khóa trùng chỉ đọc một lần,
+     * khóa đã đọc được nhớ và khóa không tồn tại trả về null.
+     */
+    @Test
+    void testLoadsAreCoalescedIntoOneBatch() throws Exception {
+        List<Set<Integer>> batches = new ArrayList<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            batches.add(Set.copyOf(keys));
+            Map<Integer, String> values = new HashMap<>();
+            keys.stream().filter(key -> key < 100).forEach(key -> values.put(key, "v" + key));
+            return values;
+        });
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int key : new int[] {1, 2, 2, 3, 404}) {
+            futures.add(loader.load(key));
+        }
+        assertTrue(batches.isEmpty());
+        assertEquals("v2", loader.get(2));
+        assertEquals(List.of(Set.of(1, 2, 3, 404)), batches);
+        assertNull(futures.get(4).join());
+
+        assertEquals(Map.of(1, "v1", 5, "v5"), loader.getAll(List.of(1, 5, 404)));
+        assertEquals(List.of(Set.of(1, 2, 3, 404), Set.of(5)), batches);
+        assertEquals(2, loader.getBatchCount());
+        assertEquals(5, loader.getLoadedKeyCount());
+    }
+
+    /**
+     * Lô đọc lỗi trả lại đúng lỗi SQL cho người gọi và các khóa của lô được đọc lại ở lần sau.
+     */
+    @Test
+    void testFailedBatchCanBeRetried() throws Exception {
+        int[] calls = {0};
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            if (calls[0]++ == 0) {
+                throw new SQLException("mất kết nối");
+            }
+            return Map.of(7, "bảy");
+        });
+        CompletableFuture<String> first = loader.load(7);
+        SQLException error = assertThrows(SQLException.class, () -> loader.get(7));
+        assertEquals("mất kết nối", error.getMessage());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals("bảy", loader.get(7));
+        assertEquals(2, loader.getBatchCount());
+    }
+
+    /**
+     * Các phương thức đọc theo lô của DAO chia danh sách IN thành nhiều nhóm, bỏ ID trùng và trả
+     * về bảng theo ID.
+     */
+    @Test
+    void testDaoBatchLookups() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        IntStream.rangeClosed(1, BOOK_COUNT).forEach(ids::add);
+        ids.add(1);
+        ids.add(BOOK_COUNT + 1000);
+        Map<Integer, BookEntity> books = new BookDaoImpl().findBooksByIds(ids);
+        assertEquals(BOOK_COUNT, books.size());
+        assertEquals("Book 7", books.get(7).getTitle());
+        assertTrue(new BookDaoImpl().findBooksByIds(List.of()).isEmpty());
+
+        Map<Integer, UserEntity> users = new UserDaoImpl().findUsersByIds(List.of(1, 2, 3));
+        assertEquals(2, users.size());
+        assertEquals("binh", users.get(2).getUserName());
+        assertNull(users.get(1).getPasswordHash());
+
+        Map<Integer, List<ReviewEntity>> reviews =
+                new ReviewDaoImpl().findReviewsByBookIds(List.of(1, 2, 3));
+        assertEquals(Set.of(1, 2), reviews.keySet());
+        assertEquals(List.of("Hay", "Được"),
+                reviews.get(1).stream().map(ReviewEntity::getComment).toList());
+    }
+
+    /**
+     * Danh sách IN chỉ có vài kích thước cố định: nhóm được đệm bằng khóa cuối, nên mọi số lượng
+     * khóa từ 1 tới 1000 chỉ sinh ra năm câu SQL khác nhau.
+     */
+    @Test
+    void testInListChunksUseFixedSizes() {
+        assertEquals(List.of(List.of(3, 4, 4, 4, 4, 4, 4, 4, 4, 4)),
+                InList.chunks(List.of(3, 3, 4)));
+        assertEquals(List.of(500, 50), InList.chunks(IntStream.rangeClosed(1, 520).boxed()
+                .toList()).stream().map(List::size).toList());
+
+        Set<Integer> sizes = new HashSet<>();
+        for (int count = 1; count <= 2 * InList.CHUNK_SIZE; count++) {
+            for (List<Integer> chunk : InList.chunks(IntStream.rangeClosed(1, count).boxed()
+                    .toList())) {
+                sizes.add(chunk.size());
+            }
+        }
+        assertEquals(Set.of(1, 10, 50, 100, 500), sizes);
+    }
+}
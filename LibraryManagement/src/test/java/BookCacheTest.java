@@ -0,0 +1,82 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.example.models.BookEntity;
+import org.example.services.advanced.BookCache;
+import org.example.utils.TinyLfuCache;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookCacheTest {
+
+    private static BookEntity book(int id, String isbn) {
+        return new BookEntity(id, isbn, "Title " + id, "Author", "NXB Trẻ", "2020", "Văn học",
+                null, true, 3);
+    }
+
+    /**
+     * Lần đọc thứ hai không truy vấn lại, và sửa đối tượng nhận được không ảnh hưởng tới bộ đệm.
+     */
+    @Test
+    void testReadThroughReturnsDefensiveCopies() throws Exception {
+        BookCache cache = new BookCache(100, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        BookEntity first = cache.getById(1, id -> {
+            loads.incrementAndGet();
+            return book(id, "isbn1");
+        });
+        first.setQuantity(0);
+
+        BookEntity second = cache.getById(1, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertEquals(1, loads.get());
+        assertEquals(3, second.getQuantity());
+        assertNotSame(first, second);
+
+        // Sách đã đọc theo ID cũng được tìm thấy theo ISBN
+        assertEquals(1, cache.getByIsbn("isbn1", isbn -> null).getId());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    /**
+     * Sau khi xóa theo ISBN, lần đọc tiếp theo lấy dữ liệu mới từ cơ sở dữ liệu.
+     */
+    @Test
+    void testInvalidation() throws Exception {
+        BookCache cache = new BookCache(100, 0);
+        cache.getByIsbn("isbn7", isbn -> book(7, isbn));
+        cache.invalidate("isbn7");
+
+        BookEntity updated = book(7, "isbn7");
+        updated.setQuantity(9);
+        assertEquals(9, cache.getById(7, id -> updated).getQuantity());
+    }
+
+    /**
+     * Một lượt quét nhiều khóa chỉ dùng một lần không đẩy các khóa được dùng thường xuyên ra ngoài.
+     */
+    @Test
+    void testFrequentEntriesSurviveScan() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, 0, null);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.getIfPresent(key) == null) {
+                    cache.put(key, "hot" + key);
+                }
+            }
+        }
+        for (int key = 1000; key < 11_000; key++) {
+            cache.put(key, "scan" + key);
+        }
+        int retained = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.getIfPresent(key) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "Chỉ còn " + retained + " khóa thường dùng");
+        assertTrue(cache.getStats().size() <= 100);
+    }
+}
@@ -0,0 +1,165 @@
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.example.models.BookEntity;
+import org.example.models.BorrowedBookEntity;
+import org.example.models.ReviewEntity;
+import org.example.services.advanced.BookDetailLoader;
+import org.example.services.advanced.BookDetailLoader.BookDetails;
+import org.example.services.advanced.BookDetailLoader.BorrowStatus;
+import org.example.services.advanced.BookDetailLoader.Part;
+import org.example.services.advanced.QrCodeService;
+import org.example.services.basics.BookService;
+import org.example.services.basics.BorrowedBookService;
+import org.example.services.basics.ReviewService;
+import org.example.utils.Page;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BookDetailLoaderTest {
+
+    private static final BookEntity BOOK = new BookEntity(7, "9780062315007", "The Alchemist",
+            "Paulo Coelho", "NXB Trẻ", "2020", "Văn học", null, true, 3);
+
+    private BookService bookService;
+    private ReviewService reviewService;
+    private BorrowedBookService borrowedBookService;
+    private QrCodeService qrCodeService;
+
+    // Các phần listener đã nhận, lỗi được lưu thay cho giá trị
+    private final Map<Part, Object> received = new ConcurrentHashMap<>();
+
+    private final BookDetailLoader.Listener listener = new BookDetailLoader.Listener() {
+        @Override
+        public void onBook(BookEntity book) {
+            received.put(Part.BOOK, book);
+        }
+
+        @Override
+        public void onReviews(Page<ReviewEntity> reviews) {
+            received.put(Part.REVIEWS, reviews);
+        }
+
+        @Override
+        public void onAverageRating(Double averageRating) {
+            received.put(Part.AVERAGE_RATING, averageRating);
+        }
+
+        @Override
+        public void onBorrowStatus(BorrowStatus status) {
+            received.put(Part.BORROW_STATUS, status);
+        }
+
+        @Override
+        public void onQrCode(BufferedImage image) {
+            received.put(Part.QR_CODE, image);
+        }
+
+        @Override
+        public void onFailure(Part part, Throwable error) {
+            received.put(part, error);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        reviewService = mock(ReviewService.class);
+        borrowedBookService = mock(BorrowedBookService.class);
+        qrCodeService = mock(QrCodeService.class);
+        Page<ReviewEntity> reviews = new Page<>(List.of(new ReviewEntity()), null);
+        when(bookService.getBookByIdAsync(7)).thenReturn(CompletableFuture.completedFuture(BOOK));
+        when(reviewService.getReviewsPageByBookIdAsync(7, null, 20))
+                .thenReturn(CompletableFuture.completedFuture(reviews));
+        when(reviewService.getAverageRatingByIdAsync(7))
+                .thenReturn(CompletableFuture.completedFuture(4.5));
+        when(borrowedBookService.getNotReturnedBooksByUserAsync())
+                .thenReturn(CompletableFuture.completedFuture(List.of(
+                        new BorrowedBookEntity(1, 7, "user", LocalDate.now().minusDays(20),
+                                LocalDate.now().minusDays(6)))));
+        when(qrCodeService.getImageAsync(any())).thenReturn(CompletableFuture.completedFuture(
+                new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+    }
+
+    private BookDetailLoader loader(long deadlineMillis) {
+        return new BookDetailLoader(bookService, reviewService, borrowedBookService, qrCodeService,
+                20, deadlineMillis);
+    }
+
+    /**
+     * Mọi phần được gửi đi cùng lúc, listener nhận đủ từng phần và kết quả không thiếu phần nào.
+     */
+    @Test
+    void testLoadsEveryPartConcurrently() throws Exception {
+        BookDetails details = loader(1000).load(BOOK, listener).get(5, TimeUnit.SECONDS);
+
+        assertTrue(details.isComplete());
+        assertSame(BOOK, details.book());
+        assertEquals(1, details.reviews().getItems().size());
+        assertEquals(4.5, details.averageRating());
+        assertEquals(BorrowStatus.OVERDUE, details.borrowStatus());
+        assertEquals(10, details.qrCode().getWidth());
+        assertEquals(5, received.size());
+        assertEquals(BorrowStatus.OVERDUE, received.get(Part.BORROW_STATUS));
+    }
+
+    /**
+     * Phần chậm không giữ các phần khác: các phần đã có được vẽ ngay, hết hạn thì phần chậm bị hủy
+     * và báo quá hạn, kết quả chỉ thiếu đúng phần đó.
+     */
+    @Test
+    void testDeadlineReturnsPartialResults() throws Exception {
+        CompletableFuture<Double> slowRating = new CompletableFuture<>();
+        when(reviewService.getAverageRatingByIdAsync(7)).thenReturn(slowRating);
+        CompletableFuture<BookDetails> loading = loader(200).load(BOOK, listener);
+
+        // Các phần nhanh đã tới listener trước khi lượt tải kết thúc
+        assertEquals(4, received.size());
+        assertFalse(loading.isDone());
+
+        BookDetails details = loading.get(5, TimeUnit.SECONDS);
+        assertEquals(Set.of(Part.AVERAGE_RATING), details.missing());
+        assertNull(details.averageRating());
+        assertSame(BOOK, details.book());
+        assertTrue(slowRating.isCancelled());
+        assertInstanceOf(TimeoutException.class, received.get(Part.AVERAGE_RATING));
+    }
+
+    /**
+     * Hủy lượt tải (đóng màn hình) hủy mọi phần còn chạy mà không báo lỗi; lỗi của một phần chỉ
+     * làm thiếu phần đó.
+     */
+    @Test
+    void testCancelAndFailures() throws Exception {
+        CompletableFuture<BookEntity> slowBook = new CompletableFuture<>();
+        CompletableFuture<List<BorrowedBookEntity>> slowBorrowed = new CompletableFuture<>();
+        when(bookService.getBookByIdAsync(7)).thenReturn(slowBook);
+        when(borrowedBookService.getNotReturnedBooksByUserAsync()).thenReturn(slowBorrowed);
+        CompletableFuture<BookDetails> loading = loader(60_000).load(BOOK, listener);
+
+        loading.cancel(true);
+        assertTrue(slowBook.isCancelled());
+        assertTrue(slowBorrowed.isCancelled());
+        assertFalse(received.containsKey(Part.BOOK));
+        assertFalse(received.containsKey(Part.BORROW_STATUS));
+
+        received.clear();
+        when(bookService.getBookByIdAsync(7)).thenReturn(CompletableFuture.completedFuture(BOOK));
+        when(borrowedBookService.getNotReturnedBooksByUserAsync()).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("Bạn cần đăng nhập trước")));
+        BookDetails details = loader(1000).load(BOOK, listener).get(5, TimeUnit.SECONDS);
+        assertEquals(Set.of(Part.BORROW_STATUS), details.missing());
+        assertInstanceOf(IllegalStateException.class, received.get(Part.BORROW_STATUS));
+    }
+}
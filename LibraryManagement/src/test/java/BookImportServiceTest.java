@@ -0,0 +1,171 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.example.daos.implementations.AsyncLogDao;
+import org.example.models.UserEntity;
+import org.example.services.advanced.BookImportService;
+import org.example.services.advanced.BookImportService.ImportProgress;
+import org.example.services.basics.UserService;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookImportServiceTest {
+    private static final String HEADER = "isbn,title,authorName,quantity";
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("book-import-service"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('thu', 'x', 'thu@example.com', 'Thu', 'Le', '0902', 'LIBRARIAN')");
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, Available,"
+                    + " Quantity) VALUES ('" + isbn(1) + "', 'Số đỏ', 'Vũ Trọng Phụng', TRUE, 1)");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        AsyncLogDao.getInstance().flush();
+        DatabaseConnection.useBackend(null);
+    }
+
+    @BeforeEach
+    void logIn() {
+        UserService.getInstance().setLoginUser(user("thu", UserEntity.Roles.LIBRARIAN));
+    }
+
+    @AfterEach
+    void logOut() {
+        UserService.getInstance().setLoginUser(null);
+    }
+
+    // ISBN-13 hợp lệ (có chữ số kiểm tra đúng) thứ n
+    private static String isbn(int n) {
+        String digits = String.format("978%09d", n);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (i % 2 == 0 ? 1 : 3) * (digits.charAt(i) - '0');
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    private static UserEntity user(String userName, UserEntity.Roles role) {
+        UserEntity user = new UserEntity();
+        user.setUserName(userName);
+        user.setRole(role);
+        return user;
+    }
+
+    private Path write(String name, String... lines) throws Exception {
+        Path file = directory.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> titlesOf(int from, int to) throws SQLException {
+        List<String> titles = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT Title FROM Books"
+                        + " WHERE ISBN BETWEEN '" + isbn(from) + "' AND '" + isbn(to) + "'"
+                        + " ORDER BY ISBN")) {
+            while (resultSet.next()) {
+                titles.add(resultSet.getString(1));
+            }
+        }
+        return titles;
+    }
+
+    /**
+     * File được nhập theo từng lô, mỗi lô báo tiến độ một lần; ISBN đã có trong cơ sở dữ liệu hoặc
+     * lặp lại trong file bị bỏ qua, bản ghi hỏng được đếm riêng.
+     */
+    @Test
+    void testImportsCsvInChunksAndSkipsDuplicates() throws Exception {
+        Path file = write("books.csv", HEADER,
+                isbn(1) + ",Số đỏ,Vũ Trọng Phụng,1",
+                isbn(2) + ",Mắt biếc,Nguyễn Nhật Ánh,2",
+                isbn(3) + ",\"Tắt đèn, bản mới\",Ngô Tất Tố,1",
+                isbn(2) + ",Mắt biếc (bản lặp),Nguyễn Nhật Ánh,1",
+                "1234567890123,ISBN sai,Không rõ,1",
+                "",
+                isbn(4) + ",Chí Phèo,Nam Cao,0");
+        List<ImportProgress> progress = new ArrayList<>();
+        ImportProgress result = new BookImportService(2).importFile(file, progress::add);
+
+        assertEquals(6, result.rowsRead());
+        assertEquals(3, result.inserted());
+        assertEquals(2, result.duplicates());
+        assertEquals(1, result.invalid());
+        assertEquals(2, progress.size());
+        assertEquals(1, progress.get(0).inserted());
+        assertEquals(1, progress.get(0).duplicates());
+        assertEquals(3, progress.get(1).inserted());
+        assertEquals(List.of("Số đỏ", "Mắt biếc", "Tắt đèn, bản mới", "Chí Phèo"),
+                titlesOf(1, 4));
+    }
+
+    /** Dòng JSON hỏng chỉ được tính là bản ghi không hợp lệ, các dòng khác vẫn được nhập. */
+    @Test
+    void testImportsJsonLines() throws Exception {
+        Path file = write("books.jsonl",
+                "{\"isbn\": \"" + isbn(10) + "\", \"title\": \"Dế Mèn\", \"quantity\": 3}",
+                "{không phải json",
+                "{\"ISBN\": \"" + isbn(11) + "\", \"Title\": \"Lão Hạc\"}");
+        ImportProgress result = new BookImportService().importFile(file, null);
+
+        assertEquals(3, result.rowsRead());
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.invalid());
+        assertEquals(List.of("Dế Mèn", "Lão Hạc"), titlesOf(10, 11));
+    }
+
+    /** Lô bị lỗi được hoàn tác và lỗi được ném ra, còn các lô trước đó vẫn được giữ lại. */
+    @Test
+    void testFailedChunkKeepsEarlierChunks() throws Exception {
+        Path file = write("failing.csv", HEADER,
+                isbn(20) + ",Lô một - A,Tác giả,1",
+                isbn(21) + ",Lô một - B,Tác giả,1",
+                isbn(22) + ",Lô hai - A,Tác giả,1",
+                isbn(23) + "," + "x".repeat(300) + ",Tác giả,1");
+        List<ImportProgress> progress = new ArrayList<>();
+        BookImportService service = new BookImportService(2);
+
+        assertThrows(SQLException.class, () -> service.importFile(file, progress::add));
+        assertEquals(1, progress.size());
+        assertEquals(List.of("Lô một - A", "Lô một - B"), titlesOf(20, 23));
+    }
+
+    /** Chưa đăng nhập hoặc không phải thủ thư, quản trị viên thì không được nhập sách. */
+    @Test
+    void testRequiresLibrarianOrAdmin() throws Exception {
+        Path file = write("denied.csv", HEADER, isbn(30) + ",Không được nhập,Tác giả,1");
+        BookImportService service = new BookImportService();
+
+        UserService.getInstance().setLoginUser(null);
+        assertThrows(SecurityException.class, () -> service.importFile(file, null));
+        UserService.getInstance().setLoginUser(user("lan", UserEntity.Roles.USER));
+        assertThrows(SecurityException.class, () -> service.importFile(file, null));
+        assertTrue(titlesOf(30, 30).isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import org.example.models.BookEntity;
+import org.example.services.advanced.BookMetadataStore;
+import org.example.services.advanced.BookMetadataStore.VolumeMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookMetadataStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static VolumeMetadata volume(String isbn, String title, long fetchedAt) {
+        return new VolumeMetadata(isbn, true, title, List.of("Paulo Coelho"), "HarperOne",
+                "1988", List.of("Fiction"), null, "https://books.example/" + isbn, fetchedAt);
+    }
+
+    /**
+     * Thông tin đã lưu vẫn còn sau khi mở lại, bản ghi mới nhất của một ISBN được dùng.
+     */
+    @Test
+    void testSurvivesReopen() throws IOException {
+        Path file = tempDir.resolve("metadata.dat");
+        long now = System.currentTimeMillis();
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            store.put(volume("9780062315007", "The Alchemist", now));
+            store.put(VolumeMetadata.notFound("0000000000", now));
+            store.put(volume("9780062315007", "The Alchemist (25th Anniversary)", now));
+        }
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            assertEquals(2, store.size());
+            VolumeMetadata alchemist = store.get("9780062315007");
+            assertEquals("The Alchemist (25th Anniversary)", alchemist.title());
+            assertEquals("https://books.example/9780062315007", alchemist.infoLink());
+            assertFalse(store.isStale(alchemist));
+
+            BookEntity book = alchemist.toBookEntity();
+            assertEquals("Paulo Coelho", book.getAuthorName());
+            assertEquals("Fiction", book.getCategory());
+            assertNull(store.get("0000000000").toBookEntity());
+            assertNull(store.get("1111111111"));
+        }
+    }
+
+    /**
+     * Phần đuôi ghi dở bị bỏ qua, các bản ghi trước đó vẫn đọc được và có thể ghi tiếp.
+     */
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        Path file = tempDir.resolve("metadata.dat");
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            store.put(volume("1", "One", 0));
+        }
+        Files.write(file, new byte[] {0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            assertEquals("One", store.get("1").title());
+            assertTrue(store.isStale(store.get("1")));
+            store.put(volume("2", "Two", 0));
+        }
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            assertEquals("Two", store.get("2").title());
+        }
+    }
+
+    /**
+     * File chứa chủ yếu bản ghi đã bị thay thế được thu gọn khi mở lại.
+     */
+    @Test
+    void testCompaction() throws IOException {
+        Path file = tempDir.resolve("metadata.dat");
+        String longTitle = "x".repeat(2000);
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            for (int i = 0; i < 1000; i++) {
+                store.put(volume(String.valueOf(i % 10), longTitle + i, 0));
+            }
+        }
+        long before = Files.size(file);
+        try (BookMetadataStore store = new BookMetadataStore(file, Duration.ofDays(30))) {
+            assertEquals(10, store.size());
+            assertEquals(longTitle + 999, store.get("9").title());
+        }
+        assertTrue(Files.size(file) < before / 10);
+    }
+}
@@ -0,0 +1,78 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.example.daos.implementations.AsyncLogDao;
+import org.example.models.UserEntity;
+import org.example.services.basics.BookService;
+import org.example.services.basics.UserService;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookServiceExportTest {
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("book-service-export"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('thu', 'x', 'thu@example.com', 'Thu', 'Le', '0902', 'LIBRARIAN')");
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000001', 'Số đỏ', 'Vũ Trọng Phụng', 'Văn học',"
+                    + " '1936-01-01', 'Văn học', TRUE, 2)");
+        }
+        UserEntity librarian = new UserEntity();
+        librarian.setUserName("thu");
+        librarian.setRole(UserEntity.Roles.LIBRARIAN);
+        UserService.getInstance().setLoginUser(librarian);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        UserService.getInstance().setLoginUser(null);
+        AsyncLogDao.getInstance().flush();
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * Xuất thành công trả về số sách đã ghi; khi không đọc được danh mục thì trả về -1 và không để
+     * lại file dở dang.
+     */
+    @Test
+    void testFailedExportLeavesNoPartialFile(@TempDir Path directory) throws Exception {
+        BookService bookService = new BookService();
+        Path exported = directory.resolve("books.csv");
+        assertEquals(1, bookService.exportBooksToCsv(exported));
+        List<String> lines = Files.readAllLines(exported, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).startsWith("9780000000001,Số đỏ,"), lines.get(1));
+
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE Books RENAME TO BooksMoved");
+        }
+        try {
+            Path failed = directory.resolve("failed.csv");
+            assertEquals(-1, bookService.exportBooksToCsv(failed));
+            assertFalse(Files.exists(failed));
+        } finally {
+            try (Connection connection = DatabaseConnection.openConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.executeUpdate("ALTER TABLE BooksMoved RENAME TO Books");
+            }
+        }
+    }
+}
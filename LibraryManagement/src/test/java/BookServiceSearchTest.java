@@ -0,0 +1,81 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.example.daos.implementations.AsyncLogDao;
+import org.example.models.BookEntity;
+import org.example.models.BookField;
+import org.example.services.basics.BookService;
+import org.example.utils.CancellationToken;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookServiceSearchTest {
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("book-service-search"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000001', 'Số đỏ', 'Vũ Trọng Phụng', 'Văn học',"
+                    + " '1936-01-01', 'Văn học', TRUE, 1)");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        // Ghi các log tìm kiếm vào cơ sở dữ liệu thử nghiệm trước khi bỏ nó
+        AsyncLogDao.getInstance().flush();
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * Tìm kiếm dành cho luồng nền trả về kết quả như bình thường, còn khi truy vấn bị hủy thì ném
+     * lỗi cho người gọi thay vì trả về danh sách rỗng như thể không tìm thấy.
+     */
+    @Test
+    void testSearchBooksPropagatesCancellation() throws Exception {
+        BookService bookService = new BookService();
+        bookService.setSearchMode(BookService.SearchMode.LIKE);
+
+        List<BookEntity> books = bookService.searchBooks(BookField.AUTHOR, "Phụng");
+        assertEquals(1, books.size());
+        assertEquals("Số đỏ", books.get(0).getTitle());
+        assertTrue(bookService.searchBooks(BookField.TITLE, "Dế Mèn").isEmpty());
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertThrows(SQLException.class, () -> CancellationToken.call(token,
+                () -> bookService.searchBooks(BookField.TITLE, "Số")));
+    }
+
+    /** Chế độ tìm kiếm mặc định lấy từ library.search.mode, giá trị sai thì dùng chỉ mục. */
+    @Test
+    void testDefaultSearchModeFromSystemProperty() {
+        String previous = System.getProperty("library.search.mode");
+        try {
+            System.clearProperty("library.search.mode");
+            assertEquals(BookService.SearchMode.INDEX, new BookService().getSearchMode());
+            System.setProperty("library.search.mode", "full_text");
+            assertEquals(BookService.SearchMode.FULL_TEXT, new BookService().getSearchMode());
+            System.setProperty("library.search.mode", " Like ");
+            assertEquals(BookService.SearchMode.LIKE, BookService.defaultSearchMode());
+            System.setProperty("library.search.mode", "fulltext");
+            assertEquals(BookService.SearchMode.INDEX, BookService.defaultSearchMode());
+        } finally {
+            if (previous == null) {
+                System.clearProperty("library.search.mode");
+            } else {
+                System.setProperty("library.search.mode", previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Server giả lập Google Books API trên localhost, dùng thay API thật khi kiểm thử và đo hiệu năng.
+ * Hỗ trợ truy vấn {@code volumes?q=isbn:...} và yêu cầu batch {@code batch/books/v1}; mỗi yêu cầu
+ * HTTP chờ thêm một độ trễ cố định để mô phỏng round-trip qua mạng. ISBN bắt đầu bằng "0" được coi
+ * là không có trên API.
+ */
+public class BooksApiStubServer implements AutoCloseable {
+
+    private static final Pattern REQUEST_LINE = Pattern.compile("^GET (\\S+) HTTP/1\\.1",
+            Pattern.MULTILINE);
+    private static final String BOUNDARY = "batch_stub";
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    public BooksApiStubServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/books/v1/volumes", this::handleVolumes);
+        server.createContext("/batch/books/v1", this::handleBatch);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /** Địa chỉ gốc để truyền cho BooksAPIService.newBooksService. */
+    public String rootUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /** Số yêu cầu HTTP đã nhận. */
+    public int roundTrips() {
+        return roundTrips.get();
+    }
+
+    /** Số ISBN đã được tra cứu (một batch có thể chứa nhiều ISBN). */
+    public int lookups() {
+        return lookups.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleVolumes(HttpExchange exchange) throws IOException {
+        roundTrips.incrementAndGet();
+        pause();
+        byte[] body = volumesJson(exchange.getRequestURI()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        send(exchange, body);
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        roundTrips.incrementAndGet();
+        String request;
+        try (InputStream in = exchange.getRequestBody()) {
+            request = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<URI> parts = new ArrayList<>();
+        Matcher matcher = REQUEST_LINE.matcher(request);
+        while (matcher.find()) {
+            parts.add(URI.create(matcher.group(1)));
+        }
+        pause();
+
+        StringBuilder response = new StringBuilder();
+        for (int i = 0; i < parts.size(); i++) {
+            response.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-").append(i + 1).append(">\r\n\r\n")
+                    .append("HTTP/1.1 200 OK\r\n")
+                    .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                    .append(volumesJson(parts.get(i))).append("\r\n");
+        }
+        response.append("--").append(BOUNDARY).append("--\r\n");
+        exchange.getResponseHeaders().set("Content-Type", "multipart/mixed; boundary=" + BOUNDARY);
+        send(exchange, response.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String volumesJson(URI uri) {
+        lookups.incrementAndGet();
+        String isbn = "";
+        for (String param : uri.getRawQuery().split("&")) {
+            String decoded = URLDecoder.decode(param, StandardCharsets.UTF_8);
+            if (decoded.startsWith("q=isbn:")) {
+                isbn = decoded.substring("q=isbn:".length());
+            }
+        }
+        if (isbn.isEmpty() || isbn.startsWith("0")) {
+            return "{\"kind\":\"books#volumes\",\"totalItems\":0}";
+        }
+        return "{\"kind\":\"books#volumes\",\"totalItems\":1,\"items\":[{\"volumeInfo\":{"
+                + "\"title\":\"Title " + isbn + "\",\"authors\":[\"Author " + isbn + "\"],"
+                + "\"publisher\":\"Stub\",\"publishedDate\":\"2020\",\"categories\":[\"Fiction\"],"
+                + "\"infoLink\":\"http://stub.example/" + isbn + "\"}}]}";
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.example.daos.implementations.BorrowedBookDaoImpl;
+import org.example.daos.implementations.ReadBookDaoImpl;
+import org.example.models.BorrowedBookRow;
+import org.example.models.ReadBookEntity;
+import org.example.models.ReadBookRow;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookshelfProjectionTest {
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("bookshelf-projection"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('an', 'x', 'an@example.com', 'An', 'Nguyen', '0901', 'USER'),"
+                    + " ('binh', 'x', 'binh@example.com', 'Binh', 'Tran', '0902', 'USER')");
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000001', 'Dế Mèn phiêu lưu ký', 'Tô Hoài', 'Kim Đồng',"
+                    + " '1941-01-01', 'Thiếu nhi', TRUE, 2),"
+                    + " ('9780000000002', 'Số đỏ', 'Vũ Trọng Phụng', 'Văn học',"
+                    + " '1936-01-01', 'Văn học', TRUE, 1)");
+            statement.executeUpdate("INSERT INTO BorrowedBooks (Username, BookID, BorrowDate,"
+                    + " ReturnDate, Returned) VALUES"
+                    + " ('an', 1, '2024-01-01', '2024-01-15', TRUE),"
+                    + " ('an', 2, '2024-02-01', '2024-02-15', FALSE),"
+                    + " ('binh', 1, '2024-03-01', '2024-03-15', FALSE)");
+            statement.executeUpdate("INSERT INTO ReadBooks (Username, BookID) VALUES"
+                    + " ('an', 2), ('an', 1), ('binh', 2)");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * Sách đã mượn được đọc kèm tiêu đề, tác giả bằng một truy vấn, chỉ của đúng người dùng và
+     * lượt mượn mới nhất đứng trước.
+     */
+    @Test
+    void testBorrowedBookRows() throws Exception {
+        List<BorrowedBookRow> rows = new BorrowedBookDaoImpl().findBorrowedBookRowsByUser("an");
+        assertEquals(2, rows.size());
+        assertEquals(new BorrowedBookRow(rows.get(0).borrowId(), 2, "Số đỏ", "Vũ Trọng Phụng",
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15), false), rows.get(0));
+        assertEquals("Dế Mèn phiêu lưu ký", rows.get(1).bookTitle());
+        assertTrue(rows.get(1).returned());
+        assertTrue(new BorrowedBookDaoImpl().findBorrowedBookRowsByUser("chi").isEmpty());
+    }
+
+    /**
+     * Sách đã đọc được đọc kèm tiêu đề, tác giả; truy vấn danh sách sách đã đọc cũ chỉ dùng các
+     * cột có thật trong bảng ReadBooks.
+     */
+    @Test
+    void testReadBookRows() throws Exception {
+        List<ReadBookRow> rows = new ReadBookDaoImpl().findReadBookRows("an");
+        assertEquals(List.of("Dế Mèn phiêu lưu ký", "Số đỏ"),
+                rows.stream().map(ReadBookRow::bookTitle).toList());
+        assertEquals("Tô Hoài", rows.get(0).authorName());
+
+        List<ReadBookEntity> readBooks = new ReadBookDaoImpl().findReadBooks("binh");
+        assertEquals(1, readBooks.size());
+        assertEquals(2, readBooks.get(0).getBookId());
+    }
+}
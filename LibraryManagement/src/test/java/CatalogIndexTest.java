@@ -0,0 +1,105 @@
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.example.models.BookEntity;
+import org.example.models.BookField;
+import org.example.services.advanced.CatalogIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogIndexTest {
+
+    private CatalogIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogIndex();
+        index.put(book(1, "Harry Potter and the Philosopher's Stone", "J.K. Rowling"));
+        index.put(book(2, "Nhà giả kim", "Paulo Coelho"));
+        index.put(book(3, "Harrys", "Unknown"));
+        index.put(book(5, "Đắc Nhân Tâm", "Dale Carnegie"));
+    }
+
+    private static BookEntity book(int id, String title, String author) {
+        return new BookEntity(id, "isbn" + id, title, author, "NXB Trẻ", "2020", "Văn học",
+                null, true, 1);
+    }
+
+    private List<Integer> ids(BookField field, String keyword) {
+        return index.search(field, keyword).stream()
+                .map(BookEntity::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Kết quả giống LIKE '%từ khóa%': khớp chuỗi con, không phân biệt hoa thường và dấu.
+     */
+    @Test
+    void testSubstringMatchesLikeSemantics() {
+        assertEquals(List.of(1, 3), ids(BookField.TITLE, "HARRY"));
+        assertEquals(List.of(1, 3), ids(BookField.TITLE, "ar"));
+        assertEquals(List.of(2), ids(BookField.TITLE, "nha gia"));
+        assertEquals(List.of(5), ids(BookField.TITLE, "đắc nhân"));
+        assertEquals(List.of(2), ids(BookField.ALL, "coelho"));
+        // Các trigram đều có mặt nhưng không liền nhau thì không được khớp
+        assertEquals(List.of(), ids(BookField.TITLE, "potter stone"));
+    }
+
+    /**
+     * Sửa và xóa sách được phản ánh ngay trong kết quả tìm kiếm.
+     */
+    @Test
+    void testUpdateAndRemove() {
+        index.put(book(1, "Fantastic Beasts", "J.K. Rowling"));
+        assertEquals(List.of(3), ids(BookField.TITLE, "harry"));
+        assertEquals(List.of(1), ids(BookField.TITLE, "beast"));
+
+        index.remove(3);
+        assertEquals(List.of(), ids(BookField.TITLE, "harry"));
+        assertEquals(Integer.valueOf(5), index.findIdByIsbn("isbn5"));
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Mượn, trả sách chỉ đổi số lượng và trạng thái còn sách, không đánh chỉ mục lại và không đổi
+     * phiên bản (các gợi ý tìm kiếm không phải xây lại).
+     */
+    @Test
+    void testAdjustQuantityKeepsVersion() {
+        long version = index.getVersion();
+        index.adjustQuantity(2, -1);
+        BookEntity borrowed = index.search(BookField.TITLE, "gia kim").get(0);
+        assertEquals(0, borrowed.getQuantity());
+        assertFalse(borrowed.isAvailable());
+
+        index.adjustQuantity(2, -1);
+        assertEquals(0, index.getBook(2).getQuantity());
+        index.adjustQuantity(2, 2);
+        assertEquals(2, index.getBook(2).getQuantity());
+        assertTrue(index.getBook(2).isAvailable());
+        index.adjustQuantity(42, 1);
+        assertNull(index.getBook(42));
+        assertEquals(version, index.getVersion());
+        assertEquals(List.of(2), ids(BookField.TITLE, "nha gia"));
+    }
+
+    /**
+     * Ghi lại sách với cùng tiêu đề, tác giả, thể loại, nhà xuất bản và ISBN chỉ thay dữ liệu của
+     * sách, không đổi phiên bản; đổi một trường được đánh chỉ mục thì đánh chỉ mục lại.
+     */
+    @Test
+    void testPutSkipsReindexWhenIndexedFieldsUnchanged() {
+        long version = index.getVersion();
+        BookEntity updated = book(2, "Nhà giả kim", "Paulo Coelho");
+        updated.setQuantity(7);
+        index.put(updated);
+        assertEquals(version, index.getVersion());
+        assertEquals(7, index.getBook(2).getQuantity());
+        assertEquals(List.of(2), ids(BookField.AUTHOR, "coelho"));
+
+        index.put(book(2, "Nhà giả kim", "P. Coelho"));
+        assertEquals(version + 1, index.getVersion());
+        assertEquals(List.of(2), ids(BookField.AUTHOR, "p. coelho"));
+    }
+}
@@ -0,0 +1,109 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.example.daos.implementations.BorrowedBookDaoImpl;
+import org.example.models.CirculationStatus;
+import org.example.services.advanced.CatalogIndex;
+import org.example.services.advanced.CirculationEngine;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CirculationEngineTest {
+
+    private static final int BORROWERS = 16;
+    private static final int COPIES = 3;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("circulation-engine"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role)"
+                    + " SELECT CONCAT('user', X), 'x', CONCAT('user', X, '@example.com'), 'Ten',"
+                    + " 'Ho', CONCAT('09', X), 'USER' FROM SYSTEM_RANGE(1, " + BORROWERS + ")");
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000001', 'Số đỏ', 'Vũ Trọng Phụng', 'Văn học',"
+                    + " '1936-01-01', 'Văn học', TRUE, " + COPIES + ")");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * Nhiều người cùng lúc tranh nhau ít bản sao của một đầu sách: đúng số bản sao được cho mượn,
+     * không bán quá, không lượt nào thất bại vì deadlock, và số lượng, trạng thái còn sách trong
+     * bảng Books khớp với các lượt mượn, trả.
+     */
+    @Test
+    void testConcurrentCheckoutsNeverOversell() throws Exception {
+        CirculationEngine engine =
+                new CirculationEngine(new BorrowedBookDaoImpl(), new CatalogIndex());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BORROWERS);
+        List<Future<CirculationStatus>> results = new ArrayList<>();
+        try {
+            for (int i = 1; i <= BORROWERS; i++) {
+                String userName = "user" + i;
+                Callable<CirculationStatus> checkout = () -> {
+                    start.await();
+                    return engine.checkout(1, userName, LocalDate.now(),
+                            LocalDate.now().plusDays(14));
+                };
+                results.add(executor.submit(checkout));
+            }
+            start.countDown();
+            List<String> borrowers = new ArrayList<>();
+            for (int i = 0; i < BORROWERS; i++) {
+                if (results.get(i).get() == CirculationStatus.SUCCESS) {
+                    borrowers.add("user" + (i + 1));
+                }
+            }
+
+            assertEquals(COPIES, borrowers.size());
+            CirculationEngine.Stats stats = engine.getStats();
+            assertEquals(BORROWERS - COPIES, stats.soldOut());
+            assertEquals(0, stats.failures());
+            assertEquals(COPIES, count("SELECT COUNT(*) FROM BorrowedBooks WHERE BookID = 1"));
+            assertEquals(0, count("SELECT Quantity FROM Books WHERE BookID = 1"));
+            assertEquals(0, count("SELECT COUNT(*) FROM Books WHERE BookID = 1 AND Available"));
+
+            for (String userName : borrowers) {
+                assertEquals(CirculationStatus.SUCCESS,
+                        engine.checkin(1, userName, LocalDate.now()));
+            }
+            assertEquals(COPIES, count("SELECT Quantity FROM Books WHERE BookID = 1"));
+            assertEquals(1, count("SELECT COUNT(*) FROM Books WHERE BookID = 1 AND Available"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int count(String query) throws SQLException {
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(query)) {
+            assertTrue(resultSet.next());
+            return resultSet.getInt(1);
+        }
+    }
+}
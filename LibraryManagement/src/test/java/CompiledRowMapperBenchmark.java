@@ -0,0 +1,83 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import org.example.models.BookEntity;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.RowMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * So chi phí của mapper biên dịch sẵn với cách tra cột theo tên. Số đo phụ thuộc máy và tải nên
+ * lớp này không thuộc bộ unit test (tên không kết thúc bằng Test); chạy riêng trên máy rảnh bằng
+ * {@code mvn test -Dtest=CompiledRowMapperBenchmark}.
+ */
+public class CompiledRowMapperBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 15;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("compiled-row-mapper-benchmark"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            CompiledRowMapperTest.insertBooks(statement);
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    /**
+     * Quét 100.000 dòng một số lượt cố định, xen kẽ hai cách ánh xạ sau khi làm nóng JIT: trung vị
+     * thời gian của mapper biên dịch sẵn phải thấp hơn cách tra theo tên.
+     */
+    @Test
+    void compiledMapperBeatsLookupByName() throws Exception {
+        try (Connection connection = DatabaseConnection.openConnection();
+                PreparedStatement statement =
+                        connection.prepareStatement("SELECT * FROM Books ORDER BY BookID")) {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                time(statement, CompiledRowMapperTest.BY_NAME);
+                time(statement, CompiledRowMapperTest.BOOK_MAPPER);
+            }
+            long[] byName = new long[ROUNDS];
+            long[] compiled = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                byName[round] = time(statement, CompiledRowMapperTest.BY_NAME);
+                compiled[round] = time(statement, CompiledRowMapperTest.BOOK_MAPPER);
+            }
+            long byNameMedian = median(byName);
+            long compiledMedian = median(compiled);
+            int rows = CompiledRowMapperTest.BENCHMARK_ROWS;
+            assertTrue(compiledMedian < byNameMedian, String.format(
+                    "Quét %d dòng: biên dịch sẵn %d ns/dòng, tra theo tên %d ns/dòng (trung vị)",
+                    rows, compiledMedian / rows, byNameMedian / rows));
+        }
+    }
+
+    private static long time(PreparedStatement statement, RowMapper<BookEntity> mapper)
+            throws SQLException {
+        long start = System.nanoTime();
+        int rows = CompiledRowMapperTest.scan(statement, mapper).size();
+        long elapsed = System.nanoTime() - start;
+        assertEquals(CompiledRowMapperTest.BENCHMARK_ROWS, rows);
+        return elapsed;
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
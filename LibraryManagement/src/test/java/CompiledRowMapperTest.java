@@ -0,0 +1,161 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.example.daos.implementations.BorrowedBookDaoImpl;
+import org.example.daos.implementations.LogDaoImpl;
+import org.example.daos.implementations.UserDaoImpl;
+import org.example.models.BookEntity;
+import org.example.models.BorrowedBookEntity;
+import org.example.models.LogEntity;
+import org.example.models.UserEntity;
+import org.example.utils.CompiledRowMapper;
+import org.example.utils.CompiledRowMapper.Column;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.RowMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledRowMapperTest {
+
+    static final int BENCHMARK_ROWS = 100_000;
+
+    // Dùng chung với CompiledRowMapperBenchmark
+    static final CompiledRowMapper<BookEntity> BOOK_MAPPER = CompiledRowMapper.of(
+            BookEntity.class,
+            Column.ofInt("BookID"),
+            Column.ofString("ISBN"),
+            Column.ofString("Title"),
+            Column.ofString("AuthorName"),
+            Column.ofString("PublisherName"),
+            Column.ofString("PublishedDate"),
+            Column.ofString("Category"),
+            Column.ofString("BookCoverDirectory"),
+            Column.ofBoolean("Available"),
+            Column.ofInt("Quantity"));
+
+    // Cách ánh xạ cũ của các DAO: tra cột theo tên ở mọi dòng
+    static final RowMapper<BookEntity> BY_NAME = resultSet -> new BookEntity(
+            resultSet.getInt("BookID"),
+            resultSet.getString("ISBN"),
+            resultSet.getString("Title"),
+            resultSet.getString("AuthorName"),
+            resultSet.getString("PublisherName"),
+            resultSet.getString("PublishedDate"),
+            resultSet.getString("Category"),
+            resultSet.getString("BookCoverDirectory"),
+            resultSet.getBoolean("Available"),
+            resultSet.getInt("Quantity"));
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("compiled-row-mapper"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            insertBooks(statement);
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('an', 'hash', 'an@example.com', 'An', 'Nguyen', '0901', 'LIBRARIAN')");
+            statement.executeUpdate("INSERT INTO BorrowedBooks (Username, BookID, BorrowDate,"
+                    + " ReturnDate) VALUES ('an', 3, '2024-05-01', '2024-05-15')");
+            statement.executeUpdate("INSERT INTO Logs (Timestamp, Username, ActionDetails) VALUES"
+                    + " ('2024-05-01 08:30:00', 'an', 'Mượn sách')");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    static void insertBooks(Statement statement) throws SQLException {
+        statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                + " PublishedDate, Category, BookCoverDirectory, Available, Quantity)"
+                + " SELECT LPAD(CAST(X AS VARCHAR), 13, '0'), CONCAT('Book ', X), 'Author',"
+                + " 'NXB Trẻ', DATE '2020-01-01', 'Văn học', NULL, MOD(X, 2) = 0, MOD(X, 7)"
+                + " FROM SYSTEM_RANGE(1, " + BENCHMARK_ROWS + ")");
+    }
+
+    /**
+     * Cùng một mapper dùng được cho các phép chiếu khác nhau của DAO: cột tùy chọn vắng mặt nhận
+     * giá trị mặc định, setter chỉ được gọi khi có cột, còn thiếu cột bắt buộc thì báo lỗi SQL.
+     */
+    @Test
+    void testProjections() throws Exception {
+        UserDaoImpl userDao = new UserDaoImpl();
+        UserEntity full = userDao.findUserInfo(1);
+        assertEquals("hash", full.getPasswordHash());
+        assertEquals(UserEntity.Roles.LIBRARIAN, full.getRole());
+        UserEntity projected = userDao.findUsersByIds(List.of(1)).get(1);
+        assertNull(projected.getPasswordHash());
+        assertEquals("an@example.com", projected.getEmail());
+
+        BorrowedBookEntity borrowed =
+                new BorrowedBookDaoImpl().findAllBorrowedBooksByUser("an").get(0);
+        assertEquals(1, borrowed.getId());
+        assertEquals(LocalDate.of(2024, 5, 15), borrowed.getReturnDate());
+
+        LogDaoImpl logDao = new LogDaoImpl();
+        LogEntity log = logDao.findLogsByUserName("an").get(0);
+        assertEquals(LocalDateTime.of(2024, 5, 1, 8, 30), log.getTimeStamp());
+        assertEquals(1, log.getId());
+        try (var logs = logDao.streamAllLogs()) {
+            assertEquals(1, logs.findFirst().orElseThrow().getId());
+        }
+
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT BookID, Title FROM Books")) {
+            SQLException error =
+                    assertThrows(SQLException.class, () -> BOOK_MAPPER.mapAll(resultSet));
+            assertTrue(error.getMessage().contains("ISBN"));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> CompiledRowMapper.of(BookEntity.class, Column.ofInt("BookID")));
+    }
+
+    /**
+     * Quét 100.000 dòng: mapper biên dịch sẵn cho kết quả giống hệt cách tra theo tên. Chi phí của
+     * hai cách được so trong CompiledRowMapperBenchmark, không thuộc bộ unit test.
+     */
+    @Test
+    void testCompiledMapperMatchesLookupByName() throws Exception {
+        try (Connection connection = DatabaseConnection.openConnection();
+                PreparedStatement statement =
+                        connection.prepareStatement("SELECT * FROM Books ORDER BY BookID")) {
+            List<BookEntity> expected = scan(statement, BY_NAME);
+            List<BookEntity> actual = scan(statement, BOOK_MAPPER);
+            assertEquals(BENCHMARK_ROWS, actual.size());
+            for (int i = 0; i < BENCHMARK_ROWS; i += 997) {
+                assertSameBook(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    static List<BookEntity> scan(PreparedStatement statement, RowMapper<BookEntity> mapper)
+            throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return mapper.mapAll(resultSet);
+        }
+    }
+
+    private static void assertSameBook(BookEntity expected, BookEntity actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getIsbn(), actual.getIsbn());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getPublishedDate(), actual.getPublishedDate());
+        assertEquals(expected.getBookCoverDirectory(), actual.getBookCoverDirectory());
+        assertEquals(expected.isAvailable(), actual.isAvailable());
+        assertEquals(expected.getQuantity(), actual.getQuantity());
+    }
+}
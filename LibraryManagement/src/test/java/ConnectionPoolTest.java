@@ -0,0 +1,183 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.utils.ConnectionPool;
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.PoolStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    private EmbeddedBackend backend;
+    // Các kết nối vật lý pool đã tạo, theo thứ tự tạo
+    private final List<Connection> created = new CopyOnWriteArrayList<>();
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        backend = EmbeddedBackend.inMemory("connection-pool");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (pool != null) {
+            pool.close();
+        }
+        for (Connection connection : created) {
+            connection.close();
+        }
+    }
+
+    // Builder ghi lại mọi kết nối vật lý; housekeeper và phát hiện rò rỉ tắt trừ khi test bật lại
+    private ConnectionPool.Builder builder(int maxPoolSize) {
+        return ConnectionPool.builder(() -> {
+            Connection connection = backend.connect();
+            created.add(connection);
+            return connection;
+        })
+                .maxPoolSize(maxPoolSize)
+                .idleTimeoutMillis(0)
+                .leakDetectionThresholdMillis(0);
+    }
+
+    /** Khi mọi kết nối đang được mượn, lần mượn tiếp theo chờ hết thời gian rồi báo lỗi. */
+    @Test
+    void testExhaustedPoolTimesOut() throws Exception {
+        pool = builder(2).connectionTimeoutMillis(200).build();
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        long start = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, pool::getConnection);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+
+        PoolStats stats = pool.getStats();
+        assertEquals(2, stats.active());
+        assertEquals(1, stats.timeoutCount());
+        assertEquals(2, stats.borrowCount());
+        assertTrue(stats.maxWaitMicros() >= 150_000);
+
+        // Trả một kết nối thì lần mượn kế tiếp thành công ngay
+        first.close();
+        try (Connection third = pool.getConnection()) {
+            assertFalse(third.isClosed());
+        }
+        second.close();
+        assertEquals(2, pool.getStats().createdCount());
+    }
+
+    /** Kết nối vừa trả được cho mượn lại trước (LIFO), handle cũ không dùng được nữa. */
+    @Test
+    void testReturnedConnectionIsReusedFirst() throws Exception {
+        pool = builder(3).build();
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        first.close();
+        second.close();
+        assertEquals(2, created.size());
+        assertEquals(2, pool.getStats().idle());
+
+        // Kết nối vật lý của second được trả sau cùng nên được lấy ra đầu tiên
+        try (Connection again = pool.getConnection()) {
+            created.get(0).close();
+            assertFalse(again.isClosed());
+            assertNotSame(second, again);
+        }
+        assertTrue(second.isClosed());
+        assertThrows(SQLException.class, second::createStatement);
+        assertEquals(2, pool.getStats().createdCount());
+        assertEquals(0, pool.getStats().validationFailureCount());
+    }
+
+    /**
+     * Kết nối vừa trả về trong vòng 500 ms được cho mượn lại mà không kiểm tra; sau ngưỡng đó kết
+     * nối hỏng bị phát hiện bằng isValid() và được thay bằng kết nối mới.
+     */
+    @Test
+    void testValidationIsSkippedForRecentlyReturnedConnections() throws Exception {
+        pool = builder(1).build();
+        pool.getConnection().close();
+
+        // Trả về ngay trước đó nên kết nối hỏng vẫn được cho mượn
+        created.get(0).close();
+        try (Connection skipped = pool.getConnection()) {
+            assertTrue(skipped.isClosed());
+        }
+        assertEquals(0, pool.getStats().validationFailureCount());
+        assertEquals(1, pool.getStats().destroyedCount());
+
+        try (Connection fresh = pool.getConnection()) {
+            assertFalse(fresh.isClosed());
+        }
+        created.get(1).close();
+        Thread.sleep(600);
+        try (Connection validated = pool.getConnection()) {
+            assertFalse(validated.isClosed());
+        }
+        PoolStats stats = pool.getStats();
+        assertEquals(1, stats.validationFailureCount());
+        assertEquals(3, stats.createdCount());
+        assertEquals(2, stats.destroyedCount());
+    }
+
+    /** Tác vụ nền đóng các kết nối nằm rảnh lâu hơn idleTimeout. */
+    @Test
+    void testHousekeeperClosesIdleConnections() throws Exception {
+        pool = builder(2).idleTimeoutMillis(100).housekeepingPeriodMillis(0).build();
+        Connection first = pool.getConnection();
+        pool.getConnection().close();
+        first.close();
+        assertEquals(2, pool.getStats().idle());
+
+        // Chu kỳ dọn dẹp tối thiểu là 1 giây
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getStats().idle() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, pool.getStats().idle());
+        assertEquals(2, pool.getStats().destroyedCount());
+        assertTrue(created.get(0).isClosed());
+        assertTrue(created.get(1).isClosed());
+    }
+
+    /** Kết nối bị giữ quá ngưỡng được báo đúng một lần, kèm nơi đã mượn kết nối. */
+    @Test
+    void testLeakIsReportedOnceWithBorrowSite() throws Exception {
+        BlockingQueue<StackTraceElement[]> leaks = new LinkedBlockingQueue<>();
+        AtomicLong held = new AtomicLong();
+        pool = builder(1)
+                .leakDetectionThresholdMillis(100)
+                .housekeepingPeriodMillis(0)
+                .leakListener((heldMillis, borrowSite) -> {
+                    held.set(heldMillis);
+                    leaks.add(borrowSite);
+                })
+                .build();
+
+        try (Connection leaked = pool.getConnection()) {
+            StackTraceElement[] borrowSite = leaks.poll(5, TimeUnit.SECONDS);
+            assertNotNull(borrowSite, "Không phát hiện kết nối bị giữ quá ngưỡng");
+            assertTrue(held.get() >= 100);
+            assertTrue(Arrays.stream(borrowSite).anyMatch(frame ->
+                    frame.getMethodName().equals("testLeakIsReportedOnceWithBorrowSite")));
+            // Chu kỳ dọn dẹp tiếp theo không báo lại cùng một lần mượn
+            assertNull(leaks.poll(1_500, TimeUnit.MILLISECONDS));
+            assertEquals(1, pool.getStats().leakCount());
+            assertFalse(leaked.isClosed());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> ConnectionPool.builder(backend::connect).leakListener(null));
+    }
+}
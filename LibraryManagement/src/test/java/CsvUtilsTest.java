@@ -0,0 +1,27 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.example.utils.CsvUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvUtilsTest {
+
+    /**
+     * Ghi rồi đọc lại các giá trị có dấu phẩy, dấu nháy kép và xuống dòng.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        List<String> values = Arrays.asList(
+                "9780306406157", "Sách, tập 1", "Nói \"xin chào\"", "dòng 1\ndòng 2", "");
+        String csv = CsvUtils.toLine(values) + "\r\n" + CsvUtils.toLine(List.of("a", "b")) + "\n";
+
+        BufferedReader reader = new BufferedReader(new StringReader(csv));
+        assertEquals(values, CsvUtils.readRecord(reader));
+        assertEquals(List.of("a", "b"), CsvUtils.readRecord(reader));
+        assertNull(CsvUtils.readRecord(reader));
+    }
+}
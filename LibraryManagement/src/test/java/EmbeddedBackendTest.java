@@ -0,0 +1,75 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedBackendTest {
+
+    /**
+     * initialize() chỉ nạp schema khi cơ sở dữ liệu còn trống; các backend cùng tên dùng chung dữ
+     * liệu, khác tên thì tách biệt.
+     */
+    @Test
+    void testInitializeLoadsSchemaOnce() throws Exception {
+        EmbeddedBackend backend = EmbeddedBackend.inMemory("embedded-backend");
+        assertEquals("embedded", backend.getName());
+        backend.initialize();
+        insertBook(backend);
+
+        backend.initialize();
+        assertEquals(1, countBooks(EmbeddedBackend.inMemory("embedded-backend")));
+
+        EmbeddedBackend other = EmbeddedBackend.inMemory("embedded-backend-other");
+        other.initialize();
+        assertEquals(0, countBooks(other));
+    }
+
+    /** Backend trên file giữ dữ liệu sau khi cơ sở dữ liệu được đóng và mở lại. */
+    @Test
+    void testOnDiskKeepsData(@TempDir Path directory) throws Exception {
+        String path = directory.resolve("library").toString();
+        EmbeddedBackend backend = EmbeddedBackend.onDisk(path);
+        backend.initialize();
+        insertBook(backend);
+        assertTrue(Files.exists(directory.resolve("library.mv.db")));
+        try (Connection connection = backend.connect();
+                Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+
+        EmbeddedBackend reopened = EmbeddedBackend.onDisk(path);
+        reopened.initialize();
+        assertEquals(1, countBooks(reopened));
+        try (Connection connection = reopened.connect();
+                Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    private static void insertBook(EmbeddedBackend backend) throws SQLException {
+        try (Connection connection = backend.connect();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000001', 'Số đỏ', 'Vũ Trọng Phụng', 'Văn học',"
+                    + " '1936-01-01', 'Văn học', TRUE, 1)");
+        }
+    }
+
+    private static int countBooks(EmbeddedBackend backend) throws SQLException {
+        try (Connection connection = backend.connect();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM Books")) {
+            assertTrue(resultSet.next());
+            return resultSet.getInt(1);
+        }
+    }
+}
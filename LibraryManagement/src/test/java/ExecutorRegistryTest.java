@@ -0,0 +1,135 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.example.utils.ExecutorRegistry;
+import org.example.utils.ExecutorRegistry.Resource;
+import org.example.utils.ExecutorStats;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutorRegistryTest {
+
+    /**
+     * Số tác vụ chạy cùng lúc trên một tài nguyên không vượt giới hạn, các tác vụ còn lại được
+     * tính là đang chờ, và mọi tác vụ chạy trên virtual thread.
+     */
+    @Test
+    void testConcurrencyIsBoundedPerResource() throws Exception {
+        try (ExecutorRegistry registry = new ExecutorRegistry(2, 8)) {
+            ExecutorService database = registry.database();
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(database.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    release.await();
+                    running.decrementAndGet();
+                    return Thread.currentThread().isVirtual();
+                }));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.getStats(Resource.DATABASE).active() < 2
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            ExecutorStats stats = registry.getStats(Resource.DATABASE);
+            assertEquals(2, stats.active());
+            assertEquals(48, stats.queued());
+            assertEquals(50, stats.submitted());
+
+            release.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, maxRunning.get());
+            stats = registry.getStats(Resource.DATABASE);
+            assertEquals(50, stats.completed());
+            assertEquals(0, stats.queued());
+            assertEquals(0, registry.getStats(Resource.HTTP).submitted());
+            assertEquals(0, registry.getStats(Resource.CPU).submitted());
+        }
+    }
+
+    /** Tác vụ tính toán có executor riêng, giới hạn độc lập với cơ sở dữ liệu. */
+    @Test
+    void testCpuExecutorIsSeparate() throws Exception {
+        try (ExecutorRegistry registry = new ExecutorRegistry(1, 1, 3, 1_000)) {
+            assertEquals(3, registry.getStats(Resource.CPU).maxConcurrency());
+            assertEquals(6, registry.cpu().submit(() -> 2 * 3).get(5, TimeUnit.SECONDS));
+            assertEquals(1, registry.getStats(Resource.CPU).completed());
+            assertEquals(0, registry.getStats(Resource.DATABASE).submitted());
+            assertEquals(3, registry.getStats().size());
+        }
+    }
+
+    /**
+     * Người dùng executor không đóng được nó; đóng registry thì executor từ chối tác vụ mới.
+     */
+    @Test
+    void testOnlyRegistryShutsDownExecutors() throws Exception {
+        ExecutorRegistry registry = new ExecutorRegistry(4, 4);
+        ExecutorService http = registry.http();
+        assertThrows(UnsupportedOperationException.class, http::shutdown);
+        assertEquals("ok", http.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+
+        registry.close();
+        assertTrue(http.isShutdown());
+        assertTrue(http.awaitTermination(1, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> http.submit(() -> "late"));
+    }
+
+    /**
+     * Kết quả bất đồng bộ mang giá trị hoặc lỗi của tác vụ; hết hạn hoặc bị hủy thì tác vụ đang
+     * chạy bị ngắt và giải phóng chỗ cho tác vụ khác.
+     */
+    @Test
+    void testSupplyAsyncTimeoutAndCancellation() throws Exception {
+        try (ExecutorRegistry registry = new ExecutorRegistry(1, 1, 200)) {
+            assertEquals(42, registry.supplyAsync(Resource.DATABASE, () -> 42).get());
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> registry.supplyAsync(Resource.DATABASE, () -> {
+                        throw new SQLException("boom");
+                    }).get());
+            assertInstanceOf(SQLException.class, failure.getCause());
+
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch interrupted = new CountDownLatch(2);
+            Callable<String> blocking = () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(60_000);
+                    return "late";
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            };
+            CompletableFuture<String> timedOut = registry.supplyAsync(Resource.DATABASE, blocking);
+            ExecutionException timeout = assertThrows(ExecutionException.class, timedOut::get);
+            assertInstanceOf(TimeoutException.class, timeout.getCause());
+
+            CompletableFuture<String> cancelled =
+                    registry.supplyAsync(Resource.DATABASE, blocking, 60_000);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            cancelled.cancel(true);
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+            // Giới hạn một tác vụ: tác vụ mới chỉ chạy được khi tác vụ bị hủy đã nhả chỗ
+            assertEquals("ok", registry.supplyAsync(Resource.DATABASE, () -> "ok").get());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.models.BookField;
+import org.example.services.advanced.CatalogIndex;
+import org.example.services.advanced.FacetedSearchEngine;
+import org.example.services.advanced.FacetedSearchEngine.Facet;
+import org.example.services.advanced.FacetedSearchEngine.SearchResult;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetedSearchEngineTest {
+
+    private FacetedSearchEngine engine;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("faceted-search-engine"));
+        try (Connection connection = DatabaseConnection.openConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO Books (ISBN, Title, AuthorName, PublisherName, PublishedDate,"
+                            + " Category, Available, Quantity)"
+                            + " VALUES (?, ?, ?, ?, '2000-01-01', ?, TRUE, 1)")) {
+                insert(statement, 1, "Mắt biếc", "Nguyễn Nhật Ánh", "NXB Trẻ", "Văn học");
+                insert(statement, 2, "Cho tôi xin một vé đi tuổi thơ", "Nguyễn Nhật Ánh",
+                        "NXB Trẻ", "Văn học");
+                insert(statement, 3, "Truyện Kiều", "Nguyễn Du", "Kim Đồng", "Thơ");
+                insert(statement, 4, "Nguyên lý kế toán", "Anh Nguyên", "NXB Tài chính",
+                        "Kinh tế");
+                insert(statement, 5, "Gió đầu mùa", "Thạch Lam", "Kim Đồng", "Thơ hiện đại");
+                insert(statement, 6, "Thơ chọn lọc", "Xuân Diệu", "Kim Đồng", "Tuyển tập thơ");
+                insert(statement, 7, "Học Python", "Lê Minh", "NXB Trẻ", "Lập trình Python");
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email,"
+                        + " FirstName, LastName, PhoneNumber, Role) VALUES"
+                        + " ('lan', 'x', 'lan@example.com', 'Lan', 'Pham', '0904', 'USER')");
+                // Sách 4 được đọc và mượn, sách 7 không khớp từ khóa nào trong các test lịch sử
+                statement.executeUpdate("INSERT INTO ReadBooks (Username, BookID) VALUES"
+                        + " ('lan', 4), ('lan', 7)");
+                statement.executeUpdate("INSERT INTO BorrowedBooks (Username, BookID,"
+                        + " BorrowDate, ReturnDate) VALUES ('lan', 4, '2024-01-01', '2024-01-15')");
+            }
+        }
+    }
+
+    private static void insert(PreparedStatement statement, int id, String title, String author,
+            String publisher, String category) throws SQLException {
+        statement.setString(1, String.format("978%010d", id));
+        statement.setString(2, title);
+        statement.setString(3, author);
+        statement.setString(4, publisher);
+        statement.setString(5, category);
+        statement.executeUpdate();
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    @BeforeEach
+    void setUp() {
+        engine = new FacetedSearchEngine(new CatalogIndex(new BookDaoImpl()), new BookDaoImpl());
+    }
+
+    /** Mỗi giá trị khớp được trả về một lần kèm số sách có giá trị đó. */
+    @Test
+    void testFacetCountsBooksPerValue() throws Exception {
+        SearchResult result = engine.search(EnumSet.of(BookField.AUTHOR), "nguyen", null, 10);
+        List<Facet> authors = result.facets().get(BookField.AUTHOR);
+        assertEquals(List.of("Nguyễn Nhật Ánh", "Nguyễn Du", "Anh Nguyên"),
+                result.values(BookField.AUTHOR));
+        assertEquals(2, authors.get(0).bookCount());
+        assertEquals(1, authors.get(1).bookCount());
+        assertEquals(0, authors.get(0).historyCount());
+        assertTrue(result.values(BookField.TITLE).isEmpty());
+    }
+
+    /**
+     * Với cùng số sách, giá trị trùng hoàn toàn từ khóa đứng trước giá trị bắt đầu bằng từ khóa,
+     * rồi tới giá trị có một từ bắt đầu bằng từ khóa, cuối cùng là giá trị chỉ chứa từ khóa.
+     */
+    @Test
+    void testMatchQualityOrdersValues() throws Exception {
+        SearchResult result = engine.search(EnumSet.of(BookField.CATEGORY), "THO", null, 10);
+        assertEquals(List.of("Thơ", "Thơ hiện đại", "Tuyển tập thơ", "Lập trình Python"),
+                result.values(BookField.CATEGORY));
+        List<Facet> categories = result.facets().get(BookField.CATEGORY);
+        for (int i = 1; i < categories.size(); i++) {
+            assertTrue(categories.get(i - 1).score() > categories.get(i).score());
+        }
+    }
+
+    /**
+     * Sách người dùng đã đọc hoặc mượn đẩy giá trị của nó lên đầu; lịch sử của sách không khớp từ
+     * khóa không tạo thêm giá trị nào.
+     */
+    @Test
+    void testHistoryBoostsValuesTheUserRead() throws Exception {
+        SearchResult result = engine.search(EnumSet.of(BookField.AUTHOR, BookField.TITLE),
+                "nguyen", "lan", 10);
+        assertEquals(List.of("Anh Nguyên", "Nguyễn Nhật Ánh", "Nguyễn Du"),
+                result.values(BookField.AUTHOR));
+        assertEquals(2, result.facets().get(BookField.AUTHOR).get(0).historyCount());
+        assertEquals(List.of("Nguyên lý kế toán"), result.values(BookField.TITLE));
+        assertEquals(2, result.facets().get(BookField.TITLE).get(0).historyCount());
+    }
+
+    /** Mỗi trường chỉ trả về tối đa limit giá trị đứng đầu. */
+    @Test
+    void testLimitAppliesPerField() throws Exception {
+        SearchResult result = engine.search(EnumSet.of(BookField.AUTHOR, BookField.CATEGORY),
+                "n", null, 2);
+        assertEquals(2, result.values(BookField.AUTHOR).size());
+        assertEquals(2, result.values(BookField.CATEGORY).size());
+        assertEquals(List.of("Nguyễn Nhật Ánh", "Nguyễn Du"), result.values(BookField.AUTHOR));
+        assertTrue(engine.search(EnumSet.of(BookField.PUBLISHER), "zzz", null, 5)
+                .values(BookField.PUBLISHER).isEmpty());
+    }
+}
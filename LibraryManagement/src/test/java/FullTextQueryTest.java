@@ -0,0 +1,49 @@
+import org.example.utils.FullTextQuery;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FullTextQueryTest {
+
+    private static String query(String input) {
+        return FullTextQuery.toBooleanQuery(input, FullTextQuery.DEFAULT_MIN_TOKEN_LENGTH);
+    }
+
+    /**
+     * Mọi từ đều bắt buộc, từ cuối được so khớp theo tiền tố; cụm từ, loại trừ và tiền tố tường
+     * minh được giữ nguyên.
+     */
+    @Test
+    void testBasicSyntax() {
+        assertEquals("+harry +potter*", query("harry potter"));
+        assertEquals("+pott* +stone*", query("pott* stone"));
+        assertEquals("+\"chúa tể\" -nhẫn", query("\"chúa tể\" -nhẫn"));
+        assertEquals("+harry +potter*", query("+(harry) ~potter>"));
+    }
+
+    /**
+     * Dấu câu trong từ tách từ thành các token riêng như InnoDB, không nối các phần lại với nhau.
+     */
+    @Test
+    void testPunctuationSplitsWords() {
+        assertEquals("+spider +man*", query("spider-man"));
+        assertEquals("+spider +man", query("spider-man 2"));
+        assertEquals("+Tolkien*", query("J.R.R. Tolkien"));
+        assertEquals("+\"spider man\"", query("\"spider-man\""));
+        assertEquals("+harry -\"spider man\"", query("harry -spider-man"));
+        assertEquals("+o'brien*", query("o'brien"));
+    }
+
+    /**
+     * Không có từ nào dùng được với chỉ mục (quá ngắn, chỉ loại trừ, rỗng) thì trả về null để
+     * chuyển sang tìm kiếm LIKE.
+     */
+    @Test
+    void testNoUsableTerms() {
+        assertNull(query(null));
+        assertNull(query("   "));
+        assertNull(query("J.R.R."));
+        assertNull(query("a b"));
+        assertNull(query("-nhẫn"));
+        assertNull(query("\"\""));
+    }
+}
@@ -0,0 +1,58 @@
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.example.models.BookEntity;
+import org.example.services.advanced.BookMetadataStore;
+import org.example.services.advanced.CatalogIndex;
+import org.example.services.advanced.LabelSheetGenerator;
+import org.example.services.advanced.LabelSheetGenerator.Layout;
+import org.example.services.advanced.LabelSheetGenerator.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LabelSheetGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Các nhãn được chia thành trang theo bố cục, mỗi trang là một ảnh PNG có kích thước đúng, và
+     * việc tạo nhãn không cần mạng.
+     */
+    @Test
+    void testPagesAreTiledAndWritten() throws Exception {
+        CatalogIndex index = new CatalogIndex();
+        List<String> isbns = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            String isbn = AsyncBooksAPIAdapterTest.isbn13(i);
+            isbns.add(isbn);
+            index.put(new BookEntity(i, isbn, "Sách số " + i, "Tác giả", "NXB Trẻ", "2020",
+                    "Văn học", null, true, 1));
+        }
+        Layout layout = new Layout(3, 8, 400, 215, 190, 20);
+        try (BookMetadataStore store = new BookMetadataStore(tempDir.resolve("m.dat"),
+                Duration.ofDays(30))) {
+            LabelSheetGenerator generator = new LabelSheetGenerator(index, store, layout, 4);
+            Result result = generator.generate(isbns, tempDir.resolve("labels"));
+
+            assertEquals(50, result.labels());
+            assertEquals(0, result.failures());
+            assertEquals(3, result.pages().size());
+            for (Path page : result.pages()) {
+                BufferedImage image = ImageIO.read(page.toFile());
+                assertEquals(1240, image.getWidth());
+                assertEquals(1760, image.getHeight());
+            }
+            assertEquals("labels-0003.png", result.pages().get(2).getFileName().toString());
+            assertTrue(result.labelsPerSecond() > 0);
+            assertEquals(3, Files.list(tempDir.resolve("labels")).count());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.example.daos.implementations.AsyncLogDao;
+import org.example.models.BookEntity;
+import org.example.models.LogEntity;
+import org.example.models.ReviewEntity;
+import org.example.models.UserEntity;
+import org.example.services.basics.BookService;
+import org.example.services.basics.LogService;
+import org.example.services.basics.ReviewService;
+import org.example.services.basics.UserService;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.Page;
+import org.example.utils.PageToken;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaginationTest {
+    private static final int BOOKS = 7;
+    private static final int LOGS = 5;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        DatabaseConnection.useBackend(EmbeddedBackend.inMemory("pagination"));
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('an', 'x', 'an@example.com', 'An', 'Nguyen', '0901', 'ADMIN'),"
+                    + " ('binh', 'x', 'binh@example.com', 'Binh', 'Tran', '0902', 'USER'),"
+                    + " ('chi', 'x', 'chi@example.com', 'Chi', 'Le', '0903', 'USER')");
+            for (int i = 1; i <= BOOKS; i++) {
+                statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName,"
+                        + " PublisherName, PublishedDate, Category, Available, Quantity) VALUES"
+                        + " ('97800000000" + (10 + i) + "', 'Sách " + i + "', 'Tác giả',"
+                        + " 'Kim Đồng', '2000-01-01', 'Thiếu nhi', TRUE, 1)");
+            }
+            // Xen kẽ nhận xét của hai sách để khóa ReviewID của mỗi sách không liên tục
+            for (int i = 1; i <= 3; i++) {
+                statement.executeUpdate("INSERT INTO Reviews (Username, BookID, Rating, Comment)"
+                        + " VALUES ('binh', 1, " + i + ", 'Sách 1 lần " + i + "')");
+                statement.executeUpdate("INSERT INTO Reviews (Username, BookID, Rating, Comment)"
+                        + " VALUES ('chi', 2, " + i + ", 'Sách 2 lần " + i + "')");
+            }
+            for (int i = 1; i <= LOGS; i++) {
+                statement.executeUpdate("INSERT INTO Logs (Timestamp, Username, ActionDetails)"
+                        + " VALUES ('2024-01-01 08:00:00', 'an', 'Thao tác " + i + "')");
+            }
+        }
+        UserEntity admin = new UserEntity();
+        admin.setUserName("an");
+        admin.setRole(UserEntity.Roles.ADMIN);
+        UserService.getInstance().setLoginUser(admin);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        UserService.getInstance().setLoginUser(null);
+        AsyncLogDao.getInstance().flush();
+        DatabaseConnection.useBackend(null);
+    }
+
+    /** Token mã hóa rồi giải mã trả lại đúng khóa, còn token rỗng cho khóa của trang đầu. */
+    @Test
+    void testTokenRoundTrip() {
+        String token = PageToken.encode("reviews:12", 42);
+        assertEquals(42, PageToken.decode(token, "reviews:12", 0));
+        assertEquals(Long.MAX_VALUE,
+                PageToken.decode(PageToken.encode("logs", Long.MAX_VALUE), "logs", 0));
+        assertEquals(0, PageToken.decode(null, "books", 0));
+        assertEquals(Integer.MAX_VALUE, PageToken.decode("", "logs", Integer.MAX_VALUE));
+    }
+
+    /** Token hỏng, bị sửa hoặc thuộc truy vấn khác đều bị từ chối thay vì trả về khóa sai. */
+    @Test
+    void testRejectsGarbageAndTamperedTokens() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PageToken.decode("không phải base64!", "books", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageToken.decode(urlBase64("books"), "books", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageToken.decode(urlBase64("books|abc"), "books", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageToken.decode(PageToken.encode("users", 3), "books", 0));
+        // Phạm vi chứa dấu phân cách vẫn phải khớp toàn bộ, không chỉ phần đầu
+        assertThrows(IllegalArgumentException.class,
+                () -> PageToken.decode(PageToken.encode("reviews:1", 3), "reviews:12", 0));
+        assertThrows(IllegalArgumentException.class, () -> PageToken.checkPageSize(0));
+        assertEquals(PageToken.MAX_PAGE_SIZE, PageToken.checkPageSize(10_000));
+    }
+
+    /**
+     * Duyệt hết các trang sách trả về mọi sách đúng một lần theo thứ tự BookID; trang cuối vừa đủ
+     * kích thước trang không có token tiếp theo.
+     */
+    @Test
+    void testBookPagesCoverEveryRowOnce() {
+        BookService bookService = new BookService();
+        List<Integer> ids = new ArrayList<>();
+        int pages = 0;
+        String token = null;
+        do {
+            Page<BookEntity> page = bookService.getBooksPage(token, 3);
+            page.getItems().forEach(book -> ids.add(book.getId()));
+            token = page.getNextPageToken();
+            pages++;
+        } while (token != null);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), ids);
+        assertEquals(3, pages);
+
+        Page<BookEntity> exact = bookService.getBooksPage(null, BOOKS);
+        assertEquals(BOOKS, exact.getItems().size());
+        assertFalse(exact.hasNext());
+
+        Page<BookEntity> garbage = bookService.getBooksPage("rác", 3);
+        assertTrue(garbage.getItems().isEmpty());
+        assertFalse(garbage.hasNext());
+    }
+
+    /**
+     * Trang sau tiếp tục ngay sau khóa của phần tử cuối trang trước, nên xóa chính phần tử đó giữa
+     * hai lần lấy trang không làm bỏ sót hay lặp lại dòng nào.
+     */
+    @Test
+    void testNextPageStartsAfterLastKeyEvenIfItIsDeleted() throws SQLException {
+        BookService bookService = new BookService();
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000098', 'Sách tạm 1', 'Tác giả', 'Kim Đồng', '2000-01-01',"
+                    + " 'Thiếu nhi', TRUE, 1),"
+                    + " ('9780000000099', 'Sách tạm 2', 'Tác giả', 'Kim Đồng', '2000-01-01',"
+                    + " 'Thiếu nhi', TRUE, 1)");
+            try {
+                Page<BookEntity> first =
+                        bookService.getBooksPage(PageToken.encode("books", BOOKS), 1);
+                assertEquals("Sách tạm 1", first.getItems().get(0).getTitle());
+                assertTrue(first.hasNext());
+                statement.executeUpdate("DELETE FROM Books WHERE ISBN = '9780000000098'");
+                Page<BookEntity> second = bookService.getBooksPage(first.getNextPageToken(), 1);
+                assertEquals(List.of("Sách tạm 2"),
+                        second.getItems().stream().map(BookEntity::getTitle).toList());
+                assertFalse(second.hasNext());
+            } finally {
+                statement.executeUpdate("DELETE FROM Books"
+                        + " WHERE ISBN IN ('9780000000098', '9780000000099')");
+            }
+        }
+    }
+
+    /** Log được phân trang từ mới đến cũ; log mới ghi giữa hai trang không chen vào trang sau. */
+    @Test
+    void testLogPagesAreNewestFirstAndStable() throws SQLException {
+        LogService logService = new LogService();
+        AsyncLogDao.getInstance().flush();
+        Page<LogEntity> first = logService.getLogsPage(null, 2);
+        List<Integer> firstIds = first.getItems().stream().map(LogEntity::getId).toList();
+        assertTrue(firstIds.get(0) > firstIds.get(1), firstIds.toString());
+        assertTrue(first.hasNext());
+
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Logs (Timestamp, Username, ActionDetails)"
+                    + " VALUES ('2024-01-02 08:00:00', 'an', 'Thao tác mới')");
+        }
+        List<Integer> rest = new ArrayList<>();
+        String token = first.getNextPageToken();
+        while (token != null) {
+            Page<LogEntity> page = logService.getLogsPage(token, 2);
+            page.getItems().forEach(log -> rest.add(log.getId()));
+            token = page.getNextPageToken();
+        }
+        assertFalse(rest.isEmpty());
+        assertTrue(rest.get(0) < firstIds.get(1), rest.toString());
+        for (int i = 1; i < rest.size(); i++) {
+            assertTrue(rest.get(i) < rest.get(i - 1), rest.toString());
+        }
+        assertEquals(1, rest.get(rest.size() - 1));
+        assertTrue(logService.getLogsPage(PageToken.encode("books", 3), 2).getItems().isEmpty());
+    }
+
+    /**
+     * Trang nhận xét chỉ chứa nhận xét của sách được hỏi dù khóa ReviewID xen kẽ với sách khác, và
+     * token của sách này không dùng được cho sách khác.
+     */
+    @Test
+    void testReviewPagesAreScopedToTheirBook() {
+        ReviewService reviewService = new ReviewService();
+        Page<ReviewEntity> first = reviewService.getReviewsPageByBookId(1, null, 2);
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasNext());
+        Page<ReviewEntity> second =
+                reviewService.getReviewsPageByBookId(1, first.getNextPageToken(), 2);
+        assertEquals(1, second.getItems().size());
+        assertFalse(second.hasNext());
+        List<String> comments = new ArrayList<>();
+        first.getItems().forEach(review -> comments.add(review.getComment()));
+        second.getItems().forEach(review -> comments.add(review.getComment()));
+        assertEquals(List.of("Sách 1 lần 1", "Sách 1 lần 2", "Sách 1 lần 3"), comments);
+
+        Page<ReviewEntity> borrowed =
+                reviewService.getReviewsPageByBookId(2, first.getNextPageToken(), 2);
+        assertTrue(borrowed.getItems().isEmpty());
+        assertFalse(borrowed.hasNext());
+    }
+
+    /** Trang người dùng chỉ dành cho quản trị viên và duyệt đủ mọi người dùng theo UserID. */
+    @Test
+    void testUserPagesRequireAdmin() {
+        UserService userService = UserService.getInstance();
+        Page<UserEntity> first = userService.getUsersPage(null, 2);
+        assertEquals(List.of("an", "binh"),
+                first.getItems().stream().map(UserEntity::getUserName).toList());
+        Page<UserEntity> second = userService.getUsersPage(first.getNextPageToken(), 2);
+        assertEquals(List.of("chi"),
+                second.getItems().stream().map(UserEntity::getUserName).toList());
+        assertFalse(second.hasNext());
+
+        UserEntity admin = userService.getLoginUser();
+        UserEntity reader = new UserEntity();
+        reader.setUserName("binh");
+        reader.setRole(UserEntity.Roles.USER);
+        userService.setLoginUser(reader);
+        try {
+            assertTrue(userService.getUsersPage(null, 2).getItems().isEmpty());
+        } finally {
+            userService.setLoginUser(admin);
+        }
+    }
+
+    private static String urlBase64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
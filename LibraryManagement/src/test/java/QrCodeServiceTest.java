@@ -0,0 +1,84 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.example.services.advanced.QrCodeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QrCodeServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Nhiều yêu cầu cùng lúc cho một ISBN chỉ vẽ một lần; sau khi khởi động lại, ảnh được đọc từ
+     * đĩa mà không cần lấy lại đường dẫn.
+     */
+    @Test
+    void testRenderedOnceAndPersisted() throws Exception {
+        AtomicInteger resolves = new AtomicInteger();
+        QrCodeService.LinkResolver resolver = isbn -> {
+            resolves.incrementAndGet();
+            return CompletableFuture.completedFuture("https://books.example/" + isbn);
+        };
+
+        QrCodeService service = new QrCodeService(resolver, tempDir, 100, 4);
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(service.getPngAsync("9780062315007"));
+        }
+        byte[] png = futures.get(0).get();
+        for (CompletableFuture<byte[]> future : futures) {
+            assertArrayEquals(png, future.get());
+        }
+        assertEquals(1, service.getStats().renders());
+        assertEquals(1, resolves.get());
+        assertTrue(png.length < 4096, "PNG dài " + png.length + " byte");
+
+        QrCodeService restarted = new QrCodeService(resolver, tempDir, 100, 4);
+        BufferedImage image = restarted.getImage("9780062315007");
+        assertEquals(QrCodeService.DEFAULT_SIZE, image.getWidth());
+        assertEquals(1, restarted.getStats().diskHits());
+        assertEquals(0, restarted.getStats().renders());
+        assertEquals(1, resolves.get());
+    }
+
+    /**
+     * Khi không lấy được đường dẫn, vẫn có mã QR dự phòng nhưng mã này không được lưu lại.
+     */
+    @Test
+    void testFallbackIsNotCached() throws Exception {
+        QrCodeService service = new QrCodeService(
+                isbn -> CompletableFuture.failedFuture(new IOException("offline")), tempDir, 100, 2);
+        assertNotNull(service.getPngAsync("9780062315007").get());
+        assertNotNull(service.getPngAsync("9780062315007").get());
+        assertEquals(2, service.getStats().renders());
+        assertEquals(0, service.getStats().failures());
+    }
+
+    /**
+     * Tạo hàng loạt trả về ảnh cho mọi ISBN theo thứ tự đầu vào, ISBN trùng chỉ vẽ một lần.
+     */
+    @Test
+    void testRenderAll() throws Exception {
+        QrCodeService service = new QrCodeService(
+                isbn -> CompletableFuture.completedFuture("https://books.example/" + isbn),
+                tempDir, 1000, 4);
+        List<String> isbns = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            isbns.add(String.valueOf(9_780_000_000_000L + i % 250));
+        }
+        Map<String, byte[]> pngs = service.renderAll(isbns, 150).get();
+        assertEquals(250, pngs.size());
+        assertEquals(isbns.get(0), pngs.keySet().iterator().next());
+        assertTrue(pngs.values().stream().allMatch(png -> png != null && png.length > 0));
+        assertEquals(250, service.getStats().renders());
+    }
+}
@@ -0,0 +1,155 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.example.daos.interfaces.BookDao;
+import org.example.models.BookEntity;
+import org.example.services.advanced.CatalogIndex;
+import org.example.services.advanced.ScanService;
+import org.example.services.advanced.ScanService.BatchResult;
+import org.example.services.advanced.ScanService.Mode;
+import org.example.services.advanced.ScanService.Outcome;
+import org.example.services.advanced.ScanService.ScanResult;
+import org.example.services.basics.BorrowedBookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.EAN13Writer;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ScanServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private BorrowedBookService borrowedBookService;
+    private ScanService scanner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BookDao bookDao = mock(BookDao.class);
+        when(bookDao.streamAllBooks()).thenAnswer(invocation -> Stream.of(
+                book(1, "9780062315007", "The Alchemist"),
+                book(2, "0-7475-3269-9", "Harry Potter"),
+                book(3, AsyncBooksAPIAdapterTest.isbn13(3), "Book 3"),
+                book(4, AsyncBooksAPIAdapterTest.isbn13(4), "Book 4")));
+        borrowedBookService = mock(BorrowedBookService.class);
+        when(borrowedBookService.borrowBook(anyInt(), any(), any())).thenReturn(true);
+        scanner = new ScanService(new CatalogIndex(bookDao), borrowedBookService, 14, 4);
+    }
+
+    private static BookEntity book(int id, String isbn, String title) {
+        return new BookEntity(id, isbn, title, "Author", "NXB Trẻ", "2020", "Văn học", null,
+                true, 1);
+    }
+
+    // Đặt mã vào giữa một khung hình trắng, giống ảnh chụp từ camera
+    private static BufferedImage frame(BitMatrix matrix, int width, int height) {
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        BufferedImage code = MatrixToImageWriter.toBufferedImage(matrix);
+        graphics.drawImage(code, (width - code.getWidth()) / 2, (height - code.getHeight()) / 2,
+                null);
+        graphics.dispose();
+        return frame;
+    }
+
+    private static BufferedImage qr(String contents) throws Exception {
+        return frame(new QRCodeWriter().encode(contents, BarcodeFormat.QR_CODE, 400, 400),
+                1920, 1080);
+    }
+
+    private static BufferedImage ean13(String isbn) throws Exception {
+        return frame(new EAN13Writer().encode(isbn, BarcodeFormat.EAN_13, 600, 200), 1280, 720);
+    }
+
+    /**
+     * Mã QR trên nhãn (đường dẫn Google Books) trong khung hình Full HD được nhận diện đúng sách,
+     * lượt giải mã và tra cứu điển hình (trung vị) mất dưới 20 ms.
+     */
+    @Test
+    void testQrLabelIdentifiedQuickly() throws Exception {
+        BufferedImage image = qr("http://books.google.com/books?id=abc&dq=isbn:9780062315007");
+        for (int i = 0; i < 10; i++) {
+            scanner.scan(image, Mode.LOOKUP);
+        }
+        long[] micros = new long[21];
+        for (int i = 0; i < micros.length; i++) {
+            ScanResult result = scanner.scan(image, Mode.LOOKUP);
+            assertEquals(Outcome.IDENTIFIED, result.outcome());
+            assertEquals("9780062315007", result.isbn());
+            assertEquals(1, result.bookId());
+            micros[i] = result.identifyMicros();
+        }
+        // Dùng trung vị để một lần dọn rác hay máy bận không làm hỏng phép đo
+        Arrays.sort(micros);
+        long median = micros[micros.length / 2];
+        assertTrue(median < 20_000, "Trung vị " + median + " µs");
+        verifyNoInteractions(borrowedBookService);
+    }
+
+    /**
+     * Mã vạch EAN-13 sau bìa tìm được sách lưu bằng ISBN-10 có dấu gạch nối, và ISBN không có trong
+     * danh mục được báo riêng.
+     */
+    @Test
+    void testEanBarcodeMatchesIsbn10() throws Exception {
+        ScanResult result = scanner.scan(ean13("9780747532699"), Mode.RETURN);
+        when(borrowedBookService.returnBook(2)).thenReturn(true);
+        assertEquals(Outcome.REJECTED, result.outcome());
+        assertEquals(2, result.bookId());
+
+        assertEquals(Outcome.SUCCESS, scanner.scan(ean13("9780747532699"), Mode.RETURN).outcome());
+        assertEquals(Outcome.NOT_IN_CATALOG,
+                scanner.scan(ean13(AsyncBooksAPIAdapterTest.isbn13(9)), Mode.RETURN).outcome());
+        verify(borrowedBookService, times(2)).returnBook(2);
+    }
+
+    /**
+     * Quét cả thư mục mượn mọi sách có mã, ảnh trống và file hỏng được báo riêng.
+     */
+    @Test
+    void testScanFolderBorrowsEachBook() throws Exception {
+        ImageIO.write(qr("https://books.google.com/books?vid=ISBN9780062315007"), "png",
+                tempDir.resolve("a.png").toFile());
+        ImageIO.write(ean13(AsyncBooksAPIAdapterTest.isbn13(3)), "png",
+                tempDir.resolve("b.png").toFile());
+        ImageIO.write(qr("isbn:" + AsyncBooksAPIAdapterTest.isbn13(4)), "png",
+                tempDir.resolve("c.png").toFile());
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_BYTE_GRAY), "png",
+                tempDir.resolve("d.png").toFile());
+        Files.writeString(tempDir.resolve("e.jpg"), "not an image");
+        Files.writeString(tempDir.resolve("notes.txt"), "ignored");
+
+        BatchResult batch = scanner.scanFolder(tempDir, Mode.BORROW);
+        assertEquals(5, batch.results().size());
+        assertEquals("a.png", batch.results().get(0).source());
+        assertEquals(3, batch.count(Outcome.SUCCESS));
+        assertEquals(1, batch.count(Outcome.NO_CODE));
+        assertEquals(1, batch.count(Outcome.UNREADABLE));
+        LocalDate today = LocalDate.now();
+        for (int id = 1; id <= 4; id++) {
+            verify(borrowedBookService, times(id == 2 ? 0 : 1))
+                    .borrowBook(eq(id), eq(today), eq(today.plusDays(14)));
+        }
+    }
+}
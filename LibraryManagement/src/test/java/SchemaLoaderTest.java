@@ -0,0 +1,121 @@
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.SchemaLoader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaLoaderTest {
+
+    /**
+     * Schema của MySQL nạp được vào H2: các câu lệnh cấp database (DROP/CREATE DATABASE, USE) và
+     * chỉ mục FULLTEXT bị bỏ qua, còn mọi bảng và chỉ mục thường đều được tạo.
+     */
+    @Test
+    void testLoadsSchemaSkippingMySqlOnlyStatements() throws Exception {
+        EmbeddedBackend backend = EmbeddedBackend.inMemory("schema-loader");
+        try (Connection connection = backend.connect()) {
+            SchemaLoader.load(connection, EmbeddedBackend.SCHEMA_RESOURCE);
+
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : List.of("books", "users", "borrowedbooks", "readbooks", "logs",
+                    "reviews")) {
+                try (ResultSet tables = metaData.getTables(null, null, table, null)) {
+                    assertTrue(tables.next(), table);
+                }
+            }
+            assertTrue(indexNames(metaData, "reviews").contains("idx_reviews_book_review"));
+            assertTrue(indexNames(metaData, "borrowedbooks")
+                    .contains("idx_borrowedbooks_user_book"));
+            assertTrue(indexNames(metaData, "books").stream()
+                    .noneMatch(name -> name.startsWith("ft_")));
+        }
+    }
+
+    /**
+     * Script nâng cấp đưa một database tạo từ bản schema cũ về schema hiện tại: thêm cột Returned,
+     * đánh dấu lượt mượn đã trả, trừ các bản đang mượn khỏi Quantity và tạo các chỉ mục mới.
+     */
+    @Test
+    void testUpgradeScriptMigratesOldDatabase() throws Exception {
+        EmbeddedBackend backend = EmbeddedBackend.inMemory("schema-loader-upgrade");
+        try (Connection connection = backend.connect();
+                Statement statement = connection.createStatement()) {
+            SchemaLoader.load(connection, EmbeddedBackend.SCHEMA_RESOURCE);
+            // Đưa database về bản schema cũ
+            statement.execute("DROP INDEX idx_reviews_book_review");
+            statement.execute("DROP INDEX idx_readbooks_user_book");
+            statement.execute("DROP INDEX idx_borrowedbooks_user_book");
+            statement.execute("ALTER TABLE BorrowedBooks DROP COLUMN Returned");
+
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('lan', 'x', 'lan@example.com', 'Lan', 'Pham', '0904', 'USER')");
+            statement.executeUpdate("INSERT INTO Books (BookID, ISBN, Title, Available, Quantity)"
+                    + " VALUES (1, '9780000000001', 'Số đỏ', TRUE, 3),"
+                    + " (2, '9780000000002', 'Mắt biếc', FALSE, 1)");
+            // Lượt 1 đã trả (ReturnDate bị ghi đè bằng ngày trả), lượt 2 và 3 còn hạn
+            statement.executeUpdate("INSERT INTO BorrowedBooks (BorrowID, Username, BookID,"
+                    + " BorrowDate, ReturnDate) VALUES"
+                    + " (1, 'lan', 1, '2024-01-01', '2024-01-10'),"
+                    + " (2, 'lan', 1, CURRENT_DATE, DATEADD('DAY', 14, CURRENT_DATE)),"
+                    + " (3, 'lan', 2, CURRENT_DATE, DATEADD('DAY', 14, CURRENT_DATE))");
+
+            SchemaLoader.load(connection, "/Library_Database_0.1.0_upgrade.sql");
+
+            try (ResultSet loans = statement.executeQuery(
+                    "SELECT Returned FROM BorrowedBooks ORDER BY BorrowID")) {
+                for (boolean expected : new boolean[] {true, false, false}) {
+                    assertTrue(loans.next());
+                    assertEquals(expected, loans.getBoolean(1));
+                }
+            }
+            try (ResultSet books = statement.executeQuery(
+                    "SELECT Quantity, Available FROM Books ORDER BY BookID")) {
+                assertTrue(books.next());
+                assertEquals(2, books.getInt(1));
+                assertTrue(books.getBoolean(2));
+                assertTrue(books.next());
+                assertEquals(0, books.getInt(1));
+                assertFalse(books.getBoolean(2));
+            }
+            DatabaseMetaData metaData = connection.getMetaData();
+            assertTrue(indexNames(metaData, "reviews").contains("idx_reviews_book_review"));
+            assertTrue(indexNames(metaData, "readbooks").contains("idx_readbooks_user_book"));
+            assertTrue(indexNames(metaData, "borrowedbooks")
+                    .contains("idx_borrowedbooks_user_book"));
+        }
+    }
+
+    /** File schema không có trên classpath được báo bằng SQLException nêu rõ đường dẫn. */
+    @Test
+    void testMissingResource() throws Exception {
+        try (Connection connection = EmbeddedBackend.inMemory("schema-loader-missing").connect()) {
+            SQLException error = assertThrows(SQLException.class,
+                    () -> SchemaLoader.load(connection, "/khong-co-schema.sql"));
+            assertTrue(error.getMessage().contains("/khong-co-schema.sql"), error.getMessage());
+        }
+    }
+
+    private static Set<String> indexNames(DatabaseMetaData metaData, String table)
+            throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet indexes = metaData.getIndexInfo(null, null, table, false, false)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase());
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,222 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.example.daos.implementations.BookDaoImpl;
+import org.example.daos.implementations.LogDaoImpl;
+import org.example.models.LogEntity;
+import org.example.utils.ConnectionPool;
+import org.example.utils.DatabaseConnection;
+import org.example.utils.EmbeddedBackend;
+import org.example.utils.StatementCacheStats;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTest {
+
+    private static final String BY_ID = "SELECT Title FROM Books WHERE BookID = ?";
+    private static final String BY_ISBN = "SELECT Title FROM Books WHERE ISBN = ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM Books";
+
+    private static EmbeddedBackend backend;
+    private ConnectionPool pool;
+
+    @BeforeAll
+    static void setUpDatabase() throws SQLException {
+        backend = EmbeddedBackend.inMemory("statement-cache");
+        DatabaseConnection.useBackend(backend);
+        try (Connection connection = DatabaseConnection.openConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO Users (Username, PasswordHash, Email, FirstName,"
+                    + " LastName, PhoneNumber, Role) VALUES"
+                    + " ('an', 'x', 'an@example.com', 'An', 'Nguyen', '0901', 'USER')");
+            statement.executeUpdate("INSERT INTO Books (ISBN, Title, AuthorName, PublisherName,"
+                    + " PublishedDate, Category, Available, Quantity) VALUES"
+                    + " ('9780000000001', 'Dế Mèn phiêu lưu ký', 'Tô Hoài', 'Kim Đồng',"
+                    + " '1941-01-01', 'Thiếu nhi', TRUE, 2),"
+                    + " ('9780000000002', 'Số đỏ', 'Vũ Trọng Phụng', 'Văn học',"
+                    + " '1936-01-01', 'Văn học', TRUE, 1)");
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        DatabaseConnection.useBackend(null);
+    }
+
+    @BeforeEach
+    void createPool() {
+        // Một kết nối vật lý để mọi lần mượn đều dùng chung một bộ nhớ đệm câu lệnh
+        pool = ConnectionPool.builder(backend::connect)
+                .maxPoolSize(1)
+                .statementCacheSize(2)
+                .build();
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    /**
+     * Cùng câu SQL trên các lần mượn kết nối khác nhau dùng lại đúng câu lệnh đã chuẩn bị, tham
+     * số của lần trước không lọt sang lần sau.
+     */
+    @Test
+    void testReuseAcrossBorrows() throws Exception {
+        PreparedStatement first;
+        try (Connection connection = pool.getConnection();
+                PreparedStatement statement = connection.prepareStatement(BY_ID)) {
+            statement.setInt(1, 1);
+            assertEquals("Dế Mèn phiêu lưu ký", title(statement));
+            first = statement.unwrap(PreparedStatement.class);
+            assertSame(connection, statement.getConnection());
+        }
+        try (Connection connection = pool.getConnection();
+                PreparedStatement statement = connection.prepareStatement(BY_ID)) {
+            assertSame(first, statement.unwrap(PreparedStatement.class));
+            statement.setInt(1, 2);
+            assertEquals("Số đỏ", title(statement));
+        }
+
+        StatementCacheStats stats = pool.getStatementCacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.cached());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    /** Vượt giới hạn thì câu lệnh lâu nhất chưa dùng bị đóng và phải chuẩn bị lại. */
+    @Test
+    void testLeastRecentlyUsedEviction() throws Exception {
+        PreparedStatement byId;
+        try (Connection connection = pool.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(BY_ID)) {
+                byId = statement.unwrap(PreparedStatement.class);
+            }
+            connection.prepareStatement(BY_ISBN).close();
+            connection.prepareStatement(BY_ID).close();
+            connection.prepareStatement(COUNT).close();
+            try (PreparedStatement statement = connection.prepareStatement(BY_ID)) {
+                assertSame(byId, statement.unwrap(PreparedStatement.class));
+            }
+        }
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement(BY_ISBN).close();
+        }
+
+        StatementCacheStats stats = pool.getStatementCacheStats();
+        assertEquals(2, stats.cached());
+        assertEquals(2, stats.evictions());
+        assertEquals(4, stats.misses());
+        assertEquals(2, stats.hits());
+    }
+
+    /**
+     * Các trường hợp không được dùng chung: cùng SQL lồng nhau nhận câu lệnh riêng, câu lệnh bị
+     * đổi cấu hình hoặc chưa đóng khi trả kết nối thì bị bỏ, đối tượng đã đóng không dùng được.
+     */
+    @Test
+    void testUnsafeReuseIsAvoided() throws Exception {
+        try (Connection connection = pool.getConnection();
+                PreparedStatement outer = connection.prepareStatement(BY_ID);
+                PreparedStatement inner = connection.prepareStatement(BY_ID)) {
+            assertNotSame(outer.unwrap(PreparedStatement.class),
+                    inner.unwrap(PreparedStatement.class));
+            outer.setInt(1, 1);
+            inner.setInt(1, 2);
+            assertEquals("Dế Mèn phiêu lưu ký", title(outer));
+            assertEquals("Số đỏ", title(inner));
+        }
+        assertEquals(1, pool.getStatementCacheStats().bypassed());
+
+        PreparedStatement limited;
+        try (Connection connection = pool.getConnection();
+                PreparedStatement statement = connection.prepareStatement(BY_ID)) {
+            statement.setMaxRows(1);
+            limited = statement.unwrap(PreparedStatement.class);
+        }
+        assertTrue(limited.isClosed());
+        assertEquals(1, pool.getStatementCacheStats().discarded());
+
+        PreparedStatement leaked;
+        try (Connection connection = pool.getConnection()) {
+            leaked = connection.prepareStatement(COUNT);
+        }
+        assertThrows(SQLException.class, leaked::executeQuery);
+        assertTrue(leaked.isClosed());
+        assertEquals(2, pool.getStatementCacheStats().discarded());
+
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(BY_ISBN);
+            statement.close();
+            try (PreparedStatement reused = connection.prepareStatement(BY_ISBN)) {
+                assertTrue(statement.isClosed());
+                assertFalse(reused.isClosed());
+                assertThrows(SQLException.class, () -> statement.setString(1, "x"));
+            }
+        }
+        assertEquals(1, pool.getStatementCacheStats().cached());
+    }
+
+    /** Các DAO dùng pool chung được phục vụ từ bộ nhớ đệm khi lặp lại cùng truy vấn. */
+    @Test
+    void testDaoQueriesHitCache() throws Exception {
+        BookDaoImpl bookDao = new BookDaoImpl();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Số đỏ", bookDao.findBookByIsbn("9780000000002").getTitle());
+        }
+        StatementCacheStats stats = DatabaseConnection.getPool().getStatementCacheStats();
+        assertEquals(64, stats.capacity());
+        assertTrue(stats.hits() >= 4, stats.toString());
+    }
+
+    /**
+     * Truy vấn IN theo lô và ghi log theo lô với mọi số lượng khóa, số dòng chỉ sinh ra vài câu
+     * SQL cố định, nên không đẩy câu lệnh hay dùng ra khỏi bộ nhớ đệm.
+     */
+    @Test
+    void testDynamicQueriesDoNotEvictHotStatements() throws Exception {
+        BookDaoImpl bookDao = new BookDaoImpl();
+        LogDaoImpl logDao = new LogDaoImpl();
+        assertEquals("Số đỏ", bookDao.findBookByIsbn("9780000000002").getTitle());
+        StatementCacheStats before = DatabaseConnection.getPool().getStatementCacheStats();
+
+        for (int count = 1; count <= 600; count++) {
+            assertEquals(Math.min(count, 2), bookDao.findBooksByIds(
+                    IntStream.rangeClosed(1, count).boxed().toList()).size());
+            assertEquals("Số đỏ", bookDao.findBookByIsbn("9780000000002").getTitle());
+        }
+        for (int count = 1; count <= 50; count++) {
+            List<LogEntity> logs = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                logs.add(new LogEntity(LocalDateTime.of(2024, 1, 1, 0, 0), "an", "Tìm sách"));
+            }
+            logDao.addLogs(logs);
+        }
+
+        StatementCacheStats after = DatabaseConnection.getPool().getStatementCacheStats();
+        assertEquals(before.evictions(), after.evictions(), after.toString());
+        // Năm kích thước danh sách IN và một câu INSERT log, không phụ thuộc số khóa hay số dòng
+        assertTrue(after.misses() - before.misses() <= 6, after.toString());
+        assertTrue(after.hits() - before.hits() >= 1200, after.toString());
+    }
+
+    private static String title(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            assertTrue(resultSet.next());
+            return resultSet.getString(1);
+        }
+    }
+}
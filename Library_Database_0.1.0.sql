@@ -39,6 +39,7 @@ CREATE TABLE BorrowedBooks (
     BookID INT NOT NULL,
     BorrowDate DATE NOT NULL,
     ReturnDate DATE NOT NULL,
+    Returned BOOLEAN NOT NULL DEFAULT FALSE,
     PRIMARY KEY (BorrowID),
     FOREIGN KEY (BookID) REFERENCES Books(BookID) ON UPDATE CASCADE,
     FOREIGN KEY (Username) REFERENCES Users(Username) ON UPDATE CASCADE
@@ -70,4 +71,18 @@ CREATE TABLE Reviews (
     Comment TEXT,
     PRIMARY KEY (ReviewID),
     FOREIGN KEY (BookID) REFERENCES Books(BookID) ON UPDATE CASCADE
-);
\ No newline at end of file
+);
+
+-- Chỉ mục phục vụ phân trang đánh giá theo sách (BookID, ReviewID)
+CREATE INDEX idx_reviews_book_review ON Reviews (BookID, ReviewID);
+
+-- Chỉ mục phủ cho truy vấn lịch sử đọc/mượn theo người dùng (tìm kiếm có ưu tiên lịch sử)
+CREATE INDEX idx_readbooks_user_book ON ReadBooks (Username, BookID);
+CREATE INDEX idx_borrowedbooks_user_book ON BorrowedBooks (Username, BookID);
+
+-- Chỉ mục toàn văn cho tìm kiếm sách (MATCH ... AGAINST), mỗi trường một chỉ mục và một chỉ mục gộp
+CREATE FULLTEXT INDEX ft_books_title ON Books (Title);
+CREATE FULLTEXT INDEX ft_books_author ON Books (AuthorName);
+CREATE FULLTEXT INDEX ft_books_category ON Books (Category);
+CREATE FULLTEXT INDEX ft_books_publisher ON Books (PublisherName);
+CREATE FULLTEXT INDEX ft_books_all ON Books (Title, AuthorName, Category, PublisherName);
@@ -0,0 +1,32 @@
+-- Nâng cấp một database Library đã tạo từ bản cũ của Library_Database_0.1.0.sql (trước khi có cột
+-- BorrowedBooks.Returned và các chỉ mục bên dưới). Chạy một lần; không chạy lại file schema vì file
+-- đó xóa toàn bộ dữ liệu.
+USE Library;
+
+-- Lượt mượn được đánh dấu đã trả bằng cột riêng, ReturnDate chỉ còn là hạn trả hoặc ngày trả
+ALTER TABLE BorrowedBooks ADD COLUMN Returned BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Bản cũ ghi đè ReturnDate bằng ngày trả và coi lượt có ReturnDate sau hôm nay là đang mượn; dùng
+-- cùng quy ước đó. Lượt quá hạn chưa trả không phân biệt được với lượt đã trả, thủ thư cần kiểm tra
+-- lại các lượt này sau khi nâng cấp.
+UPDATE BorrowedBooks SET Returned = (ReturnDate <= CURRENT_DATE);
+
+-- Quantity nay là số bản còn trên kệ (mượn trừ 1, trả cộng 1) thay vì tổng số bản
+UPDATE Books SET Quantity = GREATEST(Quantity - (
+    SELECT COUNT(*) FROM BorrowedBooks
+    WHERE BorrowedBooks.BookID = Books.BookID AND BorrowedBooks.Returned = FALSE), 0);
+UPDATE Books SET Available = (Quantity > 0);
+
+-- Chỉ mục phục vụ phân trang đánh giá theo sách (BookID, ReviewID)
+CREATE INDEX idx_reviews_book_review ON Reviews (BookID, ReviewID);
+
+-- Chỉ mục phủ cho truy vấn lịch sử đọc/mượn theo người dùng (tìm kiếm có ưu tiên lịch sử)
+CREATE INDEX idx_readbooks_user_book ON ReadBooks (Username, BookID);
+CREATE INDEX idx_borrowedbooks_user_book ON BorrowedBooks (Username, BookID);
+
+-- Chỉ mục toàn văn cho tìm kiếm sách (MATCH ... AGAINST), mỗi trường một chỉ mục và một chỉ mục gộp
+CREATE FULLTEXT INDEX ft_books_title ON Books (Title);
+CREATE FULLTEXT INDEX ft_books_author ON Books (AuthorName);
+CREATE FULLTEXT INDEX ft_books_category ON Books (Category);
+CREATE FULLTEXT INDEX ft_books_publisher ON Books (PublisherName);
+CREATE FULLTEXT INDEX ft_books_all ON Books (Title, AuthorName, Category, PublisherName);